@@ -0,0 +1,58 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.snajder.d.colorlib.CIELab;
+import com.snajder.d.colorlib.HSL;
+import com.snajder.d.colorlib.HSLRYB;
+import com.snajder.d.colorlib.RGB;
+import com.snajder.d.colorlib.RYB;
+import com.snajder.d.colorlib.XYZ;
+
+/**
+ * Benchmark inputs in all color spaces, generated from packed colors of the
+ * selected {@link Distribution}.
+ */
+@State(Scope.Thread)
+public class ColorInputs {
+	/**
+	 * Number of colors processed by one benchmark invocation.
+	 */
+	public static final int SIZE = 1024;
+
+	@Param({ "RANDOM", "GRAYS", "PRIMARIES" })
+	public Distribution distribution;
+
+	public int[] pixels;
+	public RGB[] rgb;
+	public HSL[] hsl;
+	public RYB[] ryb;
+	public HSLRYB[] hslRyb;
+	public XYZ[] xyz;
+	public CIELab[] lab;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		pixels = distribution.pixels(SIZE);
+		rgb = new RGB[SIZE];
+		hsl = new HSL[SIZE];
+		ryb = new RYB[SIZE];
+		hslRyb = new HSLRYB[SIZE];
+		xyz = new XYZ[SIZE];
+		lab = new CIELab[SIZE];
+
+		for (int i = 0; i < SIZE; i++) {
+			int p = pixels[i];
+			rgb[i] = RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+			hsl[i] = HSL.from(rgb[i]);
+			ryb[i] = RYB.from(rgb[i]);
+			hslRyb[i] = HSLRYB.from(ryb[i]);
+			xyz[i] = XYZ.from(rgb[i]);
+			lab[i] = CIELab.from(xyz[i]);
+		}
+	}
+}
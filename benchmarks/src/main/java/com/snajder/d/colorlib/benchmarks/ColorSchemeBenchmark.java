@@ -0,0 +1,63 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.snajder.d.colorlib.ColorSchemeRYB;
+import com.snajder.d.colorlib.RGB;
+
+/**
+ * Throughput of {@link ColorSchemeRYB} harmonies. Scores are per base color.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+public class ColorSchemeBenchmark {
+
+	@Benchmark
+	public void triads(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(ColorSchemeRYB.getTriads(rgb));
+		}
+	}
+
+	@Benchmark
+	public void complementary(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(ColorSchemeRYB.getComplementary(rgb));
+		}
+	}
+
+	@Benchmark
+	public void tetradic(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(ColorSchemeRYB.getTetradic(rgb));
+		}
+	}
+
+	@Benchmark
+	public void analogous(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(ColorSchemeRYB.getAnalogous(rgb));
+		}
+	}
+
+	@Benchmark
+	public void monochromatic3(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(ColorSchemeRYB.getMonochromatic3(rgb));
+		}
+	}
+}
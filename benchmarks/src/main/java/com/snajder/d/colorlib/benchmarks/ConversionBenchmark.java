@@ -0,0 +1,125 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.snajder.d.colorlib.CIELab;
+import com.snajder.d.colorlib.HSL;
+import com.snajder.d.colorlib.HSLRYB;
+import com.snajder.d.colorlib.RGB;
+import com.snajder.d.colorlib.RYB;
+import com.snajder.d.colorlib.XYZ;
+
+/**
+ * Throughput of all <code>from(...)</code> conversions. Scores are per
+ * converted color.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(ColorInputs.SIZE)
+public class ConversionBenchmark {
+	private float[] labOut;
+
+	@Setup
+	public void setUp() {
+		labOut = new float[ColorInputs.SIZE * 3];
+	}
+
+	@Benchmark
+	public void rgbFromHSL(ColorInputs in, Blackhole bh) {
+		for (HSL hsl : in.hsl) {
+			bh.consume(RGB.from(hsl));
+		}
+	}
+
+	@Benchmark
+	public void rgbFromRYB(ColorInputs in, Blackhole bh) {
+		for (RYB ryb : in.ryb) {
+			bh.consume(RGB.from(ryb));
+		}
+	}
+
+	@Benchmark
+	public void hslFromRGB(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(HSL.from(rgb));
+		}
+	}
+
+	@Benchmark
+	public void hslRybFromRYB(ColorInputs in, Blackhole bh) {
+		for (RYB ryb : in.ryb) {
+			bh.consume(HSLRYB.from(ryb));
+		}
+	}
+
+	@Benchmark
+	public void rybFromRGB(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(RYB.from(rgb));
+		}
+	}
+
+	@Benchmark
+	public void rybFromHSLRYB(ColorInputs in, Blackhole bh) {
+		for (HSLRYB hsl : in.hslRyb) {
+			bh.consume(RYB.from(hsl));
+		}
+	}
+
+	@Benchmark
+	public void xyzFromRGB(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(XYZ.from(rgb));
+		}
+	}
+
+	@Benchmark
+	public void labFromRGB(ColorInputs in, Blackhole bh) {
+		for (RGB rgb : in.rgb) {
+			bh.consume(CIELab.from(rgb));
+		}
+	}
+
+	@Benchmark
+	public void labFromXYZ(ColorInputs in, Blackhole bh) {
+		for (XYZ xyz : in.xyz) {
+			bh.consume(CIELab.from(xyz));
+		}
+	}
+
+	@Benchmark
+	public void labFromXYZFast(ColorInputs in, Blackhole bh) {
+		for (XYZ xyz : in.xyz) {
+			bh.consume(CIELab.from(xyz, CIELab.Precision.FAST));
+		}
+	}
+
+	@Benchmark
+	public float[] labBulk(ColorInputs in) {
+		CIELab.from(in.pixels, 0, in.pixels.length, labOut, 0);
+		return labOut;
+	}
+
+	@Benchmark
+	public float[] labBulkFast(ColorInputs in) {
+		CIELab.from(in.pixels, 0, in.pixels.length, labOut, 0, CIELab.Precision.FAST);
+		return labOut;
+	}
+}
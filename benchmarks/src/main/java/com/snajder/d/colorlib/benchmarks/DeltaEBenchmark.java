@@ -0,0 +1,63 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.snajder.d.colorlib.CIELab;
+import com.snajder.d.colorlib.DeltaE;
+import com.snajder.d.colorlib.PreparedLab;
+
+/**
+ * Throughput of {@link DeltaE} metrics on CIELab pairs and on one query
+ * against prepared colors. Scores are per distance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+@State(Scope.Thread)
+public class DeltaEBenchmark {
+
+	@Param({ "CIE76", "CIE94", "CIEDE2000" })
+	public DeltaE metric;
+
+	private PreparedLab[] prepared;
+	private float[] distances;
+
+	@Setup
+	public void setUp(ColorInputs in) {
+		prepared = PreparedLab.from(in.lab);
+		distances = new float[prepared.length];
+	}
+
+	@Benchmark
+	public void pairs(ColorInputs in, Blackhole bh) {
+		CIELab[] lab = in.lab;
+		CIELab previous = lab[lab.length - 1];
+		for (CIELab c : lab) {
+			bh.consume(metric.distance(c, previous));
+			previous = c;
+		}
+	}
+
+	@Benchmark
+	public float[] preparedBatch() {
+		metric.distance(prepared[0], prepared, 0, prepared.length, distances, 0);
+		return distances;
+	}
+}
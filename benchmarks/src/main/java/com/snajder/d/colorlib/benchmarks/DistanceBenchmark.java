@@ -0,0 +1,37 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.snajder.d.colorlib.CIELab;
+
+/**
+ * Throughput of color distance calculation. Scores are per distance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+public class DistanceBenchmark {
+
+	@Benchmark
+	public void cie76(ColorInputs in, Blackhole bh) {
+		CIELab[] lab = in.lab;
+		CIELab previous = lab[lab.length - 1];
+		for (CIELab c : lab) {
+			bh.consume(c.distance(previous));
+			previous = c;
+		}
+	}
+}
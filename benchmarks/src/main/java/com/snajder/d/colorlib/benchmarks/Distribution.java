@@ -0,0 +1,71 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Distribution of benchmark input colors.
+ */
+public enum Distribution {
+	/**
+	 * Uniformly distributed colors of the whole 24-bit cube.
+	 */
+	RANDOM {
+		@Override
+		int next(Random random) {
+			return random.nextInt(1 << 24);
+		}
+	},
+
+	/**
+	 * Colors with equal red, green and blue components.
+	 */
+	GRAYS {
+		@Override
+		int next(Random random) {
+			int v = random.nextInt(256);
+			return (v << 16) | (v << 8) | v;
+		}
+	},
+
+	/**
+	 * Fully saturated colors - one component 255, one 0 and one random.
+	 */
+	PRIMARIES {
+		@Override
+		int next(Random random) {
+			int v = random.nextInt(256);
+			switch (random.nextInt(6)) {
+			case 0:
+				return 0xFF0000 | (v << 8);
+			case 1:
+				return 0xFF0000 | v;
+			case 2:
+				return 0x00FF00 | (v << 16);
+			case 3:
+				return 0x00FF00 | v;
+			case 4:
+				return 0x0000FF | (v << 16);
+			default:
+				return 0x0000FF | (v << 8);
+			}
+		}
+	};
+
+	abstract int next(Random random);
+
+	/**
+	 * Creates packed <code>0xRRGGBB</code> colors of this distribution.
+	 * 
+	 * @param size
+	 *            - the number of colors
+	 * @return the packed colors
+	 */
+	public int[] pixels(int size) {
+		Random random = new Random(size);
+		int[] pixels = new int[size];
+		for (int i = 0; i < size; i++) {
+			pixels[i] = next(random);
+		}
+		return pixels;
+	}
+}
@@ -0,0 +1,48 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.snajder.d.colorlib.ColorSchemeRYB;
+
+/**
+ * Throughput of bulk {@link ColorSchemeRYB} harmonies over packed colors.
+ * Scores are per base color, comparable with {@link ColorSchemeBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+@State(Scope.Thread)
+public class HarmonyBulkBenchmark {
+
+	@Param
+	public ColorSchemeRYB.Harmony harmony;
+
+	private int[] dst;
+
+	@Setup
+	public void setUp() {
+		dst = new int[ColorInputs.SIZE * harmony.size()];
+	}
+
+	@Benchmark
+	public int[] bulk(ColorInputs in) {
+		ColorSchemeRYB.get(harmony, in.pixels, 0, ColorInputs.SIZE, dst, 0);
+		return dst;
+	}
+}
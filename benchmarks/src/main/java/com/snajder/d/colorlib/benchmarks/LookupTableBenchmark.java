@@ -0,0 +1,70 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.snajder.d.colorlib.ColorLookupTable;
+import com.snajder.d.colorlib.ColorSchemeRYB;
+
+/**
+ * Throughput of the complementary color chain (RGB, RYB, HSLRYB hue shift,
+ * RYB, RGB) computed per color and applied as a baked
+ * {@link ColorLookupTable}. Scores are per color.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+@State(Scope.Thread)
+public class LookupTableBenchmark {
+
+	private ColorLookupTable tetrahedral;
+	private ColorLookupTable trilinear;
+	private int[] dst;
+
+	@Setup
+	public void setUp() {
+		tetrahedral = ColorLookupTable.bake(new IntUnaryOperator() {
+			@Override
+			public int applyAsInt(int rgb) {
+				int[] dst = new int[1];
+				ColorSchemeRYB.get(ColorSchemeRYB.Harmony.COMPLEMENTARY, new int[] { rgb }, 0, 1, dst, 0);
+				return dst[0];
+			}
+		});
+		trilinear = tetrahedral.withInterpolation(ColorLookupTable.Interpolation.TRILINEAR);
+		dst = new int[ColorInputs.SIZE];
+	}
+
+	@Benchmark
+	public int[] chain(ColorInputs in) {
+		ColorSchemeRYB.get(ColorSchemeRYB.Harmony.COMPLEMENTARY, in.pixels, 0, ColorInputs.SIZE, dst, 0);
+		return dst;
+	}
+
+	@Benchmark
+	public int[] tetrahedral(ColorInputs in) {
+		tetrahedral.apply(in.pixels, 0, ColorInputs.SIZE, dst, 0);
+		return dst;
+	}
+
+	@Benchmark
+	public int[] trilinear(ColorInputs in) {
+		trilinear.apply(in.pixels, 0, ColorInputs.SIZE, dst, 0);
+		return dst;
+	}
+}
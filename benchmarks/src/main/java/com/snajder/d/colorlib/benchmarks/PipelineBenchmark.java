@@ -0,0 +1,67 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.snajder.d.colorlib.HSLRYB;
+import com.snajder.d.colorlib.Pipeline;
+import com.snajder.d.colorlib.RGB;
+import com.snajder.d.colorlib.RYB;
+import com.snajder.d.colorlib.Space;
+
+/**
+ * Throughput of RGB, RYB, HSLRYB hue rotation, RYB, RGB chain composed from
+ * objects and compiled as {@link Pipeline}. Scores are per color.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ColorInputs.SIZE)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+	private Pipeline pipeline;
+	private int[] dst;
+
+	@Setup
+	public void setUp() {
+		pipeline = Pipeline.from(Space.RGB).to(Space.HSLRYB).rotateHue(120f).to(Space.RGB);
+		dst = new int[ColorInputs.SIZE];
+	}
+
+	@Benchmark
+	public int[] objects(ColorInputs in) {
+		for (int i = 0; i < ColorInputs.SIZE; i++) {
+			HSLRYB hsl = HSLRYB.from(RYB.from(in.rgb[i]));
+			hsl.addH(120f);
+			RGB rgb = RGB.from(RYB.from(hsl));
+			dst[i] = (rgb.getR() << 16) | (rgb.getG() << 8) | rgb.getB();
+		}
+		return dst;
+	}
+
+	@Benchmark
+	public int[] pipeline(ColorInputs in) {
+		pipeline.apply(in.pixels, 0, ColorInputs.SIZE, dst, 0);
+		return dst;
+	}
+
+	@Benchmark
+	public int[] pipelineStream(ColorInputs in) {
+		return pipeline.apply(IntStream.of(in.pixels)).toArray();
+	}
+}
@@ -0,0 +1,83 @@
+package com.snajder.d.colorlib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.snajder.d.colorlib.CIELab;
+import com.snajder.d.colorlib.XYZ;
+
+/**
+ * Compares vectorized and scalar bulk conversions of a full HD frame. Each
+ * benchmark runs in a fork with the <code>jdk.incubator.vector</code> module
+ * added (vector) or with the vector kernel disabled (scalar). Requires JDK
+ * 17+. Scores are per pixel.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+@OperationsPerInvocation(VectorKernelBenchmark.PIXELS)
+public class VectorKernelBenchmark {
+	static final int PIXELS = 1920 * 1080;
+
+	private static final String VECTOR = "--add-modules=jdk.incubator.vector";
+	private static final String SCALAR = "-Dcolorlib.vector=false";
+
+	@Param({ "RANDOM", "GRAYS", "PRIMARIES" })
+	public Distribution distribution;
+
+	private int[] pixels;
+	private float[] c0;
+	private float[] c1;
+	private float[] c2;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		pixels = distribution.pixels(PIXELS);
+		c0 = new float[PIXELS];
+		c1 = new float[PIXELS];
+		c2 = new float[PIXELS];
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = VECTOR)
+	public float[] xyzVector() {
+		XYZ.from(pixels, 0, PIXELS, c0, c1, c2, 0);
+		return c0;
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = SCALAR)
+	public float[] xyzScalar() {
+		XYZ.from(pixels, 0, PIXELS, c0, c1, c2, 0);
+		return c0;
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = VECTOR)
+	public float[] labFastVector() {
+		CIELab.from(pixels, 0, PIXELS, c0, c1, c2, 0, CIELab.Precision.FAST);
+		return c0;
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = SCALAR)
+	public float[] labFastScalar() {
+		CIELab.from(pixels, 0, PIXELS, c0, c1, c2, 0, CIELab.Precision.FAST);
+		return c0;
+	}
+}
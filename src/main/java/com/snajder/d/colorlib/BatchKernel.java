@@ -0,0 +1,37 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Kernel processing many pixels at once, used by bulk conversions of
+ * {@link XYZ} and {@link CIELab}.
+ * <p>
+ * Kernel may process only a prefix of the range (e.g. whole multiples of
+ * vector length) and returns number of processed values. The caller converts
+ * the rest with scalar code. Results must be bit-identical with scalar
+ * conversions.
+ * </p>
+ * <p>
+ * Components are written to <code>pos + i * stride</code> of each output
+ * array, which covers both separate arrays (stride 1) and interleaved arrays
+ * (stride 3).
+ * </p>
+ */
+interface BatchKernel {
+
+	/**
+	 * Converts packed RGB values to XYZ, same as {@link XYZ#from(RGB)}.
+	 * 
+	 * @return number of converted values
+	 */
+	int xyz(int[] rgb, int offset, int length, float[] x, int xPos, float[] y, int yPos, float[] z, int zPos,
+			int stride);
+
+	/**
+	 * Converts packed RGB values to CIELab, same as
+	 * {@link CIELab#from(RGB, CIELab.Precision)} with
+	 * {@link CIELab.Precision#FAST} precision.
+	 * 
+	 * @return number of converted values
+	 */
+	int labFast(int[] rgb, int offset, int length, float[] l, int lPos, float[] a, int aPos, float[] b, int bPos,
+			int stride);
+}
@@ -0,0 +1,38 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Holds optional vectorized {@link BatchKernel}.
+ * <p>
+ * Vectorized kernel is built on <code>jdk.incubator.vector</code> module. It
+ * is compiled only when the library is built on JDK 17 or newer and it is
+ * used only when the JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>. Setting system property
+ * <code>colorlib.vector</code> to <code>false</code> disables it. In all other
+ * cases bulk conversions use scalar loops.
+ * </p>
+ */
+final class BatchKernels {
+	private static final String VECTOR_KERNEL = "com.snajder.d.colorlib.VectorBatchKernel";
+
+	/**
+	 * Vectorized kernel or <code>null</code> if it is not available.
+	 */
+	static final BatchKernel VECTOR = loadVector();
+
+	private BatchKernels() {
+	}
+
+	private static BatchKernel loadVector() {
+		if (!Boolean.parseBoolean(System.getProperty("colorlib.vector", "true"))) {
+			return null;
+		}
+		try {
+			return (BatchKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (LinkageError e) {
+			// older JVM or incubator module not added
+			return null;
+		}
+	}
+}
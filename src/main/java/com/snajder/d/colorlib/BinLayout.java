@@ -0,0 +1,228 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+
+/**
+ * Layout of histogram bins over components of one {@link Space}.
+ * <p>
+ * Range of each component is divided into given number of bins of equal
+ * width, and bins of the three components make a grid of
+ * <code>bins0 * bins1 * bins2</code> cells. Components outside of the range
+ * are counted in the first or the last bin. For example HSL layout with 36,
+ * 10 and 1 bins counts colors in 10 degree hue and 10% saturation cells,
+ * ignoring lightness.
+ * </p>
+ * <p>
+ * Default ranges ({@link #of(Space, int, int, int)}) cover all RGB colors:
+ * 0 - 256 for {@link Space#RGB} and {@link Space#RYB}, 0 - 360 and 0 - 1 for
+ * HSL spaces and the bounds of the corners of RGB cube for {@link Space#XYZ}
+ * and {@link Space#CIELAB}. Instances are immutable.
+ * </p>
+ */
+public final class BinLayout {
+	private static final float[][] MIN = new float[Space.values().length][];
+	private static final float[][] MAX = new float[Space.values().length][];
+
+	static {
+		int[] corners = { 0x000000, 0x0000FF, 0x00FF00, 0x00FFFF, 0xFF0000, 0xFF00FF, 0xFFFF00, 0xFFFFFF };
+		float[] v = new float[corners.length * 3];
+
+		for (Space space : Space.values()) {
+			float[] min;
+			float[] max;
+			switch (space) {
+			case RGB:
+			case RYB:
+				min = new float[] { 0f, 0f, 0f };
+				max = new float[] { 256f, 256f, 256f };
+				break;
+			case HSL:
+			case HSLRYB:
+				min = new float[] { 0f, 0f, 0f };
+				max = new float[] { 360f, 1f, 1f };
+				break;
+			default:
+				space.fromRGB(corners, 0, corners.length, v, 0);
+				min = new float[] { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+				max = new float[] { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+				for (int i = 0; i < v.length; i++) {
+					min[i % 3] = Math.min(min[i % 3], v[i]);
+					max[i % 3] = Math.max(max[i % 3], v[i]);
+				}
+				break;
+			}
+			MIN[space.ordinal()] = min;
+			MAX[space.ordinal()] = max;
+		}
+	}
+
+	private final Space space;
+	private final int[] bins;
+	private final float[] min;
+	private final float[] scale;
+	private final float[] max;
+
+	private BinLayout(Space space, int[] bins, float[] min, float[] max) {
+		if (space == null) {
+			throw new NullPointerException("space");
+		}
+		long size = 1;
+		for (int c = 0; c < 3; c++) {
+			if (bins[c] < 1) {
+				throw new IllegalArgumentException("Number of bins must be positive: " + bins[c]);
+			}
+			if (!(min[c] < max[c])) {
+				throw new IllegalArgumentException("Invalid range of component " + c + ": " + min[c] + " - "
+						+ max[c]);
+			}
+			size *= bins[c];
+		}
+		if (size > Integer.MAX_VALUE / 8) {
+			throw new IllegalArgumentException("Too many bins: " + size);
+		}
+
+		this.space = space;
+		this.bins = bins;
+		this.min = min;
+		this.max = max;
+		this.scale = new float[3];
+		for (int c = 0; c < 3; c++) {
+			scale[c] = bins[c] / (max[c] - min[c]);
+		}
+	}
+
+	/**
+	 * Creates layout with default ranges of the space.
+	 *
+	 * @param space
+	 *            - the space of binned colors
+	 * @param bins0
+	 *            - number of bins of the first component
+	 * @param bins1
+	 *            - number of bins of the second component
+	 * @param bins2
+	 *            - number of bins of the third component
+	 * @return the layout
+	 */
+	public static BinLayout of(Space space, int bins0, int bins1, int bins2) {
+		if (space == null) {
+			throw new NullPointerException("space");
+		}
+		return new BinLayout(space, new int[] { bins0, bins1, bins2 }, MIN[space.ordinal()].clone(),
+				MAX[space.ordinal()].clone());
+	}
+
+	/**
+	 * Creates layout with specified ranges.
+	 *
+	 * @param space
+	 *            - the space of binned colors
+	 * @param bins
+	 *            - number of bins of each component
+	 * @param min
+	 *            - lower bound of each component (inclusive)
+	 * @param max
+	 *            - upper bound of each component (exclusive)
+	 * @return the layout
+	 */
+	public static BinLayout of(Space space, int[] bins, float[] min, float[] max) {
+		if (bins.length != 3 || min.length != 3 || max.length != 3) {
+			throw new IllegalArgumentException("Bins and ranges must have 3 components");
+		}
+		return new BinLayout(space, bins.clone(), min.clone(), max.clone());
+	}
+
+	/**
+	 * Gets the space of binned colors.
+	 *
+	 * @return the space
+	 */
+	public Space getSpace() {
+		return space;
+	}
+
+	/**
+	 * Gets number of bins of a component.
+	 *
+	 * @param channel
+	 *            - index of the component (0 - 2)
+	 * @return the number of bins
+	 */
+	public int getBins(int channel) {
+		return bins[channel];
+	}
+
+	/**
+	 * Gets lower bound of a component.
+	 *
+	 * @param channel
+	 *            - index of the component (0 - 2)
+	 * @return the lower bound
+	 */
+	public float getMin(int channel) {
+		return min[channel];
+	}
+
+	/**
+	 * Gets upper bound of a component.
+	 *
+	 * @param channel
+	 *            - index of the component (0 - 2)
+	 * @return the upper bound
+	 */
+	public float getMax(int channel) {
+		return max[channel];
+	}
+
+	/**
+	 * Gets total number of bins.
+	 *
+	 * @return the number of bins
+	 */
+	public int size() {
+		return bins[0] * bins[1] * bins[2];
+	}
+
+	/**
+	 * Gets bin of color with specified components. Bins are ordered by the
+	 * first component, then by the second and the third.
+	 *
+	 * @param c0
+	 *            - the first component
+	 * @param c1
+	 *            - the second component
+	 * @param c2
+	 *            - the third component
+	 * @return index of the bin
+	 */
+	public int bin(float c0, float c1, float c2) {
+		return (index(0, c0) * bins[1] + index(1, c1)) * bins[2] + index(2, c2);
+	}
+
+	private int index(int c, float v) {
+		int i = (int) ((v - min[c]) * scale[c]);
+		return i < 0 ? 0 : i >= bins[c] ? bins[c] - 1 : i;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BinLayout)) {
+			return false;
+		}
+		BinLayout other = (BinLayout) obj;
+		return space == other.space && Arrays.equals(bins, other.bins) && Arrays.equals(min, other.min)
+				&& Arrays.equals(max, other.max);
+	}
+
+	@Override
+	public int hashCode() {
+		return ((space.hashCode() * 31 + Arrays.hashCode(bins)) * 31 + Arrays.hashCode(min)) * 31
+				+ Arrays.hashCode(max);
+	}
+
+	@Override
+	public String toString() {
+		return "BinLayout[space=" + space + ", bins=" + Arrays.toString(bins) + ", min=" + Arrays.toString(min)
+				+ ", max=" + Arrays.toString(max) + "]";
+	}
+}
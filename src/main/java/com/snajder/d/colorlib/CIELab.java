@@ -1,5 +1,9 @@
 package com.snajder.d.colorlib;
 
+import com.snajder.d.colorlib.util.ArrayRanges;
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
 /**
  * Represents the CIELab color. CIELab could be used for determining distance
  * between two colors (using deltaE calculation).
@@ -15,10 +19,40 @@ public class CIELab {
 	public static final float Y_N = 100.0f;
 	public static final float Z_N = 108.883f;
 
-	private static final float C1 = (float) Math.pow(6.0 / 29.0, 3d);
-	private static final float C2 = 1f / 3f;
-	private static final float C3 = (float) ((1f / 3f) * Math.pow(29f / 6f, 2));
-	private static final float C4 = 4f / 29f;
+	static final float C1 = (float) Math.pow(6.0 / 29.0, 3d);
+	static final float C2 = 1f / 3f;
+	static final float C3 = (float) ((1f / 3f) * Math.pow(29f / 6f, 2));
+	static final float C4 = 4f / 29f;
+	static final float C5 = 6f / 29f;
+
+	/**
+	 * Magic constant giving initial cube root approximation from float bits.
+	 */
+	static final int CBRT_MAGIC = 709958130;
+
+	/**
+	 * Precision of XYZ to CIELab conversion.
+	 */
+	public enum Precision {
+		/**
+		 * Cube root is calculated using {@link Math#pow(double, double)}.
+		 */
+		EXACT,
+
+		/**
+		 * Cube root is approximated using bit-level initial guess refined by
+		 * two Newton iterations. Across the whole 24-bit sRGB cube, CIELab
+		 * values differ from {@link #EXACT} values by deltaE of at most
+		 * {@value CIELab#FAST_MAX_DELTA_E}.
+		 */
+		FAST
+	}
+
+	/**
+	 * Maximum deltaE between {@link Precision#FAST} and
+	 * {@link Precision#EXACT} conversion of any 24-bit sRGB color.
+	 */
+	public static final float FAST_MAX_DELTA_E = 5e-5f;
 
 	private float l;
 	private float a;
@@ -108,15 +142,31 @@ public class CIELab {
 	 *      difference on Wiki</a>
 	 */
 	public float distance(CIELab lab) {
+		long start = ColorMetrics.start();
 		float ll = getL() - lab.getL();
 		float aa = getA() - lab.getA();
 		float bb = getB() - lab.getB();
 
 		float delta_e = (float) Math.sqrt(ll * ll + aa * aa + bb * bb);
 
+		ColorMetrics.record(ColorOperation.DISTANCE, start, 1);
 		return delta_e;
 	}
 
+	/**
+	 * Calculates deltaE between this and specified CIELab color using
+	 * specified metric.
+	 * 
+	 * @param lab
+	 *            - The CIELab color to which calculate distance
+	 * @param metric
+	 *            - The deltaE metric, this color is used as reference color
+	 * @return the distance
+	 */
+	public float distance(CIELab lab, DeltaE metric) {
+		return metric.distance(this, lab);
+	}
+
 	/**
 	 * Creates CIELab based on specified RGB value.
 	 * 
@@ -125,9 +175,23 @@ public class CIELab {
 	 * @return the CIELab value
 	 */
 	public static CIELab from(RGB rgb) {
-		XYZ xyz = XYZ.from(rgb);
+		return from(rgb, Precision.EXACT);
+	}
 
-		return from(xyz);
+	/**
+	 * Creates CIELab based on specified RGB value using specified precision.
+	 * 
+	 * @param rgb
+	 *            - the RGB value
+	 * @param precision
+	 *            - the precision of the conversion
+	 * @return the CIELab value
+	 */
+	public static CIELab from(RGB rgb, Precision precision) {
+		long start = ColorMetrics.start();
+		CIELab lab = convert(XYZ.from(rgb), precision == Precision.FAST);
+		ColorMetrics.record(ColorOperation.CIELAB_FROM, start, 1);
+		return lab;
 	}
 
 	/**
@@ -138,13 +202,216 @@ public class CIELab {
 	 * @return the CIELab value
 	 */
 	public static CIELab from(XYZ xyz) {
-		float ll = 116f * f(xyz.getY() / Y_N) - 16f;
-		float aa = 500 * (f(xyz.getX() / X_N) - f(xyz.getY() / Y_N));
-		float bb = 200 * (f(xyz.getY() / Y_N) - f(xyz.getZ() / Z_N));
+		return from(xyz, Precision.EXACT);
+	}
 
+	/**
+	 * Creates CIELab based on specified XYZ value using specified precision.
+	 * 
+	 * @param xyz
+	 *            - the XYZ value
+	 * @param precision
+	 *            - the precision of the conversion
+	 * @return the CIELab value
+	 */
+	public static CIELab from(XYZ xyz, Precision precision) {
+		long start = ColorMetrics.start();
+		CIELab lab = convert(xyz, precision == Precision.FAST);
+		ColorMetrics.record(ColorOperation.CIELAB_FROM, start, 1);
+		return lab;
+	}
+
+	/**
+	 * XYZ to CIELab conversion shared by instrumented methods.
+	 */
+	private static CIELab convert(XYZ xyz, boolean fast) {
+		float fy = f(xyz.getY() / Y_N, fast);
+
+		float ll = 116f * fy - 16f;
+		float aa = 500 * (f(xyz.getX() / X_N, fast) - fy);
+		float bb = 200 * (fy - f(xyz.getZ() / Z_N, fast));
+
+		return new CIELab(ll, aa, bb);
+	}
+
+	/**
+	 * Creates CIELab based on specified XYZ value relative to specified white
+	 * point. {@link #from(XYZ)} uses {@link WhitePoint#D65}.
+	 * 
+	 * @param xyz
+	 *            - the XYZ value
+	 * @param white
+	 *            - the reference white
+	 * @return the CIELab value
+	 */
+	public static CIELab from(XYZ xyz, WhitePoint white) {
+		long start = ColorMetrics.start();
+		float fy = f(xyz.getY() / white.getY(), false);
+
+		float ll = 116f * fy - 16f;
+		float aa = 500 * (f(xyz.getX() / white.getX(), false) - fy);
+		float bb = 200 * (fy - f(xyz.getZ() / white.getZ(), false));
+
+		ColorMetrics.record(ColorOperation.CIELAB_FROM, start, 1);
 		return new CIELab(ll, aa, bb);
 	}
 
+	/**
+	 * Converts packed RGB values to CIELab and writes L, A and B components
+	 * into separate arrays (structure of arrays).
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored). Results are the same as with {@link #from(RGB)}, but no
+	 * objects are allocated.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param l
+	 *            - the array receiving L components
+	 * @param a
+	 *            - the array receiving A components
+	 * @param b
+	 *            - the array receiving B components
+	 * @param dstOffset
+	 *            - index in destination arrays where first result is written
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] l, float[] a, float[] b, int dstOffset) {
+		from(rgb, offset, length, l, a, b, dstOffset, Precision.EXACT);
+	}
+
+	/**
+	 * Converts packed RGB values to CIELab using specified precision and
+	 * writes L, A and B components into separate arrays.
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param l
+	 *            - the array receiving L components
+	 * @param a
+	 *            - the array receiving A components
+	 * @param b
+	 *            - the array receiving B components
+	 * @param dstOffset
+	 *            - index in destination arrays where first result is written
+	 * @param precision
+	 *            - the precision of the conversion
+	 * @see #from(int[], int, int, float[], float[], float[], int)
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] l, float[] a, float[] b, int dstOffset,
+			Precision precision) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(l.length, dstOffset, length);
+		ArrayRanges.check(a.length, dstOffset, length);
+		ArrayRanges.check(b.length, dstOffset, length);
+
+		long start = ColorMetrics.start();
+		convert(rgb, offset, length, l, dstOffset, a, dstOffset, b, dstOffset, 1, precision == Precision.FAST);
+		ColorMetrics.record(ColorOperation.CIELAB_FROM, start, length);
+	}
+
+	/**
+	 * Converts packed RGB values to CIELab and writes components interleaved
+	 * (<code>l0, a0, b0, l1, a1, b1, ...</code>) into specified array.
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored). Results are the same as with {@link #from(RGB)}, but no
+	 * objects are allocated.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param lab
+	 *            - the array receiving interleaved L, A and B components
+	 * @param dstOffset
+	 *            - index in destination array where first L component is
+	 *            written
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] lab, int dstOffset) {
+		from(rgb, offset, length, lab, dstOffset, Precision.EXACT);
+	}
+
+	/**
+	 * Converts packed RGB values to CIELab using specified precision and
+	 * writes components interleaved into specified array.
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param lab
+	 *            - the array receiving interleaved L, A and B components
+	 * @param dstOffset
+	 *            - index in destination array where first L component is
+	 *            written
+	 * @param precision
+	 *            - the precision of the conversion
+	 * @see #from(int[], int, int, float[], int)
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] lab, int dstOffset, Precision precision) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(lab.length, dstOffset, length * 3);
+
+		long start = ColorMetrics.start();
+		convert(rgb, offset, length, lab, dstOffset, lab, dstOffset + 1, lab, dstOffset + 2, 3,
+				precision == Precision.FAST);
+		ColorMetrics.record(ColorOperation.CIELAB_FROM, start, length);
+	}
+
+	/**
+	 * Bulk RGB to CIELab conversion shared by both output layouts. Fast
+	 * conversion uses vectorized kernel when available. Remaining values are
+	 * converted by scalar loop, which performs exactly the same float
+	 * operations as {@link XYZ#from(RGB)} followed by
+	 * {@link #from(XYZ, Precision)}.
+	 */
+	private static void convert(int[] rgb, int offset, int length, float[] l, int lPos, float[] a, int aPos,
+			float[] b, int bPos, int stride, boolean fast) {
+		int done = 0;
+		BatchKernel kernel = BatchKernels.VECTOR;
+		if (fast && kernel != null) {
+			done = kernel.labFast(rgb, offset, length, l, lPos, a, aPos, b, bPos, stride);
+		}
+
+		float[] M = XYZMatrices.SRGB;
+		float m00 = M[0], m01 = M[1], m02 = M[2];
+		float m10 = M[3], m11 = M[4], m12 = M[5];
+		float m20 = M[6], m21 = M[7], m22 = M[8];
+
+		for (int i = done; i < length; i++) {
+			int p = rgb[offset + i];
+
+			float rr = SRGBCompanding.linearize((p >> 16) & 0xFF);
+			float gg = SRGBCompanding.linearize((p >> 8) & 0xFF);
+			float bb = SRGBCompanding.linearize(p & 0xFF);
+
+			float x = m00 * rr + m01 * gg + m02 * bb;
+			float y = m10 * rr + m11 * gg + m12 * bb;
+			float z = m20 * rr + m21 * gg + m22 * bb;
+
+			float fy = f(y / Y_N, fast);
+
+			int k = i * stride;
+			l[lPos + k] = 116f * fy - 16f;
+			a[aPos + k] = 500 * (f(x / X_N, fast) - fy);
+			b[bPos + k] = 200 * (fy - f(z / Z_N, fast));
+		}
+	}
+
 	/**
 	 * Conversion function used in XYZ to CIELab conversion.
 	 * 
@@ -152,14 +419,59 @@ public class CIELab {
 	 *            - the value
 	 * @return the value
 	 */
-	private static float f(float t) {
+	static float f(float t, boolean fast) {
 		if (t > C1) {
-			return (float) Math.pow(t, C2);
+			return fast ? cbrt(t) : (float) Math.pow(t, C2);
 		} else {
 			return C3 * t + C4;
 		}
 	}
 
+	/**
+	 * Inverse of the CIELab function <code>f</code>.
+	 */
+	static float inverseF(float t) {
+		if (t > C5) {
+			return t * t * t;
+		} else {
+			return (t - C4) / C3;
+		}
+	}
+
+	/**
+	 * Approximates cube root of positive value. Initial guess is obtained by
+	 * dividing exponent (float bits) by three and it is refined by two Newton
+	 * iterations. Relative error is below 1.2e-6 for values used in CIELab
+	 * conversion.
+	 * 
+	 * @param t
+	 *            - the positive value
+	 * @return the cube root approximation
+	 */
+	static float cbrt(float t) {
+		float x = Float.intBitsToFloat(divideBy3(Float.floatToRawIntBits(t)) + CBRT_MAGIC);
+		x = (x + x + t / (x * x)) * C2;
+		x = (x + x + t / (x * x)) * C2;
+		return x;
+	}
+
+	/**
+	 * Approximates division of positive int by 3 using only shifts and
+	 * additions (result is at most 2 below exact quotient), which is cheap
+	 * in both scalar and vector code.
+	 * 
+	 * @param n
+	 *            - the positive value
+	 * @return the approximate quotient
+	 */
+	static int divideBy3(int n) {
+		int q = (n >> 2) + (n >> 4);
+		q = q + (q >> 4);
+		q = q + (q >> 8);
+		q = q + (q >> 16);
+		return q;
+	}
+
 	@Override
 	public String toString() {
 		return "[l=" + l + ", a=" + a + ", b=" + b + "]";
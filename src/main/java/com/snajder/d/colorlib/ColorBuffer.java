@@ -0,0 +1,405 @@
+package com.snajder.d.colorlib;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Fixed number of colors of one {@link Space} kept outside of the heap.
+ * <p>
+ * Components are stored planar (structure of arrays): each of the three
+ * components of all colors is kept in its own plane of little-endian 32 bit
+ * floats, in the order and range described in {@link Space}. Planes are
+ * direct or memory-mapped byte buffers, so colors take exactly 12 bytes each
+ * and nothing but this object is allocated in heap. Each plane holds up to
+ * 2<sup>29</sup> - 1 colors.
+ * </p>
+ * <p>
+ * Buffer can be converted to another space in place
+ * ({@link #convert(Space)}), sliced without copying ({@link #slice(int, int)})
+ * and read from or written to channels. Serialized form is the three planes
+ * one after another, the same as expected by
+ * {@link #map(FileChannel, FileChannel.MapMode, Space)}.
+ * </p>
+ * <p>
+ * Like NIO buffers, color buffers are not safe for use by multiple threads
+ * when any of them modifies the buffer, but disjoint slices may be used by
+ * different threads.
+ * </p>
+ */
+public final class ColorBuffer {
+	/**
+	 * Maximum number of colors, limited by size of a single plane.
+	 */
+	public static final int MAX_SIZE = Integer.MAX_VALUE / 4;
+
+	private static final int CHUNK = 1024;
+
+	private final int size;
+	private final ByteBuffer[] planes;
+	private final FloatBuffer[] channels;
+
+	/**
+	 * Space shared by the buffer and all its slices.
+	 */
+	private final SpaceHolder holder;
+	private final boolean slice;
+
+	private ColorBuffer(SpaceHolder holder, boolean slice, ByteBuffer[] planes) {
+		this.holder = holder;
+		this.slice = slice;
+		this.size = planes[0].capacity() / 4;
+		this.planes = planes;
+		this.channels = new FloatBuffer[3];
+		for (int c = 0; c < 3; c++) {
+			planes[c].order(ByteOrder.LITTLE_ENDIAN);
+			channels[c] = planes[c].asFloatBuffer();
+		}
+	}
+
+	/**
+	 * Allocates off-heap buffer with all components set to 0.
+	 *
+	 * @param space
+	 *            - the space of colors
+	 * @param size
+	 *            - number of colors
+	 * @return the buffer
+	 */
+	public static ColorBuffer allocate(Space space, int size) {
+		checkSize(space, size);
+
+		ByteBuffer[] planes = new ByteBuffer[3];
+		for (int c = 0; c < 3; c++) {
+			planes[c] = ByteBuffer.allocateDirect(size * 4);
+		}
+		return new ColorBuffer(new SpaceHolder(space), false, planes);
+	}
+
+	/**
+	 * Maps the whole file as a buffer. File must contain three planes of the
+	 * same size, as written by {@link #write(WritableByteChannel)}. With
+	 * {@link FileChannel.MapMode#READ_WRITE} changes of the buffer (including
+	 * in place conversions) are written to the file.
+	 *
+	 * @param channel
+	 *            - the file channel
+	 * @param mode
+	 *            - the mapping mode
+	 * @param space
+	 *            - the space of colors stored in the file
+	 * @return the buffer
+	 * @throws IOException
+	 *             if the file can't be mapped or its size isn't a multiple of
+	 *             12 bytes
+	 */
+	public static ColorBuffer map(FileChannel channel, FileChannel.MapMode mode, Space space) throws IOException {
+		long bytes = channel.size();
+		if (bytes % 12 != 0 || bytes / 12 > MAX_SIZE) {
+			throw new IOException("File size " + bytes + " is not a valid color buffer size");
+		}
+		int size = (int) (bytes / 12);
+		checkSize(space, size);
+
+		ByteBuffer[] planes = new ByteBuffer[3];
+		for (int c = 0; c < 3; c++) {
+			planes[c] = channel.map(mode, (long) c * size * 4, size * 4);
+		}
+		return new ColorBuffer(new SpaceHolder(space), false, planes);
+	}
+
+	/**
+	 * Gets the space of colors.
+	 *
+	 * @return the space
+	 */
+	public Space getSpace() {
+		return holder.space;
+	}
+
+	/**
+	 * Gets the number of colors.
+	 *
+	 * @return the number of colors
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets single component.
+	 *
+	 * @param channel
+	 *            - index of the component (0 - 2)
+	 * @param index
+	 *            - index of the color
+	 * @return the component value
+	 */
+	public float get(int channel, int index) {
+		return channels[channel].get(index);
+	}
+
+	/**
+	 * Sets single component.
+	 *
+	 * @param channel
+	 *            - index of the component (0 - 2)
+	 * @param index
+	 *            - index of the color
+	 * @param value
+	 *            - the component value
+	 */
+	public void set(int channel, int index, float value) {
+		channels[channel].put(index, value);
+	}
+
+	/**
+	 * Copies components of colors to interleaved array (three floats per
+	 * color).
+	 *
+	 * @param index
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void get(int index, int length, float[] dst, int dstOffset) {
+		ArrayRanges.check(size, index, length);
+		ArrayRanges.check(dst.length, dstOffset, length * 3);
+
+		for (int c = 0; c < 3; c++) {
+			FloatBuffer channel = channels[c];
+			for (int i = 0; i < length; i++) {
+				dst[dstOffset + i * 3 + c] = channel.get(index + i);
+			}
+		}
+	}
+
+	/**
+	 * Sets components of colors from interleaved array (three floats per
+	 * color).
+	 *
+	 * @param index
+	 *            - index of the first color
+	 * @param src
+	 *            - the interleaved components
+	 * @param offset
+	 *            - index of the first component
+	 * @param length
+	 *            - number of colors
+	 */
+	public void put(int index, float[] src, int offset, int length) {
+		ArrayRanges.check(size, index, length);
+		ArrayRanges.check(src.length, offset, length * 3);
+
+		for (int c = 0; c < 3; c++) {
+			FloatBuffer channel = channels[c];
+			for (int i = 0; i < length; i++) {
+				channel.put(index + i, src[offset + i * 3 + c]);
+			}
+		}
+	}
+
+	/**
+	 * Copies colors packed as <code>0xRRGGBB</code> to array. Components are
+	 * rounded and clamped to 0 - 255. The space must be {@link Space#RGB} or
+	 * {@link Space#RYB}.
+	 *
+	 * @param index
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving packed colors
+	 * @param dstOffset
+	 *            - index in destination array where first color is written
+	 */
+	public void get(int index, int length, int[] dst, int dstOffset) {
+		Pipeline.checkPacked(holder.space);
+		ArrayRanges.check(size, index, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		FloatBuffer c0 = channels[0];
+		FloatBuffer c1 = channels[1];
+		FloatBuffer c2 = channels[2];
+		for (int i = 0; i < length; i++) {
+			int k = index + i;
+			dst[dstOffset + i] = (Pipeline.component(c0.get(k)) << 16) | (Pipeline.component(c1.get(k)) << 8)
+					| Pipeline.component(c2.get(k));
+		}
+	}
+
+	/**
+	 * Sets colors from packed <code>0xRRGGBB</code> values. The space must be
+	 * {@link Space#RGB} or {@link Space#RYB}.
+	 *
+	 * @param index
+	 *            - index of the first color
+	 * @param src
+	 *            - the packed colors (upper byte is ignored)
+	 * @param offset
+	 *            - index of the first packed color
+	 * @param length
+	 *            - number of colors
+	 */
+	public void put(int index, int[] src, int offset, int length) {
+		Pipeline.checkPacked(holder.space);
+		ArrayRanges.check(size, index, length);
+		ArrayRanges.check(src.length, offset, length);
+
+		FloatBuffer c0 = channels[0];
+		FloatBuffer c1 = channels[1];
+		FloatBuffer c2 = channels[2];
+		for (int i = 0; i < length; i++) {
+			int p = src[offset + i];
+			int k = index + i;
+			c0.put(k, (p >> 16) & 0xFF);
+			c1.put(k, (p >> 8) & 0xFF);
+			c2.put(k, p & 0xFF);
+		}
+	}
+
+	/**
+	 * Gets buffer sharing colors from <code>from</code> (inclusive) to
+	 * <code>from + length</code> (exclusive) with this buffer. The slice
+	 * always reports the space of this buffer and can't be converted by
+	 * itself.
+	 *
+	 * @param from
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @return the slice
+	 */
+	public ColorBuffer slice(int from, int length) {
+		ArrayRanges.check(size, from, length);
+
+		ByteBuffer[] sliced = new ByteBuffer[3];
+		for (int c = 0; c < 3; c++) {
+			ByteBuffer plane = planes[c].duplicate();
+			plane.limit((from + length) * 4).position(from * 4);
+			sliced[c] = plane.slice();
+		}
+		return new ColorBuffer(holder, true, sliced);
+	}
+
+	/**
+	 * Converts all colors to specified space in place, with the same
+	 * operations as {@link Pipeline#from(Space)}<code>.to(space)</code>.
+	 * Slices of this buffer report the new space as well.
+	 *
+	 * @param target
+	 *            - the target space
+	 * @return this buffer
+	 * @throws IllegalStateException
+	 *             if this buffer is a slice, which would leave the rest of
+	 *             the shared colors in the old space
+	 */
+	public ColorBuffer convert(Space target) {
+		if (slice) {
+			throw new IllegalStateException("Slice can't be converted, convert the whole buffer");
+		}
+		if (target != holder.space) {
+			Pipeline.from(holder.space).to(target).apply(this, this);
+			holder.space = target;
+		}
+		return this;
+	}
+
+	/**
+	 * Writes all planes to specified channel.
+	 *
+	 * @param channel
+	 *            - the channel
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		for (ByteBuffer plane : planes) {
+			ByteBuffer src = plane.duplicate();
+			src.clear();
+			while (src.hasRemaining()) {
+				channel.write(src);
+			}
+		}
+	}
+
+	/**
+	 * Fills all planes with content of specified channel, as written by
+	 * {@link #write(WritableByteChannel)} from buffer of the same size.
+	 *
+	 * @param channel
+	 *            - the channel
+	 * @throws IOException
+	 *             if reading fails or the channel ends before all planes are
+	 *             filled
+	 */
+	public void read(ReadableByteChannel channel) throws IOException {
+		for (ByteBuffer plane : planes) {
+			ByteBuffer dst = plane.duplicate();
+			dst.clear();
+			while (dst.hasRemaining()) {
+				if (channel.read(dst) < 0) {
+					throw new EOFException("Channel ended before " + size + " colors were read");
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ColorBuffer[space=" + holder.space + ", size=" + size + "]";
+	}
+
+	/**
+	 * Runs action over chunks of interleaved components, copying each chunk
+	 * out of the planes before the action and back after it.
+	 */
+	void forEachChunk(ColorBuffer dst, Chunk action) {
+		float[] v = new float[Math.min(size, CHUNK) * 3];
+		for (int start = 0; start < size; start += CHUNK) {
+			int count = Math.min(CHUNK, size - start);
+			get(start, count, v, 0);
+			action.apply(v, count);
+			dst.put(start, v, 0, count);
+		}
+	}
+
+	/**
+	 * Action processing interleaved components of <code>count</code> colors.
+	 */
+	interface Chunk {
+		void apply(float[] v, int count);
+	}
+
+	private static void checkSize(Space space, int size) {
+		if (space == null) {
+			throw new NullPointerException("space");
+		}
+		if (size < 0 || size > MAX_SIZE) {
+			throw new IllegalArgumentException("Invalid size: " + size);
+		}
+	}
+
+	/**
+	 * Space of colors of a buffer and its slices.
+	 */
+	private static final class SpaceHolder {
+		Space space;
+
+		SpaceHolder(Space space) {
+			this.space = space;
+		}
+	}
+}
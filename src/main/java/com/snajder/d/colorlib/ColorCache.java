@@ -0,0 +1,186 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import com.snajder.d.colorlib.util.StripedLruCache;
+
+/**
+ * Opt-in cache of {@link ColorSchemeRYB} harmonies and {@link CIELab}
+ * conversions, for applications asking for the same colors repeatedly.
+ * <p>
+ * Results are cached by packed 24-bit RGB value in a bounded
+ * {@link StripedLruCache} shared by all operations. Components must be
+ * between 0 and 255, otherwise {@link IllegalArgumentException} is thrown.
+ * Cached results are immutable arrays; each call returns new {@link RGB} and
+ * {@link CIELab} instances, so callers may modify them freely. Results are
+ * the same as with the uncached methods.
+ * </p>
+ * <p>
+ * Instances are thread-safe.
+ * </p>
+ */
+public final class ColorCache {
+	private static final int LAB = ColorSchemeRYB.Harmony.values().length;
+
+	private final StripedLruCache<Object> cache;
+
+	/**
+	 * Constructs cache.
+	 *
+	 * @param maximumSize
+	 *            - the maximum number of cached results
+	 */
+	public ColorCache(int maximumSize) {
+		this.cache = new StripedLruCache<Object>(maximumSize);
+	}
+
+	/**
+	 * Same as {@link ColorSchemeRYB#getTriads(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the pivot color
+	 * @return the List of three triad colors
+	 */
+	public List<RGB> getTriads(RGB rgb) {
+		return colors(harmony(ColorSchemeRYB.Harmony.TRIADS, rgb));
+	}
+
+	/**
+	 * Same as {@link ColorSchemeRYB#getComplementary(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the pivot color
+	 * @return the complementary color
+	 */
+	public RGB getComplementary(RGB rgb) {
+		return color(harmony(ColorSchemeRYB.Harmony.COMPLEMENTARY, rgb)[0]);
+	}
+
+	/**
+	 * Same as {@link ColorSchemeRYB#getTetradic(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the pivot color
+	 * @return the List of three tetradic colors
+	 */
+	public List<RGB> getTetradic(RGB rgb) {
+		return colors(harmony(ColorSchemeRYB.Harmony.TETRADIC, rgb));
+	}
+
+	/**
+	 * Same as {@link ColorSchemeRYB#getAnalogous(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the pivot color
+	 * @return the List of three analogous colors
+	 */
+	public List<RGB> getAnalogous(RGB rgb) {
+		return colors(harmony(ColorSchemeRYB.Harmony.ANALOGOUS, rgb));
+	}
+
+	/**
+	 * Same as {@link ColorSchemeRYB#getMonochromatic3(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the pivot color
+	 * @return the List of three monochromatic colors
+	 */
+	public List<RGB> getMonochromatic3(RGB rgb) {
+		return colors(harmony(ColorSchemeRYB.Harmony.MONOCHROMATIC3, rgb));
+	}
+
+	/**
+	 * Same as {@link CIELab#from(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the RGB value
+	 * @return the CIELab value
+	 */
+	public CIELab toCIELab(RGB rgb) {
+		float[] lab = (float[]) cache.get(key(LAB, rgb), new IntFunction<Object>() {
+			@Override
+			public Object apply(int key) {
+				CIELab lab = CIELab.from(RGB.from((key >> 16) & 0xFF, (key >> 8) & 0xFF, key & 0xFF));
+				return new float[] { lab.getL(), lab.getA(), lab.getB() };
+			}
+		});
+
+		return new CIELab(lab[0], lab[1], lab[2]);
+	}
+
+	/**
+	 * Removes all cached results. Counters are not reset.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Gets the number of cached results.
+	 *
+	 * @return the number of results
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Gets number of calls answered from the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return cache.getHitCount();
+	}
+
+	/**
+	 * Gets number of calls which computed the result.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return cache.getMissCount();
+	}
+
+	/**
+	 * Gets number of results evicted to keep the cache within its size.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return cache.getEvictionCount();
+	}
+
+	private int[] harmony(final ColorSchemeRYB.Harmony harmony, RGB rgb) {
+		return (int[]) cache.get(key(harmony.ordinal(), rgb), new IntFunction<Object>() {
+			@Override
+			public Object apply(int key) {
+				int[] colors = new int[harmony.size()];
+				ColorSchemeRYB.get(harmony, new int[] { key }, 0, 1, colors, 0);
+				return colors;
+			}
+		});
+	}
+
+	/**
+	 * Gets cache key, operation in the upper byte and packed color in lower
+	 * bytes, checking range of the components.
+	 */
+	private static int key(int operation, RGB rgb) {
+		return (operation << 24) | PackedColors.pack(rgb.getR(), rgb.getG(), rgb.getB());
+	}
+
+	private static RGB color(int p) {
+		return new RGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	private static List<RGB> colors(int[] packed) {
+		RGB[] colors = new RGB[packed.length];
+		for (int i = 0; i < packed.length; i++) {
+			colors[i] = color(packed[i]);
+		}
+		return Arrays.asList(colors);
+	}
+}
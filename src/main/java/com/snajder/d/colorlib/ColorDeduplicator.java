@@ -0,0 +1,474 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Collapses colors which are perceptually the same, i.e. closer than a
+ * threshold by CIE76 distance ({@link CIELab#distance(CIELab)}).
+ * <p>
+ * Each unique color is mapped to the closest representative closer than the
+ * threshold, or becomes a new representative. So every input is closer than
+ * the threshold to its representative, and representatives are at least the
+ * threshold apart. Colors in a grid cell are visited in order of their first
+ * occurrence.
+ * </p>
+ * <p>
+ * Instead of comparing all pairs, Lab values are hashed into a uniform grid
+ * with cell size equal to the threshold, so only representatives in the 27
+ * neighboring cells have to be compared, and their number is bounded.
+ * Cells are split into 27 classes by their coordinates modulo 3. Cells of
+ * the same class don't share any neighbor, so they are processed by
+ * parallel tasks, while classes are processed one after another. Exact
+ * duplicates are collapsed first by sorting. Results don't depend on the
+ * pool.
+ * </p>
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class ColorDeduplicator {
+	/**
+	 * Default number of colors processed by a single task.
+	 */
+	public static final int DEFAULT_GRAIN = ImageConverter.DEFAULT_GRAIN;
+
+	private static final int CLASSES = 27;
+
+	/**
+	 * Bits of sort keys holding index of the unique color.
+	 */
+	private static final int COLOR_BITS = 24;
+
+	/**
+	 * Largest number of cells of all classes, so cell index and color fit
+	 * into sort key.
+	 */
+	private static final long MAX_CELLS = 1L << (63 - COLOR_BITS);
+
+	private final float threshold;
+	private final ForkJoinPool pool;
+	private final int grain;
+
+	/**
+	 * Constructs deduplicator using the common pool.
+	 *
+	 * @param threshold
+	 *            - the distance below which colors are the same
+	 */
+	public ColorDeduplicator(float threshold) {
+		this(threshold, ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+	}
+
+	/**
+	 * Constructs deduplicator.
+	 *
+	 * @param threshold
+	 *            - the distance below which colors are the same
+	 * @param pool
+	 *            - the pool executing parallel tasks
+	 * @param grain
+	 *            - the number of colors processed by a single task
+	 */
+	public ColorDeduplicator(float threshold, ForkJoinPool pool, int grain) {
+		if (!(threshold > 0f) || Float.isInfinite(threshold)) {
+			throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+		}
+		if (pool == null) {
+			throw new NullPointerException("pool");
+		}
+		if (grain < 1) {
+			throw new IllegalArgumentException("Grain must be positive: " + grain);
+		}
+		this.threshold = threshold;
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	/**
+	 * Gets the distance below which colors are the same.
+	 *
+	 * @return the threshold
+	 */
+	public float getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Deduplicates packed RGB colors.
+	 *
+	 * @param rgb
+	 *            - the packed RGB colors
+	 * @param offset
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @return the representatives and mapping of inputs
+	 * @throws IllegalArgumentException
+	 *             if the threshold is too small for the grid to cover the
+	 *             colors
+	 */
+	public DeduplicatedColors deduplicate(int[] rgb, int offset, int length) {
+		ArrayRanges.check(rgb.length, offset, length);
+
+		// collapse exact duplicates, unique colors ordered by first occurrence
+		long[] sorted = new long[length];
+		for (int i = 0; i < length; i++) {
+			sorted[i] = (long) (rgb[offset + i] & 0xFFFFFF) << 32 | i;
+		}
+		sort(sorted);
+
+		int[] uniqueOf = new int[length];
+		int[] sortedColors = new int[length];
+		long[] firsts = new long[length];
+		int unique = 0;
+		for (int i = 0; i < length; i++) {
+			int color = (int) (sorted[i] >>> 32);
+			if (i == 0 || color != (int) (sorted[i - 1] >>> 32)) {
+				sortedColors[unique] = color;
+				firsts[unique] = (sorted[i] & 0xFFFFFFFFL) << COLOR_BITS | unique;
+				unique++;
+			}
+			uniqueOf[(int) sorted[i]] = unique - 1;
+		}
+		sorted = null;
+		firsts = Arrays.copyOf(firsts, unique);
+		sort(firsts);
+
+		int[] colors = new int[unique];
+		int[] rank = new int[unique];
+		for (int u = 0; u < unique; u++) {
+			int j = (int) (firsts[u] & ((1 << COLOR_BITS) - 1));
+			colors[u] = sortedColors[j];
+			rank[j] = u;
+		}
+		sortedColors = null;
+		for (int i = 0; i < length; i++) {
+			uniqueOf[i] = rank[uniqueOf[i]];
+		}
+
+		// representatives of unique colors
+		float[] lab = new float[unique * 3];
+		new ImageConverter(pool, grain).convert(colors, 0, unique, Space.CIELAB, lab, 0);
+		int[] repOf = new Grid(lab, unique).run();
+
+		// number representatives and map inputs
+		int[] number = new int[unique];
+		int reps = 0;
+		for (int u = 0; u < unique; u++) {
+			if (repOf[u] == u) {
+				number[u] = reps++;
+			}
+		}
+		int[] repRGB = new int[reps];
+		for (int u = 0; u < unique; u++) {
+			if (repOf[u] == u) {
+				repRGB[number[u]] = colors[u];
+			}
+		}
+		int[] counts = new int[reps];
+		int[] mapping = new int[length];
+		for (int i = 0; i < length; i++) {
+			int rep = number[repOf[uniqueOf[i]]];
+			mapping[i] = rep;
+			counts[rep]++;
+		}
+		return new DeduplicatedColors(repRGB, counts, mapping);
+	}
+
+	private void sort(final long[] keys) {
+		if (keys.length <= grain) {
+			Arrays.sort(keys);
+		} else {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					Arrays.parallelSort(keys);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Uniform grid of Lab values of unique colors.
+	 */
+	private final class Grid {
+		private final float[] lab;
+		private final int size;
+
+		private int minX;
+		private int minY;
+		private int minZ;
+		private int sizeX;
+		private int sizeY;
+		private int sizeZ;
+
+		/**
+		 * Indices of unique colors ordered by cell, by index within cell.
+		 */
+		private int[] order;
+
+		/**
+		 * Index of each non-empty cell, ordered by class.
+		 */
+		private long[] cells;
+
+		/**
+		 * Position of the first color of each cell in {@link #order}, with
+		 * extra entry for the end of the last cell.
+		 */
+		private int[] cellStart;
+
+		/**
+		 * Number of representatives of each cell, stored in {@link #reps}
+		 * from the start of the cell.
+		 */
+		private int[] repCount;
+
+		private int[] reps;
+		private int[] repOf;
+		private CellTable table;
+
+		Grid(float[] lab, int size) {
+			this.lab = lab;
+			this.size = size;
+		}
+
+		int[] run() {
+			repOf = new int[size];
+			if (size == 0) {
+				return repOf;
+			}
+			index();
+
+			int[] classStart = new int[CLASSES + 1];
+			long classCells = (long) sizeX * sizeY * sizeZ;
+			for (int c = 0, k = 0; k <= CLASSES; k++) {
+				while (c < cells.length && cells[c] / classCells < k) {
+					c++;
+				}
+				classStart[k] = c;
+			}
+
+			for (int k = 0; k < CLASSES; k++) {
+				int from = classStart[k];
+				int to = classStart[k + 1];
+				if (from == to) {
+					continue;
+				}
+				if (cellStart[to] - cellStart[from] <= grain) {
+					process(from, to);
+				} else {
+					pool.invoke(new Split(this, from, to));
+				}
+			}
+			return repOf;
+		}
+
+		/**
+		 * Assigns colors to cells and sorts them by cell.
+		 */
+		private void index() {
+			int[] coords = new int[size * 3];
+			minX = minY = minZ = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE;
+			int maxY = Integer.MIN_VALUE;
+			int maxZ = Integer.MIN_VALUE;
+			for (int u = 0; u < size; u++) {
+				int x = coordinate(lab[u * 3]);
+				int y = coordinate(lab[u * 3 + 1]);
+				int z = coordinate(lab[u * 3 + 2]);
+				coords[u * 3] = x;
+				coords[u * 3 + 1] = y;
+				coords[u * 3 + 2] = z;
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				minZ = Math.min(minZ, z);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+				maxZ = Math.max(maxZ, z);
+			}
+			double cellCount = CLASSES * ((double) maxX - minX + 1) * ((double) maxY - minY + 1)
+					* ((double) maxZ - minZ + 1);
+			if (cellCount > MAX_CELLS) {
+				throw new IllegalArgumentException("Threshold too small: " + threshold);
+			}
+			sizeX = maxX - minX + 1;
+			sizeY = maxY - minY + 1;
+			sizeZ = maxZ - minZ + 1;
+
+			long[] keys = new long[size];
+			for (int u = 0; u < size; u++) {
+				keys[u] = cell(coords[u * 3] - minX, coords[u * 3 + 1] - minY, coords[u * 3 + 2] - minZ)
+						<< COLOR_BITS | u;
+			}
+			coords = null;
+			sort(keys);
+
+			order = new int[size];
+			long[] cells = new long[size];
+			int[] cellStart = new int[size + 1];
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				long cell = keys[i] >>> COLOR_BITS;
+				if (count == 0 || cells[count - 1] != cell) {
+					cells[count] = cell;
+					cellStart[count++] = i;
+				}
+				order[i] = (int) (keys[i] & ((1 << COLOR_BITS) - 1));
+			}
+			cellStart[count] = size;
+
+			this.cells = Arrays.copyOf(cells, count);
+			this.cellStart = Arrays.copyOf(cellStart, count + 1);
+			this.repCount = new int[count];
+			this.reps = new int[size];
+			this.table = new CellTable(this.cells);
+		}
+
+		private int coordinate(float value) {
+			double c = Math.floor(value / (double) threshold);
+			return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, c));
+		}
+
+		/**
+		 * Gets index of the cell at coordinates relative to the grid origin.
+		 */
+		private long cell(int x, int y, int z) {
+			int k = (x % 3) * 9 + (y % 3) * 3 + z % 3;
+			return ((k * (long) sizeX + x) * sizeY + y) * sizeZ + z;
+		}
+
+		/**
+		 * Finds representatives of colors of cells <code>from</code> to
+		 * <code>to</code>, all of the same class.
+		 */
+		void process(int from, int to) {
+			float limit = threshold * threshold;
+			long classCells = (long) sizeX * sizeY * sizeZ;
+			int[] neighbors = new int[27];
+
+			for (int c = from; c < to; c++) {
+				long xyz = cells[c] % classCells;
+				int z = (int) (xyz % sizeZ);
+				int y = (int) (xyz / sizeZ % sizeY);
+				int x = (int) (xyz / sizeZ / sizeY);
+
+				int count = 0;
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(sizeX - 1, x + 1); nx++) {
+					for (int ny = Math.max(0, y - 1); ny <= Math.min(sizeY - 1, y + 1); ny++) {
+						for (int nz = Math.max(0, z - 1); nz <= Math.min(sizeZ - 1, z + 1); nz++) {
+							int n = table.get(cell(nx, ny, nz));
+							if (n >= 0) {
+								neighbors[count++] = n;
+							}
+						}
+					}
+				}
+
+				for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+					int u = order[i];
+					float l = lab[u * 3];
+					float a = lab[u * 3 + 1];
+					float b = lab[u * 3 + 2];
+					int best = -1;
+					float bestDistance = limit;
+
+					for (int j = 0; j < count; j++) {
+						int n = neighbors[j];
+						for (int r = cellStart[n], end = r + repCount[n]; r < end; r++) {
+							int rep = reps[r];
+							float dl = l - lab[rep * 3];
+							float da = a - lab[rep * 3 + 1];
+							float db = b - lab[rep * 3 + 2];
+							float d = dl * dl + da * da + db * db;
+							if (d < bestDistance || (d == bestDistance && best >= 0 && rep < best)) {
+								best = rep;
+								bestDistance = d;
+							}
+						}
+					}
+
+					if (best < 0) {
+						reps[cellStart[c] + repCount[c]++] = u;
+						repOf[u] = u;
+					} else {
+						repOf[u] = best;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits range of cells in halves until it doesn't contain more colors
+	 * than the grain.
+	 */
+	private final class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Grid grid;
+		private final int from;
+		private final int to;
+
+		Split(Grid grid, int from, int to) {
+			this.grid = grid;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1 || grid.cellStart[to] - grid.cellStart[from] <= grain) {
+				grid.process(from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Split(grid, from, mid), new Split(grid, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Open addressing table mapping cell index to position in the sorted
+	 * cells.
+	 */
+	private static final class CellTable {
+		private final long[] keys;
+		private final int[] values;
+		private final int mask;
+
+		CellTable(long[] cells) {
+			int capacity = Integer.highestOneBit(Math.max(2, cells.length * 2 - 1)) << 1;
+			keys = new long[capacity];
+			values = new int[capacity];
+			mask = capacity - 1;
+			Arrays.fill(values, -1);
+			for (int i = 0; i < cells.length; i++) {
+				int slot = slot(cells[i]);
+				while (values[slot] >= 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = cells[i];
+				values[slot] = i;
+			}
+		}
+
+		int get(long cell) {
+			for (int slot = slot(cell);; slot = (slot + 1) & mask) {
+				int value = values[slot];
+				if (value < 0 || keys[slot] == cell) {
+					return value;
+				}
+			}
+		}
+
+		private int slot(long cell) {
+			return (int) ((cell * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Histogram of packed colors (e.g. <code>0xRRGGBB</code>) quantized to
+ * specified number of bits per component.
+ * <p>
+ * Bin of a color is made of the <code>bits</code> most significant bits of
+ * each component, so there are 2<sup>3 * bits</sup> bins (with 8 bits each
+ * color has its own bin and histogram takes 64 MB). Histograms are not safe
+ * for use by multiple threads; to count colors in parallel count into
+ * separate histograms and {@link #merge(ColorHistogram) merge} them, as done
+ * by {@link ColorStreams#histogram(java.util.stream.IntStream, int)}.
+ * </p>
+ */
+public final class ColorHistogram {
+	private final int bits;
+	private final int[] counts;
+	private long total;
+
+	/**
+	 * Creates empty histogram.
+	 *
+	 * @param bits
+	 *            - number of bits per component (1 - 8)
+	 */
+	public ColorHistogram(int bits) {
+		checkBits(bits);
+		this.bits = bits;
+		this.counts = new int[1 << (bits * 3)];
+	}
+
+	/**
+	 * Counts one color.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 */
+	public void add(int color) {
+		counts[bin(color)]++;
+		total++;
+	}
+
+	/**
+	 * Adds counts of other histogram to this histogram.
+	 *
+	 * @param other
+	 *            - the histogram with the same number of bits
+	 * @return this histogram
+	 */
+	public ColorHistogram merge(ColorHistogram other) {
+		if (other.bits != bits) {
+			throw new IllegalArgumentException("Can't merge histograms with " + bits + " and " + other.bits
+					+ " bits");
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+		return this;
+	}
+
+	/**
+	 * Gets the number of bits per component.
+	 *
+	 * @return the number of bits
+	 */
+	public int getBits() {
+		return bits;
+	}
+
+	/**
+	 * Gets the number of bins.
+	 *
+	 * @return the number of bins
+	 */
+	public int size() {
+		return counts.length;
+	}
+
+	/**
+	 * Gets bin of specified color.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 * @return index of the bin
+	 */
+	public int bin(int color) {
+		int shift = 8 - bits;
+		int mask = (1 << bits) - 1;
+		return (((color >> (16 + shift)) & mask) << (bits * 2)) | (((color >> (8 + shift)) & mask) << bits)
+				| ((color >> shift) & mask);
+	}
+
+	/**
+	 * Gets number of colors counted in bin.
+	 *
+	 * @param bin
+	 *            - index of the bin
+	 * @return the number of colors
+	 */
+	public int getCount(int bin) {
+		return counts[bin];
+	}
+
+	/**
+	 * Gets number of colors counted in the bin of specified color.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 * @return the number of colors
+	 */
+	public int count(int color) {
+		return counts[bin(color)];
+	}
+
+	/**
+	 * Gets number of all counted colors.
+	 *
+	 * @return the number of colors
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets copy of the counts indexed by bin.
+	 *
+	 * @return new array of counts
+	 */
+	public int[] toArray() {
+		return counts.clone();
+	}
+
+	static void checkBits(int bits) {
+		if (bits < 1 || bits > 8) {
+			throw new IllegalArgumentException("Bits per component must be between 1 and 8: " + bits);
+		}
+	}
+}
@@ -0,0 +1,451 @@
+package com.snajder.d.colorlib;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.IntUnaryOperator;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * 3D lookup table mapping RGB colors to RGB colors.
+ * <p>
+ * A table is a regular lattice of <code>size<sup>3</sup></code> nodes over
+ * the RGB cube, each node holding the output color of its input color. Tables
+ * are created by baking any RGB to RGB function (e.g. a chain of conversions
+ * like the ones used by {@link ColorSchemeRYB}) using
+ * {@link #bake(IntUnaryOperator, int)}, or read from a <code>.cube</code>
+ * file (Adobe/Resolve cube LUT format). Colors between nodes are evaluated
+ * using selected {@link Interpolation}, so applying a table costs a few
+ * multiplications per color, regardless of the cost of the baked function.
+ * </p>
+ * <p>
+ * Colors are packed as <code>0xRRGGBB</code>. Node values are kept as floats
+ * (0 to 1 within the domain), so tables read from files aren't quantized.
+ * For parallel application to large arrays see
+ * {@link ImageConverter#apply(ColorLookupTable, int[], int, int, int[], int)}.
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class ColorLookupTable {
+	/**
+	 * Interpolation of colors between lattice nodes.
+	 */
+	public enum Interpolation {
+		/**
+		 * Weighted average of 8 nodes of the cell containing the color.
+		 */
+		TRILINEAR,
+
+		/**
+		 * Weighted average of 4 nodes of the tetrahedron (one of 6 the cell is
+		 * split into along its main diagonal) containing the color. Cheaper
+		 * than {@link #TRILINEAR} and keeps neutral colors on the gray axis.
+		 */
+		TETRAHEDRAL
+	}
+
+	/**
+	 * Default number of lattice nodes per axis.
+	 */
+	public static final int DEFAULT_SIZE = 33;
+
+	/**
+	 * Maximum number of lattice nodes per axis.
+	 */
+	public static final int MAX_SIZE = 256;
+
+	private final int size;
+	private final float[] nodes;
+	private final float[] domain;
+	private final Interpolation interpolation;
+
+	// per component value: offset of the cell along the axis and fraction
+	// within the cell
+	private final int[] offsetR = new int[256];
+	private final int[] offsetG = new int[256];
+	private final int[] offsetB = new int[256];
+	private final float[] fractionR = new float[256];
+	private final float[] fractionG = new float[256];
+	private final float[] fractionB = new float[256];
+
+	private ColorLookupTable(int size, float[] nodes, float[] domain, Interpolation interpolation) {
+		this.size = size;
+		this.nodes = nodes;
+		this.domain = domain;
+		this.interpolation = interpolation;
+
+		axis(0, 3, offsetR, fractionR);
+		axis(1, size * 3, offsetG, fractionG);
+		axis(2, size * size * 3, offsetB, fractionB);
+	}
+
+	/**
+	 * Bakes specified function into a table with {@link #DEFAULT_SIZE} nodes
+	 * per axis, using {@link Interpolation#TETRAHEDRAL} interpolation.
+	 *
+	 * @param function
+	 *            - the function mapping packed RGB colors to packed RGB colors
+	 * @return the table
+	 */
+	public static ColorLookupTable bake(IntUnaryOperator function) {
+		return bake(function, DEFAULT_SIZE);
+	}
+
+	/**
+	 * Bakes specified function into a table, using
+	 * {@link Interpolation#TETRAHEDRAL} interpolation.
+	 * <p>
+	 * Node inputs are rounded to the nearest component value, so the table
+	 * reproduces the function exactly at nodes only when 255 is divisible by
+	 * <code>size - 1</code> (e.g. sizes 16, 18 or 52).
+	 * </p>
+	 *
+	 * @param function
+	 *            - the function mapping packed RGB colors to packed RGB colors
+	 *            (upper byte of results is ignored)
+	 * @param size
+	 *            - the number of nodes per axis, between 2 and
+	 *            {@link #MAX_SIZE}
+	 * @return the table
+	 */
+	public static ColorLookupTable bake(IntUnaryOperator function, int size) {
+		checkSize(size);
+
+		int[] input = new int[size];
+		for (int i = 0; i < size; i++) {
+			input[i] = Math.round(i * 255f / (size - 1));
+		}
+
+		float[] nodes = new float[size * size * size * 3];
+		int k = 0;
+		for (int b = 0; b < size; b++) {
+			for (int g = 0; g < size; g++) {
+				for (int r = 0; r < size; r++) {
+					int p = function.applyAsInt((input[r] << 16) | (input[g] << 8) | input[b]);
+					nodes[k++] = ((p >> 16) & 0xFF) / 255f;
+					nodes[k++] = ((p >> 8) & 0xFF) / 255f;
+					nodes[k++] = (p & 0xFF) / 255f;
+				}
+			}
+		}
+
+		return new ColorLookupTable(size, nodes, new float[] { 0f, 0f, 0f, 1f, 1f, 1f }, Interpolation.TETRAHEDRAL);
+	}
+
+	/**
+	 * Reads table from <code>.cube</code> file, see {@link #read(Reader)}.
+	 *
+	 * @param file
+	 *            - the file
+	 * @return the table
+	 * @throws IOException
+	 *             if the file can't be read or isn't a valid 3D
+	 *             <code>.cube</code> file
+	 */
+	public static ColorLookupTable read(Path file) throws IOException {
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return read(reader);
+		}
+	}
+
+	/**
+	 * Reads table in <code>.cube</code> format, using
+	 * {@link Interpolation#TETRAHEDRAL} interpolation.
+	 * <p>
+	 * <code>LUT_3D_SIZE</code>, <code>DOMAIN_MIN</code>,
+	 * <code>DOMAIN_MAX</code> and <code>LUT_3D_INPUT_RANGE</code> keywords are
+	 * recognized; other keywords (e.g. <code>TITLE</code>) and comments are
+	 * ignored. Input colors are mapped to the domain as values between 0 and 1.
+	 * </p>
+	 *
+	 * @param reader
+	 *            - the reader, not closed by this method
+	 * @return the table
+	 * @throws IOException
+	 *             if reading fails or the input isn't a valid 3D
+	 *             <code>.cube</code> table
+	 */
+	public static ColorLookupTable read(Reader reader) throws IOException {
+		BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		float[] domain = { 0f, 0f, 0f, 1f, 1f, 1f };
+		float[] nodes = null;
+		int size = 0;
+		int k = 0;
+
+		String line;
+		for (int number = 1; (line = in.readLine()) != null; number++) {
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#') {
+				continue;
+			}
+
+			String[] tokens = line.split("\\s+");
+			char first = line.charAt(0);
+			try {
+				if (Character.isDigit(first) || first == '-' || first == '+' || first == '.') {
+					if (nodes == null) {
+						throw new IOException("LUT_3D_SIZE must precede table data");
+					}
+					if (k == nodes.length) {
+						throw new IOException("More than " + size * size * size + " table entries");
+					}
+					for (int c = 0; c < 3; c++) {
+						nodes[k++] = Float.parseFloat(tokens[c]);
+					}
+				} else if (tokens[0].equals("LUT_3D_SIZE")) {
+					size = Integer.parseInt(tokens[1]);
+					checkSize(size);
+					nodes = new float[size * size * size * 3];
+				} else if (tokens[0].equals("DOMAIN_MIN")) {
+					for (int c = 0; c < 3; c++) {
+						domain[c] = Float.parseFloat(tokens[c + 1]);
+					}
+				} else if (tokens[0].equals("DOMAIN_MAX")) {
+					for (int c = 0; c < 3; c++) {
+						domain[3 + c] = Float.parseFloat(tokens[c + 1]);
+					}
+				} else if (tokens[0].equals("LUT_3D_INPUT_RANGE")) {
+					for (int c = 0; c < 3; c++) {
+						domain[c] = Float.parseFloat(tokens[1]);
+						domain[3 + c] = Float.parseFloat(tokens[2]);
+					}
+				} else if (tokens[0].equals("LUT_1D_SIZE")) {
+					throw new IOException("1D tables are not supported");
+				}
+			} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+				throw new IOException("Invalid .cube line " + number + ": " + line, e);
+			} catch (IOException e) {
+				throw new IOException(e.getMessage() + " (line " + number + ")", e);
+			}
+		}
+
+		if (nodes == null) {
+			throw new IOException("Missing LUT_3D_SIZE");
+		}
+		if (k != nodes.length) {
+			throw new IOException("Expected " + size * size * size + " table entries, found " + k / 3);
+		}
+		for (int c = 0; c < 3; c++) {
+			if (!(domain[3 + c] > domain[c])) {
+				throw new IOException("Invalid domain: " + domain[c] + " to " + domain[3 + c]);
+			}
+		}
+
+		return new ColorLookupTable(size, nodes, domain, Interpolation.TETRAHEDRAL);
+	}
+
+	/**
+	 * Writes table to <code>.cube</code> file, see {@link #write(Writer)}.
+	 *
+	 * @param file
+	 *            - the file
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public void write(Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			write(writer);
+		}
+	}
+
+	/**
+	 * Writes table in <code>.cube</code> format, with red component changing
+	 * fastest and values with six decimals.
+	 *
+	 * @param writer
+	 *            - the writer, not closed by this method
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(Writer writer) throws IOException {
+		BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+
+		out.write("LUT_3D_SIZE " + size + "\n");
+		out.write(String.format(Locale.ROOT, "DOMAIN_MIN %.6f %.6f %.6f%n", domain[0], domain[1], domain[2]));
+		out.write(String.format(Locale.ROOT, "DOMAIN_MAX %.6f %.6f %.6f%n", domain[3], domain[4], domain[5]));
+		for (int k = 0; k < nodes.length; k += 3) {
+			out.write(String.format(Locale.ROOT, "%.6f %.6f %.6f%n", nodes[k], nodes[k + 1], nodes[k + 2]));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Gets table with the same nodes using specified interpolation. Nodes
+	 * are shared, not copied.
+	 *
+	 * @param interpolation
+	 *            - the interpolation
+	 * @return the table
+	 */
+	public ColorLookupTable withInterpolation(Interpolation interpolation) {
+		if (interpolation == this.interpolation) {
+			return this;
+		}
+		return new ColorLookupTable(size, nodes, domain, interpolation);
+	}
+
+	/**
+	 * Gets number of lattice nodes per axis.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets interpolation used between nodes.
+	 *
+	 * @return the interpolation
+	 */
+	public Interpolation getInterpolation() {
+		return interpolation;
+	}
+
+	/**
+	 * Applies table to specified color.
+	 *
+	 * @param rgb
+	 *            - the color, with components between 0 and 255
+	 * @return the mapped color
+	 * @throws IllegalArgumentException
+	 *             if any component is out of range
+	 */
+	public RGB apply(RGB rgb) {
+		int p = apply(PackedColors.pack(rgb.getR(), rgb.getG(), rgb.getB()));
+
+		return new RGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	/**
+	 * Applies table to specified packed color.
+	 *
+	 * @param rgb
+	 *            - the color packed as <code>0xRRGGBB</code> (upper byte is
+	 *            ignored)
+	 * @return the mapped color packed as <code>0xRRGGBB</code>
+	 */
+	public int apply(int rgb) {
+		int r = (rgb >> 16) & 0xFF;
+		int g = (rgb >> 8) & 0xFF;
+		int b = rgb & 0xFF;
+
+		if (interpolation == Interpolation.TETRAHEDRAL) {
+			return tetrahedral(offsetR[r] + offsetG[g] + offsetB[b], fractionR[r], fractionG[g], fractionB[b]);
+		}
+		return trilinear(offsetR[r] + offsetG[g] + offsetB[b], fractionR[r], fractionG[g], fractionB[b]);
+	}
+
+	/**
+	 * Applies table to packed colors (upper byte of input values is ignored)
+	 * on the calling thread.
+	 *
+	 * @param rgb
+	 *            - the packed colors
+	 * @param offset
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving packed mapped colors, may be the same
+	 *            as input array
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void apply(int[] rgb, int offset, int length, int[] dst, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		for (int i = 0; i < length; i++) {
+			dst[dstOffset + i] = apply(rgb[offset + i]);
+		}
+	}
+
+	private int tetrahedral(int c000, float fr, float fg, float fb) {
+		int sr = 3;
+		int sg = size * 3;
+		int sb = size * sg;
+
+		// walk from c000 along the axis with the largest fraction, then along
+		// the middle one to c111
+		boolean rGg = fr >= fg;
+		boolean rGb = fr >= fb;
+		boolean gGb = fg >= fb;
+		int first = rGg ? (rGb ? sr : sb) : (gGb ? sg : sb);
+		int last = rGg ? (gGb ? sb : sg) : (rGb ? sb : sr);
+		float w1 = rGg ? (rGb ? fr : fb) : (gGb ? fg : fb);
+		float w3 = rGg ? (gGb ? fb : fg) : (rGb ? fb : fr);
+		float w2 = fr + fg + fb - w1 - w3;
+
+		int c1 = c000 + first;
+		int c111 = c000 + sr + sg + sb;
+		int c2 = c111 - last;
+
+		float[] n = nodes;
+		int result = 0;
+		for (int c = 0; c < 3; c++) {
+			float v = n[c000 + c] + w1 * (n[c1 + c] - n[c000 + c]) + w2 * (n[c2 + c] - n[c1 + c])
+					+ w3 * (n[c111 + c] - n[c2 + c]);
+			result = (result << 8) | component(v);
+		}
+		return result;
+	}
+
+	private int trilinear(int c000, float fr, float fg, float fb) {
+		int sr = 3;
+		int sg = size * 3;
+		int sb = size * sg;
+
+		float[] n = nodes;
+		int result = 0;
+		for (int c = 0; c < 3; c++) {
+			int k = c000 + c;
+			float v00 = n[k] + fr * (n[k + sr] - n[k]);
+			float v10 = n[k + sg] + fr * (n[k + sg + sr] - n[k + sg]);
+			float v01 = n[k + sb] + fr * (n[k + sb + sr] - n[k + sb]);
+			float v11 = n[k + sb + sg] + fr * (n[k + sb + sg + sr] - n[k + sb + sg]);
+			float v0 = v00 + fg * (v10 - v00);
+			float v1 = v01 + fg * (v11 - v01);
+			result = (result << 8) | component(v0 + fb * (v1 - v0));
+		}
+		return result;
+	}
+
+	/**
+	 * Converts value between 0 and 1 to the nearest component, clamped.
+	 */
+	private static int component(float v) {
+		int c = (int) (v * 255f + 0.5f);
+		return c < 0 ? 0 : (c > 255 ? 255 : c);
+	}
+
+	/**
+	 * Fills cell offsets and fractions of all component values along the
+	 * axis, clamping values outside of the domain to its bounds.
+	 */
+	private void axis(int axis, int stride, int[] offsets, float[] fractions) {
+		float min = domain[axis];
+		float scale = (size - 1) / (domain[3 + axis] - min);
+
+		for (int v = 0; v < 256; v++) {
+			float p = (v / 255f - min) * scale;
+			p = p > 0f ? (p < size - 1 ? p : size - 1) : 0f;
+			int i = Math.min((int) p, size - 2);
+			offsets[v] = i * stride;
+			fractions[v] = p - i;
+		}
+	}
+
+	private static void checkSize(int size) {
+		if (size < 2 || size > MAX_SIZE) {
+			throw new IllegalArgumentException("Size must be between 2 and " + MAX_SIZE + ": " + size);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.snajder.d.colorlib;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Optional instrumentation of conversions, distances and color schemes.
+ * <p>
+ * Metrics are enabled with system property
+ * <code>-Dcolorlib.metrics=true</code>, read once when this class is
+ * initialized. When enabled, each {@link ColorOperation} counts invocations,
+ * colors and latencies (see {@link OperationSnapshot}) and counters are
+ * published by {@link ColorMetricsMXBean} registered in the platform MBean
+ * server as {@value #OBJECT_NAME}. When disabled (the default), the switch
+ * is a <code>static final</code> constant, so the JIT compiler removes all
+ * instrumentation from hot paths.
+ * </p>
+ */
+public final class ColorMetrics {
+	/**
+	 * Name of the registered MBean.
+	 */
+	public static final String OBJECT_NAME = "com.snajder.d.colorlib:type=ColorMetrics";
+
+	static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("colorlib.metrics", "false"));
+
+	static {
+		if (ENABLED) {
+			try {
+				register(ManagementFactory.getPlatformMBeanServer());
+			} catch (InstanceAlreadyExistsException e) {
+				// registered by the library loaded by another class loader
+			} catch (JMException e) {
+				throw new IllegalStateException("Can't register metrics MBean", e);
+			}
+		}
+	}
+
+	private ColorMetrics() {
+	}
+
+	/**
+	 * Checks whether metrics are recorded.
+	 *
+	 * @return <code>true</code> if metrics are enabled
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Gets current counters of operation.
+	 *
+	 * @param operation
+	 *            - the operation
+	 * @return the counters, all 0 if metrics are disabled
+	 */
+	public static OperationSnapshot snapshot(ColorOperation operation) {
+		OperationRecorder recorder = operation.recorder;
+		return new OperationSnapshot(operation, recorder == null ? new long[OperationRecorder.SIZE]
+				: recorder.sum());
+	}
+
+	/**
+	 * Sets counters of all operations to 0. Invocations running concurrently
+	 * may or may not be counted.
+	 */
+	public static void reset() {
+		for (ColorOperation operation : ColorOperation.values()) {
+			if (operation.recorder != null) {
+				operation.recorder.reset();
+			}
+		}
+	}
+
+	/**
+	 * Registers {@link ColorMetricsMXBean} as {@value #OBJECT_NAME}. Done
+	 * automatically with the platform MBean server when metrics are enabled.
+	 *
+	 * @param server
+	 *            - the MBean server
+	 * @return name of the registered MBean
+	 * @throws JMException
+	 *             if the MBean can't be registered
+	 */
+	public static ObjectName register(MBeanServer server) throws JMException {
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		server.registerMBean(new Bean(), name);
+		return name;
+	}
+
+	/**
+	 * Gets start time of measured invocation, to be passed to
+	 * {@link #record(ColorOperation, long, int)}.
+	 */
+	static long start() {
+		return ENABLED ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Records invocation started at <code>start</code> processing specified
+	 * number of colors.
+	 */
+	static void record(ColorOperation operation, long start, int items) {
+		if (ENABLED) {
+			operation.recorder.record(System.nanoTime() - start, items);
+		}
+	}
+
+	private static final class Bean implements ColorMetricsMXBean {
+		@Override
+		public boolean isEnabled() {
+			return ENABLED;
+		}
+
+		@Override
+		public Map<String, OperationSnapshot> getOperations() {
+			Map<String, OperationSnapshot> operations = new LinkedHashMap<String, OperationSnapshot>();
+			for (ColorOperation operation : ColorOperation.values()) {
+				operations.put(operation.name(), snapshot(operation));
+			}
+			return Collections.unmodifiableMap(operations);
+		}
+
+		@Override
+		public void reset() {
+			ColorMetrics.reset();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.snajder.d.colorlib;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ColorMetrics}, registered as
+ * {@value ColorMetrics#OBJECT_NAME} when metrics are enabled.
+ */
+public interface ColorMetricsMXBean {
+	/**
+	 * Checks whether metrics are recorded.
+	 *
+	 * @return <code>true</code> if metrics are enabled
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Gets counters of all operations.
+	 *
+	 * @return snapshots by operation name
+	 */
+	Map<String, OperationSnapshot> getOperations();
+
+	/**
+	 * Sets all counters to 0.
+	 */
+	void reset();
+}
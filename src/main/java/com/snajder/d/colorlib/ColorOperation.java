@@ -0,0 +1,76 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Operations measured by {@link ColorMetrics}. Each operation covers all
+ * per-color and bulk overloads of the corresponding methods; bulk calls are
+ * counted as one invocation with batch size equal to number of colors.
+ * <p>
+ * Conversions implemented with other conversions (e.g.
+ * {@link CIELab#from(RGB)} converting through {@link XYZ}) are counted for
+ * each of them.
+ * </p>
+ */
+public enum ColorOperation {
+	/**
+	 * <code>XYZ.from(...)</code> conversions.
+	 */
+	XYZ_FROM,
+
+	/**
+	 * <code>CIELab.from(...)</code> conversions.
+	 */
+	CIELAB_FROM,
+
+	/**
+	 * <code>RYB.from(...)</code> conversions of RGB and HSLRYB colors.
+	 */
+	RYB_FROM,
+
+	/**
+	 * <code>HSL.from(...)</code> conversions of RGB colors.
+	 */
+	HSL_FROM,
+
+	/**
+	 * {@link CIELab#distance(CIELab)} and <code>DeltaE.distance(...)</code>
+	 * of CIELab colors.
+	 */
+	DISTANCE,
+
+	/**
+	 * {@link ColorSchemeRYB#getTriads(RGB)}.
+	 */
+	TRIADS,
+
+	/**
+	 * {@link ColorSchemeRYB#getComplementary(RGB)}.
+	 */
+	COMPLEMENTARY,
+
+	/**
+	 * {@link ColorSchemeRYB#getTetradic(RGB)}.
+	 */
+	TETRADIC,
+
+	/**
+	 * {@link ColorSchemeRYB#getAnalogous(RGB)}.
+	 */
+	ANALOGOUS,
+
+	/**
+	 * {@link ColorSchemeRYB#getMonochromatic3(RGB)}.
+	 */
+	MONOCHROMATIC,
+
+	/**
+	 * Bulk harmonies of
+	 * {@link ColorSchemeRYB#get(ColorSchemeRYB.Harmony, int[], int, int, int[], int)}.
+	 */
+	HARMONY;
+
+	/**
+	 * Counters of the operation, <code>null</code> when metrics are
+	 * disabled.
+	 */
+	final OperationRecorder recorder = ColorMetrics.ENABLED ? new OperationRecorder() : null;
+}
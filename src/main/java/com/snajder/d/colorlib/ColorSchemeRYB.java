@@ -3,6 +3,8 @@ package com.snajder.d.colorlib;
 import java.util.Arrays;
 import java.util.List;
 
+import com.snajder.d.colorlib.util.ArrayRanges;
+
 /**
  * Utility class for creating color schemes. Harmonies are calculated based on
  * RYB color wheel, where specified RGB color is implicitly concerted to RYB,
@@ -10,6 +12,52 @@ import java.util.List;
  */
 public class ColorSchemeRYB {
 
+	/**
+	 * Kind of harmony calculated by
+	 * {@link ColorSchemeRYB#get(Harmony, int[], int, int, int[], int)}.
+	 */
+	public enum Harmony {
+		/**
+		 * Same colors as {@link ColorSchemeRYB#getTriads(RGB)}.
+		 */
+		TRIADS(3),
+
+		/**
+		 * Same color as {@link ColorSchemeRYB#getComplementary(RGB)}.
+		 */
+		COMPLEMENTARY(1),
+
+		/**
+		 * Same colors as {@link ColorSchemeRYB#getTetradic(RGB)}.
+		 */
+		TETRADIC(3),
+
+		/**
+		 * Same colors as {@link ColorSchemeRYB#getAnalogous(RGB)}.
+		 */
+		ANALOGOUS(3),
+
+		/**
+		 * Same colors as {@link ColorSchemeRYB#getMonochromatic3(RGB)}.
+		 */
+		MONOCHROMATIC3(3);
+
+		private final int size;
+
+		private Harmony(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * Gets number of colors of the harmony, per base color.
+		 *
+		 * @return the number of colors
+		 */
+		public int size() {
+			return size;
+		}
+	}
+
 	/**
 	 * Gets the Triad colors, where pivot is specified RGB color.
 	 * 
@@ -18,6 +66,7 @@ public class ColorSchemeRYB {
 	 * @return the List of three triad colors
 	 */
 	public static List<RGB> getTriads(RGB rgb) {
+		long start = ColorMetrics.start();
 		HSLRYB hsl = HSLRYB.from(RYB.from(rgb));
 
 		hsl.addH(120f);
@@ -28,6 +77,7 @@ public class ColorSchemeRYB {
 
 		RGB rgb2 = RGB.from(RYB.from(hsl));
 
+		ColorMetrics.record(ColorOperation.TRIADS, start, 1);
 		return Arrays.asList(rgb1, rgb, rgb2);
 	}
 
@@ -39,10 +89,13 @@ public class ColorSchemeRYB {
 	 * @return the complementary color
 	 */
 	public static RGB getComplementary(RGB rgb) {
+		long start = ColorMetrics.start();
 		HSLRYB hsl = HSLRYB.from(RYB.from(rgb));
 		hsl.addH(180f);
 
-		return RGB.from(RYB.from(hsl));
+		RGB complementary = RGB.from(RYB.from(hsl));
+		ColorMetrics.record(ColorOperation.COMPLEMENTARY, start, 1);
+		return complementary;
 	}
 
 	/**
@@ -53,6 +106,7 @@ public class ColorSchemeRYB {
 	 * @return the List of three tetradic colors
 	 */
 	public static List<RGB> getTetradic(RGB rgb) {
+		long start = ColorMetrics.start();
 		HSLRYB hsl = HSLRYB.from(RYB.from(rgb));
 
 		hsl.addH(45f);
@@ -67,6 +121,7 @@ public class ColorSchemeRYB {
 
 		RGB rgb3 = RGB.from(RYB.from(hsl));
 
+		ColorMetrics.record(ColorOperation.TETRADIC, start, 1);
 		return Arrays.asList(rgb1, rgb2, rgb3);
 	}
 
@@ -78,6 +133,7 @@ public class ColorSchemeRYB {
 	 * @return the List of three analogous colors
 	 */
 	public static List<RGB> getAnalogous(RGB rgb) {
+		long start = ColorMetrics.start();
 		HSLRYB hsl = HSLRYB.from(RYB.from(rgb));
 
 		hsl.addH(-30f); // base - 30
@@ -88,6 +144,7 @@ public class ColorSchemeRYB {
 
 		RGB rgb2 = RGB.from(RYB.from(hsl));
 
+		ColorMetrics.record(ColorOperation.ANALOGOUS, start, 1);
 		return Arrays.asList(rgb1, rgb, rgb2);
 	}
 
@@ -99,6 +156,7 @@ public class ColorSchemeRYB {
 	 * @return the List of three monochromatic colors
 	 */
 	public static List<RGB> getMonochromatic3(RGB rgb) {
+		long start = ColorMetrics.start();
 		HSL hsl = HSL.from(rgb);
 		hsl.setS(1.0f);
 
@@ -111,6 +169,100 @@ public class ColorSchemeRYB {
 		hsl.setL(0.3f);
 		RGB rgb3 = RGB.from(hsl);
 
+		ColorMetrics.record(ColorOperation.MONOCHROMATIC, start, 1);
 		return Arrays.asList(rgb1, rgb2, rgb3);
 	}
+
+	/**
+	 * Calculates harmony colors for each of specified base colors. For each
+	 * base color {@link Harmony#size()} colors are written to destination
+	 * array, in the same order as returned by the corresponding
+	 * <code>getXxx(RGB)</code> method.
+	 * <p>
+	 * Colors are packed as <code>0xRRGGBB</code> (upper byte of input values
+	 * is ignored). Results are the same as with the methods returning
+	 * {@link RGB}, but no objects are allocated per color.
+	 * </p>
+	 * 
+	 * @param harmony
+	 *            - the kind of harmony
+	 * @param rgb
+	 *            - the packed base colors
+	 * @param offset
+	 *            - index of the first base color
+	 * @param length
+	 *            - number of base colors
+	 * @param dst
+	 *            - the array receiving packed harmony colors
+	 * @param dstOffset
+	 *            - index in destination array where first harmony color is
+	 *            written
+	 */
+	public static void get(Harmony harmony, int[] rgb, int offset, int length, int[] dst, int dstOffset) {
+		int size = harmony.size();
+
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length * size);
+
+		long start = ColorMetrics.start();
+		float[] hsl = new float[3];
+
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i] & 0xFFFFFF;
+			int r = (p >> 16) & 0xFF;
+			int g = (p >> 8) & 0xFF;
+			int b = p & 0xFF;
+			int pos = dstOffset + i * size;
+
+			if (harmony == Harmony.MONOCHROMATIC3) {
+				HSL.fromRGB(r, g, b, hsl, 0);
+				dst[pos] = RGB.fromHSL(hsl[0], 1.0f, 0.7f);
+				dst[pos + 1] = RGB.fromHSL(hsl[0], 1.0f, 0.5f);
+				dst[pos + 2] = RGB.fromHSL(hsl[0], 1.0f, 0.3f);
+				continue;
+			}
+
+			int ryb = RYB.fromRGB(r, g, b);
+			HSL.fromRGB((ryb >> 16) & 0xFF, (ryb >> 8) & 0xFF, ryb & 0xFF, hsl, 0);
+			float h = hsl[0];
+			float s = hsl[1];
+			float l = hsl[2];
+
+			switch (harmony) {
+			case TRIADS:
+				h = HSL.addH(h, 120f);
+				dst[pos] = fromHSLRYB(h, s, l);
+				dst[pos + 1] = p;
+				dst[pos + 2] = fromHSLRYB(HSL.addH(h, 120f), s, l);
+				break;
+			case COMPLEMENTARY:
+				dst[pos] = fromHSLRYB(HSL.addH(h, 180f), s, l);
+				break;
+			case TETRADIC:
+				h = HSL.addH(h, 45f);
+				dst[pos] = fromHSLRYB(h, s, l);
+				h = HSL.addH(h, 135f);
+				dst[pos + 1] = fromHSLRYB(h, s, l);
+				dst[pos + 2] = fromHSLRYB(HSL.addH(h, 45f), s, l);
+				break;
+			case ANALOGOUS:
+				h = HSL.addH(h, -30f);
+				dst[pos] = fromHSLRYB(h, s, l);
+				dst[pos + 1] = p;
+				dst[pos + 2] = fromHSLRYB(HSL.addH(h, 60f), s, l);
+				break;
+			default:
+				throw new IllegalStateException("Unknown harmony: " + harmony);
+			}
+		}
+		ColorMetrics.record(ColorOperation.HARMONY, start, length);
+	}
+
+	/**
+	 * Converts HSLRYB values to RYB and then to packed RGB.
+	 */
+	private static int fromHSLRYB(float h, float s, float l) {
+		int ryb = RGB.fromHSL(h, s, l);
+		return RGB.fromRYB((ryb >> 16) & 0xFF, (ryb >> 8) & 0xFF, ryb & 0xFF);
+	}
 }
@@ -0,0 +1,427 @@
+package com.snajder.d.colorlib;
+
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Adapters between {@link IntStream}s of packed colors and color
+ * conversions, histograms and palettes.
+ * <p>
+ * Colors are packed as <code>0xRRGGBB</code> (or <code>0xRRYYBB</code> for
+ * RYB) and never boxed. Terminal operations like {@link #meanLab(IntStream)}
+ * collect colors into per-thread containers and convert them to CIELab in
+ * batches with {@link CIELab#from(int[], int, int, float[], int)}, so they
+ * work the same with sequential and {@link IntStream#parallel() parallel}
+ * streams. {@link Collector}s with the same results are provided for streams
+ * of {@link PackedRGB}.
+ * </p>
+ */
+public final class ColorStreams {
+	private static final int BATCH = 256;
+
+	private static final ObjIntConsumer<ColorHistogram> HISTOGRAM_ADD = new ObjIntConsumer<ColorHistogram>() {
+		@Override
+		public void accept(ColorHistogram histogram, int color) {
+			histogram.add(color);
+		}
+	};
+
+	private static final Supplier<PaletteExtractor.Bins> BINS = new Supplier<PaletteExtractor.Bins>() {
+		@Override
+		public PaletteExtractor.Bins get() {
+			return new PaletteExtractor.Bins();
+		}
+	};
+
+	private static final ObjIntConsumer<PaletteExtractor.Bins> BINS_ADD = new ObjIntConsumer<PaletteExtractor.Bins>() {
+		@Override
+		public void accept(PaletteExtractor.Bins bins, int color) {
+			bins.add(color);
+		}
+	};
+
+	private static final Supplier<LabBatch> MEAN_LAB = new Supplier<LabBatch>() {
+		@Override
+		public LabBatch get() {
+			return new LabBatch();
+		}
+	};
+
+	private ColorStreams() {
+	}
+
+	/**
+	 * Consumer of colors converted to CIELab.
+	 */
+	public interface LabConsumer {
+		/**
+		 * Performs action on converted color.
+		 *
+		 * @param rgb
+		 *            - the packed RGB color
+		 * @param l
+		 *            - the L component
+		 * @param a
+		 *            - the A component
+		 * @param b
+		 *            - the B component
+		 */
+		void accept(int rgb, float l, float a, float b);
+	}
+
+	/**
+	 * Creates stream of colors in buffer packed as <code>0xRRGGBB</code>,
+	 * rounded and clamped as by {@link ColorBuffer#get(int, int, int[], int)}.
+	 * The space of the buffer must be {@link Space#RGB} or {@link Space#RYB}
+	 * and it must not be modified while the stream is used. Stream is
+	 * {@link Spliterator#SIZED sized} and splits in halves, so parallel
+	 * streams divide buffer evenly between threads.
+	 *
+	 * @param buffer
+	 *            - the buffer
+	 * @return sequential stream of packed colors
+	 */
+	public static IntStream stream(ColorBuffer buffer) {
+		Pipeline.checkPacked(buffer.getSpace());
+		return StreamSupport.intStream(new BufferSpliterator(buffer, 0, buffer.size()), false);
+	}
+
+	/**
+	 * Maps packed RGB colors to packed RYB colors, as with
+	 * {@link PackedRYB#fromRGB(int)}.
+	 *
+	 * @param rgb
+	 *            - the packed RGB colors
+	 * @return stream of packed RYB colors
+	 */
+	public static IntStream toRYB(IntStream rgb) {
+		return rgb.map(new IntUnaryOperator() {
+			@Override
+			public int applyAsInt(int color) {
+				return PackedRYB.fromRGB(color);
+			}
+		});
+	}
+
+	/**
+	 * Maps packed RYB colors to packed RGB colors, as with
+	 * {@link PackedRGB#fromRYB(int)}.
+	 *
+	 * @param ryb
+	 *            - the packed RYB colors
+	 * @return stream of packed RGB colors
+	 */
+	public static IntStream toRGB(IntStream ryb) {
+		return ryb.map(new IntUnaryOperator() {
+			@Override
+			public int applyAsInt(int color) {
+				return PackedRGB.fromRYB(color);
+			}
+		});
+	}
+
+	/**
+	 * Converts all colors to CIELab and passes them to action. Colors are
+	 * converted in batches, so for sequential streams action gets them in
+	 * encounter order, but only after the batch containing them is complete.
+	 * For parallel streams action is called from multiple threads.
+	 *
+	 * @param rgb
+	 *            - the packed RGB colors
+	 * @param action
+	 *            - the action
+	 */
+	public static void forEachLab(IntStream rgb, final LabConsumer action) {
+		LabBatch last = rgb.collect(new Supplier<LabBatch>() {
+			@Override
+			public LabBatch get() {
+				return new LabBatch() {
+					@Override
+					void accept(int[] colors, float[] lab, int count) {
+						for (int i = 0; i < count; i++) {
+							action.accept(colors[i], lab[i * 3], lab[i * 3 + 1], lab[i * 3 + 2]);
+						}
+					}
+				};
+			}
+		}, LabBatch.ADD, LabBatch.FLUSH);
+		last.flush();
+	}
+
+	/**
+	 * Computes histogram of colors.
+	 *
+	 * @param colors
+	 *            - the packed colors
+	 * @param bits
+	 *            - number of bits per component (1 - 8)
+	 * @return the histogram
+	 * @see ColorHistogram
+	 */
+	public static ColorHistogram histogram(IntStream colors, int bits) {
+		return colors.collect(histogramSupplier(bits), HISTOGRAM_ADD, new BiConsumer<ColorHistogram, ColorHistogram>() {
+			@Override
+			public void accept(ColorHistogram a, ColorHistogram b) {
+				a.merge(b);
+			}
+		});
+	}
+
+	/**
+	 * Computes mean of colors in CIELab.
+	 *
+	 * @param rgb
+	 *            - the packed RGB colors
+	 * @return the mean color, or <code>null</code> if stream is empty
+	 */
+	public static CIELab meanLab(IntStream rgb) {
+		return rgb.collect(MEAN_LAB, LabBatch.ADD, LabBatch.FLUSH).mean();
+	}
+
+	/**
+	 * Extracts palette of colors with median-cut, with the same result as
+	 * {@link PaletteExtractor#medianCut(int[], int, int, int)} over all
+	 * colors of the stream.
+	 *
+	 * @param rgb
+	 *            - the packed RGB colors
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @return the palette
+	 */
+	public static Palette palette(IntStream rgb, int colors) {
+		checkColors(colors);
+		return PaletteExtractor.medianCut(new PaletteExtractor.Points(rgb.collect(BINS, BINS_ADD,
+				new BiConsumer<PaletteExtractor.Bins, PaletteExtractor.Bins>() {
+					@Override
+					public void accept(PaletteExtractor.Bins a, PaletteExtractor.Bins b) {
+						a.add(b);
+					}
+				})), colors);
+	}
+
+	/**
+	 * Gets collector computing {@link #histogram(IntStream, int) histogram}.
+	 *
+	 * @param bits
+	 *            - number of bits per component (1 - 8)
+	 * @return the collector
+	 */
+	public static Collector<PackedRGB, ?, ColorHistogram> toHistogram(int bits) {
+		return Collector.of(histogramSupplier(bits), new BiConsumer<ColorHistogram, PackedRGB>() {
+			@Override
+			public void accept(ColorHistogram histogram, PackedRGB color) {
+				histogram.add(color.intValue());
+			}
+		}, new BinaryOperator<ColorHistogram>() {
+			@Override
+			public ColorHistogram apply(ColorHistogram a, ColorHistogram b) {
+				return a.merge(b);
+			}
+		}, Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Gets collector computing {@link #meanLab(IntStream) mean color} in
+	 * CIELab.
+	 *
+	 * @return the collector
+	 */
+	public static Collector<PackedRGB, ?, CIELab> toMeanLab() {
+		return Collector.of(MEAN_LAB, new BiConsumer<LabBatch, PackedRGB>() {
+			@Override
+			public void accept(LabBatch batch, PackedRGB color) {
+				batch.add(color.intValue());
+			}
+		}, new BinaryOperator<LabBatch>() {
+			@Override
+			public LabBatch apply(LabBatch a, LabBatch b) {
+				LabBatch.FLUSH.accept(a, b);
+				return a;
+			}
+		}, new Function<LabBatch, CIELab>() {
+			@Override
+			public CIELab apply(LabBatch batch) {
+				return batch.mean();
+			}
+		}, Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Gets collector extracting {@link #palette(IntStream, int) palette}.
+	 *
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @return the collector
+	 */
+	public static Collector<PackedRGB, ?, Palette> toPalette(final int colors) {
+		checkColors(colors);
+		return Collector.of(BINS, new BiConsumer<PaletteExtractor.Bins, PackedRGB>() {
+			@Override
+			public void accept(PaletteExtractor.Bins bins, PackedRGB color) {
+				bins.add(color.intValue());
+			}
+		}, new BinaryOperator<PaletteExtractor.Bins>() {
+			@Override
+			public PaletteExtractor.Bins apply(PaletteExtractor.Bins a, PaletteExtractor.Bins b) {
+				a.add(b);
+				return a;
+			}
+		}, new Function<PaletteExtractor.Bins, Palette>() {
+			@Override
+			public Palette apply(PaletteExtractor.Bins bins) {
+				return PaletteExtractor.medianCut(new PaletteExtractor.Points(bins), colors);
+			}
+		}, Collector.Characteristics.UNORDERED);
+	}
+
+	private static void checkColors(int colors) {
+		if (colors < 1) {
+			throw new IllegalArgumentException("Number of colors must be positive: " + colors);
+		}
+	}
+
+	private static Supplier<ColorHistogram> histogramSupplier(final int bits) {
+		ColorHistogram.checkBits(bits);
+		return new Supplier<ColorHistogram>() {
+			@Override
+			public ColorHistogram get() {
+				return new ColorHistogram(bits);
+			}
+		};
+	}
+
+	/**
+	 * Container buffering colors and converting them to CIELab in batches.
+	 * By default sums the components for {@link #mean()}.
+	 */
+	private static class LabBatch {
+		static final ObjIntConsumer<LabBatch> ADD = new ObjIntConsumer<LabBatch>() {
+			@Override
+			public void accept(LabBatch batch, int color) {
+				batch.add(color);
+			}
+		};
+
+		/**
+		 * Combiner flushing both containers and merging sums into the first.
+		 */
+		static final BiConsumer<LabBatch, LabBatch> FLUSH = new BiConsumer<LabBatch, LabBatch>() {
+			@Override
+			public void accept(LabBatch a, LabBatch b) {
+				a.flush();
+				b.flush();
+				a.l += b.l;
+				a.a += b.a;
+				a.b += b.b;
+				a.n += b.n;
+			}
+		};
+
+		private final int[] rgb = new int[BATCH];
+		private final float[] lab = new float[BATCH * 3];
+		private int count;
+		private double l;
+		private double a;
+		private double b;
+		private long n;
+
+		final void add(int color) {
+			rgb[count++] = color;
+			if (count == BATCH) {
+				flush();
+			}
+		}
+
+		final void flush() {
+			if (count > 0) {
+				CIELab.from(rgb, 0, count, lab, 0);
+				accept(rgb, lab, count);
+				count = 0;
+			}
+		}
+
+		void accept(int[] rgb, float[] lab, int count) {
+			for (int i = 0; i < count * 3; i += 3) {
+				l += lab[i];
+				a += lab[i + 1];
+				b += lab[i + 2];
+			}
+			n += count;
+		}
+
+		final CIELab mean() {
+			flush();
+			return n == 0 ? null : new CIELab((float) (l / n), (float) (a / n), (float) (b / n));
+		}
+	}
+
+	/**
+	 * Spliterator over range of buffer, splitting in halves.
+	 */
+	private static final class BufferSpliterator implements Spliterator.OfInt {
+		private final ColorBuffer buffer;
+		private int index;
+		private final int end;
+
+		BufferSpliterator(ColorBuffer buffer, int index, int end) {
+			this.buffer = buffer;
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public OfInt trySplit() {
+			int mid = (index + end) >>> 1;
+			if (mid - index < BATCH) {
+				return null;
+			}
+			BufferSpliterator prefix = new BufferSpliterator(buffer, index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (index >= end) {
+				return false;
+			}
+			action.accept((Pipeline.component(buffer.get(0, index)) << 16)
+					| (Pipeline.component(buffer.get(1, index)) << 8) | Pipeline.component(buffer.get(2, index)));
+			index++;
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			int[] colors = new int[Math.min(BATCH, end - index)];
+			while (index < end) {
+				int count = Math.min(BATCH, end - index);
+				buffer.get(index, count, colors, 0);
+				index += count;
+				for (int i = 0; i < count; i++) {
+					action.accept(colors[i]);
+				}
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+}
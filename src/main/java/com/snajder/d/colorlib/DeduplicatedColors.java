@@ -0,0 +1,96 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Result of {@link ColorDeduplicator}: representative colors and the
+ * representative of each input color.
+ * <p>
+ * Representatives are input colors, ordered by their first occurrence.
+ * Instances are immutable.
+ * </p>
+ */
+public final class DeduplicatedColors {
+	private final int[] rgb;
+	private final int[] counts;
+	private final int[] mapping;
+
+	DeduplicatedColors(int[] rgb, int[] counts, int[] mapping) {
+		this.rgb = rgb;
+		this.counts = counts;
+		this.mapping = mapping;
+	}
+
+	/**
+	 * Gets the number of representatives.
+	 *
+	 * @return the number of representatives
+	 */
+	public int size() {
+		return rgb.length;
+	}
+
+	/**
+	 * Gets representative at specified index.
+	 *
+	 * @param index
+	 *            - index of the representative
+	 * @return the color
+	 */
+	public RGB getColor(int index) {
+		int p = rgb[index];
+		return new RGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	/**
+	 * Gets representative at specified index packed as
+	 * <code>0xRRGGBB</code>.
+	 *
+	 * @param index
+	 *            - index of the representative
+	 * @return the packed color
+	 */
+	public int getRGB(int index) {
+		return rgb[index];
+	}
+
+	/**
+	 * Gets number of inputs represented by representative at specified
+	 * index.
+	 *
+	 * @param index
+	 *            - index of the representative
+	 * @return the number of inputs
+	 */
+	public int getCount(int index) {
+		return counts[index];
+	}
+
+	/**
+	 * Gets the number of deduplicated input colors.
+	 *
+	 * @return the number of inputs
+	 */
+	public int getInputCount() {
+		return mapping.length;
+	}
+
+	/**
+	 * Gets representative of input color.
+	 *
+	 * @param input
+	 *            - index of the input color, relative to the deduplicated
+	 *            range
+	 * @return index of the representative
+	 */
+	public int getRepresentative(int input) {
+		return mapping[input];
+	}
+
+	/**
+	 * Gets representatives of all input colors.
+	 *
+	 * @return new array with index of the representative of each input
+	 */
+	public int[] getMapping() {
+		return mapping.clone();
+	}
+}
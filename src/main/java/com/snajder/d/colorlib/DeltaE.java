@@ -0,0 +1,267 @@
+package com.snajder.d.colorlib;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Color difference (deltaE) metrics between two {@link CIELab} colors.
+ * <p>
+ * Metrics operate on {@link PreparedLab} colors, which cache per-color terms
+ * (chroma and CIE94 weighting factors), so only the pairwise part is
+ * calculated for each comparison. CIELab arguments are prepared on each call.
+ * </p>
+ * <p>
+ * Formulas use standard parametric factors (kL = kC = kH = 1, and graphic
+ * arts K1, K2 for CIE94) and expect components in the usual CIELab scale (L
+ * between 0 and 100).
+ * </p>
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Color_difference">Color
+ *      difference on Wiki</a>
+ */
+public enum DeltaE {
+	/**
+	 * Euclidean distance, same as {@link CIELab#distance(CIELab)}.
+	 */
+	CIE76 {
+		@Override
+		public float distance(PreparedLab reference, PreparedLab sample) {
+			float ll = reference.l - sample.l;
+			float aa = reference.a - sample.a;
+			float bb = reference.b - sample.b;
+
+			return (float) Math.sqrt(ll * ll + aa * aa + bb * bb);
+		}
+	},
+
+	/**
+	 * CIE94 difference. The metric is not symmetric, chroma and hue are
+	 * weighted by chroma of the reference color.
+	 */
+	CIE94 {
+		@Override
+		public float distance(PreparedLab reference, PreparedLab sample) {
+			double dl = reference.l - sample.l;
+			double da = reference.a - sample.a;
+			double db = reference.b - sample.b;
+			double dc = reference.c - sample.c;
+			double dh2 = Math.max(0, da * da + db * db - dc * dc);
+
+			double c = dc / reference.sc94;
+			double sh = reference.sh94;
+
+			return (float) Math.sqrt(dl * dl + c * c + dh2 / (sh * sh));
+		}
+	},
+
+	/**
+	 * CIEDE2000 difference.
+	 *
+	 * @see <a href="http://www2.ece.rochester.edu/~gsharma/ciede2000/">The
+	 *      CIEDE2000 Color-Difference Formula</a>
+	 */
+	CIEDE2000 {
+		@Override
+		public float distance(PreparedLab reference, PreparedLab sample) {
+			double cBar = (reference.c + sample.c) * 0.5;
+			double cBar7 = pow7(cBar);
+			double g = 0.5 * (1 - Math.sqrt(cBar7 / (cBar7 + POW25_7)));
+
+			double a1 = (1 + g) * reference.a;
+			double a2 = (1 + g) * sample.a;
+			double b1 = reference.b;
+			double b2 = sample.b;
+			double c1 = Math.sqrt(a1 * a1 + b1 * b1);
+			double c2 = Math.sqrt(a2 * a2 + b2 * b2);
+			double c12 = c1 * c2;
+
+			double dl = sample.l - reference.l;
+			double dc = c2 - c1;
+
+			// hue difference and mean hue direction are derived from the
+			// (a', b) vectors, the mean hue angle is needed only for dTheta
+			double dH;
+			double ua;
+			double ub;
+			if (c12 == 0) {
+				dH = 0;
+				ua = a1 + a2;
+				ub = b1 + b2;
+			} else {
+				dH = Math.sqrt(Math.max(0, 2 * (c12 - a1 * a2 - b1 * b2)));
+				if (a1 * b2 - b1 * a2 < 0) {
+					dH = -dH;
+				}
+				ua = a1 / c1 + a2 / c2;
+				ub = b1 / c1 + b2 / c2;
+			}
+
+			double hBar;
+			double cosH;
+			double sinH;
+			double u = Math.sqrt(ua * ua + ub * ub);
+			if (u != 0) {
+				hBar = hue(ub, ua);
+				cosH = ua / u;
+				sinH = ub / u;
+			} else {
+				// achromatic pair, or hues exactly opposite
+				double h1 = hue(b1, a1);
+				double h2 = hue(b2, a2);
+				hBar = h1 + h2;
+				if (c12 != 0) {
+					dH = h2 >= h1 ? 2 * Math.sqrt(c12) : -2 * Math.sqrt(c12);
+					if (Math.abs(h1 - h2) <= 180) {
+						hBar *= 0.5;
+					} else if (hBar < 360) {
+						hBar = (hBar + 360) * 0.5;
+					} else {
+						hBar = (hBar - 360) * 0.5;
+					}
+				}
+				cosH = Math.cos(Math.toRadians(hBar));
+				sinH = Math.sin(Math.toRadians(hBar));
+			}
+
+			// cosines of multiples of mean hue
+			double cos2H = 2 * cosH * cosH - 1;
+			double sin2H = 2 * sinH * cosH;
+			double cos3H = cosH * cos2H - sinH * sin2H;
+			double sin3H = sinH * cos2H + cosH * sin2H;
+			double cos4H = 2 * cos2H * cos2H - 1;
+			double sin4H = 2 * sin2H * cos2H;
+
+			double t = 1 - 0.17 * (cosH * COS_30 + sinH * SIN_30) + 0.24 * cos2H
+					+ 0.32 * (cos3H * COS_6 - sin3H * SIN_6) - 0.20 * (cos4H * COS_63 + sin4H * SIN_63);
+			double dTheta = 30 * Math.exp(-((hBar - 275) / 25) * ((hBar - 275) / 25));
+
+			double lBar = (reference.l + sample.l) * 0.5;
+			double cBarP = (c1 + c2) * 0.5;
+			double cBarP7 = pow7(cBarP);
+			double rc = 2 * Math.sqrt(cBarP7 / (cBarP7 + POW25_7));
+			double l50 = (lBar - 50) * (lBar - 50);
+			double sl = 1 + 0.015 * l50 / Math.sqrt(20 + l50);
+			double sc = 1 + 0.045 * cBarP;
+			double sh = 1 + 0.015 * cBarP * t;
+			double rt = -Math.sin(Math.toRadians(2 * dTheta)) * rc;
+
+			double lt = dl / sl;
+			double ct = dc / sc;
+			double ht = dH / sh;
+
+			return (float) Math.sqrt(lt * lt + ct * ct + ht * ht + rt * ct * ht);
+		}
+	};
+
+	/**
+	 * CIE94 graphic arts chroma weighting constant.
+	 */
+	static final double K1 = 0.045;
+
+	/**
+	 * CIE94 graphic arts hue weighting constant.
+	 */
+	static final double K2 = 0.015;
+
+	private static final double POW25_7 = 6103515625d;
+	private static final double COS_30 = Math.cos(Math.toRadians(30));
+	private static final double SIN_30 = Math.sin(Math.toRadians(30));
+	private static final double COS_6 = Math.cos(Math.toRadians(6));
+	private static final double SIN_6 = Math.sin(Math.toRadians(6));
+	private static final double COS_63 = Math.cos(Math.toRadians(63));
+	private static final double SIN_63 = Math.sin(Math.toRadians(63));
+
+	/**
+	 * Calculates difference between two prepared colors.
+	 *
+	 * @param reference
+	 *            - the reference color
+	 * @param sample
+	 *            - the compared color
+	 * @return the difference
+	 */
+	public abstract float distance(PreparedLab reference, PreparedLab sample);
+
+	/**
+	 * Calculates difference between two colors.
+	 *
+	 * @param reference
+	 *            - the reference color
+	 * @param sample
+	 *            - the compared color
+	 * @return the difference
+	 */
+	public float distance(CIELab reference, CIELab sample) {
+		long start = ColorMetrics.start();
+		float distance = distance(PreparedLab.from(reference), PreparedLab.from(sample));
+		ColorMetrics.record(ColorOperation.DISTANCE, start, 1);
+		return distance;
+	}
+
+	/**
+	 * Calculates differences between reference color and each of specified
+	 * colors.
+	 *
+	 * @param reference
+	 *            - the reference color
+	 * @param samples
+	 *            - the compared colors
+	 * @param offset
+	 *            - index of the first compared color
+	 * @param length
+	 *            - number of compared colors
+	 * @param dst
+	 *            - the array receiving differences
+	 * @param dstOffset
+	 *            - index in destination array where first difference is
+	 *            written
+	 */
+	public void distance(PreparedLab reference, PreparedLab[] samples, int offset, int length, float[] dst,
+			int dstOffset) {
+		ArrayRanges.check(samples.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		long start = ColorMetrics.start();
+		for (int i = 0; i < length; i++) {
+			dst[dstOffset + i] = distance(reference, samples[offset + i]);
+		}
+		ColorMetrics.record(ColorOperation.DISTANCE, start, length);
+	}
+
+	/**
+	 * Finds index of the color closest to the reference color.
+	 *
+	 * @param reference
+	 *            - the reference color
+	 * @param samples
+	 *            - the compared colors
+	 * @return index of the closest color, or -1 if there are no colors
+	 */
+	public int nearest(PreparedLab reference, PreparedLab[] samples) {
+		int best = -1;
+		float bestDistance = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < samples.length; i++) {
+			float d = distance(reference, samples[i]);
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private static double pow7(double x) {
+		double x3 = x * x * x;
+		return x3 * x3 * x;
+	}
+
+	/**
+	 * Gets hue angle in degrees between 0 and 360.
+	 */
+	private static double hue(double b, double a) {
+		if (a == 0 && b == 0) {
+			return 0;
+		}
+		double h = Math.toDegrees(Math.atan2(b, a));
+		return h < 0 ? h + 360 : h;
+	}
+}
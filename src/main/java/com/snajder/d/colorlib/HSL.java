@@ -1,5 +1,7 @@
 package com.snajder.d.colorlib;
 
+import com.snajder.d.colorlib.util.ArrayRanges;
+
 /**
  * Represents the HSL color (H-hue, S-saturation, L-lightness).
  * <p>
@@ -106,9 +108,38 @@ public class HSL {
 	 *            - the hue value to add
 	 */
 	public void addH(float h) {
-		this.h = this.h + h;
-		this.h = this.h % 360;
-		this.h = this.h < 0 ? this.h + 360f : this.h;
+		this.h = addH(this.h, h);
+	}
+
+	/**
+	 * Adds hue in degrees to specified hue, keeping result between 0 and 360.
+	 */
+	static float addH(float h, float add) {
+		h = remainder(h + add, 360f);
+		return h < 0 ? h + 360f : h;
+	}
+
+	/**
+	 * Computes <code>a % n</code> for positive integer <code>n</code>.
+	 * <p>
+	 * Float remainder is compiled to a call into the runtime, which is slow
+	 * especially in loops mixing it with vectorized code. For values of up to
+	 * 2<sup>23</sup> the result is computed exactly with truncation instead,
+	 * other values (including infinities and NaN) fall back to
+	 * <code>%</code>.
+	 * </p>
+	 */
+	static float remainder(float a, float n) {
+		if (a < 8388608f && a > -8388608f) {
+			float r = a - n * (int) (a / n);
+			if (r * a < 0) {
+				// quotient was rounded up to the next integer
+				r += a < 0 ? -n : n;
+			}
+			// result has the sign of the dividend, as with %
+			return Math.copySign(r, a);
+		}
+		return a % n;
 	}
 
 	/**
@@ -134,9 +165,7 @@ public class HSL {
 	 * @return the constructed {@link HSL}
 	 */
 	public static HSL from(int r, int g, int b) {
-		float h = 0;
-		float s = 0;
-		float l = 0;
+		long start = ColorMetrics.start();
 		float r_norm = (float) r / 255f;
 		float g_norm = (float) g / 255f;
 		float b_norm = (float) b / 255f;
@@ -145,6 +174,71 @@ public class HSL {
 		float max = Math.max(Math.max(r_norm, g_norm), b_norm);
 		float min = Math.min(Math.min(r_norm, g_norm), b_norm);
 
+		float h = hue(r_norm, g_norm, b_norm, max, min);
+		float l = 0.5f * (min + max);
+		float s = saturation(max, min, l);
+		ColorMetrics.record(ColorOperation.HSL_FROM, start, 1);
+
+		return new HSL(h, s, l);
+	}
+
+	/**
+	 * Converts packed RGB values to HSL and writes components interleaved
+	 * (<code>h0, s0, l0, h1, s1, l1, ...</code>) into specified array.
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored). Results are the same as with {@link #from(int, int, int)},
+	 * but no objects are allocated.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param hsl
+	 *            - the array receiving interleaved H, S and L components
+	 * @param dstOffset
+	 *            - index in destination array where first H component is
+	 *            written
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] hsl, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(hsl.length, dstOffset, length * 3);
+
+		long start = ColorMetrics.start();
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+			fromRGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF, hsl, dstOffset + i * 3);
+		}
+		ColorMetrics.record(ColorOperation.HSL_FROM, start, length);
+	}
+
+	/**
+	 * Converts specified RGB components to HSL and writes H, S and L
+	 * components to specified position of the array.
+	 */
+	static void fromRGB(int r, int g, int b, float[] hsl, int pos) {
+		float r_norm = (float) r / 255f;
+		float g_norm = (float) g / 255f;
+		float b_norm = (float) b / 255f;
+
+		// max/min values
+		float max = Math.max(Math.max(r_norm, g_norm), b_norm);
+		float min = Math.min(Math.min(r_norm, g_norm), b_norm);
+
+		float l = 0.5f * (min + max);
+
+		hsl[pos] = hue(r_norm, g_norm, b_norm, max, min);
+		hsl[pos + 1] = saturation(max, min, l);
+		hsl[pos + 2] = l;
+	}
+
+	/**
+	 * Gets hue in degrees of normalized RGB components.
+	 */
+	private static float hue(float r_norm, float g_norm, float b_norm, float max, float min) {
 		float delta = max - min;
 
 		float h_temp = 0;
@@ -152,26 +246,28 @@ public class HSL {
 		if (delta == 0f) {
 			h_temp = 0; // undefined
 		} else if (max == r_norm) {
-			h_temp = ((g_norm - b_norm) / delta) % 6;
+			h_temp = remainder((g_norm - b_norm) / delta, 6f);
 		} else if (max == g_norm) {
 			h_temp = ((b_norm - r_norm) / delta) + 2;
 		} else if (max == b_norm) {
 			h_temp = ((r_norm - g_norm) / delta) + 4;
 		}
 
-		h = h_temp * 60f;
+		float h = h_temp * 60f;
 
-		h = h < 0 ? h + 360 : h;
+		return h < 0 ? h + 360 : h;
+	}
 
-		l = 0.5f * (min + max);
+	/**
+	 * Gets saturation of normalized RGB components.
+	 */
+	private static float saturation(float max, float min, float l) {
+		float delta = max - min;
 
 		if (delta == 0f) {
-			s = 0;
-		} else {
-			s = delta / (1 - Math.abs(2 * l - 1));
+			return 0;
 		}
-
-		return new HSL(h, s, l);
+		return delta / (1 - Math.abs(2 * l - 1));
 	}
 
 	/**
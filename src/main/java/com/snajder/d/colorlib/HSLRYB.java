@@ -34,6 +34,32 @@ public class HSLRYB extends HSL {
 		return HSLRYB.from(HSL.from(RGB.from(ryb.getR(), ryb.getY(), ryb.getB())));
 	}
 
+	/**
+	 * Converts packed RYB values to HSLRYB and writes components interleaved
+	 * (<code>h0, s0, l0, h1, s1, l1, ...</code>) into specified array.
+	 * <p>
+	 * Each input value is packed as <code>0xRRYYBB</code> (upper byte is
+	 * ignored). Results are the same as with {@link #from(RYB)}, but no
+	 * objects are allocated.
+	 * </p>
+	 * 
+	 * @param ryb
+	 *            - the packed RYB values
+	 * @param offset
+	 *            - index of the first RYB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param hsl
+	 *            - the array receiving interleaved H, S and L components
+	 * @param dstOffset
+	 *            - index in destination array where first H component is
+	 *            written
+	 */
+	public static void from(int[] ryb, int offset, int length, float[] hsl, int dstOffset) {
+		// R=R, Y=G, B=B
+		HSL.from(ryb, offset, length, hsl, dstOffset);
+	}
+
 	/**
 	 * Creates HSLRYB from specified HSL.
 	 * 
@@ -0,0 +1,323 @@
+package com.snajder.d.colorlib;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Builds {@link SpaceHistogram}s of whole images (or arrays of packed RGB
+ * values) in parallel.
+ * <p>
+ * Input is split into chunks of pixels (row bands for images) like in
+ * {@link ImageConverter}. Each task converts its pixels to the space of the
+ * {@link BinLayout} in small batches and counts them into
+ * <code>long[]</code> bins of its worker thread, so no counter is shared
+ * between threads and bins are allocated once per thread, not per task.
+ * Bins of all threads are merged once when all tasks complete. Inputs not
+ * larger than the grain are counted on the calling thread.
+ * </p>
+ * <p>
+ * Histograms of many images are combined by passing the same histogram to
+ * the <code>add(...)</code> methods or with
+ * {@link SpaceHistogram#merge(SpaceHistogram)}. Instances are immutable and
+ * thread-safe.
+ * </p>
+ */
+public final class HistogramBuilder {
+	/**
+	 * Default number of pixels counted by a single task.
+	 */
+	public static final int DEFAULT_GRAIN = ImageConverter.DEFAULT_GRAIN;
+
+	private static final int BATCH = 256;
+
+	private final ForkJoinPool pool;
+	private final int grain;
+
+	/**
+	 * Constructs builder using the common pool and {@link #DEFAULT_GRAIN}.
+	 */
+	public HistogramBuilder() {
+		this(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+	}
+
+	/**
+	 * Constructs builder.
+	 *
+	 * @param pool
+	 *            - the pool executing counting tasks
+	 * @param grain
+	 *            - the number of pixels counted by a single task; inputs not
+	 *            larger than this are counted on the calling thread
+	 */
+	public HistogramBuilder(ForkJoinPool pool, int grain) {
+		if (pool == null) {
+			throw new NullPointerException("pool");
+		}
+		if (grain < 1) {
+			throw new IllegalArgumentException("Grain must be positive: " + grain);
+		}
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	/**
+	 * Builds histogram of packed RGB values.
+	 *
+	 * @param layout
+	 *            - the layout of bins
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value
+	 * @param length
+	 *            - number of values
+	 * @return the histogram
+	 */
+	public SpaceHistogram build(BinLayout layout, int[] rgb, int offset, int length) {
+		return add(new SpaceHistogram(layout), rgb, offset, length);
+	}
+
+	/**
+	 * Builds histogram of all pixels of the image.
+	 *
+	 * @param layout
+	 *            - the layout of bins
+	 * @param image
+	 *            - the image
+	 * @return the histogram
+	 */
+	public SpaceHistogram build(BinLayout layout, BufferedImage image) {
+		return add(new SpaceHistogram(layout), image);
+	}
+
+	/**
+	 * Builds histogram of all pixels of the raster, see
+	 * {@link #add(SpaceHistogram, Raster)}.
+	 *
+	 * @param layout
+	 *            - the layout of bins
+	 * @param raster
+	 *            - the raster having at least three bands
+	 * @return the histogram
+	 */
+	public SpaceHistogram build(BinLayout layout, Raster raster) {
+		return add(new SpaceHistogram(layout), raster);
+	}
+
+	/**
+	 * Counts packed RGB values into existing histogram.
+	 *
+	 * @param histogram
+	 *            - the histogram receiving counts
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value
+	 * @param length
+	 *            - number of values
+	 * @return the histogram
+	 */
+	public SpaceHistogram add(SpaceHistogram histogram, final int[] rgb, final int offset, int length) {
+		ArrayRanges.check(rgb.length, offset, length);
+
+		return run(histogram, length, grain, new Band() {
+			@Override
+			public void count(int from, int to, Counter counter) {
+				counter.add(rgb, offset + from, to - from);
+			}
+		});
+	}
+
+	/**
+	 * Counts all pixels of the image into existing histogram.
+	 *
+	 * @param histogram
+	 *            - the histogram receiving counts
+	 * @param image
+	 *            - the image
+	 * @return the histogram
+	 */
+	public SpaceHistogram add(SpaceHistogram histogram, final BufferedImage image) {
+		final int width = image.getWidth();
+		int height = image.getHeight();
+
+		final Raster raster = image.getRaster();
+		final int[] data = ImageConverter.packedData(image);
+
+		Band band;
+		if (data != null) {
+			final SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+			final int base = raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY()
+					* model.getScanlineStride() - raster.getSampleModelTranslateX();
+
+			band = new Band() {
+				@Override
+				public void count(int from, int to, Counter counter) {
+					for (int y = from; y < to; y++) {
+						counter.add(data, base + y * model.getScanlineStride(), width);
+					}
+				}
+			};
+		} else {
+			band = new Band() {
+				@Override
+				public void count(int from, int to, Counter counter) {
+					int[] rgb = image.getRGB(0, from, width, to - from, null, 0, width);
+
+					counter.add(rgb, 0, rgb.length);
+				}
+			};
+		}
+
+		return run(histogram, height, rowsPerTask(width), band);
+	}
+
+	/**
+	 * Counts all pixels of the raster into existing histogram. The first
+	 * three bands of the raster are used as red, green and blue components
+	 * with values between 0 and 255.
+	 *
+	 * @param histogram
+	 *            - the histogram receiving counts
+	 * @param raster
+	 *            - the raster having at least three bands
+	 * @return the histogram
+	 */
+	public SpaceHistogram add(SpaceHistogram histogram, final Raster raster) {
+		final int width = raster.getWidth();
+		int height = raster.getHeight();
+		final int bands = raster.getNumBands();
+
+		if (bands < 3) {
+			throw new IllegalArgumentException("Raster must have at least 3 bands: " + bands);
+		}
+
+		final int minX = raster.getMinX();
+		final int minY = raster.getMinY();
+
+		return run(histogram, height, rowsPerTask(width), new Band() {
+			@Override
+			public void count(int from, int to, Counter counter) {
+				int count = (to - from) * width;
+				int[] samples = raster.getPixels(minX, minY + from, width, to - from, (int[]) null);
+				int[] rgb = new int[count];
+
+				for (int i = 0, k = 0; i < count; i++, k += bands) {
+					rgb[i] = ((samples[k] & 0xFF) << 16) | ((samples[k + 1] & 0xFF) << 8) | (samples[k + 2] & 0xFF);
+				}
+
+				counter.add(rgb, 0, count);
+			}
+		});
+	}
+
+	private int rowsPerTask(int width) {
+		return Math.max(1, grain / Math.max(1, width));
+	}
+
+	private SpaceHistogram run(SpaceHistogram histogram, int count, int grain, Band band) {
+		if (count <= grain) {
+			band.count(0, count, new Counter(histogram));
+			return histogram;
+		}
+		Counters counters = new Counters(histogram.getLayout());
+		pool.invoke(new Split(counters, band, 0, count, grain));
+		for (Counter counter : counters.counters.values()) {
+			histogram.merge(counter.histogram);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Counts part of the input.
+	 */
+	private interface Band {
+		void count(int from, int to, Counter counter);
+	}
+
+	/**
+	 * Converts packed colors in batches and counts them into histogram.
+	 */
+	private static final class Counter {
+		private final SpaceHistogram histogram;
+		private final Space space;
+		private final float[] v = new float[BATCH * 3];
+
+		Counter(SpaceHistogram histogram) {
+			this.histogram = histogram;
+			this.space = histogram.getLayout().getSpace();
+		}
+
+		void add(int[] rgb, int offset, int length) {
+			for (int start = 0; start < length; start += BATCH) {
+				int count = Math.min(BATCH, length - start);
+				space.fromRGB(rgb, offset + start, count, v, 0);
+				histogram.add(v, 0, count);
+			}
+		}
+	}
+
+	/**
+	 * Counters of worker threads taking part in one build.
+	 */
+	private static final class Counters {
+		private final BinLayout layout;
+		private final ConcurrentMap<Thread, Counter> counters = new ConcurrentHashMap<Thread, Counter>();
+
+		Counters(BinLayout layout) {
+			this.layout = layout;
+		}
+
+		/**
+		 * Gets counter of the current thread, created on its first task.
+		 */
+		Counter get() {
+			Thread thread = Thread.currentThread();
+			Counter counter = counters.get(thread);
+			if (counter == null) {
+				counter = new Counter(new SpaceHistogram(layout));
+				counters.put(thread, counter);
+			}
+			return counter;
+		}
+	}
+
+	/**
+	 * Splits range in halves until it isn't larger than the grain and counts
+	 * it with counter of the current thread.
+	 */
+	private static final class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Counters counters;
+		private final Band band;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Split(Counters counters, Band band, int from, int to, int grain) {
+			this.counters = counters;
+			this.band = band;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				band.count(from, to, counters.get());
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new Split(counters, band, from, mid, grain), new Split(counters, band, mid, to, grain));
+		}
+	}
+}
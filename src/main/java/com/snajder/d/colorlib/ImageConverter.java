@@ -0,0 +1,333 @@
+package com.snajder.d.colorlib;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Converts whole images (or arrays of packed RGB values) to any of the
+ * supported {@link Space}s in parallel.
+ * <p>
+ * Input is split into chunks of pixels (row bands for images) which are
+ * converted on a {@link ForkJoinPool}. Results are written into arrays
+ * supplied by the caller, so converting many frames of the same size doesn't
+ * allocate output buffers. Inputs not larger than the grain are converted on
+ * the calling thread without submitting any task.
+ * </p>
+ * <p>
+ * Results are the same as with the per-color <code>from(...)</code> methods.
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class ImageConverter {
+	/**
+	 * Default number of pixels converted by a single task.
+	 */
+	public static final int DEFAULT_GRAIN = 16384;
+
+	private final ForkJoinPool pool;
+	private final int grain;
+
+	/**
+	 * Constructs converter using the common pool and {@link #DEFAULT_GRAIN}.
+	 */
+	public ImageConverter() {
+		this(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+	}
+
+	/**
+	 * Constructs converter.
+	 *
+	 * @param pool
+	 *            - the pool executing conversion tasks
+	 * @param grain
+	 *            - the number of pixels converted by a single task; inputs
+	 *            not larger than this are converted on the calling thread
+	 */
+	public ImageConverter(ForkJoinPool pool, int grain) {
+		if (pool == null) {
+			throw new NullPointerException("pool");
+		}
+		if (grain < 1) {
+			throw new IllegalArgumentException("Grain must be positive: " + grain);
+		}
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	/**
+	 * Gets the number of pixels converted by a single task.
+	 *
+	 * @return the grain
+	 */
+	public int getGrain() {
+		return grain;
+	}
+
+	/**
+	 * Converts packed RGB values to specified space. Components are written
+	 * interleaved (three floats per pixel), see
+	 * {@link Space#fromRGB(int[], int, int, float[], int)}.
+	 *
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param target
+	 *            - the target space
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void convert(final int[] rgb, final int offset, int length, final Space target, final float[] dst,
+			final int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length * 3);
+
+		run(length, grain, new Band() {
+			@Override
+			public void process(int from, int to) {
+				target.convert(rgb, offset + from, to - from, dst, dstOffset + from * 3);
+			}
+		});
+	}
+
+	/**
+	 * Converts packed RGB values to packed RYB values. Results are the same as
+	 * with {@link RYB#from(int[], int, int, int[], int)}.
+	 *
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param ryb
+	 *            - the array receiving packed RYB values
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void toRYB(final int[] rgb, final int offset, int length, final int[] ryb, final int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(ryb.length, dstOffset, length);
+
+		run(length, grain, new Band() {
+			@Override
+			public void process(int from, int to) {
+				RYB.from(rgb, offset + from, to - from, ryb, dstOffset + from);
+			}
+		});
+	}
+
+	/**
+	 * Applies lookup table to packed RGB values. Results are the same as with
+	 * {@link ColorLookupTable#apply(int[], int, int, int[], int)}.
+	 *
+	 * @param table
+	 *            - the lookup table
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value
+	 * @param length
+	 *            - number of values
+	 * @param dst
+	 *            - the array receiving packed mapped values, may be the same
+	 *            as input array
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void apply(final ColorLookupTable table, final int[] rgb, final int offset, int length, final int[] dst,
+			final int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		run(length, grain, new Band() {
+			@Override
+			public void process(int from, int to) {
+				table.apply(rgb, offset + from, to - from, dst, dstOffset + from);
+			}
+		});
+	}
+
+	/**
+	 * Converts all pixels of the image to specified space. Components are
+	 * written interleaved, row by row (three floats per pixel, pixel
+	 * <code>(x, y)</code> starting at <code>dstOffset + (y * width + x) * 3</code>).
+	 * <p>
+	 * Images backed by packed int pixels (e.g.
+	 * {@link BufferedImage#TYPE_INT_RGB}) are converted directly from the
+	 * raster data, other images are read using
+	 * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+	 * Alpha is ignored.
+	 * </p>
+	 *
+	 * @param image
+	 *            - the image
+	 * @param target
+	 *            - the target space
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void convert(final BufferedImage image, final Space target, final float[] dst, final int dstOffset) {
+		final int width = image.getWidth();
+		int height = image.getHeight();
+
+		ArrayRanges.check(dst.length, dstOffset, width * height * 3);
+
+		final Raster raster = image.getRaster();
+		final int[] data = packedData(image);
+
+		Band band;
+		if (data != null) {
+			final SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+			final int base = raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY()
+					* model.getScanlineStride() - raster.getSampleModelTranslateX();
+
+			band = new Band() {
+				@Override
+				public void process(int from, int to) {
+					for (int y = from; y < to; y++) {
+						target.convert(data, base + y * model.getScanlineStride(), width, dst,
+								dstOffset + y * width * 3);
+					}
+				}
+			};
+		} else {
+			band = new Band() {
+				@Override
+				public void process(int from, int to) {
+					int[] rgb = image.getRGB(0, from, width, to - from, null, 0, width);
+
+					target.convert(rgb, 0, rgb.length, dst, dstOffset + from * width * 3);
+				}
+			};
+		}
+
+		run(height, rowsPerTask(width), band);
+	}
+
+	/**
+	 * Converts all pixels of the raster to specified space. The first three
+	 * bands of the raster are used as red, green and blue components with
+	 * values between 0 and 255. Components are written interleaved, row by
+	 * row, as with {@link #convert(BufferedImage, Space, float[], int)}.
+	 *
+	 * @param raster
+	 *            - the raster having at least three bands
+	 * @param target
+	 *            - the target space
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void convert(final Raster raster, final Space target, final float[] dst, final int dstOffset) {
+		final int width = raster.getWidth();
+		int height = raster.getHeight();
+		final int bands = raster.getNumBands();
+
+		if (bands < 3) {
+			throw new IllegalArgumentException("Raster must have at least 3 bands: " + bands);
+		}
+		ArrayRanges.check(dst.length, dstOffset, width * height * 3);
+
+		final int minX = raster.getMinX();
+		final int minY = raster.getMinY();
+
+		run(height, rowsPerTask(width), new Band() {
+			@Override
+			public void process(int from, int to) {
+				int count = (to - from) * width;
+				int[] samples = raster.getPixels(minX, minY + from, width, to - from, (int[]) null);
+				int[] rgb = new int[count];
+
+				for (int i = 0, k = 0; i < count; i++, k += bands) {
+					rgb[i] = ((samples[k] & 0xFF) << 16) | ((samples[k + 1] & 0xFF) << 8) | (samples[k + 2] & 0xFF);
+				}
+
+				target.convert(rgb, 0, count, dst, dstOffset + from * width * 3);
+			}
+		});
+	}
+
+	/**
+	 * Gets pixel data of the image if its pixels are stored as packed
+	 * <code>0x??RRGGBB</code> ints, <code>null</code> otherwise.
+	 */
+	static int[] packedData(BufferedImage image) {
+		int type = image.getType();
+		if (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB) {
+			return null;
+		}
+
+		Raster raster = image.getRaster();
+		if (!(raster.getDataBuffer() instanceof DataBufferInt)
+				|| !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+			return null;
+		}
+
+		return ((DataBufferInt) raster.getDataBuffer()).getData();
+	}
+
+	private int rowsPerTask(int width) {
+		return Math.max(1, grain / Math.max(1, width));
+	}
+
+	private void run(int count, int grain, Band band) {
+		if (count <= grain) {
+			band.process(0, count);
+		} else {
+			pool.invoke(new Split(band, 0, count, grain));
+		}
+	}
+
+	/**
+	 * Converts part of the input.
+	 */
+	private interface Band {
+		void process(int from, int to);
+	}
+
+	/**
+	 * Splits range in halves until it isn't larger than the grain.
+	 */
+	private static final class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Band band;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Split(Band band, int from, int to, int grain) {
+			this.band = band;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				band.process(from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Split(band, from, mid, grain), new Split(band, mid, to, grain));
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.snajder.d.colorlib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of one {@link ColorOperation}: invocations, colors, total
+ * latency and histograms of latencies and batch sizes.
+ * <p>
+ * Latency histogram is log-linear like HdrHistogram: values below 8 ns have
+ * own buckets and every power of two above is divided into 8 buckets, so
+ * reported percentiles are within 12.5% of the recorded values. Batch sizes
+ * are counted in power of two buckets. Counters are striped like in
+ * {@link StripedHistogram}, each thread updating the stripe selected by its
+ * id.
+ * </p>
+ */
+final class OperationRecorder {
+	static final int SUB_BUCKETS = 8;
+	static final int LATENCY_BUCKETS = 38 * SUB_BUCKETS;
+	static final int BATCH_BUCKETS = 32;
+
+	static final int INVOCATIONS = 0;
+	static final int ITEMS = 1;
+	static final int NANOS = 2;
+	static final int LATENCY = 3;
+	static final int BATCH = LATENCY + LATENCY_BUCKETS;
+	static final int SIZE = BATCH + BATCH_BUCKETS;
+
+	private final AtomicLongArray[] stripes;
+
+	OperationRecorder() {
+		int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+		stripes = new AtomicLongArray[n];
+		for (int i = 0; i < n; i++) {
+			stripes[i] = new AtomicLongArray(SIZE);
+		}
+	}
+
+	void record(long nanos, int items) {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		AtomicLongArray stripe = stripes[(h >>> 16) & (stripes.length - 1)];
+
+		stripe.getAndIncrement(INVOCATIONS);
+		stripe.getAndAdd(ITEMS, items);
+		stripe.getAndAdd(NANOS, nanos);
+		stripe.getAndIncrement(LATENCY + latencyBucket(nanos));
+		stripe.getAndIncrement(BATCH + 31 - Integer.numberOfLeadingZeros(Math.max(1, items)));
+	}
+
+	/**
+	 * Sums all stripes into single array with the layout of a stripe.
+	 */
+	long[] sum() {
+		long[] sum = new long[SIZE];
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < SIZE; i++) {
+				sum[i] += stripe.get(i);
+			}
+		}
+		return sum;
+	}
+
+	void reset() {
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < SIZE; i++) {
+				stripe.set(i, 0L);
+			}
+		}
+	}
+
+	static int latencyBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return nanos < 0 ? 0 : (int) nanos;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(nanos);
+		int bucket = (exp - 2) * SUB_BUCKETS + (int) ((nanos >>> (exp - 3)) & (SUB_BUCKETS - 1));
+		return Math.min(bucket, LATENCY_BUCKETS - 1);
+	}
+
+	/**
+	 * Gets the largest value counted in latency bucket.
+	 */
+	static long latencyUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exp = bucket / SUB_BUCKETS + 2;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - 3);
+		return lower + (1L << (exp - 3)) - 1;
+	}
+}
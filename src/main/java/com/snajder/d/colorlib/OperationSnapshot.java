@@ -0,0 +1,163 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Counters of one {@link ColorOperation} at the time of
+ * {@link ColorMetrics#snapshot(ColorOperation)}. Instances are immutable and
+ * published by {@link ColorMetricsMXBean} as composite data.
+ */
+public final class OperationSnapshot {
+	private final String operation;
+	private final long[] counts;
+
+	OperationSnapshot(ColorOperation operation, long[] counts) {
+		this.operation = operation.name();
+		this.counts = counts;
+	}
+
+	/**
+	 * Gets name of the operation.
+	 *
+	 * @return the operation name
+	 */
+	public String getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Gets number of invocations.
+	 *
+	 * @return the number of invocations
+	 */
+	public long getInvocations() {
+		return counts[OperationRecorder.INVOCATIONS];
+	}
+
+	/**
+	 * Gets number of converted (or compared) colors, the sum of all batch
+	 * sizes.
+	 *
+	 * @return the number of colors
+	 */
+	public long getItems() {
+		return counts[OperationRecorder.ITEMS];
+	}
+
+	/**
+	 * Gets total time spent in the operation.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return counts[OperationRecorder.NANOS];
+	}
+
+	/**
+	 * Gets mean number of colors per invocation.
+	 *
+	 * @return the mean batch size, 0 if there were no invocations
+	 */
+	public double getMeanBatchSize() {
+		long n = getInvocations();
+		return n == 0 ? 0 : (double) getItems() / n;
+	}
+
+	/**
+	 * Gets mean latency of invocation.
+	 *
+	 * @return the mean latency in nanoseconds, 0 if there were no
+	 *         invocations
+	 */
+	public double getMeanNanos() {
+		long n = getInvocations();
+		return n == 0 ? 0 : (double) getTotalNanos() / n;
+	}
+
+	/**
+	 * Gets median latency.
+	 *
+	 * @return the latency in nanoseconds
+	 * @see #getLatencyNanos(double)
+	 */
+	public long getP50Nanos() {
+		return getLatencyNanos(50);
+	}
+
+	/**
+	 * Gets 99th percentile of latency.
+	 *
+	 * @return the latency in nanoseconds
+	 * @see #getLatencyNanos(double)
+	 */
+	public long getP99Nanos() {
+		return getLatencyNanos(99);
+	}
+
+	/**
+	 * Gets 99.9th percentile of latency.
+	 *
+	 * @return the latency in nanoseconds
+	 * @see #getLatencyNanos(double)
+	 */
+	public long getP999Nanos() {
+		return getLatencyNanos(99.9);
+	}
+
+	/**
+	 * Gets maximum latency.
+	 *
+	 * @return the latency in nanoseconds
+	 * @see #getLatencyNanos(double)
+	 */
+	public long getMaxNanos() {
+		return getLatencyNanos(100);
+	}
+
+	/**
+	 * Gets latency percentile, the upper bound of the histogram bucket
+	 * holding it (at most 12.5% larger than the recorded latency).
+	 *
+	 * @param percentile
+	 *            - the percentile between 0 and 100
+	 * @return the latency in nanoseconds, 0 if there were no invocations
+	 */
+	public long getLatencyNanos(double percentile) {
+		long n = getInvocations();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100));
+		long seen = 0;
+		int last = 0;
+		for (int i = 0; i < OperationRecorder.LATENCY_BUCKETS; i++) {
+			long count = counts[OperationRecorder.LATENCY + i];
+			if (count == 0) {
+				continue;
+			}
+			last = i;
+			seen += count;
+			if (seen >= rank) {
+				break;
+			}
+		}
+		return OperationRecorder.latencyUpperBound(last);
+	}
+
+	/**
+	 * Gets distribution of batch sizes: element <code>i</code> is number of
+	 * invocations with between 2<sup>i</sup> and 2<sup>i + 1</sup> - 1
+	 * colors (the first element also counts empty batches).
+	 *
+	 * @return new array of 32 counts
+	 */
+	public long[] getBatchSizes() {
+		long[] sizes = new long[OperationRecorder.BATCH_BUCKETS];
+		System.arraycopy(counts, OperationRecorder.BATCH, sizes, 0, sizes.length);
+		return sizes;
+	}
+
+	@Override
+	public String toString() {
+		return operation + "[invocations=" + getInvocations() + ", items=" + getItems() + ", p50=" + getP50Nanos()
+				+ "ns, p99=" + getP99Nanos() + "ns, max=" + getMaxNanos() + "ns]";
+	}
+}
@@ -0,0 +1,119 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe set of 24-bit packed colors (e.g. <code>0xRRGGBB</code>).
+ * <p>
+ * Set is a bitmap with one bit for each of 2<sup>24</sup> colors (2 MB), so
+ * colors are never boxed, memory doesn't grow with number of colors and
+ * every operation is a single atomic update without locks. Useful for
+ * deduplication of colors processed by multiple threads.
+ * </p>
+ */
+public final class PackedColorSet {
+	private final AtomicLongArray bits = new AtomicLongArray(1 << 18);
+	private final LongAdder size = new LongAdder();
+
+	/**
+	 * Adds color to the set.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 * @return <code>true</code> if the color wasn't in the set
+	 */
+	public boolean add(int color) {
+		int index = (color & 0xFFFFFF) >>> 6;
+		long bit = 1L << color;
+		long word;
+		do {
+			word = bits.get(index);
+			if ((word & bit) != 0) {
+				return false;
+			}
+		} while (!bits.compareAndSet(index, word, word | bit));
+
+		size.increment();
+		return true;
+	}
+
+	/**
+	 * Removes color from the set.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 * @return <code>true</code> if the color was in the set
+	 */
+	public boolean remove(int color) {
+		int index = (color & 0xFFFFFF) >>> 6;
+		long bit = 1L << color;
+		long word;
+		do {
+			word = bits.get(index);
+			if ((word & bit) == 0) {
+				return false;
+			}
+		} while (!bits.compareAndSet(index, word, word & ~bit));
+
+		size.decrement();
+		return true;
+	}
+
+	/**
+	 * Checks whether color is in the set.
+	 *
+	 * @param color
+	 *            - the packed color (upper byte is ignored)
+	 * @return <code>true</code> if the color is in the set
+	 */
+	public boolean contains(int color) {
+		return (bits.get((color & 0xFFFFFF) >>> 6) & (1L << color)) != 0;
+	}
+
+	/**
+	 * Gets the number of colors in the set. Value is exact only when no
+	 * updates are running concurrently.
+	 *
+	 * @return the number of colors
+	 */
+	public int size() {
+		return size.intValue();
+	}
+
+	/**
+	 * Gets all colors of the set in ascending order. Colors added or removed
+	 * concurrently may or may not be included.
+	 *
+	 * @return new array of colors
+	 */
+	public int[] toArray() {
+		int[] colors = new int[size()];
+		int n = 0;
+		for (int i = 0; i < bits.length(); i++) {
+			long word = bits.get(i);
+			while (word != 0) {
+				if (n == colors.length) {
+					colors = Arrays.copyOf(colors, n * 2 + 1);
+				}
+				colors[n++] = (i << 6) | Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return n == colors.length ? colors : Arrays.copyOf(colors, n);
+	}
+
+	/**
+	 * Removes all colors. Colors added concurrently may or may not be
+	 * removed.
+	 */
+	public void clear() {
+		for (int i = 0; i < bits.length(); i++) {
+			long word = bits.getAndSet(i, 0L);
+			if (word != 0) {
+				size.add(-Long.bitCount(word));
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Flyweight table of immutable packed colors, shared by {@link PackedRGB} and
+ * {@link PackedRYB}.
+ * <p>
+ * Table is direct-mapped: each color has a single slot selected by its hash,
+ * and a new color replaces the previous one in the slot. Lookups take no
+ * locks. Races only cause equal instances to be created more than once,
+ * which is harmless as instances are immutable (all their fields are final,
+ * so they are safely published through the table).
+ * </p>
+ *
+ * @param <C>
+ *            the type of colors
+ */
+abstract class PackedColors<C> {
+	private static final int SLOTS = 1 << 12;
+
+	private final Object[] slots = new Object[SLOTS];
+
+	/**
+	 * Gets shared instance of specified 24-bit color.
+	 */
+	@SuppressWarnings("unchecked")
+	final C get(int value) {
+		int slot = hash(value) >>> (32 - 12);
+		C color = (C) slots[slot];
+		if (color == null || value(color) != value) {
+			color = create(value);
+			slots[slot] = color;
+		}
+		return color;
+	}
+
+	abstract C create(int value);
+
+	abstract int value(C color);
+
+	/**
+	 * Mixes bits of packed color, so that similar colors get different
+	 * hashes (Fibonacci hashing).
+	 */
+	static int hash(int value) {
+		return value * 0x9E3779B9;
+	}
+
+	/**
+	 * Packs three components, checking their range.
+	 */
+	static int pack(int c0, int c1, int c2) {
+		if (((c0 | c1 | c2) & ~0xFF) != 0) {
+			throw new IllegalArgumentException("Components must be between 0 and 255: " + c0 + ", " + c1 + ", " + c2);
+		}
+		return (c0 << 16) | (c1 << 8) | c2;
+	}
+}
@@ -0,0 +1,53 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Bulk conversions of packed RGB values to interleaved float components of
+ * each {@link Space}. Used by {@link Space} constants, which can't refer to
+ * classes having the same simple names.
+ */
+final class PackedConversions {
+
+	private PackedConversions() {
+	}
+
+	static void toRGB(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+			int k = dstOffset + i * 3;
+			dst[k] = (p >> 16) & 0xFF;
+			dst[k + 1] = (p >> 8) & 0xFF;
+			dst[k + 2] = p & 0xFF;
+		}
+	}
+
+	static void toHSL(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		HSL.from(rgb, offset, length, dst, dstOffset);
+	}
+
+	static void toHSLRYB(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+			int ryb = RYB.fromRGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+			HSL.fromRGB((ryb >> 16) & 0xFF, (ryb >> 8) & 0xFF, ryb & 0xFF, dst, dstOffset + i * 3);
+		}
+	}
+
+	static void toRYB(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+			int ryb = RYB.fromRGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+			int k = dstOffset + i * 3;
+			dst[k] = (ryb >> 16) & 0xFF;
+			dst[k + 1] = (ryb >> 8) & 0xFF;
+			dst[k + 2] = ryb & 0xFF;
+		}
+	}
+
+	static void toXYZ(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		XYZ.from(rgb, offset, length, dst, dstOffset);
+	}
+
+	static void toCIELab(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		CIELab.from(rgb, offset, length, dst, dstOffset);
+	}
+}
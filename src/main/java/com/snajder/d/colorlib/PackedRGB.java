@@ -0,0 +1,221 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Immutable RGB color packed into single int as <code>0xRRGGBB</code>.
+ * <p>
+ * Unlike {@link RGB}, instances have value semantics ({@link #equals(Object)}
+ * and {@link #hashCode()} depend only on the components) and can be shared
+ * between threads, used as map keys and cached. Instances are obtained with
+ * {@link #of(int)}, which returns shared instances for recently used colors.
+ * </p>
+ * <p>
+ * Static methods like {@link #pack(int, int, int)} and {@link #red(int)} work
+ * directly with packed ints, so the colors can be kept in primitive arrays
+ * and collections without any objects.
+ * </p>
+ */
+public final class PackedRGB {
+	private static final PackedColors<PackedRGB> INSTANCES = new PackedColors<PackedRGB>() {
+		@Override
+		PackedRGB create(int value) {
+			return new PackedRGB(value);
+		}
+
+		@Override
+		int value(PackedRGB color) {
+			return color.value;
+		}
+	};
+
+	private final int value;
+
+	private PackedRGB(int value) {
+		this.value = value;
+	}
+
+	/**
+	 * Gets instance of specified packed color.
+	 *
+	 * @param rgb
+	 *            - the color packed as <code>0xRRGGBB</code> (upper byte is
+	 *            ignored)
+	 * @return the color
+	 */
+	public static PackedRGB of(int rgb) {
+		return INSTANCES.get(rgb & 0xFFFFFF);
+	}
+
+	/**
+	 * Gets instance of specified color.
+	 *
+	 * @param r
+	 *            - the red component value between 0 and 255
+	 * @param g
+	 *            - the green component value between 0 and 255
+	 * @param b
+	 *            - the blue component value between 0 and 255
+	 * @return the color
+	 * @throws IllegalArgumentException
+	 *             if any component is out of range
+	 */
+	public static PackedRGB of(int r, int g, int b) {
+		return of(PackedColors.pack(r, g, b));
+	}
+
+	/**
+	 * Gets instance with components of specified {@link RGB} value.
+	 *
+	 * @param rgb
+	 *            - the RGB value
+	 * @return the color
+	 */
+	public static PackedRGB from(RGB rgb) {
+		return of(rgb.getR(), rgb.getG(), rgb.getB());
+	}
+
+	/**
+	 * Converts specified {@link PackedRYB} color to RGB, as with
+	 * {@link RGB#from(RYB)}.
+	 *
+	 * @param ryb
+	 *            - the RYB color
+	 * @return the RGB color
+	 */
+	public static PackedRGB from(PackedRYB ryb) {
+		return of(fromRYB(ryb.intValue()));
+	}
+
+	/**
+	 * Packs specified components as <code>0xRRGGBB</code>.
+	 *
+	 * @param r
+	 *            - the red component value between 0 and 255
+	 * @param g
+	 *            - the green component value between 0 and 255
+	 * @param b
+	 *            - the blue component value between 0 and 255
+	 * @return the packed color
+	 * @throws IllegalArgumentException
+	 *             if any component is out of range
+	 */
+	public static int pack(int r, int g, int b) {
+		return PackedColors.pack(r, g, b);
+	}
+
+	/**
+	 * Gets red component of packed color.
+	 *
+	 * @param rgb
+	 *            - the packed color
+	 * @return the red component
+	 */
+	public static int red(int rgb) {
+		return (rgb >> 16) & 0xFF;
+	}
+
+	/**
+	 * Gets green component of packed color.
+	 *
+	 * @param rgb
+	 *            - the packed color
+	 * @return the green component
+	 */
+	public static int green(int rgb) {
+		return (rgb >> 8) & 0xFF;
+	}
+
+	/**
+	 * Gets blue component of packed color.
+	 *
+	 * @param rgb
+	 *            - the packed color
+	 * @return the blue component
+	 */
+	public static int blue(int rgb) {
+		return rgb & 0xFF;
+	}
+
+	/**
+	 * Converts packed RYB color to packed RGB color, as with
+	 * {@link RGB#from(RYB)}.
+	 *
+	 * @param ryb
+	 *            - the color packed as <code>0xRRYYBB</code>
+	 * @return the color packed as <code>0xRRGGBB</code>
+	 */
+	public static int fromRYB(int ryb) {
+		return RGB.fromRYB((ryb >> 16) & 0xFF, (ryb >> 8) & 0xFF, ryb & 0xFF);
+	}
+
+	/**
+	 * Gets hash of packed color, the same as {@link #hashCode()} of its
+	 * instance.
+	 *
+	 * @param rgb
+	 *            - the packed color
+	 * @return the hash
+	 */
+	public static int hash(int rgb) {
+		return PackedColors.hash(rgb & 0xFFFFFF);
+	}
+
+	/**
+	 * Gets the red component.
+	 *
+	 * @return red component
+	 */
+	public int getR() {
+		return red(value);
+	}
+
+	/**
+	 * Gets the green component.
+	 *
+	 * @return green component
+	 */
+	public int getG() {
+		return green(value);
+	}
+
+	/**
+	 * Gets the blue component.
+	 *
+	 * @return blue component
+	 */
+	public int getB() {
+		return blue(value);
+	}
+
+	/**
+	 * Gets the packed color.
+	 *
+	 * @return the color packed as <code>0xRRGGBB</code>
+	 */
+	public int intValue() {
+		return value;
+	}
+
+	/**
+	 * Creates new mutable {@link RGB} with the same components.
+	 *
+	 * @return the RGB value
+	 */
+	public RGB toRGB() {
+		return RGB.from(getR(), getG(), getB());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PackedRGB && ((PackedRGB) obj).value == value;
+	}
+
+	@Override
+	public int hashCode() {
+		return PackedColors.hash(value);
+	}
+
+	@Override
+	public String toString() {
+		return "[r=" + getR() + ", g=" + getG() + ", b=" + getB() + "]";
+	}
+}
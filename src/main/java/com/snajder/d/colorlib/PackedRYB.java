@@ -0,0 +1,221 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Immutable RYB color packed into single int as <code>0xRRYYBB</code>.
+ * <p>
+ * Unlike {@link RYB}, instances have value semantics ({@link #equals(Object)}
+ * and {@link #hashCode()} depend only on the components) and can be shared
+ * between threads, used as map keys and cached. Instances are obtained with
+ * {@link #of(int)}, which returns shared instances for recently used colors.
+ * </p>
+ * <p>
+ * Static methods like {@link #pack(int, int, int)} and {@link #red(int)} work
+ * directly with packed ints, so the colors can be kept in primitive arrays
+ * and collections without any objects.
+ * </p>
+ */
+public final class PackedRYB {
+	private static final PackedColors<PackedRYB> INSTANCES = new PackedColors<PackedRYB>() {
+		@Override
+		PackedRYB create(int value) {
+			return new PackedRYB(value);
+		}
+
+		@Override
+		int value(PackedRYB color) {
+			return color.value;
+		}
+	};
+
+	private final int value;
+
+	private PackedRYB(int value) {
+		this.value = value;
+	}
+
+	/**
+	 * Gets instance of specified packed color.
+	 *
+	 * @param ryb
+	 *            - the color packed as <code>0xRRYYBB</code> (upper byte is
+	 *            ignored)
+	 * @return the color
+	 */
+	public static PackedRYB of(int ryb) {
+		return INSTANCES.get(ryb & 0xFFFFFF);
+	}
+
+	/**
+	 * Gets instance of specified color.
+	 *
+	 * @param r
+	 *            - the red component value between 0 and 255
+	 * @param y
+	 *            - the yellow component value between 0 and 255
+	 * @param b
+	 *            - the blue component value between 0 and 255
+	 * @return the color
+	 * @throws IllegalArgumentException
+	 *             if any component is out of range
+	 */
+	public static PackedRYB of(int r, int y, int b) {
+		return of(PackedColors.pack(r, y, b));
+	}
+
+	/**
+	 * Gets instance with components of specified {@link RYB} value.
+	 *
+	 * @param ryb
+	 *            - the RYB value
+	 * @return the color
+	 */
+	public static PackedRYB from(RYB ryb) {
+		return of(ryb.getR(), ryb.getY(), ryb.getB());
+	}
+
+	/**
+	 * Converts specified {@link PackedRGB} color to RYB, as with
+	 * {@link RYB#from(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the RGB color
+	 * @return the RYB color
+	 */
+	public static PackedRYB from(PackedRGB rgb) {
+		return of(fromRGB(rgb.intValue()));
+	}
+
+	/**
+	 * Packs specified components as <code>0xRRYYBB</code>.
+	 *
+	 * @param r
+	 *            - the red component value between 0 and 255
+	 * @param y
+	 *            - the yellow component value between 0 and 255
+	 * @param b
+	 *            - the blue component value between 0 and 255
+	 * @return the packed color
+	 * @throws IllegalArgumentException
+	 *             if any component is out of range
+	 */
+	public static int pack(int r, int y, int b) {
+		return PackedColors.pack(r, y, b);
+	}
+
+	/**
+	 * Gets red component of packed color.
+	 *
+	 * @param ryb
+	 *            - the packed color
+	 * @return the red component
+	 */
+	public static int red(int ryb) {
+		return (ryb >> 16) & 0xFF;
+	}
+
+	/**
+	 * Gets yellow component of packed color.
+	 *
+	 * @param ryb
+	 *            - the packed color
+	 * @return the yellow component
+	 */
+	public static int yellow(int ryb) {
+		return (ryb >> 8) & 0xFF;
+	}
+
+	/**
+	 * Gets blue component of packed color.
+	 *
+	 * @param ryb
+	 *            - the packed color
+	 * @return the blue component
+	 */
+	public static int blue(int ryb) {
+		return ryb & 0xFF;
+	}
+
+	/**
+	 * Converts packed RGB color to packed RYB color, as with
+	 * {@link RYB#from(RGB)}.
+	 *
+	 * @param rgb
+	 *            - the color packed as <code>0xRRGGBB</code>
+	 * @return the color packed as <code>0xRRYYBB</code>
+	 */
+	public static int fromRGB(int rgb) {
+		return RYB.fromRGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+	}
+
+	/**
+	 * Gets hash of packed color, the same as {@link #hashCode()} of its
+	 * instance.
+	 *
+	 * @param ryb
+	 *            - the packed color
+	 * @return the hash
+	 */
+	public static int hash(int ryb) {
+		return PackedColors.hash(ryb & 0xFFFFFF);
+	}
+
+	/**
+	 * Gets the red component.
+	 *
+	 * @return red component
+	 */
+	public int getR() {
+		return red(value);
+	}
+
+	/**
+	 * Gets the yellow component.
+	 *
+	 * @return yellow component
+	 */
+	public int getY() {
+		return yellow(value);
+	}
+
+	/**
+	 * Gets the blue component.
+	 *
+	 * @return blue component
+	 */
+	public int getB() {
+		return blue(value);
+	}
+
+	/**
+	 * Gets the packed color.
+	 *
+	 * @return the color packed as <code>0xRRYYBB</code>
+	 */
+	public int intValue() {
+		return value;
+	}
+
+	/**
+	 * Creates new mutable {@link RYB} with the same components.
+	 *
+	 * @return the RYB value
+	 */
+	public RYB toRYB() {
+		return RYB.from(getR(), getY(), getB());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PackedRYB && ((PackedRYB) obj).value == value;
+	}
+
+	@Override
+	public int hashCode() {
+		return PackedColors.hash(value);
+	}
+
+	@Override
+	public String toString() {
+		return "[r=" + getR() + ", y=" + getY() + ", b=" + getB() + "]";
+	}
+}
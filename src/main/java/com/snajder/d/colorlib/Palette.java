@@ -0,0 +1,91 @@
+package com.snajder.d.colorlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Palette of colors extracted from an image, with number of pixels
+ * represented by each color.
+ * <p>
+ * Colors are ordered by population, most frequent first. Instances are
+ * immutable. To create palette use {@link PaletteExtractor}.
+ * </p>
+ */
+public final class Palette {
+	private final int[] rgb;
+	private final int[] counts;
+
+	Palette(int[] rgb, int[] counts) {
+		this.rgb = rgb;
+		this.counts = counts;
+	}
+
+	/**
+	 * Gets the number of colors in palette.
+	 *
+	 * @return the number of colors
+	 */
+	public int size() {
+		return rgb.length;
+	}
+
+	/**
+	 * Gets color at specified index.
+	 *
+	 * @param index
+	 *            - index of the color
+	 * @return the color
+	 */
+	public RGB getColor(int index) {
+		int p = rgb[index];
+		return new RGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	/**
+	 * Gets color at specified index packed as <code>0xRRGGBB</code>.
+	 *
+	 * @param index
+	 *            - index of the color
+	 * @return the packed color
+	 */
+	public int getRGB(int index) {
+		return rgb[index];
+	}
+
+	/**
+	 * Gets number of pixels represented by color at specified index.
+	 *
+	 * @param index
+	 *            - index of the color
+	 * @return the number of pixels
+	 */
+	public int getCount(int index) {
+		return counts[index];
+	}
+
+	/**
+	 * Gets all colors of the palette.
+	 *
+	 * @return unmodifiable list of colors
+	 */
+	public List<RGB> getColors() {
+		List<RGB> colors = new ArrayList<RGB>(rgb.length);
+		for (int i = 0; i < rgb.length; i++) {
+			colors.add(getColor(i));
+		}
+		return Collections.unmodifiableList(colors);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < rgb.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(getColor(i)).append('x').append(counts[i]);
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,494 @@
+package com.snajder.d.colorlib;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Maps images to a fixed palette with dithering in {@link CIELab}, in
+ * parallel.
+ * <p>
+ * Lab values of palette colors are computed once and searched with a
+ * {@link PaletteIndex}. Images are packed RGB pixels stored row by row
+ * without gaps, results are palette indices.
+ * </p>
+ * <ul>
+ * <li>{@link #ordered(int[], int, int, int, int[], int) Ordered} dithering
+ * mixes two palette colors: the closest one and the one whose segment from
+ * it passes closest to the pixel. The pixel is projected on the segment and
+ * the 8x8 Bayer threshold selects the second color with probability given by
+ * the projection, so the mean of the pattern follows the pixel along the
+ * whole gap between the colors. Pixels are independent, so row bands are
+ * mapped by separate tasks.</li>
+ * <li>{@link #diffuse(int[], int, int, int, int[], int) Error diffusion}
+ * distributes the Lab error of each pixel to its neighbors with
+ * Floyd-Steinberg weights. Rows are processed in parallel in a wavefront:
+ * each row trails the row above by at least two pixels, which is when all
+ * error diffused to a pixel is known. Results are the same as with serial
+ * processing.</li>
+ * </ul>
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class PaletteDitherer {
+	/**
+	 * Default number of pixels mapped by a single ordered dithering task.
+	 */
+	public static final int DEFAULT_GRAIN = ImageConverter.DEFAULT_GRAIN;
+
+	/**
+	 * Number of pixels processed between synchronizations with the row
+	 * above.
+	 */
+	private static final int BLOCK = 64;
+
+	/**
+	 * Number of rows of diffused errors, each row written by the row above
+	 * and consumed by itself.
+	 */
+	private static final int ERROR_ROWS = 4;
+
+	private static final int[] BAYER = bayer(8);
+
+	private final int[] rgb;
+	private final float[] lab;
+	private final PaletteIndex index;
+	private final ForkJoinPool pool;
+	private final int grain;
+
+	/**
+	 * Constructs ditherer using the common pool.
+	 *
+	 * @param palette
+	 *            - the packed RGB palette colors
+	 * @param offset
+	 *            - index of the first palette color
+	 * @param length
+	 *            - number of palette colors
+	 */
+	public PaletteDitherer(int[] palette, int offset, int length) {
+		this(palette, offset, length, ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+	}
+
+	/**
+	 * Constructs ditherer.
+	 *
+	 * @param palette
+	 *            - the packed RGB palette colors
+	 * @param offset
+	 *            - index of the first palette color
+	 * @param length
+	 *            - number of palette colors
+	 * @param pool
+	 *            - the pool executing parallel tasks
+	 * @param grain
+	 *            - the number of pixels mapped by a single ordered dithering
+	 *            task
+	 */
+	public PaletteDitherer(int[] palette, int offset, int length, ForkJoinPool pool, int grain) {
+		ArrayRanges.check(palette.length, offset, length);
+		if (length < 1) {
+			throw new IllegalArgumentException("Palette must not be empty");
+		}
+		if (pool == null) {
+			throw new NullPointerException("pool");
+		}
+		if (grain < 1) {
+			throw new IllegalArgumentException("Grain must be positive: " + grain);
+		}
+
+		this.rgb = new int[length];
+		for (int i = 0; i < length; i++) {
+			rgb[i] = palette[offset + i] & 0xFFFFFF;
+		}
+		this.lab = new float[length * 3];
+		CIELab.from(rgb, 0, length, lab, 0);
+		this.index = PaletteIndex.fromLab(lab, 0, length);
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	/**
+	 * Gets the number of palette colors.
+	 *
+	 * @return the palette size
+	 */
+	public int size() {
+		return rgb.length;
+	}
+
+	/**
+	 * Gets palette color.
+	 *
+	 * @param index
+	 *            - index of the palette color
+	 * @return the color packed as <code>0xRRGGBB</code>
+	 */
+	public int getRGB(int index) {
+		return rgb[index];
+	}
+
+	/**
+	 * Replaces palette indices with packed palette colors.
+	 *
+	 * @param indices
+	 *            - the palette indices
+	 * @param offset
+	 *            - index of the first palette index
+	 * @param length
+	 *            - number of indices
+	 * @param dst
+	 *            - the array receiving packed colors (may be the same as
+	 *            <code>indices</code>)
+	 * @param dstOffset
+	 *            - index in destination array where first color is written
+	 */
+	public void toRGB(int[] indices, int offset, int length, int[] dst, int dstOffset) {
+		ArrayRanges.check(indices.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		for (int i = 0; i < length; i++) {
+			dst[dstOffset + i] = rgb[indices[offset + i]];
+		}
+	}
+
+	/**
+	 * Maps image to the palette with ordered (Bayer) dithering.
+	 *
+	 * @param image
+	 *            - the packed RGB pixels
+	 * @param offset
+	 *            - index of the top left pixel
+	 * @param width
+	 *            - width of the image
+	 * @param height
+	 *            - height of the image
+	 * @param indices
+	 *            - the array receiving palette indices
+	 * @param dstOffset
+	 *            - index in destination array where index of the top left
+	 *            pixel is written
+	 */
+	public void ordered(final int[] image, final int offset, final int width, int height, final int[] indices,
+			final int dstOffset) {
+		checkImage(image, offset, width, height, indices, dstOffset);
+
+		int rows = Math.max(1, grain / Math.max(1, width));
+		Band band = new Band() {
+			@Override
+			public void process(int from, int to) {
+				float[] row = new float[width * 3];
+				for (int y = from; y < to; y++) {
+					CIELab.from(image, offset + y * width, width, row, 0);
+
+					int bayerRow = (y & 7) * 8;
+					int pos = dstOffset + y * width;
+					// mix of the previous pixel, reused for runs of equal pixels
+					int last = -1;
+					int first = 0;
+					int second = 0;
+					float ratio = 0f;
+					for (int x = 0; x < width; x++) {
+						int p = image[offset + y * width + x] & 0xFFFFFF;
+						if (p != last) {
+							last = p;
+							float l = row[x * 3];
+							float a = row[x * 3 + 1];
+							float b = row[x * 3 + 2];
+							first = index.nearest(l, a, b);
+							second = first;
+							ratio = 0f;
+
+							float bestDistance = Float.MAX_VALUE;
+							float pl = l - lab[first * 3];
+							float pa = a - lab[first * 3 + 1];
+							float pb = b - lab[first * 3 + 2];
+							for (int c = 0; c < rgb.length; c++) {
+								float cl = lab[c * 3] - lab[first * 3];
+								float ca = lab[c * 3 + 1] - lab[first * 3 + 1];
+								float cb = lab[c * 3 + 2] - lab[first * 3 + 2];
+								float length = cl * cl + ca * ca + cb * cb;
+								if (!(length > 0f)) {
+									continue;
+								}
+								float r = (pl * cl + pa * ca + pb * cb) / length;
+								if (!(r > 0f)) {
+									continue;
+								}
+								r = Math.min(r, 1f);
+								float dl = pl - r * cl;
+								float da = pa - r * ca;
+								float db = pb - r * cb;
+								float d = dl * dl + da * da + db * db;
+								if (d < bestDistance) {
+									bestDistance = d;
+									second = c;
+									ratio = r;
+								}
+							}
+						}
+
+						float t = (BAYER[bayerRow + (x & 7)] + 0.5f) / 64f;
+						indices[pos + x] = t < ratio ? second : first;
+					}
+				}
+			}
+		};
+
+		if (height <= rows) {
+			band.process(0, height);
+		} else {
+			pool.invoke(new Split(band, 0, height, rows));
+		}
+	}
+
+	/**
+	 * Maps image to the palette with Floyd-Steinberg error diffusion.
+	 *
+	 * @param image
+	 *            - the packed RGB pixels
+	 * @param offset
+	 *            - index of the top left pixel
+	 * @param width
+	 *            - width of the image
+	 * @param height
+	 *            - height of the image
+	 * @param indices
+	 *            - the array receiving palette indices
+	 * @param dstOffset
+	 *            - index in destination array where index of the top left
+	 *            pixel is written
+	 */
+	public void diffuse(int[] image, int offset, int width, int height, int[] indices, int dstOffset) {
+		checkImage(image, offset, width, height, indices, dstOffset);
+		if (height == 0 || width == 0) {
+			return;
+		}
+
+		Wavefront wavefront = new Wavefront(image, offset, width, height, indices, dstOffset);
+		int workers = Math.min(height, pool.getParallelism());
+		if (workers <= 1 || (long) width * height <= grain) {
+			wavefront.run();
+			return;
+		}
+
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+		for (int i = 0; i < workers; i++) {
+			tasks[i] = new Worker(wavefront);
+		}
+		pool.invoke(new Workers(tasks));
+	}
+
+	private static void checkImage(int[] image, int offset, int width, int height, int[] indices, int dstOffset) {
+		if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+		}
+		ArrayRanges.check(image.length, offset, width * height);
+		ArrayRanges.check(indices.length, dstOffset, width * height);
+	}
+
+	/**
+	 * Creates Bayer threshold matrix with values 0 to <code>n * n - 1</code>,
+	 * <code>n</code> being a power of two. The lowest bits of coordinates
+	 * select the highest bits of values, so consecutive thresholds are spread
+	 * as far apart as possible.
+	 */
+	static int[] bayer(int n) {
+		int[] matrix = new int[n * n];
+		for (int y = 0; y < n; y++) {
+			for (int x = 0; x < n; x++) {
+				int v = 0;
+				for (int bit = 1, xy = x ^ y; bit < n; bit <<= 1) {
+					v = (v << 2) | ((xy & bit) != 0 ? 2 : 0) | ((y & bit) != 0 ? 1 : 0);
+				}
+				matrix[y * n + x] = v;
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Maps part of the image.
+	 */
+	private interface Band {
+		void process(int from, int to);
+	}
+
+	/**
+	 * Splits range of rows in halves until it isn't larger than the grain.
+	 */
+	private static final class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Band band;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Split(Band band, int from, int to, int grain) {
+			this.band = band;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				band.process(from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Split(band, from, mid, grain), new Split(band, mid, to, grain));
+			}
+		}
+	}
+
+	/**
+	 * State of one error diffusion shared by workers. Workers claim rows in
+	 * order, so the row above a claimed row is always being processed by a
+	 * running worker (or is complete) and waiting for it can't deadlock,
+	 * however many workers actually run.
+	 */
+	private final class Wavefront {
+		private final int[] image;
+		private final int offset;
+		private final int width;
+		private final int height;
+		private final int[] indices;
+		private final int dstOffset;
+
+		private final AtomicInteger nextRow = new AtomicInteger();
+
+		/**
+		 * Number of completed pixels of each row. Volatile writes also
+		 * publish errors diffused to the row below.
+		 */
+		private final AtomicIntegerArray progress;
+
+		/**
+		 * Errors diffused from the row above, ring of {@link #ERROR_ROWS}
+		 * rows. Row below accumulates into positions its row above already
+		 * consumed and reset to 0.
+		 */
+		private final float[] errors;
+
+		Wavefront(int[] image, int offset, int width, int height, int[] indices, int dstOffset) {
+			this.image = image;
+			this.offset = offset;
+			this.width = width;
+			this.height = height;
+			this.indices = indices;
+			this.dstOffset = dstOffset;
+			this.progress = new AtomicIntegerArray(height);
+			this.errors = new float[ERROR_ROWS * width * 3];
+		}
+
+		void run() {
+			float[] row = new float[width * 3];
+			for (int y = nextRow.getAndIncrement(); y < height; y = nextRow.getAndIncrement()) {
+				diffuse(y, row);
+			}
+		}
+
+		private void diffuse(int y, float[] row) {
+			CIELab.from(image, offset + y * width, width, row, 0);
+
+			int in = (y % ERROR_ROWS) * width * 3;
+			int out = ((y + 1) % ERROR_ROWS) * width * 3;
+			boolean last = y == height - 1;
+			int pos = dstOffset + y * width;
+			float el = 0;
+			float ea = 0;
+			float eb = 0;
+
+			for (int x0 = 0; x0 < width; x0 += BLOCK) {
+				int x1 = Math.min(width, x0 + BLOCK);
+				if (y > 0) {
+					int needed = Math.min(width, x1 + 1);
+					while (progress.get(y - 1) < needed) {
+						Thread.yield();
+					}
+				}
+
+				for (int x = x0; x < x1; x++) {
+					int e = in + x * 3;
+					float l = row[x * 3] + el + errors[e];
+					float a = row[x * 3 + 1] + ea + errors[e + 1];
+					float b = row[x * 3 + 2] + eb + errors[e + 2];
+					errors[e] = 0f;
+					errors[e + 1] = 0f;
+					errors[e + 2] = 0f;
+
+					int chosen = index.nearest(l, a, b);
+					indices[pos + x] = chosen;
+
+					float dl = l - lab[chosen * 3];
+					float da = a - lab[chosen * 3 + 1];
+					float db = b - lab[chosen * 3 + 2];
+
+					el = dl * (7f / 16f);
+					ea = da * (7f / 16f);
+					eb = db * (7f / 16f);
+					if (!last) {
+						int o = out + x * 3;
+						if (x > 0) {
+							errors[o - 3] += dl * (3f / 16f);
+							errors[o - 2] += da * (3f / 16f);
+							errors[o - 1] += db * (3f / 16f);
+						}
+						errors[o] += dl * (5f / 16f);
+						errors[o + 1] += da * (5f / 16f);
+						errors[o + 2] += db * (5f / 16f);
+						if (x + 1 < width) {
+							errors[o + 3] += dl * (1f / 16f);
+							errors[o + 4] += da * (1f / 16f);
+							errors[o + 5] += db * (1f / 16f);
+						}
+					}
+				}
+				progress.set(y, x1);
+			}
+		}
+	}
+
+	/**
+	 * Runs all workers and waits for them.
+	 */
+	private static final class Workers extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ForkJoinTask<?>[] tasks;
+
+		Workers(ForkJoinTask<?>[] tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Claims and processes rows of error diffusion until none is left.
+	 */
+	private static final class Worker extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Wavefront wavefront;
+
+		Worker(Wavefront wavefront) {
+			this.wavefront = wavefront;
+		}
+
+		@Override
+		protected void compute() {
+			wavefront.run();
+		}
+	}
+}
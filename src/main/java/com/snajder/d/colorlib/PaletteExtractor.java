@@ -0,0 +1,638 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Extracts palettes (dominant colors) from packed RGB pixels using
+ * median-cut or k-means clustering in {@link CIELab}.
+ * <p>
+ * Pixels are first reduced in parallel to a histogram of 32768 bins (5 bits
+ * per component). Each bin keeps exact sums of its pixels, so clusters are
+ * built from bin means weighted by bin populations and resulting colors are
+ * exact means of the pixels assigned to them. Cost of clustering therefore
+ * doesn't depend on the image size.
+ * </p>
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class PaletteExtractor {
+	/**
+	 * Default number of pixels counted by a single histogram task.
+	 */
+	public static final int DEFAULT_GRAIN = 1 << 20;
+
+	/**
+	 * Default maximum number of k-means iterations.
+	 */
+	public static final int DEFAULT_MAX_ITERATIONS = 50;
+
+	/**
+	 * Default k-means convergence threshold, the largest distance (as
+	 * {@link CIELab#distance(CIELab)}) any centroid may move in the last
+	 * iteration.
+	 */
+	public static final float DEFAULT_THRESHOLD = 1e-4f;
+
+	static final int BINS = 1 << 15;
+	private static final int POINT_GRAIN = 1024;
+
+	private final ForkJoinPool pool;
+	private final int grain;
+
+	/**
+	 * Constructs extractor using the common pool and {@link #DEFAULT_GRAIN}.
+	 */
+	public PaletteExtractor() {
+		this(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+	}
+
+	/**
+	 * Constructs extractor.
+	 *
+	 * @param pool
+	 *            - the pool executing parallel tasks
+	 * @param grain
+	 *            - the number of pixels counted by a single histogram task
+	 */
+	public PaletteExtractor(ForkJoinPool pool, int grain) {
+		if (pool == null) {
+			throw new NullPointerException("pool");
+		}
+		if (grain < 1) {
+			throw new IllegalArgumentException("Grain must be positive: " + grain);
+		}
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	/**
+	 * Extracts palette using median-cut. The box with the largest squared
+	 * error is repeatedly split at the weighted median of its widest
+	 * {@link CIELab} axis.
+	 *
+	 * @param rgb
+	 *            - the packed RGB pixels
+	 * @param offset
+	 *            - index of the first pixel
+	 * @param length
+	 *            - number of pixels
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @return the palette, having fewer colors if pixels have fewer distinct
+	 *         bins
+	 */
+	public Palette medianCut(int[] rgb, int offset, int length, int colors) {
+		return medianCut(points(rgb, offset, length, colors), colors);
+	}
+
+	/**
+	 * Median-cut over non-empty bins, see
+	 * {@link #medianCut(int[], int, int, int)}.
+	 */
+	static Palette medianCut(Points points, int colors) {
+		int n = points.size;
+		int k = Math.min(colors, n);
+
+		// boxes are ranges of order, split in place
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		int[] starts = new int[k + 1];
+		int[] ends = new int[k + 1];
+		int boxes = 0;
+		if (n > 0) {
+			starts[0] = 0;
+			ends[0] = n;
+			boxes = 1;
+		}
+
+		long[] keys = new long[n];
+		while (boxes < k) {
+			int box = -1;
+			double worst = 0;
+			int axis = 0;
+			for (int i = 0; i < boxes; i++) {
+				if (ends[i] - starts[i] < 2) {
+					continue;
+				}
+				double[] error = points.error(order, starts[i], ends[i]);
+				if (error[3] > worst) {
+					worst = error[3];
+					box = i;
+					axis = (int) error[4];
+				}
+			}
+			if (box < 0) {
+				break;
+			}
+
+			int start = starts[box];
+			int end = ends[box];
+			for (int i = start; i < end; i++) {
+				keys[i] = ((long) sortable(points.lab[order[i] * 3 + axis]) << 32) | order[i];
+			}
+			Arrays.sort(keys, start, end);
+
+			long total = 0;
+			for (int i = start; i < end; i++) {
+				order[i] = (int) keys[i];
+				total += points.count[order[i]];
+			}
+
+			int split = start + 1;
+			long below = points.count[order[start]];
+			while (split < end - 1 && below * 2 < total) {
+				below += points.count[order[split++]];
+			}
+
+			ends[box] = split;
+			starts[boxes] = split;
+			ends[boxes] = end;
+			boxes++;
+		}
+
+		int[] assignment = new int[n];
+		for (int box = 0; box < boxes; box++) {
+			for (int i = starts[box]; i < ends[box]; i++) {
+				assignment[order[i]] = box;
+			}
+		}
+
+		return points.palette(assignment, boxes);
+	}
+
+	/**
+	 * Extracts palette using k-means with k-means++ seeding, with
+	 * {@link #DEFAULT_MAX_ITERATIONS}, {@link #DEFAULT_THRESHOLD} and fixed
+	 * random seed.
+	 *
+	 * @param rgb
+	 *            - the packed RGB pixels
+	 * @param offset
+	 *            - index of the first pixel
+	 * @param length
+	 *            - number of pixels
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @return the palette
+	 */
+	public Palette kMeans(int[] rgb, int offset, int length, int colors) {
+		return kMeans(rgb, offset, length, colors, DEFAULT_MAX_ITERATIONS, DEFAULT_THRESHOLD, 0L);
+	}
+
+	/**
+	 * Extracts palette using k-means with k-means++ seeding. Assignment of
+	 * colors to centroids runs in parallel, each task accumulating its own
+	 * partial sums which are merged when tasks complete.
+	 *
+	 * @param rgb
+	 *            - the packed RGB pixels
+	 * @param offset
+	 *            - index of the first pixel
+	 * @param length
+	 *            - number of pixels
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @param maxIterations
+	 *            - maximum number of iterations
+	 * @param threshold
+	 *            - iterations stop when no centroid moved more than this
+	 *            distance
+	 * @param seed
+	 *            - seed of random generator used for seeding
+	 * @return the palette, having fewer colors if some clusters end up empty
+	 *         or pixels have fewer distinct bins
+	 */
+	public Palette kMeans(int[] rgb, int offset, int length, int colors, int maxIterations, float threshold,
+			long seed) {
+		Points points = points(rgb, offset, length, colors);
+		int n = points.size;
+		int k = Math.min(colors, n);
+
+		float[] centroids = seed(points, k, new Random(seed));
+		int[] assignment = new int[n];
+		Sums sums = new Sums(k);
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			pool.invoke(new Assign(points, centroids, k, assignment, 0, n));
+			sums.set(points, assignment);
+
+			float moved = 0;
+			for (int c = 0; c < k; c++) {
+				if (sums.count[c] == 0) {
+					continue;
+				}
+				float l = (float) (sums.lab[c * 3] / sums.count[c]);
+				float a = (float) (sums.lab[c * 3 + 1] / sums.count[c]);
+				float b = (float) (sums.lab[c * 3 + 2] / sums.count[c]);
+				float dl = l - centroids[c * 3];
+				float da = a - centroids[c * 3 + 1];
+				float db = b - centroids[c * 3 + 2];
+				moved = Math.max(moved, dl * dl + da * da + db * db);
+				centroids[c * 3] = l;
+				centroids[c * 3 + 1] = a;
+				centroids[c * 3 + 2] = b;
+			}
+
+			if (moved <= threshold * threshold) {
+				break;
+			}
+		}
+
+		// final assignment to the converged centroids
+		pool.invoke(new Assign(points, centroids, k, assignment, 0, n));
+
+		return points.palette(assignment, k);
+	}
+
+	/**
+	 * Chooses k-means++ seeds, each with probability proportional to its
+	 * population times squared distance to the nearest chosen seed.
+	 */
+	static float[] seed(Points points, int k, Random random) {
+		int n = points.size;
+		float[] centroids = new float[k * 3];
+		if (k == 0) {
+			return centroids;
+		}
+
+		double[] nearest = new double[n];
+		Arrays.fill(nearest, 1);
+		for (int c = 0; c < k; c++) {
+			double total = 0;
+			for (int i = 0; i < n; i++) {
+				total += nearest[i] * points.count[i];
+			}
+
+			int chosen = n - 1;
+			double target = random.nextDouble() * total;
+			for (int i = 0; i < n; i++) {
+				target -= nearest[i] * points.count[i];
+				if (target < 0) {
+					chosen = i;
+					break;
+				}
+			}
+
+			System.arraycopy(points.lab, chosen * 3, centroids, c * 3, 3);
+			for (int i = 0; i < n; i++) {
+				float dl = points.lab[i * 3] - centroids[c * 3];
+				float da = points.lab[i * 3 + 1] - centroids[c * 3 + 1];
+				float db = points.lab[i * 3 + 2] - centroids[c * 3 + 2];
+				double d = dl * dl + da * da + db * db;
+				if (c == 0 || d < nearest[i]) {
+					nearest[i] = d;
+				}
+			}
+		}
+		return centroids;
+	}
+
+	private Points points(int[] rgb, int offset, int length, int colors) {
+		ArrayRanges.check(rgb.length, offset, length);
+		if (colors < 1) {
+			throw new IllegalArgumentException("Number of colors must be positive: " + colors);
+		}
+
+		Counts counts = new Counts();
+		pool.invoke(new Count(counts, rgb, offset, offset + length, grain));
+		return new Points(counts.merge());
+	}
+
+	/**
+	 * Maps float to int having the same ordering.
+	 */
+	private static int sortable(float f) {
+		int bits = Float.floatToIntBits(f);
+		return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+	}
+
+	/**
+	 * Histogram of pixels with exact component sums per bin.
+	 */
+	static final class Bins {
+		final int[] count = new int[BINS];
+		final long[] sums = new long[BINS * 3];
+
+		/**
+		 * Gets bin of pixel, made of 5 most significant bits of each
+		 * component.
+		 */
+		static int bin(int p) {
+			return ((p >> 9) & 0x7C00) | ((p >> 6) & 0x3E0) | ((p >> 3) & 0x1F);
+		}
+
+		void add(int p) {
+			int bin = bin(p);
+			count[bin]++;
+			sums[bin * 3] += (p >> 16) & 0xFF;
+			sums[bin * 3 + 1] += (p >> 8) & 0xFF;
+			sums[bin * 3 + 2] += p & 0xFF;
+		}
+
+		void remove(int p) {
+			int bin = bin(p);
+			count[bin]--;
+			sums[bin * 3] -= (p >> 16) & 0xFF;
+			sums[bin * 3 + 1] -= (p >> 8) & 0xFF;
+			sums[bin * 3 + 2] -= p & 0xFF;
+		}
+
+		void add(Bins other) {
+			for (int i = 0; i < BINS; i++) {
+				if (other.count[i] != 0) {
+					count[i] += other.count[i];
+					sums[i * 3] += other.sums[i * 3];
+					sums[i * 3 + 1] += other.sums[i * 3 + 1];
+					sums[i * 3 + 2] += other.sums[i * 3 + 2];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bins of worker threads taking part in one count.
+	 */
+	private static final class Counts {
+		private final ConcurrentMap<Thread, Bins> bins = new ConcurrentHashMap<Thread, Bins>();
+
+		/**
+		 * Gets bins of the current thread, created on its first task.
+		 */
+		Bins get() {
+			Thread thread = Thread.currentThread();
+			Bins b = bins.get(thread);
+			if (b == null) {
+				b = new Bins();
+				bins.put(thread, b);
+			}
+			return b;
+		}
+
+		/**
+		 * Merges bins of all threads into bins of one of them.
+		 */
+		Bins merge() {
+			Bins merged = null;
+			for (Bins b : bins.values()) {
+				if (merged == null) {
+					merged = b;
+				} else {
+					merged.add(b);
+				}
+			}
+			return merged != null ? merged : new Bins();
+		}
+	}
+
+	/**
+	 * Splits range in halves until it isn't larger than the grain and counts
+	 * it into bins of the current thread.
+	 */
+	private static final class Count extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Counts counts;
+		private final int[] rgb;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Count(Counts counts, int[] rgb, int from, int to, int grain) {
+			this.counts = counts;
+			this.rgb = rgb;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				Bins bins = counts.get();
+				for (int i = from; i < to; i++) {
+					bins.add(rgb[i]);
+				}
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new Count(counts, rgb, from, mid, grain), new Count(counts, rgb, mid, to, grain));
+		}
+	}
+
+	/**
+	 * Non-empty bins with their Lab values.
+	 */
+	static final class Points {
+		final int size;
+		final long[] count;
+		final long[] sums;
+		final float[] lab;
+
+		Points(Bins bins) {
+			int n = 0;
+			for (int i = 0; i < BINS; i++) {
+				if (bins.count[i] != 0) {
+					n++;
+				}
+			}
+
+			size = n;
+			count = new long[n];
+			sums = new long[n * 3];
+			lab = new float[n * 3];
+
+			int[] means = new int[n];
+			for (int i = 0, j = 0; i < BINS; i++) {
+				long c = bins.count[i];
+				if (c == 0) {
+					continue;
+				}
+				count[j] = c;
+				System.arraycopy(bins.sums, i * 3, sums, j * 3, 3);
+				means[j] = (mean(sums[j * 3], c) << 16) | (mean(sums[j * 3 + 1], c) << 8) | mean(sums[j * 3 + 2], c);
+				j++;
+			}
+			CIELab.from(means, 0, n, lab, 0);
+		}
+
+		/**
+		 * Gets squared error of the range: per axis in elements 0-2, total in
+		 * element 3 and axis with the widest spread in element 4.
+		 */
+		double[] error(int[] order, int start, int end) {
+			double[] sum = new double[3];
+			double[] sumSq = new double[3];
+			float[] min = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+			float[] max = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+			long total = 0;
+
+			for (int i = start; i < end; i++) {
+				int p = order[i];
+				long c = count[p];
+				total += c;
+				for (int axis = 0; axis < 3; axis++) {
+					float v = lab[p * 3 + axis];
+					sum[axis] += c * v;
+					sumSq[axis] += c * (double) v * v;
+					min[axis] = Math.min(min[axis], v);
+					max[axis] = Math.max(max[axis], v);
+				}
+			}
+
+			double[] error = new double[5];
+			int widest = 0;
+			for (int axis = 0; axis < 3; axis++) {
+				error[axis] = sumSq[axis] - sum[axis] * sum[axis] / total;
+				error[3] += error[axis];
+				if (max[axis] - min[axis] > max[widest] - min[widest]) {
+					widest = axis;
+				}
+			}
+			error[4] = widest;
+			return error;
+		}
+
+		/**
+		 * Creates palette with mean colors of points assigned to each cluster.
+		 */
+		Palette palette(int[] assignment, int clusters) {
+			long[] clusterCount = new long[clusters];
+			long[] clusterSums = new long[clusters * 3];
+			for (int i = 0; i < size; i++) {
+				int c = assignment[i];
+				clusterCount[c] += count[i];
+				clusterSums[c * 3] += sums[i * 3];
+				clusterSums[c * 3 + 1] += sums[i * 3 + 1];
+				clusterSums[c * 3 + 2] += sums[i * 3 + 2];
+			}
+			return palette(clusterCount, clusterSums, clusters);
+		}
+
+		/**
+		 * Creates palette with mean colors of clusters having specified pixel
+		 * counts and RGB sums, ordered by population.
+		 */
+		static Palette palette(long[] clusterCount, long[] clusterSums, int clusters) {
+			// sort by population, most frequent first
+			long[] keys = new long[clusters];
+			int used = 0;
+			for (int c = 0; c < clusters; c++) {
+				if (clusterCount[c] > 0) {
+					keys[used++] = (-clusterCount[c] << 16) | c;
+				}
+			}
+			Arrays.sort(keys, 0, used);
+
+			int[] rgb = new int[used];
+			int[] counts = new int[used];
+			for (int i = 0; i < used; i++) {
+				int c = (int) (keys[i] & 0xFFFF);
+				long n = clusterCount[c];
+				rgb[i] = (mean(clusterSums[c * 3], n) << 16) | (mean(clusterSums[c * 3 + 1], n) << 8)
+						| mean(clusterSums[c * 3 + 2], n);
+				counts[i] = (int) n;
+			}
+			return new Palette(rgb, counts);
+		}
+
+		private static int mean(long sum, long count) {
+			return (int) ((sum + count / 2) / count);
+		}
+	}
+
+	/**
+	 * Sums of points assigned to each centroid, reused by all iterations.
+	 */
+	private static final class Sums {
+		final long[] count;
+		final double[] lab;
+
+		Sums(int k) {
+			count = new long[k];
+			lab = new double[k * 3];
+		}
+
+		/**
+		 * Sets sums to points with specified assignment, added in order of
+		 * points so that sums don't depend on the parallelism.
+		 */
+		void set(Points points, int[] assignment) {
+			Arrays.fill(count, 0);
+			Arrays.fill(lab, 0);
+			for (int i = 0; i < points.size; i++) {
+				int c = assignment[i];
+				long n = points.count[i];
+				count[c] += n;
+				lab[c * 3] += n * (double) points.lab[i * 3];
+				lab[c * 3 + 1] += n * (double) points.lab[i * 3 + 1];
+				lab[c * 3 + 2] += n * (double) points.lab[i * 3 + 2];
+			}
+		}
+	}
+
+	/**
+	 * Assigns points of a range to the nearest centroid.
+	 */
+	private static final class Assign extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Points points;
+		private final float[] centroids;
+		private final int k;
+		private final int[] assignment;
+		private final int from;
+		private final int to;
+
+		Assign(Points points, float[] centroids, int k, int[] assignment, int from, int to) {
+			this.points = points;
+			this.centroids = centroids;
+			this.k = k;
+			this.assignment = assignment;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > POINT_GRAIN) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Assign(points, centroids, k, assignment, from, mid),
+						new Assign(points, centroids, k, assignment, mid, to));
+				return;
+			}
+
+			float[] lab = points.lab;
+			for (int i = from; i < to; i++) {
+				float l = lab[i * 3];
+				float a = lab[i * 3 + 1];
+				float b = lab[i * 3 + 2];
+
+				int best = 0;
+				float bestDistance = Float.MAX_VALUE;
+				for (int c = 0; c < k; c++) {
+					float dl = l - centroids[c * 3];
+					float da = a - centroids[c * 3 + 1];
+					float db = b - centroids[c * 3 + 2];
+					float d = dl * dl + da * da + db * db;
+					if (d < bestDistance) {
+						bestDistance = d;
+						best = c;
+					}
+				}
+
+				assignment[i] = best;
+			}
+		}
+	}
+}
@@ -0,0 +1,508 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Search index for finding the closest colors of a palette.
+ * <p>
+ * Palette colors are kept in CIELab space in a balanced k-d tree stored in
+ * flat arrays, so queries don't dereference any objects. Distances are the
+ * same CIE76 distances as calculated by {@link CIELab#distance(CIELab)}. When
+ * two palette colors are equally distant, the one with lower index wins.
+ * </p>
+ * <p>
+ * Index is immutable and can be shared between threads.
+ * </p>
+ */
+public final class PaletteIndex {
+	/**
+	 * Number of pixels converted to CIELab at once in batch queries.
+	 */
+	private static final int BATCH = 256;
+
+	private final int size;
+
+	/**
+	 * Interleaved L, A and B values of palette colors in tree order.
+	 */
+	private final float[] points;
+
+	/**
+	 * Palette indices of colors in tree order.
+	 */
+	private final int[] ids;
+
+	/**
+	 * Split axis (0 - L, 1 - A, 2 - B) of each tree node.
+	 */
+	private final byte[] axes;
+
+	private PaletteIndex(float[] lab, int size) {
+		this.size = size;
+		this.points = new float[size * 3];
+		this.ids = new int[size];
+		this.axes = new byte[size];
+
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		build(lab, order, 0, size);
+
+		for (int i = 0; i < size; i++) {
+			int id = order[i];
+			ids[i] = id;
+			points[i * 3] = lab[id * 3];
+			points[i * 3 + 1] = lab[id * 3 + 1];
+			points[i * 3 + 2] = lab[id * 3 + 2];
+		}
+	}
+
+	/**
+	 * Creates index over specified RGB palette.
+	 *
+	 * @param palette
+	 *            - the palette colors
+	 * @return the index
+	 */
+	public static PaletteIndex fromRGB(List<RGB> palette) {
+		float[] lab = new float[palette.size() * 3];
+		for (int i = 0; i < palette.size(); i++) {
+			CIELab c = CIELab.from(palette.get(i));
+			lab[i * 3] = c.getL();
+			lab[i * 3 + 1] = c.getA();
+			lab[i * 3 + 2] = c.getB();
+		}
+		return new PaletteIndex(lab, palette.size());
+	}
+
+	/**
+	 * Creates index over specified CIELab palette.
+	 *
+	 * @param palette
+	 *            - the palette colors
+	 * @return the index
+	 */
+	public static PaletteIndex fromLab(List<CIELab> palette) {
+		float[] lab = new float[palette.size() * 3];
+		for (int i = 0; i < palette.size(); i++) {
+			CIELab c = palette.get(i);
+			lab[i * 3] = c.getL();
+			lab[i * 3 + 1] = c.getA();
+			lab[i * 3 + 2] = c.getB();
+		}
+		return new PaletteIndex(lab, palette.size());
+	}
+
+	/**
+	 * Creates index over palette given as interleaved L, A and B values.
+	 *
+	 * @param lab
+	 *            - the interleaved CIELab values of palette colors
+	 * @param offset
+	 *            - index of L value of the first palette color
+	 * @param length
+	 *            - the number of palette colors
+	 * @return the index
+	 */
+	public static PaletteIndex fromLab(float[] lab, int offset, int length) {
+		ArrayRanges.check(lab.length, offset, length * 3);
+
+		return new PaletteIndex(Arrays.copyOfRange(lab, offset, offset + length * 3), length);
+	}
+
+	/**
+	 * Gets the number of palette colors.
+	 *
+	 * @return the palette size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the palette color closest to specified color.
+	 *
+	 * @param lab
+	 *            - the color
+	 * @return index of the closest palette color or -1 if palette is empty
+	 */
+	public int nearest(CIELab lab) {
+		return nearest(lab.getL(), lab.getA(), lab.getB());
+	}
+
+	/**
+	 * Finds the palette color closest to specified color.
+	 *
+	 * @param l
+	 *            - L component of the color
+	 * @param a
+	 *            - A component of the color
+	 * @param b
+	 *            - B component of the color
+	 * @return index of the closest palette color or -1 if palette is empty
+	 */
+	public int nearest(float l, float a, float b) {
+		Searcher searcher = new Searcher();
+		return searcher.nearest(l, a, b);
+	}
+
+	/**
+	 * Finds <code>k</code> palette colors closest to specified color.
+	 *
+	 * @param lab
+	 *            - the color
+	 * @param k
+	 *            - the number of colors to find
+	 * @return indices of the closest palette colors ordered by distance, at
+	 *         most <code>k</code> of them
+	 */
+	public int[] nearest(CIELab lab, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		Searcher searcher = new Searcher();
+		return searcher.nearest(lab.getL(), lab.getA(), lab.getB(), Math.min(k, size));
+	}
+
+	/**
+	 * Finds all palette colors which are within specified distance from
+	 * specified color.
+	 *
+	 * @param lab
+	 *            - the color
+	 * @param radius
+	 *            - the maximum distance (inclusive)
+	 * @return indices of the palette colors ordered by distance
+	 */
+	public int[] within(CIELab lab, float radius) {
+		Searcher searcher = new Searcher();
+		return searcher.within(lab.getL(), lab.getA(), lab.getB(), radius);
+	}
+
+	/**
+	 * Finds the closest palette color of each packed RGB value.
+	 * <p>
+	 * Pixels are converted to CIELab in small batches and runs of equal
+	 * pixels are searched only once, so no objects are allocated per pixel.
+	 * </p>
+	 *
+	 * @param rgb
+	 *            - the packed RGB values (<code>0xRRGGBB</code>)
+	 * @param offset
+	 *            - index of the first value
+	 * @param length
+	 *            - number of values
+	 * @param indices
+	 *            - the array receiving palette indices
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void nearest(int[] rgb, int offset, int length, int[] indices, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(indices.length, dstOffset, length);
+
+		Searcher searcher = new Searcher();
+		float[] lab = new float[BATCH * 3];
+
+		int last = 0;
+		int lastIndex = -2;
+		for (int start = 0; start < length; start += BATCH) {
+			int count = Math.min(BATCH, length - start);
+			CIELab.from(rgb, offset + start, count, lab, 0);
+
+			for (int i = 0; i < count; i++) {
+				int p = rgb[offset + start + i] & 0xFFFFFF;
+				if (lastIndex == -2 || p != last) {
+					last = p;
+					lastIndex = searcher.nearest(lab[i * 3], lab[i * 3 + 1], lab[i * 3 + 2]);
+				}
+				indices[dstOffset + start + i] = lastIndex;
+			}
+		}
+	}
+
+	/**
+	 * Builds the tree in range <code>[lo, hi)</code> of the order array.
+	 */
+	private void build(float[] lab, int[] order, int lo, int hi) {
+		while (hi - lo > 1) {
+			int axis = widestAxis(lab, order, lo, hi);
+			int mid = (lo + hi) >>> 1;
+
+			select(lab, order, lo, hi, mid, axis);
+			axes[mid] = (byte) axis;
+
+			build(lab, order, lo, mid);
+			lo = mid + 1;
+		}
+	}
+
+	private static int widestAxis(float[] lab, int[] order, int lo, int hi) {
+		int axis = 0;
+		float widest = -1f;
+		for (int d = 0; d < 3; d++) {
+			float min = Float.POSITIVE_INFINITY;
+			float max = Float.NEGATIVE_INFINITY;
+			for (int i = lo; i < hi; i++) {
+				float v = lab[order[i] * 3 + d];
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			if (max - min > widest) {
+				widest = max - min;
+				axis = d;
+			}
+		}
+		return axis;
+	}
+
+	/**
+	 * Partially sorts range of the order array so that element at position
+	 * <code>k</code> is on its sorted place along specified axis (quick
+	 * select).
+	 */
+	private static void select(float[] lab, int[] order, int lo, int hi, int k, int axis) {
+		int left = lo;
+		int right = hi - 1;
+		while (right > left) {
+			float pivot = lab[order[(left + right) >>> 1] * 3 + axis];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (lab[order[i] * 3 + axis] < pivot) {
+					i++;
+				}
+				while (lab[order[j] * 3 + axis] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = order[i];
+					order[i] = order[j];
+					order[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Packs squared distance and palette index into a long which sorts by
+	 * distance first and index second (distances are never negative).
+	 */
+	private static long key(float distance, int id) {
+		return ((long) Float.floatToIntBits(distance) << 32) | id;
+	}
+
+	/**
+	 * Holds state of one query, so the recursive search doesn't need to
+	 * allocate anything per visited node.
+	 */
+	private final class Searcher {
+		private float ql;
+		private float qa;
+		private float qb;
+
+		private float bestDistance;
+		private int bestId;
+
+		/**
+		 * Max-heap of keys of k best candidates (k-nearest search) or list of
+		 * matching keys (radius search).
+		 */
+		private long[] keys;
+		private int count;
+		private int k;
+		private float radius2;
+
+		int nearest(float l, float a, float b) {
+			ql = l;
+			qa = a;
+			qb = b;
+			bestDistance = Float.POSITIVE_INFINITY;
+			bestId = -1;
+
+			nearest(0, size);
+
+			return bestId;
+		}
+
+		private void nearest(int lo, int hi) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				int p = mid * 3;
+
+				float dl = ql - points[p];
+				float da = qa - points[p + 1];
+				float db = qb - points[p + 2];
+				float d = dl * dl + da * da + db * db;
+
+				if (d < bestDistance || (d == bestDistance && ids[mid] < bestId)) {
+					bestDistance = d;
+					bestId = ids[mid];
+				}
+
+				float diff = axes[mid] == 0 ? dl : axes[mid] == 1 ? da : db;
+				if (diff < 0) {
+					nearest(lo, mid);
+					if (diff * diff > bestDistance) {
+						return;
+					}
+					lo = mid + 1;
+				} else {
+					nearest(mid + 1, hi);
+					if (diff * diff > bestDistance) {
+						return;
+					}
+					hi = mid;
+				}
+			}
+		}
+
+		int[] nearest(float l, float a, float b, int k) {
+			ql = l;
+			qa = a;
+			qb = b;
+			this.k = k;
+			keys = new long[k];
+			count = 0;
+
+			if (k > 0) {
+				knn(0, size);
+			}
+
+			return sortedIds();
+		}
+
+		private void knn(int lo, int hi) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				int p = mid * 3;
+
+				float dl = ql - points[p];
+				float da = qa - points[p + 1];
+				float db = qb - points[p + 2];
+				offer(key(dl * dl + da * da + db * db, ids[mid]));
+
+				float diff = axes[mid] == 0 ? dl : axes[mid] == 1 ? da : db;
+				if (diff < 0) {
+					knn(lo, mid);
+					if (count == k && diff * diff > worstDistance()) {
+						return;
+					}
+					lo = mid + 1;
+				} else {
+					knn(mid + 1, hi);
+					if (count == k && diff * diff > worstDistance()) {
+						return;
+					}
+					hi = mid;
+				}
+			}
+		}
+
+		private float worstDistance() {
+			return Float.intBitsToFloat((int) (keys[0] >>> 32));
+		}
+
+		/**
+		 * Adds candidate into max-heap of k best candidates.
+		 */
+		private void offer(long key) {
+			if (count < k) {
+				int i = count++;
+				while (i > 0) {
+					int parent = (i - 1) >>> 1;
+					if (keys[parent] >= key) {
+						break;
+					}
+					keys[i] = keys[parent];
+					i = parent;
+				}
+				keys[i] = key;
+			} else if (key < keys[0]) {
+				int i = 0;
+				while (true) {
+					int child = 2 * i + 1;
+					if (child >= count) {
+						break;
+					}
+					if (child + 1 < count && keys[child + 1] > keys[child]) {
+						child++;
+					}
+					if (keys[child] <= key) {
+						break;
+					}
+					keys[i] = keys[child];
+					i = child;
+				}
+				keys[i] = key;
+			}
+		}
+
+		int[] within(float l, float a, float b, float radius) {
+			ql = l;
+			qa = a;
+			qb = b;
+			radius2 = radius * radius;
+			keys = new long[16];
+			count = 0;
+
+			if (radius >= 0f) {
+				within(0, size);
+			}
+
+			return sortedIds();
+		}
+
+		private void within(int lo, int hi) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				int p = mid * 3;
+
+				float dl = ql - points[p];
+				float da = qa - points[p + 1];
+				float db = qb - points[p + 2];
+				float d = dl * dl + da * da + db * db;
+
+				if (d <= radius2) {
+					if (count == keys.length) {
+						keys = Arrays.copyOf(keys, count * 2);
+					}
+					keys[count++] = key(d, ids[mid]);
+				}
+
+				float diff = axes[mid] == 0 ? dl : axes[mid] == 1 ? da : db;
+				if (diff * diff <= radius2) {
+					within(lo, mid);
+					lo = mid + 1;
+				} else if (diff < 0) {
+					hi = mid;
+				} else {
+					lo = mid + 1;
+				}
+			}
+		}
+
+		private int[] sortedIds() {
+			Arrays.sort(keys, 0, count);
+
+			int[] result = new int[count];
+			for (int i = 0; i < count; i++) {
+				result[i] = (int) keys[i];
+			}
+			return result;
+		}
+	}
+}
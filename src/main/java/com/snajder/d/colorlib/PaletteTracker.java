@@ -0,0 +1,367 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Tracks dominant colors of a sequence of frames (e.g. video) of the same
+ * size, updating k-means clusters incrementally instead of extracting
+ * palette of each frame from scratch.
+ * <p>
+ * Frame is divided into square tiles. For each new frame only tiles whose
+ * hash differs from the previous frame are processed: their old pixels are
+ * removed from and new pixels added to the same 15 bit histogram as used by
+ * {@link PaletteExtractor}. Each non-empty bin is assigned to a cluster and
+ * clusters keep running sums of their pixels in {@link CIELab} (using Lab
+ * value of the bin center) and RGB, updated with every added or removed
+ * pixel. Centroids are then recomputed from the sums, starting from the
+ * centroids of the previous frame, and bins are reassigned only while
+ * centroids keep moving. Unchanged frame therefore costs only hashing, and
+ * the other costs depend on number of changed pixels and distinct bins, not
+ * on frame size.
+ * </p>
+ * <p>
+ * Changes that keep the hash of a tile (64 bit FNV-1a of its pixels) are
+ * missed until the tile changes again. Instances are not thread-safe.
+ * </p>
+ */
+public final class PaletteTracker {
+	/**
+	 * Default width and height of tiles in pixels.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 16;
+
+	private static final int BINS = PaletteExtractor.BINS;
+
+	private final int width;
+	private final int height;
+	private final int colors;
+	private final int tileSize;
+	private final int maxIterations;
+	private final float threshold;
+	private final int tilesX;
+
+	private final long[] tileHashes;
+	private final int[] previous;
+	private final PaletteExtractor.Bins bins = new PaletteExtractor.Bins();
+	private final int[] binCluster = new int[BINS];
+	private int nonEmpty;
+	private boolean first = true;
+	private int changedTiles;
+
+	private int k;
+	private final float[] centroids;
+	private final long[] clusterCount;
+	private final double[] clusterLab;
+	private final long[] clusterRGB;
+
+	/**
+	 * Constructs tracker using {@link #DEFAULT_TILE_SIZE} and default k-means
+	 * parameters of {@link PaletteExtractor}.
+	 *
+	 * @param width
+	 *            - width of frames
+	 * @param height
+	 *            - height of frames
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 */
+	public PaletteTracker(int width, int height, int colors) {
+		this(width, height, colors, DEFAULT_TILE_SIZE, PaletteExtractor.DEFAULT_MAX_ITERATIONS,
+				PaletteExtractor.DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructs tracker.
+	 *
+	 * @param width
+	 *            - width of frames
+	 * @param height
+	 *            - height of frames
+	 * @param colors
+	 *            - maximum number of colors in palette
+	 * @param tileSize
+	 *            - width and height of tiles in pixels
+	 * @param maxIterations
+	 *            - maximum number of k-means iterations per frame
+	 * @param threshold
+	 *            - iterations stop when no centroid moved more than this
+	 *            distance
+	 */
+	public PaletteTracker(int width, int height, int colors, int tileSize, int maxIterations, float threshold) {
+		if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid frame size: " + width + "x" + height);
+		}
+		if (colors < 1) {
+			throw new IllegalArgumentException("Number of colors must be positive: " + colors);
+		}
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+		}
+		this.width = width;
+		this.height = height;
+		this.colors = colors;
+		this.tileSize = tileSize;
+		this.maxIterations = maxIterations;
+		this.threshold = threshold;
+		this.tilesX = (width + tileSize - 1) / tileSize;
+		this.tileHashes = new long[tilesX * ((height + tileSize - 1) / tileSize)];
+		this.previous = new int[width * height];
+		// there are never more clusters than non-empty bins
+		int clusters = Math.min(colors, BINS);
+		this.centroids = new float[clusters * 3];
+		this.clusterCount = new long[clusters];
+		this.clusterLab = new double[clusters * 3];
+		this.clusterRGB = new long[clusters * 3];
+	}
+
+	/**
+	 * Updates palette with next frame stored row by row without gaps.
+	 *
+	 * @param rgb
+	 *            - the packed RGB pixels of the frame
+	 * @return palette of the frame
+	 * @see #update(int[], int, int)
+	 */
+	public Palette update(int[] rgb) {
+		return update(rgb, 0, width);
+	}
+
+	/**
+	 * Updates palette with next frame.
+	 *
+	 * @param rgb
+	 *            - the packed RGB pixels of the frame
+	 * @param offset
+	 *            - index of the top left pixel
+	 * @param scanlineStride
+	 *            - distance between the first pixels of two rows
+	 * @return palette of the frame, with colors being exact means of pixels
+	 *         in each cluster
+	 */
+	public Palette update(int[] rgb, int offset, int scanlineStride) {
+		if (scanlineStride < width) {
+			throw new IllegalArgumentException("Scanline stride " + scanlineStride + " is less than width " + width);
+		}
+		ArrayRanges.check(rgb.length, offset, (height - 1) * scanlineStride + width);
+
+		changedTiles = 0;
+		for (int tile = 0; tile < tileHashes.length; tile++) {
+			int x0 = (tile % tilesX) * tileSize;
+			int y0 = (tile / tilesX) * tileSize;
+			int x1 = Math.min(width, x0 + tileSize);
+			int y1 = Math.min(height, y0 + tileSize);
+
+			long hash = hash(rgb, offset, scanlineStride, x0, y0, x1, y1);
+			if (!first && hash == tileHashes[tile]) {
+				continue;
+			}
+			tileHashes[tile] = hash;
+			changedTiles++;
+
+			for (int y = y0; y < y1; y++) {
+				int src = offset + y * scanlineStride;
+				int dst = y * width;
+				for (int x = x0; x < x1; x++) {
+					int p = rgb[src + x] & 0xFFFFFF;
+					if (!first) {
+						int old = previous[dst + x];
+						if (old == p) {
+							continue;
+						}
+						remove(old);
+					}
+					add(p);
+					previous[dst + x] = p;
+				}
+			}
+		}
+		first = false;
+
+		cluster();
+		return PaletteExtractor.Points.palette(clusterCount, clusterRGB, k);
+	}
+
+	/**
+	 * Gets the number of tiles processed by the last update.
+	 *
+	 * @return the number of changed tiles
+	 */
+	public int getChangedTiles() {
+		return changedTiles;
+	}
+
+	/**
+	 * Gets the number of tiles of each frame.
+	 *
+	 * @return the number of tiles
+	 */
+	public int getTiles() {
+		return tileHashes.length;
+	}
+
+	/**
+	 * Forgets all frames, so the next frame is processed from scratch.
+	 */
+	public void reset() {
+		Arrays.fill(bins.count, 0);
+		Arrays.fill(bins.sums, 0L);
+		nonEmpty = 0;
+		first = true;
+		k = 0;
+	}
+
+	private static long hash(int[] rgb, int offset, int stride, int x0, int y0, int x1, int y1) {
+		long hash = 0xCBF29CE484222325L;
+		for (int y = y0; y < y1; y++) {
+			int row = offset + y * stride;
+			for (int x = x0; x < x1; x++) {
+				hash = (hash ^ (rgb[row + x] & 0xFFFFFF)) * 0x100000001B3L;
+			}
+		}
+		return hash;
+	}
+
+	private void add(int p) {
+		int bin = PaletteExtractor.Bins.bin(p);
+		if (bins.count[bin] == 0) {
+			nonEmpty++;
+			if (k > 0) {
+				binCluster[bin] = nearest(bin);
+			}
+		}
+		bins.add(p);
+		if (k > 0) {
+			account(binCluster[bin], bin, p, 1);
+		}
+	}
+
+	private void remove(int p) {
+		int bin = PaletteExtractor.Bins.bin(p);
+		bins.remove(p);
+		if (bins.count[bin] == 0) {
+			nonEmpty--;
+		}
+		if (k > 0) {
+			account(binCluster[bin], bin, p, -1);
+		}
+	}
+
+	/**
+	 * Adds (sign 1) or removes (sign -1) pixel from cluster sums.
+	 */
+	private void account(int c, int bin, int p, int sign) {
+		float[] lab = BinLab.LAB;
+		clusterCount[c] += sign;
+		clusterLab[c * 3] += sign * lab[bin * 3];
+		clusterLab[c * 3 + 1] += sign * lab[bin * 3 + 1];
+		clusterLab[c * 3 + 2] += sign * lab[bin * 3 + 2];
+		clusterRGB[c * 3] += sign * ((p >> 16) & 0xFF);
+		clusterRGB[c * 3 + 1] += sign * ((p >> 8) & 0xFF);
+		clusterRGB[c * 3 + 2] += sign * (p & 0xFF);
+	}
+
+	/**
+	 * Seeds clusters when there are too few of them and runs k-means
+	 * iterations starting from current centroids.
+	 */
+	private void cluster() {
+		if (k < Math.min(colors, nonEmpty)) {
+			PaletteExtractor.Points points = new PaletteExtractor.Points(bins);
+			k = Math.min(colors, points.size);
+			System.arraycopy(PaletteExtractor.seed(points, k, new Random(0L)), 0, centroids, 0, k * 3);
+			assignAll();
+		}
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			float moved = 0;
+			for (int c = 0; c < k; c++) {
+				long n = clusterCount[c];
+				if (n == 0) {
+					continue;
+				}
+				float l = (float) (clusterLab[c * 3] / n);
+				float a = (float) (clusterLab[c * 3 + 1] / n);
+				float b = (float) (clusterLab[c * 3 + 2] / n);
+				float dl = l - centroids[c * 3];
+				float da = a - centroids[c * 3 + 1];
+				float db = b - centroids[c * 3 + 2];
+				moved = Math.max(moved, dl * dl + da * da + db * db);
+				centroids[c * 3] = l;
+				centroids[c * 3 + 1] = a;
+				centroids[c * 3 + 2] = b;
+			}
+
+			if (moved <= threshold * threshold) {
+				break;
+			}
+			assignAll();
+		}
+	}
+
+	/**
+	 * Assigns all non-empty bins to the nearest centroid and recomputes
+	 * cluster sums.
+	 */
+	private void assignAll() {
+		float[] lab = BinLab.LAB;
+		Arrays.fill(clusterCount, 0L);
+		Arrays.fill(clusterLab, 0d);
+		Arrays.fill(clusterRGB, 0L);
+
+		for (int bin = 0; bin < BINS; bin++) {
+			long n = bins.count[bin];
+			if (n == 0) {
+				continue;
+			}
+			int c = nearest(bin);
+			binCluster[bin] = c;
+			clusterCount[c] += n;
+			clusterLab[c * 3] += n * (double) lab[bin * 3];
+			clusterLab[c * 3 + 1] += n * (double) lab[bin * 3 + 1];
+			clusterLab[c * 3 + 2] += n * (double) lab[bin * 3 + 2];
+			clusterRGB[c * 3] += bins.sums[bin * 3];
+			clusterRGB[c * 3 + 1] += bins.sums[bin * 3 + 1];
+			clusterRGB[c * 3 + 2] += bins.sums[bin * 3 + 2];
+		}
+	}
+
+	private int nearest(int bin) {
+		float[] lab = BinLab.LAB;
+		float l = lab[bin * 3];
+		float a = lab[bin * 3 + 1];
+		float b = lab[bin * 3 + 2];
+
+		int best = 0;
+		float bestDistance = Float.MAX_VALUE;
+		for (int c = 0; c < k; c++) {
+			float dl = l - centroids[c * 3];
+			float da = a - centroids[c * 3 + 1];
+			float db = b - centroids[c * 3 + 2];
+			float d = dl * dl + da * da + db * db;
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Lab values of bin centers, computed on first use.
+	 */
+	private static final class BinLab {
+		static final float[] LAB = new float[BINS * 3];
+
+		static {
+			int[] centers = new int[BINS];
+			for (int bin = 0; bin < BINS; bin++) {
+				centers[bin] = ((((bin >> 10) << 3) | 4) << 16) | (((((bin >> 5) & 0x1F) << 3) | 4) << 8)
+						| (((bin & 0x1F) << 3) | 4);
+			}
+			CIELab.from(centers, 0, BINS, LAB, 0);
+		}
+	}
+}
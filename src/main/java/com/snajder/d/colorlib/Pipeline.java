@@ -0,0 +1,539 @@
+package com.snajder.d.colorlib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
+/**
+ * Chain of conversions between {@link Space}s and operations on colors,
+ * compiled into a single function over float triples or packed ints.
+ * <p>
+ * Pipeline starts in a space with {@link #from(Space)} and is extended with
+ * {@link #to(Space)} and operations like {@link #rotateHue(float)}, e.g.
+ * </p>
+ *
+ * <pre>
+ * Pipeline complementary = Pipeline.from(Space.RGB).to(Space.HSLRYB).rotateHue(180f).to(Space.RGB);
+ * </pre>
+ * <p>
+ * Intermediate spaces are added automatically ({@link Space#HSLRYB} is
+ * reached through {@link Space#RYB}, {@link Space#CIELAB} through
+ * {@link Space#XYZ}). Each step performs the same operations as the
+ * corresponding <code>from(...)</code> method, so results are the same as
+ * with chained objects, but colors are kept in primitive arrays and no
+ * objects are created per color. Bulk methods allocate only a small scratch
+ * buffer per call, single colors are converted in a per-thread buffer.
+ * </p>
+ * <p>
+ * Colors are represented as described in {@link Space}. {@link Space#RGB}
+ * and {@link Space#RYB} colors may also be packed as <code>0xRRGGBB</code>
+ * ints; their components are rounded and clamped to 0 - 255 whenever a step
+ * works with integer components.
+ * </p>
+ * <p>
+ * Pipelines are immutable and thread-safe; each extending method returns a
+ * new pipeline.
+ * </p>
+ */
+public final class Pipeline implements IntUnaryOperator {
+	private static final int CHUNK = 256;
+
+	/**
+	 * Components of a single color converted by {@link #applyAsInt(int)}.
+	 */
+	private static final ThreadLocal<float[]> SCRATCH = new ThreadLocal<float[]>() {
+		@Override
+		protected float[] initialValue() {
+			return new float[3];
+		}
+	};
+
+	private final Space source;
+	private final Space target;
+	private final Stage[] stages;
+	private final String description;
+
+	private Pipeline(Space source, Space target, Stage[] stages, String description) {
+		this.source = source;
+		this.target = target;
+		this.stages = stages;
+		this.description = description;
+	}
+
+	/**
+	 * Creates empty pipeline starting in specified space.
+	 *
+	 * @param source
+	 *            - the space of input colors
+	 * @return the pipeline
+	 */
+	public static Pipeline from(Space source) {
+		if (source == null) {
+			throw new NullPointerException("source");
+		}
+		return new Pipeline(source, source, new Stage[0], source.name());
+	}
+
+	/**
+	 * Gets pipeline extended with conversion to specified space.
+	 *
+	 * @param space
+	 *            - the target space
+	 * @return the pipeline
+	 */
+	public Pipeline to(Space space) {
+		if (space == null) {
+			throw new NullPointerException("space");
+		}
+
+		// spaces form a tree rooted in RGB, path goes up to the common
+		// ancestor and down to the target
+		List<Space> up = ancestors(target);
+		List<Space> down = ancestors(space);
+		while (up.size() > 1 && down.size() > 1 && up.get(up.size() - 2) == down.get(down.size() - 2)) {
+			up.remove(up.size() - 1);
+			down.remove(down.size() - 1);
+		}
+
+		List<Stage> added = new ArrayList<Stage>();
+		StringBuilder description = new StringBuilder(this.description);
+		for (int i = 1; i < up.size(); i++) {
+			added.add(Conversion.between(up.get(i - 1), up.get(i)));
+			description.append(" -> ").append(up.get(i));
+		}
+		for (int i = down.size() - 1; i > 0; i--) {
+			added.add(Conversion.between(down.get(i), down.get(i - 1)));
+			description.append(" -> ").append(down.get(i - 1));
+		}
+
+		return then(space, added, description.toString());
+	}
+
+	/**
+	 * Gets pipeline extended with rotation of hue, as with
+	 * {@link HSL#addH(float)}. The pipeline must be in {@link Space#HSL} or
+	 * {@link Space#HSLRYB} space.
+	 *
+	 * @param degrees
+	 *            - the hue to add in degrees
+	 * @return the pipeline
+	 */
+	public Pipeline rotateHue(final float degrees) {
+		if (target != Space.HSL && target != Space.HSLRYB) {
+			throw new IllegalStateException("Hue can be rotated only in HSL spaces, not " + target);
+		}
+
+		Stage rotation = new Stage() {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					v[k] = HSL.addH(v[k], degrees);
+				}
+			}
+		};
+		return then(target, Arrays.asList(rotation), description + " -> rotateHue(" + degrees + ")");
+	}
+
+	/**
+	 * Gets the space of input colors.
+	 *
+	 * @return the source space
+	 */
+	public Space getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the space of output colors.
+	 *
+	 * @return the target space
+	 */
+	public Space getTarget() {
+		return target;
+	}
+
+	/**
+	 * Applies pipeline to specified packed color. Both source and target
+	 * spaces must be {@link Space#RGB} or {@link Space#RYB}.
+	 *
+	 * @param color
+	 *            - the color packed as <code>0xRRGGBB</code> (upper byte is
+	 *            ignored)
+	 * @return the result packed as <code>0xRRGGBB</code>
+	 */
+	@Override
+	public int applyAsInt(int color) {
+		checkPacked(source);
+		checkPacked(target);
+
+		float[] v = SCRATCH.get();
+		unpack(color, v, 0);
+		run(v, 0, 1);
+		return pack(v, 0);
+	}
+
+	/**
+	 * Applies pipeline to packed colors of a stream, see
+	 * {@link #applyAsInt(int)}.
+	 *
+	 * @param colors
+	 *            - the packed colors
+	 * @return the stream of packed results
+	 */
+	public IntStream apply(IntStream colors) {
+		checkPacked(source);
+		checkPacked(target);
+
+		return colors.map(this);
+	}
+
+	/**
+	 * Applies pipeline to packed colors. Both source and target spaces must
+	 * be {@link Space#RGB} or {@link Space#RYB}.
+	 *
+	 * @param src
+	 *            - the packed colors (upper byte is ignored)
+	 * @param offset
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving packed results, may be the same as
+	 *            input array
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void apply(int[] src, int offset, int length, int[] dst, int dstOffset) {
+		checkPacked(source);
+		checkPacked(target);
+		ArrayRanges.check(src.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length);
+
+		float[] v = new float[Math.min(length, CHUNK) * 3];
+		for (int start = 0; start < length; start += CHUNK) {
+			int count = Math.min(CHUNK, length - start);
+			for (int i = 0; i < count; i++) {
+				unpack(src[offset + start + i], v, i * 3);
+			}
+			run(v, 0, count);
+			for (int i = 0; i < count; i++) {
+				dst[dstOffset + start + i] = pack(v, i * 3);
+			}
+		}
+	}
+
+	/**
+	 * Applies pipeline to packed colors and writes result components
+	 * interleaved (three floats per color). Source space must be
+	 * {@link Space#RGB} or {@link Space#RYB}.
+	 *
+	 * @param src
+	 *            - the packed colors (upper byte is ignored)
+	 * @param offset
+	 *            - index of the first color
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void apply(int[] src, int offset, int length, float[] dst, int dstOffset) {
+		checkPacked(source);
+		ArrayRanges.check(src.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length * 3);
+
+		for (int i = 0; i < length; i++) {
+			unpack(src[offset + i], dst, dstOffset + i * 3);
+		}
+		runChunked(dst, dstOffset, length);
+	}
+
+	/**
+	 * Applies pipeline to interleaved components (three floats per color).
+	 *
+	 * @param src
+	 *            - the interleaved components in source space
+	 * @param offset
+	 *            - index of the first component
+	 * @param length
+	 *            - number of colors
+	 * @param dst
+	 *            - the array receiving interleaved components in target
+	 *            space, may be the same as input array
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void apply(float[] src, int offset, int length, float[] dst, int dstOffset) {
+		ArrayRanges.check(src.length, offset, length * 3);
+		ArrayRanges.check(dst.length, dstOffset, length * 3);
+
+		System.arraycopy(src, offset, dst, dstOffset, length * 3);
+		runChunked(dst, dstOffset, length);
+	}
+
+	/**
+	 * Applies pipeline to all colors of a buffer.
+	 *
+	 * @param src
+	 *            - the buffer in source space
+	 * @param dst
+	 *            - the buffer of the same size in target space, may be the
+	 *            same as input buffer when source and target space are the
+	 *            same (use {@link ColorBuffer#convert(Space)} to change space
+	 *            of a buffer in place)
+	 */
+	public void apply(ColorBuffer src, ColorBuffer dst) {
+		if (src.getSpace() != source) {
+			throw new IllegalArgumentException("Expected " + source + " colors, not " + src.getSpace());
+		}
+		if (dst != src && dst.getSpace() != target) {
+			throw new IllegalArgumentException("Expected " + target + " buffer, not " + dst.getSpace());
+		}
+		if (dst.size() != src.size()) {
+			throw new IllegalArgumentException("Buffer sizes differ: " + src.size() + " and " + dst.size());
+		}
+
+		src.forEachChunk(dst, new ColorBuffer.Chunk() {
+			@Override
+			public void apply(float[] v, int count) {
+				run(v, 0, count);
+			}
+		});
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+	private Pipeline then(Space space, List<Stage> added, String description) {
+		Stage[] stages = Arrays.copyOf(this.stages, this.stages.length + added.size());
+		for (int i = 0; i < added.size(); i++) {
+			stages[this.stages.length + i] = added.get(i);
+		}
+		return new Pipeline(source, space, stages, description);
+	}
+
+	/**
+	 * Runs all stages over colors of the array in chunks, so that chunk stays
+	 * in cache between stages.
+	 */
+	private void runChunked(float[] v, int offset, int length) {
+		if (offset % 3 != 0) {
+			// stages index colors from the start of the array
+			float[] tmp = new float[Math.min(length, CHUNK) * 3];
+			for (int start = 0; start < length; start += CHUNK) {
+				int count = Math.min(CHUNK, length - start);
+				System.arraycopy(v, offset + start * 3, tmp, 0, count * 3);
+				run(tmp, 0, count);
+				System.arraycopy(tmp, 0, v, offset + start * 3, count * 3);
+			}
+			return;
+		}
+
+		int first = offset / 3;
+		for (int start = 0; start < length; start += CHUNK) {
+			run(v, first + start, first + Math.min(length, start + CHUNK));
+		}
+	}
+
+	private void run(float[] v, int from, int to) {
+		for (Stage stage : stages) {
+			stage.apply(v, from, to);
+		}
+	}
+
+	private static List<Space> ancestors(Space space) {
+		List<Space> ancestors = new ArrayList<Space>();
+		for (Space s = space; s != null; s = parent(s)) {
+			ancestors.add(s);
+		}
+		return ancestors;
+	}
+
+	private static Space parent(Space space) {
+		switch (space) {
+		case HSL:
+		case RYB:
+		case XYZ:
+			return Space.RGB;
+		case HSLRYB:
+			return Space.RYB;
+		case CIELAB:
+			return Space.XYZ;
+		default:
+			return null;
+		}
+	}
+
+	static void checkPacked(Space space) {
+		if (space != Space.RGB && space != Space.RYB) {
+			throw new IllegalStateException("Colors of " + space + " space can't be packed");
+		}
+	}
+
+	private static void unpack(int p, float[] v, int k) {
+		v[k] = (p >> 16) & 0xFF;
+		v[k + 1] = (p >> 8) & 0xFF;
+		v[k + 2] = p & 0xFF;
+	}
+
+	private static int pack(float[] v, int k) {
+		return ((int) v[k] << 16) | ((int) v[k + 1] << 8) | (int) v[k + 2];
+	}
+
+	/**
+	 * Rounds float to integer component between 0 and 255.
+	 */
+	static int component(float v) {
+		int c = (int) (v + 0.5f);
+		return c < 0 ? 0 : (c > 255 ? 255 : c);
+	}
+
+	/**
+	 * Step of the pipeline, transforming colors <code>from</code> (inclusive)
+	 * to <code>to</code> (exclusive) of interleaved array in place.
+	 */
+	private interface Stage {
+		void apply(float[] v, int from, int to);
+	}
+
+	/**
+	 * Conversions between neighboring spaces.
+	 */
+	private enum Conversion implements Stage {
+		RGB_TO_RYB {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					unpack(RYB.fromRGB(component(v[k]), component(v[k + 1]), component(v[k + 2])), v, k);
+				}
+			}
+		},
+
+		RYB_TO_RGB {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					unpack(RGB.fromRYB(component(v[k]), component(v[k + 1]), component(v[k + 2])), v, k);
+				}
+			}
+		},
+
+		// same conversion for RGB to HSL and RYB to HSLRYB
+		TO_HSL {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					HSL.fromRGB(component(v[k]), component(v[k + 1]), component(v[k + 2]), v, k);
+				}
+			}
+		},
+
+		FROM_HSL {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					float h = v[k];
+					float s = v[k + 1];
+					float l = v[k + 2];
+					unpack(RGB.fromHSL(h, s, l), v, k);
+				}
+			}
+		},
+
+		RGB_TO_XYZ {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				float[] M = XYZMatrices.SRGB;
+				for (int k = from * 3; k < to * 3; k += 3) {
+					float r = SRGBCompanding.linearize(component(v[k]));
+					float g = SRGBCompanding.linearize(component(v[k + 1]));
+					float b = SRGBCompanding.linearize(component(v[k + 2]));
+
+					v[k] = M[0] * r + M[1] * g + M[2] * b;
+					v[k + 1] = M[3] * r + M[4] * g + M[5] * b;
+					v[k + 2] = M[6] * r + M[7] * g + M[8] * b;
+				}
+			}
+		},
+
+		XYZ_TO_RGB {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				float[] M = XYZMatrices.SRGB_INVERSE;
+				for (int k = from * 3; k < to * 3; k += 3) {
+					float x = v[k];
+					float y = v[k + 1];
+					float z = v[k + 2];
+
+					v[k] = SRGBCompanding.encode(M[0] * x + M[1] * y + M[2] * z);
+					v[k + 1] = SRGBCompanding.encode(M[3] * x + M[4] * y + M[5] * z);
+					v[k + 2] = SRGBCompanding.encode(M[6] * x + M[7] * y + M[8] * z);
+				}
+			}
+		},
+
+		XYZ_TO_CIELAB {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					float fy = CIELab.f(v[k + 1] / CIELab.Y_N, false);
+					float fx = CIELab.f(v[k] / CIELab.X_N, false);
+					float fz = CIELab.f(v[k + 2] / CIELab.Z_N, false);
+
+					v[k] = 116f * fy - 16f;
+					v[k + 1] = 500 * (fx - fy);
+					v[k + 2] = 200 * (fy - fz);
+				}
+			}
+		},
+
+		CIELAB_TO_XYZ {
+			@Override
+			public void apply(float[] v, int from, int to) {
+				for (int k = from * 3; k < to * 3; k += 3) {
+					float fy = (v[k] + 16f) / 116f;
+					float fx = fy + v[k + 1] / 500f;
+					float fz = fy - v[k + 2] / 200f;
+
+					v[k] = CIELab.X_N * CIELab.inverseF(fx);
+					v[k + 1] = CIELab.Y_N * CIELab.inverseF(fy);
+					v[k + 2] = CIELab.Z_N * CIELab.inverseF(fz);
+				}
+			}
+		};
+
+		static Conversion between(Space from, Space to) {
+			switch (to) {
+			case RYB:
+				return from == Space.HSLRYB ? FROM_HSL : RGB_TO_RYB;
+			case HSL:
+			case HSLRYB:
+				return TO_HSL;
+			case XYZ:
+				return from == Space.CIELAB ? CIELAB_TO_XYZ : RGB_TO_XYZ;
+			case CIELAB:
+				return XYZ_TO_CIELAB;
+			default:
+				switch (from) {
+				case RYB:
+					return RYB_TO_RGB;
+				case HSL:
+					return FROM_HSL;
+				default:
+					return XYZ_TO_RGB;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.snajder.d.colorlib;
+
+/**
+ * {@link CIELab} color with precomputed terms used by {@link DeltaE}
+ * metrics (chroma and CIE94 weighting factors).
+ * <p>
+ * Preparing colors once pays off when the same color is compared many times,
+ * e.g. when matching against a fixed palette with
+ * {@link DeltaE#distance(PreparedLab, PreparedLab[], int, int, float[], int)}.
+ * Instances are immutable.
+ * </p>
+ */
+public final class PreparedLab {
+	final float l;
+	final float a;
+	final float b;
+
+	/**
+	 * Chroma.
+	 */
+	final double c;
+
+	/**
+	 * CIE94 chroma and hue weighting factors of this color as reference.
+	 */
+	final double sc94;
+	final double sh94;
+
+	private PreparedLab(float l, float a, float b) {
+		this.l = l;
+		this.a = a;
+		this.b = b;
+		this.c = Math.sqrt((double) a * a + (double) b * b);
+		this.sc94 = 1 + DeltaE.K1 * c;
+		this.sh94 = 1 + DeltaE.K2 * c;
+	}
+
+	/**
+	 * Creates prepared form of specified color.
+	 *
+	 * @param lab
+	 *            - the color
+	 * @return the prepared color
+	 */
+	public static PreparedLab from(CIELab lab) {
+		return new PreparedLab(lab.getL(), lab.getA(), lab.getB());
+	}
+
+	/**
+	 * Creates prepared color from specified components.
+	 *
+	 * @param l
+	 *            - L value
+	 * @param a
+	 *            - A value
+	 * @param b
+	 *            - B value
+	 * @return the prepared color
+	 */
+	public static PreparedLab from(float l, float a, float b) {
+		return new PreparedLab(l, a, b);
+	}
+
+	/**
+	 * Prepares all specified colors.
+	 *
+	 * @param colors
+	 *            - the colors
+	 * @return array of prepared colors in the same order
+	 */
+	public static PreparedLab[] from(CIELab... colors) {
+		PreparedLab[] prepared = new PreparedLab[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			prepared[i] = from(colors[i]);
+		}
+		return prepared;
+	}
+
+	/**
+	 * Gets L component.
+	 *
+	 * @return L component
+	 */
+	public float getL() {
+		return l;
+	}
+
+	/**
+	 * Gets A component.
+	 *
+	 * @return A component
+	 */
+	public float getA() {
+		return a;
+	}
+
+	/**
+	 * Gets B component.
+	 *
+	 * @return B component
+	 */
+	public float getB() {
+		return b;
+	}
+
+	/**
+	 * Gets chroma, <code>sqrt(a^2 + b^2)</code>.
+	 *
+	 * @return the chroma
+	 */
+	public float getChroma() {
+		return (float) c;
+	}
+
+	/**
+	 * Converts back to {@link CIELab}.
+	 *
+	 * @return new CIELab instance
+	 */
+	public CIELab toCIELab() {
+		return new CIELab(l, a, b);
+	}
+
+	@Override
+	public String toString() {
+		return "[l=" + l + ", a=" + a + ", b=" + b + "]";
+	}
+}
@@ -1,5 +1,8 @@
 package com.snajder.d.colorlib;
 
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
 /**
  * Represents the RGB color (R-red, G-green, Y-yellow).
  * <p>
@@ -154,6 +157,50 @@ public class RGB {
 		return from(r, g, b);
 	}
 
+	/**
+	 * Converts specified HSL values to RGB packed as <code>0xRRGGBB</code>.
+	 * Unlike {@link #from(float, float, float)} each component is clamped to
+	 * the range between 0 and 255, so values outside of HSL range can't spill
+	 * into neighboring components.
+	 */
+	static int fromHSL(float h, float s, float l) {
+		float c = (1 - Math.abs(2 * l - 1)) * s;
+		float x = c * (1 - Math.abs(HSL.remainder(h / 60f, 2f) - 1));
+		float m = l - c / 2f;
+
+		float r_tmp = 0;
+		float g_tmp = 0;
+		float b_tmp = 0;
+
+		if (h < 60f) {
+			r_tmp = c;
+			g_tmp = x;
+			b_tmp = 0;
+		} else if (h < 120) {
+			r_tmp = x;
+			g_tmp = c;
+			b_tmp = 0;
+		} else if (h < 180) {
+			r_tmp = 0;
+			g_tmp = c;
+			b_tmp = x;
+		} else if (h < 240) {
+			r_tmp = 0;
+			g_tmp = x;
+			b_tmp = c;
+		} else if (h < 300) {
+			r_tmp = x;
+			g_tmp = 0;
+			b_tmp = c;
+		} else if (h < 360) {
+			r_tmp = c;
+			g_tmp = 0;
+			b_tmp = x;
+		}
+
+		return (clamp((r_tmp + m) * 255f) << 16) | (clamp((g_tmp + m) * 255f) << 8) | clamp((b_tmp + m) * 255f);
+	}
+
 	/**
 	 * Creates {@link RGB} based on specified {@link RYB} value.
 	 * <p>
@@ -216,6 +263,144 @@ public class RGB {
 		return new RGB(Math.round(rr2 * 255f), Math.round(gg2 * 255f), Math.round(bb2 * 255f));
 	}
 
+	/**
+	 * Converts specified RYB components to RGB. Unlike {@link #from(RYB)} each
+	 * component is clamped to the range between 0 and 255, so values outside
+	 * of RYB range can't spill into neighboring components.
+	 * 
+	 * @param r
+	 *            - the red component value
+	 * @param y
+	 *            - the yellow component value
+	 * @param b
+	 *            - the blue component value
+	 * @return the RGB value packed as <code>0xRRGGBB</code>
+	 * @see #from(RYB)
+	 */
+	static int fromRYB(int r, int y, int b) {
+		// normalize RYB
+		float rn = (float) r / 255f;
+		float yn = (float) y / 255f;
+		float bn = (float) b / 255f;
+
+		// remove whiteness
+		float whiteComponent = Math.min(Math.min(rn, yn), bn);
+
+		float rr = (float) rn - whiteComponent;
+		float yy = (float) yn - whiteComponent;
+		float bb = (float) bn - whiteComponent;
+
+		// calculate R' G' B'
+		float rr2 = rr + yy - Math.min(yy, bb);
+		float gg2 = yy + 2f * Math.min(yy, bb);
+		float bb2 = 2f * (bb - Math.min(yy, bb));
+
+		// normalize R' G' B' values
+		float n = Math.max(Math.max(rr2, gg2), bb2) / Math.max(Math.max(rr, yy), bb);
+
+		// check if there is NaN
+		n = Float.isNaN(n) ? 0 : n;
+
+		rr2 /= n;
+		gg2 /= n;
+		bb2 /= n;
+
+		// add black component
+		float blackComonent = Math.min(Math.min(1f - rn, 1f - yn), 1f - bn);
+
+		rr2 = Float.isNaN(rr2) ? 0 : rr2;
+		gg2 = Float.isNaN(gg2) ? 0 : gg2;
+		bb2 = Float.isNaN(bb2) ? 0 : bb2;
+
+		rr2 += blackComonent;
+		gg2 += blackComonent;
+		bb2 += blackComonent;
+
+		return (clamp(rr2 * 255f) << 16) | (clamp(gg2 * 255f) << 8) | clamp(bb2 * 255f);
+	}
+
+	/**
+	 * Rounds float with {@link Math#round(float)} and clamps it to component
+	 * between 0 and 255.
+	 */
+	static int clamp(float v) {
+		int c = Math.round(v);
+		return c < 0 ? 0 : (c > 255 ? 255 : c);
+	}
+
+	/**
+	 * Creates {@link RGB} based on specified {@link XYZ} value (inverse of
+	 * {@link XYZ#from(RGB)}).
+	 * <p>
+	 * Linear values are sRGB encoded and rounded to the nearest component.
+	 * Colors outside of sRGB gamut are clamped, each component to the range
+	 * between 0 and 255.
+	 * </p>
+	 * 
+	 * @param xyz
+	 *            the XYZ value
+	 *
+	 * @return the RGB value
+	 * @see <a href=
+	 *      "http://www.brucelindbloom.com/index.html?Eqn_XYZ_to_RGB.html">XYZ
+	 *      to RGB conversion</a>
+	 */
+	public static RGB from(XYZ xyz) {
+		float[] M = XYZMatrices.SRGB_INVERSE;
+
+		float x = xyz.getX();
+		float y = xyz.getY();
+		float z = xyz.getZ();
+
+		float r = M[0] * x + M[1] * y + M[2] * z;
+		float g = M[3] * x + M[4] * y + M[5] * z;
+		float b = M[6] * x + M[7] * y + M[8] * z;
+
+		return new RGB(SRGBCompanding.encode(r), SRGBCompanding.encode(g), SRGBCompanding.encode(b));
+	}
+
+	/**
+	 * Creates {@link RGB} with components in specified working space based on
+	 * specified {@link XYZ} value (inverse of
+	 * {@link XYZ#from(RGB, RGBWorkingSpace, WhitePoint)}). Colors outside of
+	 * the working space gamut are clamped.
+	 * 
+	 * @param xyz
+	 *            the XYZ value
+	 * @param space
+	 *            the working space of RGB components
+	 * @param white
+	 *            the reference white of XYZ value
+	 *
+	 * @return the RGB value
+	 */
+	public static RGB from(XYZ xyz, RGBWorkingSpace space, WhitePoint white) {
+		float[] M = space.fromXYZ(white);
+
+		float x = xyz.getX();
+		float y = xyz.getY();
+		float z = xyz.getZ();
+
+		float r = M[0] * x + M[1] * y + M[2] * z;
+		float g = M[3] * x + M[4] * y + M[5] * z;
+		float b = M[6] * x + M[7] * y + M[8] * z;
+
+		return new RGB(space.encode(r), space.encode(g), space.encode(b));
+	}
+
+	/**
+	 * Creates {@link RGB} based on specified {@link CIELab} value, converting
+	 * it first to {@link XYZ}. Colors outside of sRGB gamut are clamped.
+	 * 
+	 * @param lab
+	 *            the CIELab value
+	 *
+	 * @return the RGB value
+	 */
+	public static RGB from(CIELab lab) {
+		return from(XYZ.from(lab));
+	}
+
 	/**
 	 * Creates instance of {@link RGB} based on specified values.
 	 * 
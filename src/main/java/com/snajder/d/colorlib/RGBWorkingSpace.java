@@ -0,0 +1,246 @@
+package com.snajder.d.colorlib;
+
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
+/**
+ * RGB working spaces, defining how {@link RGB} components are converted to
+ * {@link XYZ}.
+ * <p>
+ * Each working space has its primaries, native reference white and transfer
+ * curve. XYZ values relative to other {@link WhitePoint} are obtained with
+ * Bradford chromatic adaptation. Adaptation is fused with RGB to XYZ matrix
+ * when the working space is initialized, so conversion to any white point is
+ * a single 3x3 multiplication.
+ * </p>
+ *
+ * @see <a href=
+ *      "http://www.brucelindbloom.com/index.html?WorkingSpaceInfo.html">RGB
+ *      working spaces</a>
+ */
+public enum RGBWorkingSpace {
+	/**
+	 * sRGB, the space of {@link RGB} values used everywhere else in the
+	 * library.
+	 */
+	SRGB(XYZMatrices.SRGB, WhitePoint.D65, Curve.SRGB),
+
+	/**
+	 * Adobe RGB (1998).
+	 */
+	ADOBE_RGB(new double[] { 0.64, 0.33, 0.21, 0.71, 0.15, 0.06 }, WhitePoint.D65, Curve.ADOBE),
+
+	/**
+	 * Display P3, DCI-P3 primaries with sRGB transfer curve.
+	 */
+	DISPLAY_P3(new double[] { 0.680, 0.320, 0.265, 0.690, 0.150, 0.060 }, WhitePoint.D65, Curve.SRGB),
+
+	/**
+	 * ITU-R BT.2020.
+	 */
+	REC_2020(new double[] { 0.708, 0.292, 0.170, 0.797, 0.131, 0.046 }, WhitePoint.D65, Curve.REC_2020),
+
+	/**
+	 * ProPhoto RGB (ROMM RGB).
+	 */
+	PROPHOTO_RGB(new double[] { 0.7347, 0.2653, 0.1596, 0.8404, 0.0366, 0.0001 }, WhitePoint.D50,
+			Curve.PROPHOTO);
+
+	private final WhitePoint white;
+	private final Curve curve;
+
+	/**
+	 * Linear values of all 256 8-bit components.
+	 */
+	private final float[] linear = new float[256];
+
+	/**
+	 * RGB to XYZ and XYZ to RGB matrices, indexed by white point ordinal.
+	 */
+	private final float[][] toXYZ = new float[WhitePoint.values().length][];
+	private final float[][] fromXYZ = new float[WhitePoint.values().length][];
+
+	private RGBWorkingSpace(double[] primaries, WhitePoint white, Curve curve) {
+		this(XYZMatrices.toFloat(XYZMatrices.fromPrimaries(primaries, white.normalized())), white, curve);
+	}
+
+	private RGBWorkingSpace(float[] matrix, WhitePoint white, Curve curve) {
+		this.white = white;
+		this.curve = curve;
+
+		for (int i = 0; i < 256; i++) {
+			linear[i] = (float) curve.linear(i / 255.0);
+		}
+
+		double[] m = new double[9];
+		for (int i = 0; i < 9; i++) {
+			m[i] = matrix[i];
+		}
+		for (WhitePoint w : WhitePoint.values()) {
+			if (w == white) {
+				// native matrix as is, so sRGB results don't change
+				toXYZ[w.ordinal()] = matrix;
+				fromXYZ[w.ordinal()] = XYZMatrices.invert(matrix);
+			} else {
+				double[] adapted = XYZMatrices.multiply(XYZMatrices.bradford(white.normalized(), w.normalized()), m);
+				toXYZ[w.ordinal()] = XYZMatrices.toFloat(adapted);
+				fromXYZ[w.ordinal()] = XYZMatrices.toFloat(XYZMatrices.invert(adapted));
+			}
+		}
+	}
+
+	/**
+	 * Gets the native reference white of the working space.
+	 *
+	 * @return the white point
+	 */
+	public WhitePoint getWhitePoint() {
+		return white;
+	}
+
+	/**
+	 * Gets matrix converting linear RGB components to XYZ relative to
+	 * specified white point.
+	 *
+	 * @param white
+	 *            - the white point of XYZ values
+	 * @return copy of the flat row-major 3x3 matrix
+	 */
+	public float[] getToXYZ(WhitePoint white) {
+		return toXYZ(white).clone();
+	}
+
+	/**
+	 * Gets matrix converting XYZ relative to specified white point to linear
+	 * RGB components.
+	 *
+	 * @param white
+	 *            - the white point of XYZ values
+	 * @return copy of the flat row-major 3x3 matrix
+	 */
+	public float[] getFromXYZ(WhitePoint white) {
+		return fromXYZ(white).clone();
+	}
+
+	/**
+	 * Gets linear value of specified 8-bit component.
+	 *
+	 * @param c
+	 *            - the component value between 0 and 255
+	 * @return the linear value between 0 and 1
+	 */
+	public float linearize(int c) {
+		if (curve == Curve.SRGB) {
+			return SRGBCompanding.linearize(c);
+		}
+		if ((c & ~0xFF) == 0) {
+			return linear[c];
+		}
+		return (float) curve.linear(c / 255.0);
+	}
+
+	/**
+	 * Encodes specified linear value to nearest 8-bit component. Values
+	 * below 0 are encoded as 0 and values above 1 as 255.
+	 *
+	 * @param v
+	 *            - the linear value
+	 * @return the component value between 0 and 255
+	 */
+	public int encode(float v) {
+		if (curve == Curve.SRGB) {
+			return SRGBCompanding.encode(v);
+		}
+		if (!(v > 0f)) {
+			return 0;
+		}
+		if (v >= 1f) {
+			return 255;
+		}
+		return Math.round((float) curve.encoded(v) * 255f);
+	}
+
+	float[] toXYZ(WhitePoint white) {
+		return toXYZ[white.ordinal()];
+	}
+
+	float[] fromXYZ(WhitePoint white) {
+		return fromXYZ[white.ordinal()];
+	}
+
+	/**
+	 * Transfer curves between encoded and linear component values.
+	 */
+	private enum Curve {
+		SRGB {
+			@Override
+			double linear(double v) {
+				return SRGBCompanding.inverseCompanding((float) v);
+			}
+
+			@Override
+			double encoded(double v) {
+				return SRGBCompanding.companding((float) v);
+			}
+		},
+
+		ADOBE {
+			private static final double GAMMA = 563.0 / 256.0;
+
+			@Override
+			double linear(double v) {
+				return Math.pow(v, GAMMA);
+			}
+
+			@Override
+			double encoded(double v) {
+				return Math.pow(v, 1 / GAMMA);
+			}
+		},
+
+		REC_2020 {
+			private static final double ALPHA = 1.09929682680944;
+			private static final double BETA = 0.018053968510807;
+
+			@Override
+			double linear(double v) {
+				if (v < 4.5 * BETA) {
+					return v / 4.5;
+				}
+				return Math.pow((v + ALPHA - 1) / ALPHA, 1 / 0.45);
+			}
+
+			@Override
+			double encoded(double v) {
+				if (v < BETA) {
+					return 4.5 * v;
+				}
+				return ALPHA * Math.pow(v, 0.45) - (ALPHA - 1);
+			}
+		},
+
+		PROPHOTO {
+			private static final double E_T = 1.0 / 512.0;
+
+			@Override
+			double linear(double v) {
+				if (v < 16 * E_T) {
+					return v / 16;
+				}
+				return Math.pow(v, 1.8);
+			}
+
+			@Override
+			double encoded(double v) {
+				if (v < E_T) {
+					return 16 * v;
+				}
+				return Math.pow(v, 1 / 1.8);
+			}
+		};
+
+		abstract double linear(double v);
+
+		abstract double encoded(double v);
+	}
+}
@@ -1,5 +1,7 @@
 package com.snajder.d.colorlib;
 
+import com.snajder.d.colorlib.util.ArrayRanges;
+
 /**
  * Represents the RYB color (R-red, Y-yellow, B-blue). RYB colors are primarily
  * used in art, design and fashion.
@@ -106,7 +108,9 @@ public class RYB {
 	 * @see {@link HSLRYB}
 	 */
 	public static RYB from(HSLRYB hsl) {
+		long start = ColorMetrics.start();
 		RGB ryb = RGB.from(hsl);
+		ColorMetrics.record(ColorOperation.RYB_FROM, start, 1);
 		return new RYB(ryb.getR(), ryb.getG(), ryb.getB());
 	}
 
@@ -127,6 +131,7 @@ public class RYB {
 	 * @see {@link RGB}
 	 */
 	public static final RYB from(RGB rgb) {
+		long start = ColorMetrics.start();
 		int r = rgb.getR();
 		int g = rgb.getG();
 		int b = rgb.getB();
@@ -169,7 +174,97 @@ public class RYB {
 		yy2 += blackComonent;
 		bb2 += blackComonent;
 
-		return new RYB(Math.round(rr2 * 255f), Math.round(yy2 * 255f), Math.round(bb2 * 255f));
+		RYB ryb = new RYB(Math.round(rr2 * 255f), Math.round(yy2 * 255f), Math.round(bb2 * 255f));
+		ColorMetrics.record(ColorOperation.RYB_FROM, start, 1);
+
+		return ryb;
+	}
+
+	/**
+	 * Converts packed RGB values to packed RYB values.
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored) and each output value as <code>0xRRYYBB</code>. Results are
+	 * the same as with {@link #from(RGB)}, but no objects are allocated.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param ryb
+	 *            - the array receiving packed RYB values
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public static void from(int[] rgb, int offset, int length, int[] ryb, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(ryb.length, dstOffset, length);
+
+		long start = ColorMetrics.start();
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+			ryb[dstOffset + i] = fromRGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+		}
+		ColorMetrics.record(ColorOperation.RYB_FROM, start, length);
+	}
+
+	/**
+	 * Converts specified RGB components to RYB. Unlike {@link #from(RGB)} each
+	 * component is clamped to the range between 0 and 255, so values outside
+	 * of RGB range can't spill into neighboring components.
+	 * 
+	 * @param r
+	 *            - the red component value
+	 * @param g
+	 *            - the green component value
+	 * @param b
+	 *            - the blue component value
+	 * @return the RYB value packed as <code>0xRRYYBB</code>
+	 * @see #from(RGB)
+	 */
+	static int fromRGB(int r, int g, int b) {
+		// normalize RGB
+		float rn = (float) r / 255f;
+		float gn = (float) g / 255f;
+		float bn = (float) b / 255f;
+
+		// remove whiteness
+		float whiteComponent = Math.min(Math.min(rn, gn), bn);
+
+		float rr = (float) rn - whiteComponent;
+		float gg = (float) gn - whiteComponent;
+		float bb = (float) bn - whiteComponent;
+
+		// calculate RYB
+		float rr2 = rr - Math.min(rr, gg);
+		float yy2 = (gg + Math.min(rr, gg)) / 2f;
+		float bb2 = (bb + gg - Math.min(rr, gg)) / 2f;
+
+		// normalize RYB values
+		float n = Math.max(Math.max(rr2, yy2), bb2) / Math.max(Math.max(rr, gg), bb);
+
+		// check if there is NaN
+		n = Float.isNaN(n) ? 0 : n;
+
+		rr2 /= n;
+		yy2 /= n;
+		bb2 /= n;
+
+		// add black component
+		float blackComonent = Math.min(Math.min(1f - rn, 1f - gn), 1f - bn);
+
+		rr2 = Float.isNaN(rr2) ? 0 : rr2;
+		yy2 = Float.isNaN(yy2) ? 0 : yy2;
+		bb2 = Float.isNaN(bb2) ? 0 : bb2;
+
+		rr2 += blackComonent;
+		yy2 += blackComonent;
+		bb2 += blackComonent;
+
+		return (RGB.clamp(rr2 * 255f) << 16) | (RGB.clamp(yy2 * 255f) << 8) | RGB.clamp(bb2 * 255f);
 	}
 
 	/**
@@ -0,0 +1,247 @@
+package com.snajder.d.colorlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Precomputed RGB to RYB and RYB to RGB tables covering all 16.7M colors.
+ * <p>
+ * Tables are generated once to a file using {@link #generate(Path)} and
+ * loaded with {@link #load(Path)}. The file is memory-mapped read-only, so
+ * tables don't occupy heap and multiple JVMs on the same host share the same
+ * pages of the page cache.
+ * </p>
+ * <p>
+ * Lookups return exactly the same values as {@link RYB#from(RGB)} and
+ * {@link RGB#from(RYB)}. Instances are immutable and thread-safe.
+ * </p>
+ * <p>
+ * File layout (little-endian): magic <code>'RYBT'</code>, version, number of
+ * entries per table, reserved int, RGB to RYB table, RYB to RGB table. Each
+ * table entry is a packed <code>0xRRGGBB</code> (or <code>0xRRYYBB</code>)
+ * int.
+ * </p>
+ */
+public final class RYBTables {
+	private static final int MAGIC = 0x52594254;
+	private static final int VERSION = 1;
+	private static final int ENTRIES = 1 << 24;
+	private static final int HEADER_BYTES = 16;
+	private static final long FILE_BYTES = HEADER_BYTES + 2L * ENTRIES * 4;
+
+	private final IntBuffer toRYB;
+	private final IntBuffer toRGB;
+
+	private RYBTables(MappedByteBuffer buffer) {
+		buffer.position(HEADER_BYTES);
+		this.toRYB = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+		buffer.position(HEADER_BYTES + ENTRIES * 4);
+		this.toRGB = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	/**
+	 * Generates table file at specified path. The file is first written to a
+	 * temporary file in the same directory and then moved, so concurrent
+	 * readers never see partially written tables.
+	 *
+	 * @param file
+	 *            - the path of the table file
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public static void generate(Path file) throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+				buffer.putInt(MAGIC).putInt(VERSION).putInt(ENTRIES).putInt(0);
+
+				for (int i = 0; i < ENTRIES; i++) {
+					if (!buffer.hasRemaining()) {
+						flush(channel, buffer);
+					}
+					buffer.putInt(RYB.fromRGB((i >> 16) & 0xFF, (i >> 8) & 0xFF, i & 0xFF));
+				}
+				for (int i = 0; i < ENTRIES; i++) {
+					if (!buffer.hasRemaining()) {
+						flush(channel, buffer);
+					}
+					buffer.putInt(RGB.fromRYB((i >> 16) & 0xFF, (i >> 8) & 0xFF, i & 0xFF));
+				}
+				flush(channel, buffer);
+				channel.force(false);
+			}
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Loads tables from specified file. The file is memory-mapped read-only.
+	 *
+	 * @param file
+	 *            - the path of the table file
+	 * @return the tables
+	 * @throws IOException
+	 *             if the file can't be read or it is not a valid table file
+	 */
+	public static RYBTables load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() != FILE_BYTES) {
+				throw new IOException("Invalid RYB table file size: " + channel.size());
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_BYTES);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != ENTRIES) {
+				throw new IOException("Invalid RYB table file header: " + file);
+			}
+
+			return new RYBTables(buffer);
+		}
+	}
+
+	/**
+	 * Loads tables from specified file, generating the file first if it
+	 * doesn't exist.
+	 *
+	 * @param file
+	 *            - the path of the table file
+	 * @return the tables
+	 * @throws IOException
+	 *             if the file can't be generated or read
+	 */
+	public static RYBTables loadOrGenerate(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			generate(file);
+		}
+		return load(file);
+	}
+
+	/**
+	 * Gets RYB value of specified packed RGB value.
+	 *
+	 * @param rgb
+	 *            - the RGB value packed as <code>0xRRGGBB</code> (upper byte
+	 *            is ignored)
+	 * @return the RYB value packed as <code>0xRRYYBB</code>
+	 */
+	public int toRYB(int rgb) {
+		return toRYB.get(rgb & 0xFFFFFF);
+	}
+
+	/**
+	 * Gets RGB value of specified packed RYB value.
+	 *
+	 * @param ryb
+	 *            - the RYB value packed as <code>0xRRYYBB</code> (upper byte
+	 *            is ignored)
+	 * @return the RGB value packed as <code>0xRRGGBB</code>
+	 */
+	public int toRGB(int ryb) {
+		return toRGB.get(ryb & 0xFFFFFF);
+	}
+
+	/**
+	 * Creates {@link RYB} based on specified {@link RGB} value.
+	 *
+	 * @param rgb
+	 *            - the RGB value
+	 * @return the RYB value, same as {@link RYB#from(RGB)}
+	 */
+	public RYB toRYB(RGB rgb) {
+		int ryb = toRYB((rgb.getR() << 16) | (rgb.getG() << 8) | rgb.getB());
+
+		return new RYB((ryb >> 16) & 0xFF, (ryb >> 8) & 0xFF, ryb & 0xFF);
+	}
+
+	/**
+	 * Creates {@link RGB} based on specified {@link RYB} value.
+	 *
+	 * @param ryb
+	 *            - the RYB value
+	 * @return the RGB value, same as {@link RGB#from(RYB)}
+	 */
+	public RGB toRGB(RYB ryb) {
+		int rgb = toRGB((ryb.getR() << 16) | (ryb.getY() << 8) | ryb.getB());
+
+		return new RGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+	}
+
+	/**
+	 * Converts packed RGB values to packed RYB values.
+	 *
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param ryb
+	 *            - the array receiving packed RYB values
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void toRYB(int[] rgb, int offset, int length, int[] ryb, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(ryb.length, dstOffset, length);
+
+		for (int i = 0; i < length; i++) {
+			ryb[dstOffset + i] = toRYB.get(rgb[offset + i] & 0xFFFFFF);
+		}
+	}
+
+	/**
+	 * Converts packed RYB values to packed RGB values.
+	 *
+	 * @param ryb
+	 *            - the packed RYB values
+	 * @param offset
+	 *            - index of the first value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param rgb
+	 *            - the array receiving packed RGB values
+	 * @param dstOffset
+	 *            - index in destination array where first result is written
+	 */
+	public void toRGB(int[] ryb, int offset, int length, int[] rgb, int dstOffset) {
+		ArrayRanges.check(ryb.length, offset, length);
+		ArrayRanges.check(rgb.length, dstOffset, length);
+
+		for (int i = 0; i < length; i++) {
+			rgb[dstOffset + i] = toRGB.get(ryb[offset + i] & 0xFFFFFF);
+		}
+	}
+}
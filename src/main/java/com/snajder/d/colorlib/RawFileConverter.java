@@ -0,0 +1,216 @@
+package com.snajder.d.colorlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts raw pixel files of any size to one of the supported
+ * {@link Space}s.
+ * <p>
+ * Input file is a dump of 8 bit pixels in {@link Layout#RGB} or
+ * {@link Layout#RGBA} order. It is memory-mapped read-only in windows of fixed
+ * size, so neither file nor results are ever held in heap. Output is written
+ * to a channel as three little-endian 32 bit floats per pixel (components of
+ * the target space, see {@link Space}), through a reused direct buffer.
+ * </p>
+ * <p>
+ * Heap memory used by the conversion is constant and doesn't depend on the
+ * file size. Each window is reported to {@link ChunkListener} when it is
+ * converted. Instances are immutable and can be used by multiple threads.
+ * </p>
+ */
+public final class RawFileConverter {
+	/**
+	 * Default size of the mapped window in bytes.
+	 */
+	public static final int DEFAULT_WINDOW_BYTES = 64 << 20;
+
+	private static final int BATCH = 4096;
+
+	/**
+	 * Layout of pixels in the input file.
+	 */
+	public enum Layout {
+		/**
+		 * Three bytes per pixel: red, green, blue.
+		 */
+		RGB(3),
+
+		/**
+		 * Four bytes per pixel: red, green, blue, alpha. Alpha is ignored.
+		 */
+		RGBA(4);
+
+		private final int bytes;
+
+		private Layout(int bytes) {
+			this.bytes = bytes;
+		}
+
+		/**
+		 * Gets the number of bytes per pixel.
+		 *
+		 * @return the number of bytes
+		 */
+		public int getBytes() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Receives progress of the conversion.
+	 */
+	public interface ChunkListener {
+		/**
+		 * Called after each window of the input file is converted and written.
+		 *
+		 * @param chunk
+		 *            - index of the window, starting from 0
+		 * @param pixels
+		 *            - number of pixels in the window
+		 * @param nanos
+		 *            - time spent converting and writing the window in
+		 *            nanoseconds
+		 */
+		void chunkConverted(long chunk, long pixels, long nanos);
+	}
+
+	private final Layout layout;
+	private final Space target;
+	private final int windowBytes;
+
+	/**
+	 * Constructs converter mapping windows of {@link #DEFAULT_WINDOW_BYTES}.
+	 *
+	 * @param layout
+	 *            - layout of input pixels
+	 * @param target
+	 *            - the target space
+	 */
+	public RawFileConverter(Layout layout, Space target) {
+		this(layout, target, DEFAULT_WINDOW_BYTES);
+	}
+
+	/**
+	 * Constructs converter.
+	 *
+	 * @param layout
+	 *            - layout of input pixels
+	 * @param target
+	 *            - the target space
+	 * @param windowBytes
+	 *            - size of the mapped window in bytes, rounded down to whole
+	 *            pixels
+	 */
+	public RawFileConverter(Layout layout, Space target, int windowBytes) {
+		if (layout == null || target == null) {
+			throw new NullPointerException();
+		}
+		if (windowBytes < layout.getBytes()) {
+			throw new IllegalArgumentException("Window is smaller than a pixel: " + windowBytes);
+		}
+		this.layout = layout;
+		this.target = target;
+		this.windowBytes = windowBytes - windowBytes % layout.getBytes();
+	}
+
+	/**
+	 * Converts input file and writes results to output file, which is created
+	 * or truncated.
+	 *
+	 * @param input
+	 *            - the raw pixel file
+	 * @param output
+	 *            - the file receiving converted components
+	 * @param listener
+	 *            - listener receiving progress, may be <code>null</code>
+	 * @return the number of converted pixels
+	 * @throws IOException
+	 *             if a file can't be read or written, or size of the input
+	 *             file isn't a multiple of the pixel size
+	 */
+	public long convert(Path input, Path output, ChunkListener listener) throws IOException {
+		try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			return convert(in, out, listener);
+		}
+	}
+
+	/**
+	 * Converts the whole content of input channel, starting from position 0,
+	 * and writes results to output channel.
+	 *
+	 * @param input
+	 *            - the channel of the raw pixel file
+	 * @param output
+	 *            - the channel receiving converted components
+	 * @param listener
+	 *            - listener receiving progress, may be <code>null</code>
+	 * @return the number of converted pixels
+	 * @throws IOException
+	 *             if a channel can't be read or written, or size of the input
+	 *             isn't a multiple of the pixel size
+	 */
+	public long convert(FileChannel input, WritableByteChannel output, ChunkListener listener) throws IOException {
+		int pixelBytes = layout.getBytes();
+		long size = input.size();
+
+		if (size % pixelBytes != 0) {
+			throw new IOException("Input size " + size + " is not a multiple of " + pixelBytes + " bytes");
+		}
+
+		int[] rgb = new int[BATCH];
+		float[] components = new float[BATCH * 3];
+		ByteBuffer out = ByteBuffer.allocateDirect(BATCH * 3 * 4).order(ByteOrder.LITTLE_ENDIAN);
+		FloatBuffer floats = out.asFloatBuffer();
+
+		long chunk = 0;
+		for (long position = 0; position < size; position += windowBytes, chunk++) {
+			long start = System.nanoTime();
+			int bytes = (int) Math.min(windowBytes, size - position);
+			MappedByteBuffer window = input.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+			int pixels = bytes / pixelBytes;
+
+			for (int done = 0; done < pixels; done += BATCH) {
+				int count = Math.min(BATCH, pixels - done);
+
+				read(window, rgb, count);
+				target.convert(rgb, 0, count, components, 0);
+
+				floats.clear();
+				floats.put(components, 0, count * 3);
+				out.clear().limit(count * 3 * 4);
+				while (out.hasRemaining()) {
+					output.write(out);
+				}
+			}
+
+			if (listener != null) {
+				listener.chunkConverted(chunk, pixels, System.nanoTime() - start);
+			}
+		}
+
+		return size / pixelBytes;
+	}
+
+	private void read(ByteBuffer window, int[] rgb, int count) {
+		if (layout == Layout.RGBA) {
+			window.order(ByteOrder.BIG_ENDIAN);
+			for (int i = 0; i < count; i++) {
+				rgb[i] = window.getInt() >>> 8;
+			}
+		} else {
+			for (int i = 0; i < count; i++) {
+				rgb[i] = ((window.get() & 0xFF) << 16) | ((window.get() & 0xFF) << 8) | (window.get() & 0xFF);
+			}
+		}
+	}
+}
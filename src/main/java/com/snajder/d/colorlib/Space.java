@@ -0,0 +1,143 @@
+package com.snajder.d.colorlib;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Color spaces supported by the library. Used by bulk APIs (e.g.
+ * {@link ImageConverter}) to select target of the conversion.
+ * <p>
+ * Colors of every space are represented by three float components, in the
+ * same order and range as in the corresponding class (e.g. {@link #HSL} as
+ * hue, saturation, lightness). Integer components of {@link #RGB} and
+ * {@link #RYB} are stored as floats between 0 and 255.
+ * </p>
+ */
+public enum Space {
+	/**
+	 * {@link com.snajder.d.colorlib.RGB} components.
+	 */
+	RGB {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toRGB(rgb, offset, length, dst, dstOffset);
+		}
+	},
+
+	/**
+	 * {@link com.snajder.d.colorlib.HSL} components.
+	 */
+	HSL {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toHSL(rgb, offset, length, dst, dstOffset);
+		}
+	},
+
+	/**
+	 * {@link com.snajder.d.colorlib.HSLRYB} components, HSL based on RYB
+	 * values of the color.
+	 */
+	HSLRYB {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toHSLRYB(rgb, offset, length, dst, dstOffset);
+		}
+	},
+
+	/**
+	 * {@link com.snajder.d.colorlib.RYB} components.
+	 */
+	RYB {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toRYB(rgb, offset, length, dst, dstOffset);
+		}
+	},
+
+	/**
+	 * {@link com.snajder.d.colorlib.XYZ} components.
+	 */
+	XYZ {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toXYZ(rgb, offset, length, dst, dstOffset);
+		}
+	},
+
+	/**
+	 * {@link CIELab} components.
+	 */
+	CIELAB {
+		@Override
+		void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+			PackedConversions.toCIELab(rgb, offset, length, dst, dstOffset);
+		}
+	};
+
+	/**
+	 * Number of colors converted at once when writing to {@link ColorBuffer}.
+	 */
+	private static final int BATCH = 1024;
+
+	/**
+	 * Converts packed RGB values to this space and writes components
+	 * interleaved into specified array (three floats per color).
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored). Results are the same as with the <code>from(...)</code>
+	 * methods of the corresponding class.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param dst
+	 *            - the array receiving interleaved components
+	 * @param dstOffset
+	 *            - index in destination array where first component is
+	 *            written
+	 */
+	public void fromRGB(int[] rgb, int offset, int length, float[] dst, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.length, dstOffset, length * 3);
+
+		convert(rgb, offset, length, dst, dstOffset);
+	}
+
+	/**
+	 * Converts packed RGB values to this space and writes components to
+	 * specified buffer, which must be in this space.
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param dst
+	 *            - the buffer receiving components
+	 * @param dstIndex
+	 *            - index of the color in destination buffer where first
+	 *            result is written
+	 * @see #fromRGB(int[], int, int, float[], int)
+	 */
+	public void fromRGB(int[] rgb, int offset, int length, ColorBuffer dst, int dstIndex) {
+		if (dst.getSpace() != this) {
+			throw new IllegalArgumentException("Expected " + this + " buffer, not " + dst.getSpace());
+		}
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(dst.size(), dstIndex, length);
+
+		float[] components = new float[Math.min(length, BATCH) * 3];
+		for (int done = 0; done < length; done += BATCH) {
+			int count = Math.min(BATCH, length - done);
+			convert(rgb, offset + done, count, components, 0);
+			dst.put(dstIndex + done, components, 0, count);
+		}
+	}
+
+	abstract void convert(int[] rgb, int offset, int length, float[] dst, int dstOffset);
+}
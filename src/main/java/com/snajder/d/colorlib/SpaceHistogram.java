@@ -0,0 +1,127 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Histogram of colors binned by {@link BinLayout} over components of its
+ * space.
+ * <p>
+ * Counts are kept in a primitive <code>long[]</code>. Histograms are not safe
+ * for use by multiple threads; {@link HistogramBuilder} counts into one
+ * histogram per worker thread and merges them, and {@link StripedHistogram}
+ * can be updated concurrently. Histograms of many images with the same layout can
+ * be combined with {@link #merge(SpaceHistogram)}.
+ * </p>
+ */
+public final class SpaceHistogram {
+	private final BinLayout layout;
+	private final long[] counts;
+	private long total;
+
+	/**
+	 * Creates empty histogram.
+	 *
+	 * @param layout
+	 *            - the layout of bins
+	 */
+	public SpaceHistogram(BinLayout layout) {
+		this.layout = layout;
+		this.counts = new long[layout.size()];
+	}
+
+	SpaceHistogram(BinLayout layout, long[] counts) {
+		this.layout = layout;
+		this.counts = counts;
+		for (long count : counts) {
+			total += count;
+		}
+	}
+
+	/**
+	 * Counts one color.
+	 *
+	 * @param c0
+	 *            - the first component
+	 * @param c1
+	 *            - the second component
+	 * @param c2
+	 *            - the third component
+	 */
+	public void add(float c0, float c1, float c2) {
+		counts[layout.bin(c0, c1, c2)]++;
+		total++;
+	}
+
+	/**
+	 * Counts colors with interleaved components (three floats per color) in
+	 * the space of the layout.
+	 *
+	 * @param v
+	 *            - the interleaved components
+	 * @param offset
+	 *            - index of the first component
+	 * @param length
+	 *            - number of colors
+	 */
+	public void add(float[] v, int offset, int length) {
+		for (int i = offset, end = offset + length * 3; i < end; i += 3) {
+			counts[layout.bin(v[i], v[i + 1], v[i + 2])]++;
+		}
+		total += length;
+	}
+
+	/**
+	 * Adds counts of other histogram to this histogram.
+	 *
+	 * @param other
+	 *            - the histogram with equal layout
+	 * @return this histogram
+	 */
+	public SpaceHistogram merge(SpaceHistogram other) {
+		if (!layout.equals(other.layout)) {
+			throw new IllegalArgumentException("Can't merge histograms with different layouts: " + layout + ", "
+					+ other.layout);
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+		return this;
+	}
+
+	/**
+	 * Gets the layout of bins.
+	 *
+	 * @return the layout
+	 */
+	public BinLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Gets number of colors counted in bin.
+	 *
+	 * @param bin
+	 *            - index of the bin
+	 * @return the number of colors
+	 */
+	public long getCount(int bin) {
+		return counts[bin];
+	}
+
+	/**
+	 * Gets number of all counted colors.
+	 *
+	 * @return the number of colors
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets copy of the counts indexed by bin.
+	 *
+	 * @return new array of counts
+	 */
+	public long[] toArray() {
+		return counts.clone();
+	}
+}
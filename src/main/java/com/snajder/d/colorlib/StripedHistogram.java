@@ -0,0 +1,120 @@
+package com.snajder.d.colorlib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.snajder.d.colorlib.util.ArrayRanges;
+
+/**
+ * Thread-safe histogram for live incremental updates from many threads.
+ * <p>
+ * Counts are striped like in {@link java.util.concurrent.atomic.LongAdder}:
+ * there is one array of atomic counters per stripe (number of processors
+ * rounded up to a power of two) and each thread updates the stripe selected
+ * by its id, so threads rarely contend on the same counter.
+ * {@link #snapshot()} sums the stripes into a {@link SpaceHistogram}. To
+ * count whole images at once use {@link HistogramBuilder}, which doesn't
+ * need atomic updates.
+ * </p>
+ */
+public final class StripedHistogram {
+	private static final int BATCH = 256;
+
+	private final BinLayout layout;
+	private final AtomicLongArray[] stripes;
+
+	/**
+	 * Creates empty histogram.
+	 *
+	 * @param layout
+	 *            - the layout of bins
+	 */
+	public StripedHistogram(BinLayout layout) {
+		int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+		this.layout = layout;
+		this.stripes = new AtomicLongArray[n];
+		for (int i = 0; i < n; i++) {
+			stripes[i] = new AtomicLongArray(layout.size());
+		}
+	}
+
+	/**
+	 * Gets the layout of bins.
+	 *
+	 * @return the layout
+	 */
+	public BinLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Counts one color.
+	 *
+	 * @param c0
+	 *            - the first component
+	 * @param c1
+	 *            - the second component
+	 * @param c2
+	 *            - the third component
+	 */
+	public void add(float c0, float c1, float c2) {
+		stripe().incrementAndGet(layout.bin(c0, c1, c2));
+	}
+
+	/**
+	 * Converts packed RGB values to the space of the layout and counts them.
+	 *
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value
+	 * @param length
+	 *            - number of values
+	 */
+	public void add(int[] rgb, int offset, int length) {
+		ArrayRanges.check(rgb.length, offset, length);
+
+		AtomicLongArray stripe = stripe();
+		Space space = layout.getSpace();
+		float[] v = new float[Math.min(BATCH, length) * 3];
+		for (int start = 0; start < length; start += BATCH) {
+			int count = Math.min(BATCH, length - start);
+			space.fromRGB(rgb, offset + start, count, v, 0);
+			for (int i = 0; i < count * 3; i += 3) {
+				stripe.incrementAndGet(layout.bin(v[i], v[i + 1], v[i + 2]));
+			}
+		}
+	}
+
+	/**
+	 * Sums all stripes. Colors added concurrently may or may not be included.
+	 *
+	 * @return new histogram with current counts
+	 */
+	public SpaceHistogram snapshot() {
+		long[] counts = new long[layout.size()];
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += stripe.get(i);
+			}
+		}
+		return new SpaceHistogram(layout, counts);
+	}
+
+	/**
+	 * Sets all counts to 0. Colors added concurrently may or may not be
+	 * removed.
+	 */
+	public void reset() {
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < stripe.length(); i++) {
+				stripe.set(i, 0L);
+			}
+		}
+	}
+
+	private AtomicLongArray stripe() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return stripes[(h >>> 16) & (stripes.length - 1)];
+	}
+}
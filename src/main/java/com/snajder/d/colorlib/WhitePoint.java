@@ -0,0 +1,70 @@
+package com.snajder.d.colorlib;
+
+/**
+ * Standard illuminants used as reference white of {@link XYZ} and
+ * {@link CIELab} values.
+ * <p>
+ * Tristimulus values are scaled so that Y is 100, the same scale as
+ * {@link CIELab#X_N}, {@link CIELab#Y_N} and {@link CIELab#Z_N}.
+ * </p>
+ *
+ * @see <a href=
+ *      "http://www.brucelindbloom.com/index.html?Eqn_ChromAdapt.html">Reference
+ *      white values</a>
+ */
+public enum WhitePoint {
+	/**
+	 * Horizon light, used by ICC profile connection space and ProPhoto RGB.
+	 */
+	D50(96.422f, 100.0f, 82.521f),
+
+	/**
+	 * Noon daylight, used by sRGB and most other RGB working spaces.
+	 */
+	D65(CIELab.X_N, CIELab.Y_N, CIELab.Z_N);
+
+	private final float x;
+	private final float y;
+	private final float z;
+
+	private WhitePoint(float x, float y, float z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Gets X tristimulus value.
+	 *
+	 * @return X value
+	 */
+	public float getX() {
+		return x;
+	}
+
+	/**
+	 * Gets Y tristimulus value.
+	 *
+	 * @return Y value (always 100)
+	 */
+	public float getY() {
+		return y;
+	}
+
+	/**
+	 * Gets Z tristimulus value.
+	 *
+	 * @return Z value
+	 */
+	public float getZ() {
+		return z;
+	}
+
+	/**
+	 * Gets tristimulus values normalized to Y being 1, as used by
+	 * {@link com.snajder.d.colorlib.util.XYZMatrices}.
+	 */
+	double[] normalized() {
+		return new double[] { x / 100.0, y / 100.0, z / 100.0 };
+	}
+}
@@ -1,5 +1,7 @@
 package com.snajder.d.colorlib;
 
+import com.snajder.d.colorlib.util.ArrayRanges;
+import com.snajder.d.colorlib.util.SRGBCompanding;
 import com.snajder.d.colorlib.util.XYZMatrices;
 
 /**
@@ -103,33 +105,233 @@ public class XYZ {
 	 *      to XYZ conversion</a>
 	 */
 	public static XYZ from(RGB rgb) {
-		float r = inverseCompanding(rgb.getR() / 255f);
-		float g = inverseCompanding(rgb.getG() / 255f);
-		float b = inverseCompanding(rgb.getB() / 255f);
+		long start = ColorMetrics.start();
+		float r = SRGBCompanding.linearize(rgb.getR());
+		float g = SRGBCompanding.linearize(rgb.getG());
+		float b = SRGBCompanding.linearize(rgb.getB());
 
-		float[][] M = XYZMatrices.SRGB;
+		float[] M = XYZMatrices.SRGB;
 
-		float x = M[0][0] * r + M[0][1] * g + M[0][2] * b;
-		float y = M[1][0] * r + M[1][1] * g + M[1][2] * b;
-		float z = M[2][0] * r + M[2][1] * g + M[2][2] * b;
+		float x = M[0] * r + M[1] * g + M[2] * b;
+		float y = M[3] * r + M[4] * g + M[5] * b;
+		float z = M[6] * r + M[7] * g + M[8] * b;
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, 1);
 		return new XYZ(x, y, z);
 	}
 
 	/**
-	 * Calculates inverse companding.
+	 * Creates {@link XYZ} based on components of specified {@link RGB} value
+	 * interpreted in specified working space.
 	 * 
-	 * @param v
-	 *            - the value
-	 * @return the value
+	 * @param rgb
+	 *            the RGB value
+	 * @param space
+	 *            the working space of RGB components
+	 * @param white
+	 *            the reference white of XYZ value, Bradford adaptation is
+	 *            used when it differs from the white of working space
+	 *
+	 * @return the XYZ value
+	 */
+	public static XYZ from(RGB rgb, RGBWorkingSpace space, WhitePoint white) {
+		long start = ColorMetrics.start();
+		float r = space.linearize(rgb.getR());
+		float g = space.linearize(rgb.getG());
+		float b = space.linearize(rgb.getB());
+
+		float[] M = space.toXYZ(white);
+
+		float x = M[0] * r + M[1] * g + M[2] * b;
+		float y = M[3] * r + M[4] * g + M[5] * b;
+		float z = M[6] * r + M[7] * g + M[8] * b;
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, 1);
+		return new XYZ(x, y, z);
+	}
+
+	/**
+	 * Creates {@link XYZ} based on specified {@link CIELab} value (inverse of
+	 * {@link CIELab#from(XYZ)}).
+	 * 
+	 * @param lab
+	 *            the CIELab value
+	 *
+	 * @return the XYZ value
 	 * @see <a href=
-	 *      "http://www.brucelindbloom.com/index.html?Eqn_RGB_to_XYZ.html">RGB
+	 *      "http://www.brucelindbloom.com/index.html?Eqn_Lab_to_XYZ.html">Lab
 	 *      to XYZ conversion</a>
 	 */
-	private static float inverseCompanding(float v) {
-		if (v > 0.04045) {
-			return (float) Math.pow((v + 0.055f) / 1.055f, 2.4f);
-		} else {
-			return v / 12.92f;
+	public static XYZ from(CIELab lab) {
+		long start = ColorMetrics.start();
+		float fy = (lab.getL() + 16f) / 116f;
+		float fx = fy + lab.getA() / 500f;
+		float fz = fy - lab.getB() / 200f;
+
+		XYZ xyz = new XYZ(CIELab.X_N * CIELab.inverseF(fx), CIELab.Y_N * CIELab.inverseF(fy),
+				CIELab.Z_N * CIELab.inverseF(fz));
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, 1);
+		return xyz;
+	}
+
+	/**
+	 * Creates {@link XYZ} based on specified {@link CIELab} value relative to
+	 * specified white point (inverse of {@link CIELab#from(XYZ, WhitePoint)}).
+	 * 
+	 * @param lab
+	 *            the CIELab value
+	 * @param white
+	 *            the reference white
+	 *
+	 * @return the XYZ value
+	 */
+	public static XYZ from(CIELab lab, WhitePoint white) {
+		long start = ColorMetrics.start();
+		float fy = (lab.getL() + 16f) / 116f;
+		float fx = fy + lab.getA() / 500f;
+		float fz = fy - lab.getB() / 200f;
+
+		XYZ xyz = new XYZ(white.getX() * CIELab.inverseF(fx), white.getY() * CIELab.inverseF(fy),
+				white.getZ() * CIELab.inverseF(fz));
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, 1);
+		return xyz;
+	}
+
+	/**
+	 * Converts packed RGB values to XYZ and writes X, Y and Z components into
+	 * separate arrays (structure of arrays).
+	 * <p>
+	 * Each input value is packed as <code>0xRRGGBB</code> (upper byte is
+	 * ignored). Results are the same as with {@link #from(RGB)}, but no
+	 * objects are allocated.
+	 * </p>
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param x
+	 *            - the array receiving X components
+	 * @param y
+	 *            - the array receiving Y components
+	 * @param z
+	 *            - the array receiving Z components
+	 * @param dstOffset
+	 *            - index in destination arrays where first result is written
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] x, float[] y, float[] z, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(x.length, dstOffset, length);
+		ArrayRanges.check(y.length, dstOffset, length);
+		ArrayRanges.check(z.length, dstOffset, length);
+
+		long start = ColorMetrics.start();
+		convert(rgb, offset, length, x, dstOffset, y, dstOffset, z, dstOffset, 1);
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, length);
+	}
+
+	/**
+	 * Converts packed RGB values to XYZ and writes components interleaved
+	 * (<code>x0, y0, z0, x1, y1, z1, ...</code>) into specified array.
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param xyz
+	 *            - the array receiving interleaved X, Y and Z components
+	 * @param dstOffset
+	 *            - index in destination array where first X component is
+	 *            written
+	 * @see #from(int[], int, int, float[], float[], float[], int)
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] xyz, int dstOffset) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(xyz.length, dstOffset, length * 3);
+
+		long start = ColorMetrics.start();
+		convert(rgb, offset, length, xyz, dstOffset, xyz, dstOffset + 1, xyz, dstOffset + 2, 3);
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, length);
+	}
+
+	/**
+	 * Converts packed RGB values interpreted in specified working space to
+	 * XYZ and writes components interleaved into specified array. Results
+	 * are the same as with {@link #from(RGB, RGBWorkingSpace, WhitePoint)}.
+	 * 
+	 * @param rgb
+	 *            - the packed RGB values
+	 * @param offset
+	 *            - index of the first RGB value to convert
+	 * @param length
+	 *            - number of values to convert
+	 * @param xyz
+	 *            - the array receiving interleaved X, Y and Z components
+	 * @param dstOffset
+	 *            - index in destination array where first X component is
+	 *            written
+	 * @param space
+	 *            - the working space of RGB components
+	 * @param white
+	 *            - the reference white of XYZ values
+	 */
+	public static void from(int[] rgb, int offset, int length, float[] xyz, int dstOffset, RGBWorkingSpace space,
+			WhitePoint white) {
+		ArrayRanges.check(rgb.length, offset, length);
+		ArrayRanges.check(xyz.length, dstOffset, length * 3);
+
+		long start = ColorMetrics.start();
+		float[] M = space.toXYZ(white);
+		float m00 = M[0], m01 = M[1], m02 = M[2];
+		float m10 = M[3], m11 = M[4], m12 = M[5];
+		float m20 = M[6], m21 = M[7], m22 = M[8];
+
+		for (int i = 0; i < length; i++) {
+			int p = rgb[offset + i];
+
+			float r = space.linearize((p >> 16) & 0xFF);
+			float g = space.linearize((p >> 8) & 0xFF);
+			float b = space.linearize(p & 0xFF);
+
+			int k = dstOffset + i * 3;
+			xyz[k] = m00 * r + m01 * g + m02 * b;
+			xyz[k + 1] = m10 * r + m11 * g + m12 * b;
+			xyz[k + 2] = m20 * r + m21 * g + m22 * b;
+		}
+		ColorMetrics.record(ColorOperation.XYZ_FROM, start, length);
+	}
+
+	/**
+	 * Bulk RGB to XYZ conversion shared by both output layouts. Uses
+	 * vectorized kernel when available and finishes remaining values with
+	 * scalar loop performing the same float operations as {@link #from(RGB)}.
+	 */
+	private static void convert(int[] rgb, int offset, int length, float[] x, int xPos, float[] y, int yPos,
+			float[] z, int zPos, int stride) {
+		int done = 0;
+		BatchKernel kernel = BatchKernels.VECTOR;
+		if (kernel != null) {
+			done = kernel.xyz(rgb, offset, length, x, xPos, y, yPos, z, zPos, stride);
+		}
+
+		float[] M = XYZMatrices.SRGB;
+		float m00 = M[0], m01 = M[1], m02 = M[2];
+		float m10 = M[3], m11 = M[4], m12 = M[5];
+		float m20 = M[6], m21 = M[7], m22 = M[8];
+
+		for (int i = done; i < length; i++) {
+			int p = rgb[offset + i];
+
+			float r = SRGBCompanding.linearize((p >> 16) & 0xFF);
+			float g = SRGBCompanding.linearize((p >> 8) & 0xFF);
+			float b = SRGBCompanding.linearize(p & 0xFF);
+
+			int k = i * stride;
+			x[xPos + k] = m00 * r + m01 * g + m02 * b;
+			y[yPos + k] = m10 * r + m11 * g + m12 * b;
+			z[zPos + k] = m20 * r + m21 * g + m22 * b;
 		}
 	}
 
@@ -0,0 +1,30 @@
+package com.snajder.d.colorlib.util;
+
+/**
+ * Utility class for validating array ranges passed to bulk conversions.
+ */
+public final class ArrayRanges {
+
+	private ArrayRanges() {
+	}
+
+	/**
+	 * Checks that range of <code>count</code> elements starting at
+	 * <code>offset</code> fits into array of specified length.
+	 * 
+	 * @param arrayLength
+	 *            - the length of the array
+	 * @param offset
+	 *            - the first index of the range
+	 * @param count
+	 *            - the number of elements in the range
+	 * @throws IndexOutOfBoundsException
+	 *             if the range does not fit into the array
+	 */
+	public static void check(int arrayLength, int offset, int count) {
+		if (offset < 0 || count < 0 || offset > arrayLength - count) {
+			throw new IndexOutOfBoundsException(
+					"offset=" + offset + ", count=" + count + ", length=" + arrayLength);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.snajder.d.colorlib.util;
+
+/**
+ * Utility class for sRGB companding. Besides exact formulas it keeps
+ * precomputed tables, so linearization of 8-bit components and encoding of
+ * linear values back to 8-bit components don't need to call
+ * {@link Math#pow(double, double)}.
+ * 
+ * @see <a href=
+ *      "http://www.brucelindbloom.com/index.html?Eqn_RGB_to_XYZ.html">RGB to
+ *      XYZ conversion</a>
+ * @see <a href=
+ *      "http://www.brucelindbloom.com/index.html?Eqn_XYZ_to_RGB.html">XYZ to
+ *      RGB conversion</a>
+ */
+public final class SRGBCompanding {
+	/**
+	 * Number of buckets used to find starting point in the encode table.
+	 */
+	private static final int ENCODE_BUCKETS = 4096;
+
+	/**
+	 * Linear values of all 256 8-bit components.
+	 */
+	private static final float[] LINEAR = new float[256];
+
+	/**
+	 * THRESHOLDS[i] is the smallest linear value which is encoded as
+	 * component i.
+	 */
+	private static final float[] THRESHOLDS = new float[256];
+
+	/**
+	 * First candidate component for each bucket of linear values.
+	 */
+	private static final short[] ENCODE_START = new short[ENCODE_BUCKETS + 1];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			LINEAR[i] = inverseCompanding(i / 255f);
+		}
+
+		THRESHOLDS[0] = Float.NEGATIVE_INFINITY;
+		for (int i = 1; i < 256; i++) {
+			THRESHOLDS[i] = threshold(i);
+		}
+
+		int code = 0;
+		for (int k = 0; k <= ENCODE_BUCKETS; k++) {
+			float v = (float) k / ENCODE_BUCKETS;
+			while (code < 255 && v >= THRESHOLDS[code + 1]) {
+				code++;
+			}
+			ENCODE_START[k] = (short) code;
+		}
+	}
+
+	private SRGBCompanding() {
+	}
+
+	/**
+	 * Finds the smallest positive float which {@link #companding(float)}
+	 * rounds to specified component (or above). Companding is monotonic, so
+	 * binary search over float bits gives the exact boundary.
+	 */
+	private static float threshold(int code) {
+		int lo = 0;
+		int hi = Float.floatToIntBits(1f);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (Math.round(companding(Float.intBitsToFloat(mid)) * 255f) >= code) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		return Float.intBitsToFloat(lo);
+	}
+
+	/**
+	 * Gets linear value of specified 8-bit sRGB component using the
+	 * precomputed table.
+	 * <p>
+	 * Result is bit-identical to
+	 * <code>inverseCompanding(c / 255f)</code>. Components outside of 0 -
+	 * 255 range are calculated using the formula.
+	 * </p>
+	 * 
+	 * @param c
+	 *            - the component value between 0 and 255
+	 * @return the linear value between 0 and 1
+	 */
+	public static float linearize(int c) {
+		if ((c & ~0xFF) == 0) {
+			return LINEAR[c];
+		}
+		return inverseCompanding(c / 255f);
+	}
+
+	/**
+	 * Encodes specified linear value to nearest 8-bit sRGB component using
+	 * the precomputed table.
+	 * <p>
+	 * Result is the same as <code>Math.round(companding(v) * 255f)</code>.
+	 * Values below 0 are encoded as 0 and values above 1 as 255. For all
+	 * components <code>encode(linearize(c)) == c</code>.
+	 * </p>
+	 * 
+	 * @param v
+	 *            - the linear value
+	 * @return the component value between 0 and 255
+	 */
+	public static int encode(float v) {
+		if (!(v > 0f)) {
+			return 0;
+		}
+		if (v >= 1f) {
+			return 255;
+		}
+
+		int code = ENCODE_START[(int) (v * ENCODE_BUCKETS)];
+		while (code < 255 && v >= THRESHOLDS[code + 1]) {
+			code++;
+		}
+		return code;
+	}
+
+	/**
+	 * Calculates inverse companding (sRGB value to linear value).
+	 * 
+	 * @param v
+	 *            - the value between 0 and 1
+	 * @return the linear value
+	 */
+	public static float inverseCompanding(float v) {
+		if (v > 0.04045) {
+			return (float) Math.pow((v + 0.055f) / 1.055f, 2.4f);
+		} else {
+			return v / 12.92f;
+		}
+	}
+
+	/**
+	 * Calculates companding (linear value to sRGB value).
+	 * 
+	 * @param v
+	 *            - the linear value between 0 and 1
+	 * @return the sRGB value
+	 */
+	public static float companding(float v) {
+		if (v > 0.0031308) {
+			return (float) (1.055 * Math.pow(v, 1 / 2.4) - 0.055);
+		} else {
+			return v * 12.92f;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.snajder.d.colorlib.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Thread-safe, size-bounded cache with int keys.
+ * <p>
+ * Entries are spread over independently locked stripes, each being a small
+ * LRU map, so threads working with different keys rarely contend. Eviction
+ * is LRU within a stripe, which approximates global LRU when keys are well
+ * distributed. Values are computed outside of locks; concurrent misses on the
+ * same key may compute the value more than once, so computations should be
+ * side-effect free.
+ * </p>
+ * <p>
+ * Hits, misses and evictions are counted using {@link LongAdder}s.
+ * </p>
+ *
+ * @param <V>
+ *            the type of cached values
+ */
+public final class StripedLruCache<V> {
+	private final Stripe<V>[] stripes;
+	private final int shift;
+	private final int maximumSize;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructs cache with number of stripes based on available processors.
+	 *
+	 * @param maximumSize
+	 *            - the maximum number of entries
+	 */
+	public StripedLruCache(int maximumSize) {
+		this(maximumSize, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs cache.
+	 *
+	 * @param maximumSize
+	 *            - the maximum number of entries
+	 * @param concurrency
+	 *            - the expected number of concurrently accessing threads,
+	 *            rounded up to power of two and limited so that each stripe
+	 *            holds at least 16 entries
+	 */
+	@SuppressWarnings("unchecked")
+	public StripedLruCache(int maximumSize, int concurrency) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+		}
+
+		int count = 1;
+		while (count < concurrency && count * 2 * 16 <= maximumSize) {
+			count *= 2;
+		}
+
+		this.maximumSize = maximumSize;
+		this.shift = 32 - Integer.numberOfTrailingZeros(count);
+		this.stripes = (Stripe<V>[]) new Stripe<?>[count];
+		for (int i = 0; i < count; i++) {
+			int capacity = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+			stripes[i] = new Stripe<V>(capacity, evictions);
+		}
+	}
+
+	/**
+	 * Gets cached value of specified key, computing and caching it if absent.
+	 *
+	 * @param key
+	 *            - the key
+	 * @param function
+	 *            - the function computing value of the key
+	 * @return the value
+	 */
+	public V get(int key, IntFunction<? extends V> function) {
+		Stripe<V> stripe = stripe(key);
+		Integer boxed = Integer.valueOf(key);
+
+		V value;
+		synchronized (stripe) {
+			value = stripe.get(boxed);
+		}
+		if (value != null) {
+			hits.increment();
+			return value;
+		}
+
+		misses.increment();
+		value = function.apply(key);
+		synchronized (stripe) {
+			V existing = stripe.putIfAbsent(boxed, value);
+			return existing != null ? existing : value;
+		}
+	}
+
+	/**
+	 * Gets cached value of specified key, without computing it.
+	 *
+	 * @param key
+	 *            - the key
+	 * @return the value, or <code>null</code> if not cached
+	 */
+	public V getIfPresent(int key) {
+		Stripe<V> stripe = stripe(key);
+		V value;
+		synchronized (stripe) {
+			value = stripe.get(Integer.valueOf(key));
+		}
+		if (value != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Removes all entries. Counters are not reset.
+	 */
+	public void clear() {
+		for (Stripe<V> stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of cached entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe<V> stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the maximum number of entries.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Gets number of lookups which found cached value.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets number of lookups which didn't find cached value.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets number of entries evicted to keep the cache within its size.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private Stripe<V> stripe(int key) {
+		// spread bits, stripes are selected by the highest bits
+		return stripes[shift == 32 ? 0 : (key * 0x9E3779B9) >>> shift];
+	}
+
+	/**
+	 * LRU map of a single stripe, guarded by its own monitor.
+	 */
+	private static final class Stripe<V> extends LinkedHashMap<Integer, V> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+		private final LongAdder evictions;
+
+		Stripe(int capacity, LongAdder evictions) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
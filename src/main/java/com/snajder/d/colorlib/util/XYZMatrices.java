@@ -2,25 +2,169 @@ package com.snajder.d.colorlib.util;
 
 /**
  * Utility class to keep matrices used for {@link XYZ} conversions.
+ * <p>
+ * All 3x3 matrices are stored flat in row-major order, element in row
+ * <code>i</code> and column <code>j</code> is at index <code>i * 3 + j</code>.
+ * </p>
  */
 public final class XYZMatrices {
 	/**
 	 * SRGB matrix, reference white point D65.
 	 */
-	public static final float[][] SRGB = new float[3][3];
+	public static final float[] SRGB = {
+			0.4124564f, 0.3575761f, 0.1804375f,
+			0.2126729f, 0.7151522f, 0.0721750f,
+			0.0193339f, 0.1191920f, 0.9503041f };
 
-	static {
-		// reference white point D65
-		SRGB[0][0] = 0.4124564f;
-		SRGB[0][1] = 0.3575761f;
-		SRGB[0][2] = 0.1804375f;
+	/**
+	 * Inverse of {@link #SRGB} matrix (XYZ to linear sRGB).
+	 */
+	public static final float[] SRGB_INVERSE = invert(SRGB);
+
+	/**
+	 * Bradford cone response matrix used for chromatic adaptation.
+	 */
+	private static final double[] BRADFORD = {
+			0.8951, 0.2664, -0.1614,
+			-0.7502, 1.7135, 0.0367,
+			0.0389, -0.0685, 1.0296 };
 
-		SRGB[1][0] = 0.2126729f;
-		SRGB[1][1] = 0.7151522f;
-		SRGB[1][2] = 0.0721750f;
+	private static final double[] BRADFORD_INVERSE = invert(BRADFORD);
 
-		SRGB[2][0] = 0.0193339f;
-		SRGB[2][1] = 0.1191920f;
-		SRGB[2][2] = 0.9503041f;
+	private XYZMatrices() {
+	}
+
+	/**
+	 * Inverts 3x3 matrix, calculating in double precision.
+	 *
+	 * @param m
+	 *            - the matrix
+	 * @return new inverted matrix
+	 */
+	public static float[] invert(float[] m) {
+		double[] d = new double[9];
+		for (int i = 0; i < 9; i++) {
+			d[i] = m[i];
+		}
+		return toFloat(invert(d));
+	}
+
+	/**
+	 * Inverts 3x3 matrix.
+	 *
+	 * @param m
+	 *            - the matrix
+	 * @return new inverted matrix
+	 */
+	public static double[] invert(double[] m) {
+		double a = m[0], b = m[1], c = m[2];
+		double d = m[3], e = m[4], f = m[5];
+		double g = m[6], h = m[7], i = m[8];
+
+		double c00 = e * i - f * h;
+		double c01 = f * g - d * i;
+		double c02 = d * h - e * g;
+		double det = a * c00 + b * c01 + c * c02;
+
+		if (det == 0) {
+			throw new IllegalArgumentException("Matrix is singular");
+		}
+
+		return new double[] {
+				c00 / det, (c * h - b * i) / det, (b * f - c * e) / det,
+				c01 / det, (a * i - c * g) / det, (c * d - a * f) / det,
+				c02 / det, (b * g - a * h) / det, (a * e - b * d) / det };
+	}
+
+	/**
+	 * Multiplies two 3x3 matrices.
+	 *
+	 * @param a
+	 *            - the left matrix
+	 * @param b
+	 *            - the right matrix
+	 * @return new matrix <code>a * b</code>
+	 */
+	public static double[] multiply(double[] a, double[] b) {
+		double[] m = new double[9];
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				m[i * 3 + j] = a[i * 3] * b[j] + a[i * 3 + 1] * b[3 + j] + a[i * 3 + 2] * b[6 + j];
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Rounds matrix to float precision.
+	 *
+	 * @param m
+	 *            - the matrix
+	 * @return new float matrix
+	 */
+	public static float[] toFloat(double[] m) {
+		float[] f = new float[9];
+		for (int i = 0; i < 9; i++) {
+			f[i] = (float) m[i];
+		}
+		return f;
+	}
+
+	/**
+	 * Calculates linear RGB to XYZ matrix of RGB working space defined by
+	 * chromaticities of its primaries and its reference white.
+	 *
+	 * @param primaries
+	 *            - x and y chromaticities of red, green and blue primary
+	 *            (<code>xr, yr, xg, yg, xb, yb</code>)
+	 * @param white
+	 *            - XYZ of the reference white, Y being 1
+	 * @return new RGB to XYZ matrix
+	 * @see <a href=
+	 *      "http://www.brucelindbloom.com/index.html?Eqn_RGB_XYZ_Matrix.html">RGB/XYZ
+	 *      matrices</a>
+	 */
+	public static double[] fromPrimaries(double[] primaries, double[] white) {
+		double[] p = new double[9];
+		for (int j = 0; j < 3; j++) {
+			double x = primaries[j * 2];
+			double y = primaries[j * 2 + 1];
+			p[j] = x / y;
+			p[3 + j] = 1;
+			p[6 + j] = (1 - x - y) / y;
+		}
+
+		// scale primaries, so that RGB white maps to the reference white
+		double[] pi = invert(p);
+		for (int j = 0; j < 3; j++) {
+			double s = pi[j * 3] * white[0] + pi[j * 3 + 1] * white[1] + pi[j * 3 + 2] * white[2];
+			for (int i = 0; i < 3; i++) {
+				p[i * 3 + j] *= s;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Calculates Bradford chromatic adaptation matrix converting XYZ relative
+	 * to source white to XYZ relative to destination white.
+	 *
+	 * @param src
+	 *            - XYZ of the source white
+	 * @param dst
+	 *            - XYZ of the destination white
+	 * @return new adaptation matrix
+	 * @see <a href=
+	 *      "http://www.brucelindbloom.com/index.html?Eqn_ChromAdapt.html">Chromatic
+	 *      adaptation</a>
+	 */
+	public static double[] bradford(double[] src, double[] dst) {
+		double[] scale = new double[9];
+		for (int i = 0; i < 3; i++) {
+			double s = BRADFORD[i * 3] * src[0] + BRADFORD[i * 3 + 1] * src[1] + BRADFORD[i * 3 + 2] * src[2];
+			double d = BRADFORD[i * 3] * dst[0] + BRADFORD[i * 3 + 1] * dst[1] + BRADFORD[i * 3 + 2] * dst[2];
+			scale[i * 4] = d / s;
+		}
+		return multiply(BRADFORD_INVERSE, multiply(scale, BRADFORD));
 	}
 }
@@ -0,0 +1,171 @@
+package com.snajder.d.colorlib;
+
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BatchKernel} built on <code>jdk.incubator.vector</code>, processing
+ * as many pixels per instruction as the preferred vector shape of the CPU
+ * allows.
+ * <p>
+ * Linearization uses the same table as {@link SRGBCompanding#linearize(int)},
+ * matrix multiply and CIELab nonlinearity perform the same (non-fused)
+ * operations in the same order as scalar code, so results are bit-identical.
+ * </p>
+ * <p>
+ * Loaded reflectively by {@link BatchKernels}; requires
+ * <code>--add-modules jdk.incubator.vector</code>.
+ * </p>
+ */
+final class VectorBatchKernel implements BatchKernel {
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+	private final float[] linear = new float[256];
+
+	private final float m00, m01, m02;
+	private final float m10, m11, m12;
+	private final float m20, m21, m22;
+
+	VectorBatchKernel() {
+		if (FLOATS.length() < 4) {
+			throw new UnsupportedOperationException("Vector shape not suitable: " + FLOATS);
+		}
+
+		for (int i = 0; i < 256; i++) {
+			linear[i] = SRGBCompanding.linearize(i);
+		}
+
+		float[] M = XYZMatrices.SRGB;
+		m00 = M[0];
+		m01 = M[1];
+		m02 = M[2];
+		m10 = M[3];
+		m11 = M[4];
+		m12 = M[5];
+		m20 = M[6];
+		m21 = M[7];
+		m22 = M[8];
+	}
+
+	@Override
+	public int xyz(int[] rgb, int offset, int length, float[] x, int xPos, float[] y, int yPos, float[] z, int zPos,
+			int stride) {
+		int lanes = FLOATS.length();
+		int bound = FLOATS.loopBound(length);
+		float[] lr = new float[lanes];
+		float[] lg = new float[lanes];
+		float[] lb = new float[lanes];
+		float[] out = stride == 1 ? null : new float[lanes * 3];
+
+		for (int i = 0; i < bound; i += lanes) {
+			linearize(rgb, offset + i, lr, lg, lb);
+
+			FloatVector r = FloatVector.fromArray(FLOATS, lr, 0);
+			FloatVector g = FloatVector.fromArray(FLOATS, lg, 0);
+			FloatVector b = FloatVector.fromArray(FLOATS, lb, 0);
+
+			FloatVector vx = r.mul(m00).add(g.mul(m01)).add(b.mul(m02));
+			FloatVector vy = r.mul(m10).add(g.mul(m11)).add(b.mul(m12));
+			FloatVector vz = r.mul(m20).add(g.mul(m21)).add(b.mul(m22));
+
+			store(vx, vy, vz, out, i, x, xPos, y, yPos, z, zPos, stride);
+		}
+		return bound;
+	}
+
+	@Override
+	public int labFast(int[] rgb, int offset, int length, float[] l, int lPos, float[] a, int aPos, float[] b,
+			int bPos, int stride) {
+		int lanes = FLOATS.length();
+		int bound = FLOATS.loopBound(length);
+		float[] lr = new float[lanes];
+		float[] lg = new float[lanes];
+		float[] lb = new float[lanes];
+		float[] out = stride == 1 ? null : new float[lanes * 3];
+
+		for (int i = 0; i < bound; i += lanes) {
+			linearize(rgb, offset + i, lr, lg, lb);
+
+			FloatVector rr = FloatVector.fromArray(FLOATS, lr, 0);
+			FloatVector gg = FloatVector.fromArray(FLOATS, lg, 0);
+			FloatVector bb = FloatVector.fromArray(FLOATS, lb, 0);
+
+			FloatVector x = rr.mul(m00).add(gg.mul(m01)).add(bb.mul(m02));
+			FloatVector y = rr.mul(m10).add(gg.mul(m11)).add(bb.mul(m12));
+			FloatVector z = rr.mul(m20).add(gg.mul(m21)).add(bb.mul(m22));
+
+			FloatVector fx = f(x.div(CIELab.X_N));
+			FloatVector fy = f(y.div(CIELab.Y_N));
+			FloatVector fz = f(z.div(CIELab.Z_N));
+
+			store(fy.mul(116f).sub(16f), fx.sub(fy).mul(500f), fy.sub(fz).mul(200f), out, i, l, lPos, a, aPos, b,
+					bPos, stride);
+		}
+		return bound;
+	}
+
+	/**
+	 * Looks up linear values of one vector of pixels. Table lookups are
+	 * scalar loads; vector gathers are not faster for a 1KB table and C2 of
+	 * JDK 17 miscompiles them in longer kernels.
+	 */
+	private void linearize(int[] rgb, int offset, float[] lr, float[] lg, float[] lb) {
+		for (int j = 0; j < lr.length; j++) {
+			int p = rgb[offset + j];
+			lr[j] = linear[(p >> 16) & 0xFF];
+			lg[j] = linear[(p >> 8) & 0xFF];
+			lb[j] = linear[p & 0xFF];
+		}
+	}
+
+	/**
+	 * Stores one vector of results. Separate arrays are written directly,
+	 * interleaved output goes through scratch array instead of scatter
+	 * stores, which are not available on most CPUs.
+	 */
+	private static void store(FloatVector v0, FloatVector v1, FloatVector v2, float[] out, int i, float[] c0,
+			int pos0, float[] c1, int pos1, float[] c2, int pos2, int stride) {
+		if (out == null) {
+			v0.intoArray(c0, pos0 + i);
+			v1.intoArray(c1, pos1 + i);
+			v2.intoArray(c2, pos2 + i);
+			return;
+		}
+
+		int lanes = FLOATS.length();
+		v0.intoArray(out, 0);
+		v1.intoArray(out, lanes);
+		v2.intoArray(out, lanes * 2);
+		for (int j = 0; j < lanes; j++) {
+			int k = (i + j) * stride;
+			c0[pos0 + k] = out[j];
+			c1[pos1 + k] = out[lanes + j];
+			c2[pos2 + k] = out[lanes * 2 + j];
+		}
+	}
+
+	/**
+	 * Vectorized CIELab conversion function with fast cube root, same as
+	 * scalar <code>CIELab.f(t, true)</code>.
+	 */
+	private static FloatVector f(FloatVector t) {
+		VectorMask<Float> cube = t.compare(VectorOperators.GT, CIELab.C1);
+
+		IntVector n = t.reinterpretAsInts();
+		IntVector q = n.lanewise(VectorOperators.ASHR, 2).add(n.lanewise(VectorOperators.ASHR, 4));
+		q = q.add(q.lanewise(VectorOperators.ASHR, 4));
+		q = q.add(q.lanewise(VectorOperators.ASHR, 8));
+		q = q.add(q.lanewise(VectorOperators.ASHR, 16));
+		FloatVector x = q.add(CIELab.CBRT_MAGIC).reinterpretAsFloats();
+		x = x.add(x).add(t.div(x.mul(x))).mul(CIELab.C2);
+		x = x.add(x).add(t.div(x.mul(x))).mul(CIELab.C2);
+
+		return t.mul(CIELab.C3).add(CIELab.C4).blend(x, cube);
+	}
+}
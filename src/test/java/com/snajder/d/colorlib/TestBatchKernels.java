@@ -0,0 +1,89 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import com.snajder.d.colorlib.CIELab.Precision;
+
+import junit.framework.TestCase;
+
+public class TestBatchKernels extends TestCase {
+	private final Random random = new Random(3);
+
+	private int[] randomPixels(int size) {
+		int[] pixels = new int[size];
+		for (int i = 0; i < size; i++) {
+			pixels[i] = random.nextInt();
+		}
+		return pixels;
+	}
+
+	private static RGB rgb(int p) {
+		return RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	public void testBulkXYZMatchesObjectConversion() {
+		for (int length : new int[] { 0, 1, 7, 15, 16, 17, 1000, 1021 }) {
+			int[] pixels = randomPixels(length + 3);
+			float[] x = new float[length + 1];
+			float[] y = new float[length + 1];
+			float[] z = new float[length + 1];
+			float[] xyz = new float[length * 3 + 2];
+
+			XYZ.from(pixels, 3, length, x, y, z, 1);
+			XYZ.from(pixels, 3, length, xyz, 2);
+
+			for (int i = 0; i < length; i++) {
+				XYZ expected = XYZ.from(rgb(pixels[i + 3]));
+				assertEquals(expected.getX(), x[i + 1], 0f);
+				assertEquals(expected.getY(), y[i + 1], 0f);
+				assertEquals(expected.getZ(), z[i + 1], 0f);
+				assertEquals(expected.getX(), xyz[i * 3 + 2], 0f);
+				assertEquals(expected.getY(), xyz[i * 3 + 3], 0f);
+				assertEquals(expected.getZ(), xyz[i * 3 + 4], 0f);
+			}
+		}
+	}
+
+	public void testBulkFastLabMatchesObjectConversion() {
+		for (int length : new int[] { 0, 1, 7, 15, 16, 17, 1000, 1021 }) {
+			int[] pixels = randomPixels(length);
+			float[] lab = new float[length * 3];
+
+			CIELab.from(pixels, 0, length, lab, 0, Precision.FAST);
+
+			for (int i = 0; i < length; i++) {
+				CIELab expected = CIELab.from(rgb(pixels[i]), Precision.FAST);
+				assertEquals(expected.getL(), lab[i * 3], 0f);
+				assertEquals(expected.getA(), lab[i * 3 + 1], 0f);
+				assertEquals(expected.getB(), lab[i * 3 + 2], 0f);
+			}
+		}
+	}
+
+	public void testVectorKernelOverWholeCube() {
+		BatchKernel kernel = BatchKernels.VECTOR;
+		if (kernel == null) {
+			return; // vector kernel not available on this JVM
+		}
+
+		int n = 1 << 16;
+		int[] pixels = new int[n];
+		float[] l = new float[n];
+		float[] a = new float[n];
+		float[] b = new float[n];
+		for (int base = 0; base < (1 << 24); base += n) {
+			for (int i = 0; i < n; i++) {
+				pixels[i] = base + i;
+			}
+			int done = kernel.labFast(pixels, 0, n, l, 0, a, 0, b, 0, 1);
+			assertEquals(n, done);
+
+			for (int i = 0; i < n; i += 61) {
+				CIELab expected = CIELab.from(rgb(pixels[i]), Precision.FAST);
+				assertEquals(expected.getL(), l[i], 0f);
+				assertEquals(expected.getA(), a[i], 0f);
+				assertEquals(expected.getB(), b[i], 0f);
+			}
+		}
+	}
+}
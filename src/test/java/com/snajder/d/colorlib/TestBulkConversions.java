@@ -0,0 +1,70 @@
+package com.snajder.d.colorlib;
+
+import junit.framework.TestCase;
+
+public class TestBulkConversions extends TestCase {
+
+	private static int[] samplePixels() {
+		int[] pixels = new int[(1 << 24) / 31 + 1];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i * 31;
+		}
+		return pixels;
+	}
+
+	public void testLabPlanarMatchesObjectChain() {
+		int[] pixels = samplePixels();
+		float[] l = new float[pixels.length + 2];
+		float[] a = new float[pixels.length + 2];
+		float[] b = new float[pixels.length + 2];
+
+		CIELab.from(pixels, 0, pixels.length, l, a, b, 2);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			CIELab lab = CIELab.from(XYZ.from(RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF)));
+			assertEquals(Float.floatToIntBits(lab.getL()), Float.floatToIntBits(l[i + 2]));
+			assertEquals(Float.floatToIntBits(lab.getA()), Float.floatToIntBits(a[i + 2]));
+			assertEquals(Float.floatToIntBits(lab.getB()), Float.floatToIntBits(b[i + 2]));
+		}
+	}
+
+	public void testLabInterleavedMatchesObjectChain() {
+		int[] pixels = samplePixels();
+		float[] lab = new float[pixels.length * 3];
+
+		CIELab.from(pixels, 0, pixels.length, lab, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			CIELab expected = CIELab.from(RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF));
+			assertEquals(expected.getL(), lab[i * 3], 0f);
+			assertEquals(expected.getA(), lab[i * 3 + 1], 0f);
+			assertEquals(expected.getB(), lab[i * 3 + 2], 0f);
+		}
+	}
+
+	public void testUpperByteIgnored() {
+		float[] lab = new float[6];
+		CIELab.from(new int[] { 0x123456, 0xFF123456 }, 0, 2, lab, 0);
+
+		assertEquals(lab[0], lab[3], 0f);
+		assertEquals(lab[1], lab[4], 0f);
+		assertEquals(lab[2], lab[5], 0f);
+	}
+
+	public void testRangeChecked() {
+		try {
+			CIELab.from(new int[4], 2, 3, new float[9], 0);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		try {
+			CIELab.from(new int[4], 0, 4, new float[11], 0);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
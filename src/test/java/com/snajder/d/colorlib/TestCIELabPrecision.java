@@ -0,0 +1,69 @@
+package com.snajder.d.colorlib;
+
+import com.snajder.d.colorlib.CIELab.Precision;
+
+import junit.framework.TestCase;
+
+public class TestCIELabPrecision extends TestCase {
+
+	public void testFastModeErrorBoundOverWholeCube() {
+		int n = 1 << 16;
+		int[] pixels = new int[n];
+		float[] exact = new float[n * 3];
+		float[] fast = new float[n * 3];
+
+		float max = 0f;
+		for (int base = 0; base < (1 << 24); base += n) {
+			for (int i = 0; i < n; i++) {
+				pixels[i] = base + i;
+			}
+			CIELab.from(pixels, 0, n, exact, 0, Precision.EXACT);
+			CIELab.from(pixels, 0, n, fast, 0, Precision.FAST);
+
+			for (int i = 0; i < n * 3; i += 3) {
+				float dl = exact[i] - fast[i];
+				float da = exact[i + 1] - fast[i + 1];
+				float db = exact[i + 2] - fast[i + 2];
+				max = Math.max(max, (float) Math.sqrt(dl * dl + da * da + db * db));
+			}
+		}
+
+		assertTrue("max deltaE " + max, max <= CIELab.FAST_MAX_DELTA_E);
+	}
+
+	public void testExactIsDefault() {
+		for (int p = 0; p < (1 << 24); p += 101) {
+			XYZ xyz = XYZ.from(RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF));
+			CIELab a = CIELab.from(xyz);
+			CIELab b = CIELab.from(xyz, Precision.EXACT);
+			assertEquals(a.getL(), b.getL(), 0f);
+			assertEquals(a.getA(), b.getA(), 0f);
+			assertEquals(a.getB(), b.getB(), 0f);
+		}
+	}
+
+	public void testFastBulkMatchesFastObject() {
+		int[] pixels = new int[(1 << 24) / 101 + 1];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i * 101;
+		}
+		float[] l = new float[pixels.length];
+		float[] a = new float[pixels.length];
+		float[] b = new float[pixels.length];
+		CIELab.from(pixels, 0, pixels.length, l, a, b, 0, Precision.FAST);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			CIELab lab = CIELab.from(RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF), Precision.FAST);
+			assertEquals(lab.getL(), l[i], 0f);
+			assertEquals(lab.getA(), a[i], 0f);
+			assertEquals(lab.getB(), b[i], 0f);
+		}
+	}
+
+	public void testCubeRoot() {
+		for (float t = 0.008f; t < 1.2f; t += 1e-4f) {
+			assertEquals(Math.cbrt(t), CIELab.cbrt(t), Math.cbrt(t) * 1.2e-6);
+		}
+	}
+}
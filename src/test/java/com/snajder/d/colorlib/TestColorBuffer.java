@@ -0,0 +1,149 @@
+package com.snajder.d.colorlib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import junit.framework.TestCase;
+
+public class TestColorBuffer extends TestCase {
+
+	public void testPackedRoundTrip() {
+		int[] pixels = TestPixels.random(18, 5000);
+		ColorBuffer buffer = ColorBuffer.allocate(Space.RGB, pixels.length);
+		buffer.put(0, pixels, 0, pixels.length);
+
+		int[] back = new int[pixels.length];
+		buffer.get(0, pixels.length, back, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			assertEquals(pixels[i], back[i]);
+			assertEquals((pixels[i] >> 8) & 0xFF, (int) buffer.get(1, i));
+		}
+	}
+
+	public void testConvertInPlaceMatchesSpaces() {
+		int[] pixels = TestPixels.random(18, 5000);
+		float[] expected = new float[pixels.length * 3];
+		float[] actual = new float[pixels.length * 3];
+		ColorBuffer buffer = ColorBuffer.allocate(Space.RGB, pixels.length);
+
+		for (Space space : new Space[] { Space.CIELAB, Space.HSL, Space.XYZ }) {
+			buffer.convert(Space.RGB);
+			buffer.put(0, pixels, 0, pixels.length);
+			assertSame(buffer, buffer.convert(space));
+			assertEquals(space, buffer.getSpace());
+
+			space.fromRGB(pixels, 0, pixels.length, expected, 0);
+			buffer.get(0, pixels.length, actual, 0);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(space + " " + i, expected[i], actual[i], 0f);
+			}
+		}
+
+		buffer.convert(Space.RGB);
+		int[] back = new int[pixels.length];
+		buffer.get(0, pixels.length, back, 0);
+		for (int i = 0; i < pixels.length; i++) {
+			assertEquals(pixels[i], back[i]);
+		}
+	}
+
+	public void testSpaceAndPipelineOutput() {
+		int[] pixels = TestPixels.random(18, 3000);
+		ColorBuffer lab = ColorBuffer.allocate(Space.CIELAB, pixels.length + 10);
+		Space.CIELAB.fromRGB(pixels, 0, pixels.length, lab, 10);
+
+		ColorBuffer rgb = ColorBuffer.allocate(Space.RGB, pixels.length);
+		Pipeline.from(Space.CIELAB).to(Space.RGB).apply(lab.slice(10, pixels.length), rgb);
+
+		int[] back = new int[pixels.length];
+		rgb.get(0, pixels.length, back, 0);
+		for (int i = 0; i < pixels.length; i++) {
+			assertEquals(pixels[i], back[i]);
+		}
+
+		try {
+			Space.HSL.fromRGB(pixels, 0, 1, lab, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testSliceSharesMemory() {
+		ColorBuffer buffer = ColorBuffer.allocate(Space.RGB, 100);
+		ColorBuffer slice = buffer.slice(40, 20);
+
+		slice.set(2, 5, 7f);
+		assertEquals(7f, buffer.get(2, 45));
+		assertEquals(20, slice.size());
+
+		slice.put(0, new int[] { 0xFF0000 }, 0, 1);
+		try {
+			slice.convert(Space.HSL);
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(Space.RGB, slice.getSpace());
+
+		buffer.convert(Space.HSL);
+		assertEquals(Space.HSL, slice.getSpace());
+		assertEquals(Space.HSL, slice.slice(0, 1).getSpace());
+		assertEquals(0.5f, slice.get(2, 0));
+
+		try {
+			buffer.slice(90, 11);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testWriteReadAndMap() throws IOException {
+		int[] pixels = TestPixels.random(18, 2000);
+		ColorBuffer buffer = ColorBuffer.allocate(Space.RGB, pixels.length);
+		buffer.put(0, pixels, 0, pixels.length);
+		buffer.convert(Space.CIELAB);
+
+		File file = File.createTempFile("colors", ".bin");
+		try {
+			try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				buffer.write(out);
+			}
+			assertEquals(pixels.length * 12L, file.length());
+
+			ColorBuffer read = ColorBuffer.allocate(Space.CIELAB, pixels.length);
+			try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				read.read(in);
+			}
+
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				ColorBuffer mapped = ColorBuffer.map(channel, FileChannel.MapMode.READ_WRITE, Space.CIELAB);
+				assertEquals(pixels.length, mapped.size());
+				for (int c = 0; c < 3; c++) {
+					for (int i = 0; i < pixels.length; i++) {
+						assertEquals(buffer.get(c, i), read.get(c, i), 0f);
+						assertEquals(buffer.get(c, i), mapped.get(c, i), 0f);
+					}
+				}
+
+				mapped.convert(Space.RGB);
+			}
+
+			try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				ColorBuffer rgb = ColorBuffer.map(in, FileChannel.MapMode.READ_ONLY, Space.RGB);
+				int[] back = new int[pixels.length];
+				rgb.get(0, pixels.length, back, 0);
+				for (int i = 0; i < pixels.length; i++) {
+					assertEquals(pixels[i], back[i]);
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
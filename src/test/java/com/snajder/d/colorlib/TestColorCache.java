@@ -0,0 +1,142 @@
+package com.snajder.d.colorlib;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import com.snajder.d.colorlib.util.StripedLruCache;
+
+import junit.framework.TestCase;
+
+public class TestColorCache extends TestCase {
+
+	private static void assertSameColors(List<RGB> expected, List<RGB> actual) {
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	public void testSameResultsAsUncached() {
+		ColorCache cache = new ColorCache(4000);
+		ColorCache small = new ColorCache(1000);
+		Random random = new Random(15);
+
+		for (int i = 0; i < 3000; i++) {
+			RGB rgb = RGB.from(random.nextInt(8) * 32, random.nextInt(8) * 32, random.nextInt(8) * 32);
+
+			assertSameColors(ColorSchemeRYB.getTriads(rgb), cache.getTriads(rgb));
+			assertSameColors(ColorSchemeRYB.getTetradic(rgb), cache.getTetradic(rgb));
+			assertSameColors(ColorSchemeRYB.getAnalogous(rgb), cache.getAnalogous(rgb));
+			assertSameColors(ColorSchemeRYB.getMonochromatic3(rgb), cache.getMonochromatic3(rgb));
+			assertEquals(ColorSchemeRYB.getComplementary(rgb).toString(), cache.getComplementary(rgb).toString());
+
+			CIELab expected = CIELab.from(rgb);
+			CIELab actual = cache.toCIELab(rgb);
+			assertEquals(expected.getL(), actual.getL(), 0f);
+			assertEquals(expected.getA(), actual.getA(), 0f);
+			assertEquals(expected.getB(), actual.getB(), 0f);
+
+			small.getTriads(rgb);
+			small.toCIELab(rgb);
+		}
+
+		assertEquals(3000 * 6, cache.getHitCount() + cache.getMissCount());
+		assertEquals(512 * 6, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(512 * 6, cache.size());
+
+		assertEquals(1000, small.size());
+		assertEquals(small.getMissCount() - 1000, small.getEvictionCount());
+	}
+
+	public void testResultsAreCopies() {
+		ColorCache cache = new ColorCache(10);
+		RGB rgb = RGB.from(10, 20, 30);
+
+		cache.getComplementary(rgb).setR(0);
+		cache.toCIELab(rgb).setL(-1);
+
+		assertEquals(ColorSchemeRYB.getComplementary(rgb).getR(), cache.getComplementary(rgb).getR());
+		assertEquals(CIELab.from(rgb).getL(), cache.toCIELab(rgb).getL(), 0f);
+	}
+
+	public void testOutOfRangeRejected() {
+		ColorCache cache = new ColorCache(10);
+		cache.toCIELab(RGB.from(255, 255, 255));
+		RGB[] colors = { RGB.from(511, 255, 255), RGB.from(-1, 0, 0), RGB.from(0, 0, 256) };
+
+		for (RGB rgb : colors) {
+			try {
+				cache.toCIELab(rgb);
+				fail(rgb.toString());
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			try {
+				cache.getTriads(rgb);
+				fail(rgb.toString());
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+		assertEquals(1, cache.size());
+	}
+
+	public void testLeastRecentlyUsedEvicted() {
+		StripedLruCache<String> cache = new StripedLruCache<String>(3, 1);
+		IntFunction<String> function = new IntFunction<String>() {
+			@Override
+			public String apply(int key) {
+				return "v" + key;
+			}
+		};
+
+		cache.get(1, function);
+		cache.get(2, function);
+		cache.get(3, function);
+		cache.get(1, function);
+		cache.get(4, function);
+
+		assertEquals("v1", cache.getIfPresent(1));
+		assertNull(cache.getIfPresent(2));
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	public void testConcurrentAccess() throws InterruptedException {
+		final StripedLruCache<Integer> cache = new StripedLruCache<Integer>(256, 8);
+		final AtomicInteger wrong = new AtomicInteger();
+		final IntFunction<Integer> square = new IntFunction<Integer>() {
+			@Override
+			public Integer apply(int key) {
+				return key * key;
+			}
+		};
+
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					for (int i = 0; i < 20000; i++) {
+						int key = random.nextInt(512);
+						if (cache.get(key, square).intValue() != key * key) {
+							wrong.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, wrong.get());
+		assertTrue(cache.size() <= 256);
+		assertEquals(8 * 20000, cache.getHitCount() + cache.getMissCount());
+	}
+}
@@ -0,0 +1,103 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class TestColorDeduplicator extends TestCase {
+	private static CIELab lab(int p) {
+		return CIELab.from(new RGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF));
+	}
+
+	public void testRepresentatives() {
+		float threshold = 0.8f;
+		int[] input = TestPixels.random(25, 4000);
+		DeduplicatedColors result = new ColorDeduplicator(threshold).deduplicate(input, 0, input.length);
+
+		assertEquals(input.length, result.getInputCount());
+		assertTrue(result.size() > 1);
+		assertTrue(result.size() < input.length);
+
+		CIELab[] reps = new CIELab[result.size()];
+		for (int r = 0; r < reps.length; r++) {
+			reps[r] = lab(result.getRGB(r));
+		}
+		for (int r = 0; r < reps.length; r++) {
+			for (int s = r + 1; s < reps.length; s++) {
+				assertTrue(reps[r].distance(reps[s]) >= threshold * 0.999f);
+			}
+		}
+
+		int total = 0;
+		int[] counts = new int[reps.length];
+		int next = 0;
+		for (int i = 0; i < input.length; i++) {
+			int rep = result.getRepresentative(i);
+			assertTrue(lab(input[i]).distance(reps[rep]) < threshold * 1.001f);
+			// representatives are ordered by first occurrence of their colors
+			if (next < reps.length && input[i] == result.getRGB(next)) {
+				next++;
+			}
+			counts[rep]++;
+		}
+		assertEquals(reps.length, next);
+		for (int r = 0; r < reps.length; r++) {
+			assertEquals(counts[r], result.getCount(r));
+			total += result.getCount(r);
+		}
+		assertEquals(input.length, total);
+	}
+
+	public void testExactDuplicates() {
+		int[] input = { 0x123456, 0xFF0000, 0x123456, 0x00FF00, 0xFF0000 };
+		DeduplicatedColors result = new ColorDeduplicator(0.01f).deduplicate(input, 0, input.length);
+
+		assertEquals(3, result.size());
+		assertTrue(Arrays.equals(new int[] { 0, 1, 0, 2, 1 }, result.getMapping()));
+		assertEquals(0x123456, result.getRGB(0));
+		assertEquals(0xFF0000, result.getRGB(1));
+		assertEquals(0x00FF00, result.getRGB(2));
+		assertEquals(2, result.getCount(0));
+	}
+
+	public void testParallelMatchesSerial() {
+		int[] input = TestPixels.random(26, 50000);
+		ForkJoinPool serialPool = new ForkJoinPool(1);
+		ForkJoinPool parallelPool = new ForkJoinPool(4);
+		try {
+			DeduplicatedColors serial = new ColorDeduplicator(0.5f, serialPool, Integer.MAX_VALUE).deduplicate(input,
+					7, input.length - 7);
+			DeduplicatedColors parallel = new ColorDeduplicator(0.5f, parallelPool, 64).deduplicate(input, 7,
+					input.length - 7);
+
+			assertTrue(Arrays.equals(serial.getMapping(), parallel.getMapping()));
+			assertEquals(serial.size(), parallel.size());
+			for (int r = 0; r < serial.size(); r++) {
+				assertEquals(serial.getRGB(r), parallel.getRGB(r));
+			}
+		} finally {
+			serialPool.shutdown();
+			parallelPool.shutdown();
+		}
+	}
+
+	public void testInvalidArguments() {
+		try {
+			new ColorDeduplicator(0f);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new ColorDeduplicator(1e-9f).deduplicate(new int[] { 0x000000, 0xFFFFFF, 0xFF00FF }, 0, 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		DeduplicatedColors empty = new ColorDeduplicator(1f).deduplicate(new int[0], 0, 0);
+		assertEquals(0, empty.size());
+		assertEquals(0, empty.getInputCount());
+	}
+}
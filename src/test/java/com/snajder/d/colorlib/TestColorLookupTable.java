@@ -0,0 +1,165 @@
+package com.snajder.d.colorlib;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+
+import junit.framework.TestCase;
+
+public class TestColorLookupTable extends TestCase {
+	private static final IntUnaryOperator IDENTITY = new IntUnaryOperator() {
+		@Override
+		public int applyAsInt(int rgb) {
+			return rgb;
+		}
+	};
+
+	private static final IntUnaryOperator COMPLEMENTARY = new IntUnaryOperator() {
+		@Override
+		public int applyAsInt(int rgb) {
+			int[] dst = new int[1];
+			ColorSchemeRYB.get(ColorSchemeRYB.Harmony.COMPLEMENTARY, new int[] { rgb }, 0, 1, dst, 0);
+			return dst[0];
+		}
+	};
+
+	private static int maxError(int p, int q) {
+		int max = 0;
+		for (int shift = 0; shift < 24; shift += 8) {
+			max = Math.max(max, Math.abs(((p >> shift) & 0xFF) - ((q >> shift) & 0xFF)));
+		}
+		return max;
+	}
+
+	public void testIdentityIsExactWhenNodesAreOnComponentValues() {
+		for (ColorLookupTable.Interpolation interpolation : ColorLookupTable.Interpolation.values()) {
+			ColorLookupTable table = ColorLookupTable.bake(IDENTITY, 18).withInterpolation(interpolation);
+			for (int p = 0; p < 1 << 24; p += 97) {
+				assertEquals(interpolation.toString(), p, table.apply(p));
+			}
+		}
+	}
+
+	public void testIdentityWithDefaultSize() {
+		ColorLookupTable table = ColorLookupTable.bake(IDENTITY);
+		assertEquals(ColorLookupTable.DEFAULT_SIZE, table.getSize());
+		assertEquals(ColorLookupTable.Interpolation.TETRAHEDRAL, table.getInterpolation());
+
+		for (int p = 0; p < 1 << 24; p += 97) {
+			assertTrue(maxError(p, table.apply(p)) <= 1);
+		}
+		// nodes on the gray axis
+		assertEquals(0x000000, table.apply(0x000000));
+		assertEquals(0xFFFFFF, table.apply(0xFFFFFF));
+	}
+
+	public void testBakedChainMatchesAtNodes() {
+		ColorLookupTable table = ColorLookupTable.bake(COMPLEMENTARY, 18);
+
+		for (int r = 0; r < 256; r += 15) {
+			for (int g = 0; g < 256; g += 15) {
+				for (int b = 0; b < 256; b += 15) {
+					int p = (r << 16) | (g << 8) | b;
+					assertEquals(COMPLEMENTARY.applyAsInt(p), table.apply(p));
+				}
+			}
+		}
+
+		RGB rgb = RGB.from(30, 60, 90);
+		assertEquals(ColorSchemeRYB.getComplementary(rgb).toString(), table.apply(rgb).toString());
+	}
+
+	public void testOutOfRangeColorRejected() {
+		ColorLookupTable table = ColorLookupTable.bake(COMPLEMENTARY, 18);
+
+		try {
+			table.apply(RGB.from(286, 60, 90));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testBulkAndParallelMatchSingle() {
+		ColorLookupTable table = ColorLookupTable.bake(COMPLEMENTARY, 17)
+				.withInterpolation(ColorLookupTable.Interpolation.TRILINEAR);
+		int[] pixels = TestPixels.random(15, 10000);
+		int[] bulk = new int[pixels.length + 3];
+		int[] parallel = pixels.clone();
+
+		table.apply(pixels, 0, pixels.length, bulk, 3);
+		new ImageConverter(new ForkJoinPool(4), 100).apply(table, parallel, 0, parallel.length, parallel, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int expected = table.apply(pixels[i]);
+			assertEquals(expected, bulk[i + 3]);
+			assertEquals(expected, parallel[i]);
+		}
+	}
+
+	public void testCubeRoundTrip() throws IOException {
+		ColorLookupTable table = ColorLookupTable.bake(COMPLEMENTARY, 9);
+		Path file = Files.createTempFile("lut", ".cube");
+		try {
+			table.write(file);
+			ColorLookupTable read = ColorLookupTable.read(file);
+
+			assertEquals(9, read.getSize());
+			for (int p : TestPixels.random(15, 10000)) {
+				assertEquals(table.apply(p), read.apply(p));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	public void testReadCube() throws IOException {
+		String cube = "# inverted colors\n" //
+				+ "TITLE \"invert\"\n" //
+				+ "LUT_3D_SIZE 2\n" //
+				+ "DOMAIN_MIN 0 0 0\n" //
+				+ "DOMAIN_MAX 1 1 1\n" //
+				+ "\n" //
+				+ "1 1 1\n0 1 1\n1 0 1\n0 0 1\n" //
+				+ "1 1 0\n0 1 0\n1 0 0\n0 0 0\n";
+
+		ColorLookupTable table = ColorLookupTable.read(new StringReader(cube));
+
+		assertEquals(0xFFFFFF, table.apply(0x000000));
+		assertEquals(0x00FFFF, table.apply(0xFF0000));
+		assertEquals(0xCF9F6F, table.apply(0x306090));
+
+		StringWriter writer = new StringWriter();
+		table.write(writer);
+		assertTrue(writer.toString().startsWith("LUT_3D_SIZE 2"));
+	}
+
+	public void testReadCubeWithDomain() throws IOException {
+		String cube = "LUT_3D_SIZE 2\nDOMAIN_MAX 0.5 0.5 0.5\n" //
+				+ "0 0 0\n1 0 0\n0 1 0\n1 1 0\n0 0 1\n1 0 1\n0 1 1\n1 1 1\n";
+
+		ColorLookupTable table = ColorLookupTable.read(new StringReader(cube));
+
+		// half intensity maps to full, values above the domain are clamped
+		assertEquals(0xFF8000, table.apply(0x804000));
+		assertEquals(0xFFFFFF, table.apply(0xFFFFFF));
+	}
+
+	public void testInvalidCube() {
+		String[] invalid = { "0 0 0\n", "LUT_3D_SIZE 2\n0 0 0\n", "LUT_1D_SIZE 16\n", "LUT_3D_SIZE 1\n",
+				"LUT_3D_SIZE 2\n0 0 x\n" };
+
+		for (String cube : invalid) {
+			try {
+				ColorLookupTable.read(new StringReader(cube));
+				fail("Expected IOException: " + cube);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+}
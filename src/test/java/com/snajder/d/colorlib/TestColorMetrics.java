@@ -0,0 +1,90 @@
+package com.snajder.d.colorlib;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import junit.framework.TestCase;
+
+public class TestColorMetrics extends TestCase {
+
+	public void testLatencyBuckets() {
+		Random random = new Random(23);
+		for (int i = 0; i < 100000; i++) {
+			long nanos = random.nextInt(1 << 30) >> random.nextInt(30);
+			int bucket = OperationRecorder.latencyBucket(nanos);
+			long upper = OperationRecorder.latencyUpperBound(bucket);
+
+			assertTrue(nanos + " " + upper, nanos <= upper);
+			assertTrue(nanos + " " + upper, upper - nanos <= nanos / 8);
+			if (bucket > 0) {
+				assertTrue(OperationRecorder.latencyUpperBound(bucket - 1) < nanos);
+			}
+		}
+		assertEquals(OperationRecorder.LATENCY_BUCKETS - 1, OperationRecorder.latencyBucket(Long.MAX_VALUE));
+	}
+
+	public void testSnapshotPercentiles() {
+		long[] counts = new long[OperationRecorder.SIZE];
+		for (long nanos = 1; nanos <= 1000; nanos++) {
+			counts[OperationRecorder.INVOCATIONS]++;
+			counts[OperationRecorder.ITEMS] += 4;
+			counts[OperationRecorder.NANOS] += nanos;
+			counts[OperationRecorder.LATENCY + OperationRecorder.latencyBucket(nanos)]++;
+			counts[OperationRecorder.BATCH + 2]++;
+		}
+		OperationSnapshot snapshot = new OperationSnapshot(ColorOperation.HSL_FROM, counts);
+
+		assertEquals("HSL_FROM", snapshot.getOperation());
+		assertEquals(4.0, snapshot.getMeanBatchSize(), 0);
+		assertEquals(500.5, snapshot.getMeanNanos(), 1e-9);
+		assertTrue(snapshot.getP50Nanos() >= 500 && snapshot.getP50Nanos() <= 500 * 9 / 8);
+		assertTrue(snapshot.getP99Nanos() >= 990 && snapshot.getP99Nanos() <= 990 * 9 / 8);
+		assertTrue(snapshot.getMaxNanos() >= 1000 && snapshot.getMaxNanos() <= 1000 * 9 / 8);
+		assertEquals(1000, snapshot.getBatchSizes()[2]);
+		assertEquals(0, new OperationSnapshot(ColorOperation.HSL_FROM, new long[OperationRecorder.SIZE])
+				.getP99Nanos());
+	}
+
+	public void testRecordsOperations() throws Exception {
+		OperationSnapshot lab = ColorMetrics.snapshot(ColorOperation.CIELAB_FROM);
+		OperationSnapshot xyz = ColorMetrics.snapshot(ColorOperation.XYZ_FROM);
+		OperationSnapshot triads = ColorMetrics.snapshot(ColorOperation.TRIADS);
+
+		CIELab.from(RGB.from(10, 20, 30));
+		CIELab.from(new int[1000], 0, 1000, new float[3000], 0);
+		ColorSchemeRYB.getTriads(RGB.from(10, 20, 30));
+
+		long expected = ColorMetrics.isEnabled() ? 1 : 0;
+		assertEquals(2 * expected, ColorMetrics.snapshot(ColorOperation.CIELAB_FROM).getInvocations()
+				- lab.getInvocations());
+		assertEquals(1001 * expected, ColorMetrics.snapshot(ColorOperation.CIELAB_FROM).getItems() - lab.getItems());
+		assertEquals(expected, ColorMetrics.snapshot(ColorOperation.XYZ_FROM).getInvocations() - xyz.getInvocations());
+		assertEquals(expected, ColorMetrics.snapshot(ColorOperation.TRIADS).getInvocations()
+				- triads.getInvocations());
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(ColorMetrics.OBJECT_NAME);
+		assertEquals(ColorMetrics.isEnabled(), server.isRegistered(name));
+		if (!ColorMetrics.isEnabled()) {
+			assertEquals(0, ColorMetrics.snapshot(ColorOperation.CIELAB_FROM).getInvocations());
+			assertNull(ColorOperation.CIELAB_FROM.recorder);
+			return;
+		}
+
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+
+		TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+		CompositeData row = operations.get(new Object[] { "CIELAB_FROM" });
+		CompositeData value = (CompositeData) row.get("value");
+		assertEquals(ColorMetrics.snapshot(ColorOperation.CIELAB_FROM).getInvocations(), value.get("invocations"));
+		assertTrue((Long) value.get("p99Nanos") > 0);
+
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, ColorMetrics.snapshot(ColorOperation.CIELAB_FROM).getInvocations());
+	}
+}
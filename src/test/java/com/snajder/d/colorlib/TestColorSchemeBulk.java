@@ -0,0 +1,69 @@
+package com.snajder.d.colorlib;
+
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestColorSchemeBulk extends TestCase {
+
+	private static List<RGB> expected(ColorSchemeRYB.Harmony harmony, RGB rgb) {
+		switch (harmony) {
+		case TRIADS:
+			return ColorSchemeRYB.getTriads(rgb);
+		case COMPLEMENTARY:
+			return Collections.singletonList(ColorSchemeRYB.getComplementary(rgb));
+		case TETRADIC:
+			return ColorSchemeRYB.getTetradic(rgb);
+		case ANALOGOUS:
+			return ColorSchemeRYB.getAnalogous(rgb);
+		default:
+			return ColorSchemeRYB.getMonochromatic3(rgb);
+		}
+	}
+
+	public void testMatchesObjectHarmonies() {
+		int[] pixels = new int[(1 << 24) / 61 + 1];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i * 61;
+		}
+
+		for (ColorSchemeRYB.Harmony harmony : ColorSchemeRYB.Harmony.values()) {
+			int size = harmony.size();
+			int[] dst = new int[pixels.length * size + 1];
+
+			ColorSchemeRYB.get(harmony, pixels, 0, pixels.length, dst, 1);
+
+			for (int i = 0; i < pixels.length; i++) {
+				int p = pixels[i];
+				List<RGB> colors = expected(harmony, RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF));
+
+				assertEquals(size, colors.size());
+				for (int j = 0; j < size; j++) {
+					RGB c = colors.get(j);
+					int packed = (c.getR() << 16) | (c.getG() << 8) | c.getB();
+					assertEquals(harmony + " of " + Integer.toHexString(p), packed, dst[1 + i * size + j]);
+				}
+			}
+		}
+	}
+
+	public void testUpperByteIgnored() {
+		int[] dst = new int[6];
+		ColorSchemeRYB.get(ColorSchemeRYB.Harmony.TRIADS, new int[] { 0x336699, 0xFF336699 }, 0, 2, dst, 0);
+
+		for (int j = 0; j < 3; j++) {
+			assertEquals(dst[j], dst[j + 3]);
+		}
+		assertEquals(0x336699, dst[1]);
+	}
+
+	public void testRangeChecked() {
+		try {
+			ColorSchemeRYB.get(ColorSchemeRYB.Harmony.TETRADIC, new int[2], 0, 2, new int[5], 0);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class TestColorStreams extends TestCase {
+
+	public void testBufferStreamSplitsEvenly() {
+		int[] pixels = TestPixels.random(20, 10000);
+		ColorBuffer buffer = ColorBuffer.allocate(Space.RGB, pixels.length);
+		buffer.put(0, pixels, 0, pixels.length);
+
+		Spliterator.OfInt all = ColorStreams.stream(buffer).spliterator();
+		assertTrue(all.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+		Spliterator.OfInt prefix = all.trySplit();
+		assertEquals(5000, prefix.estimateSize());
+		assertEquals(5000, all.estimateSize());
+
+		assertTrue(Arrays.equals(pixels, ColorStreams.stream(buffer).toArray()));
+		assertTrue(Arrays.equals(pixels, ColorStreams.stream(buffer).parallel().toArray()));
+
+		try {
+			ColorStreams.stream(ColorBuffer.allocate(Space.CIELAB, 1));
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testRYBMapping() {
+		int[] pixels = TestPixels.random(20, 2000);
+		int[] ryb = ColorStreams.toRYB(IntStream.of(pixels).parallel()).toArray();
+		int[] rgb = ColorStreams.toRGB(IntStream.of(ryb)).toArray();
+		for (int i = 0; i < pixels.length; i++) {
+			assertEquals(PackedRYB.fromRGB(pixels[i]), ryb[i]);
+			assertEquals(PackedRGB.fromRYB(ryb[i]), rgb[i]);
+		}
+	}
+
+	public void testForEachLabMatchesBulkConversion() {
+		final int[] pixels = new int[3001];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i * 4099;
+		}
+		final float[] expected = new float[pixels.length * 3];
+		CIELab.from(pixels, 0, pixels.length, expected, 0);
+
+		final AtomicInteger seen = new AtomicInteger();
+		ColorStreams.forEachLab(IntStream.of(pixels).parallel(), new ColorStreams.LabConsumer() {
+			@Override
+			public void accept(int rgb, float l, float a, float b) {
+				int i = rgb / 4099;
+				assertEquals(expected[i * 3], l, 0f);
+				assertEquals(expected[i * 3 + 1], a, 0f);
+				assertEquals(expected[i * 3 + 2], b, 0f);
+				seen.incrementAndGet();
+			}
+		});
+		assertEquals(pixels.length, seen.get());
+	}
+
+	public void testHistogram() {
+		int[] pixels = TestPixels.random(20, 50000);
+		ColorHistogram histogram = ColorStreams.histogram(IntStream.of(pixels).parallel(), 4);
+		int[] expected = new int[1 << 12];
+		for (int p : pixels) {
+			expected[((p >> 20) & 0xF) << 8 | ((p >> 12) & 0xF) << 4 | ((p >> 4) & 0xF)]++;
+		}
+
+		assertEquals(pixels.length, histogram.getTotal());
+		assertEquals(4096, histogram.size());
+		assertTrue(Arrays.equals(expected, histogram.toArray()));
+		assertEquals(expected[histogram.bin(pixels[0])], histogram.count(pixels[0]));
+
+		ColorHistogram collected = IntStream.of(pixels).parallel().mapToObj(new IntFunction<PackedRGB>() {
+			@Override
+			public PackedRGB apply(int p) {
+				return PackedRGB.of(p);
+			}
+		}).collect(ColorStreams.toHistogram(4));
+		assertTrue(Arrays.equals(expected, collected.toArray()));
+
+		try {
+			ColorStreams.histogram(IntStream.empty(), 9);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testMeanLab() {
+		int[] pixels = TestPixels.random(20, 10000);
+		float[] lab = new float[pixels.length * 3];
+		CIELab.from(pixels, 0, pixels.length, lab, 0);
+		double l = 0, a = 0, b = 0;
+		for (int i = 0; i < lab.length; i += 3) {
+			l += lab[i];
+			a += lab[i + 1];
+			b += lab[i + 2];
+		}
+
+		CIELab mean = ColorStreams.meanLab(IntStream.of(pixels).parallel());
+		assertEquals(l / pixels.length, mean.getL(), 1e-3);
+		assertEquals(a / pixels.length, mean.getA(), 1e-3);
+		assertEquals(b / pixels.length, mean.getB(), 1e-3);
+
+		CIELab collected = IntStream.of(pixels).mapToObj(new IntFunction<PackedRGB>() {
+			@Override
+			public PackedRGB apply(int p) {
+				return PackedRGB.of(p);
+			}
+		}).parallel().collect(ColorStreams.toMeanLab());
+		assertEquals(mean.getL(), collected.getL(), 1e-3);
+		assertNull(ColorStreams.meanLab(IntStream.empty()));
+	}
+
+	public void testPaletteMatchesExtractor() {
+		int[] pixels = TestPixels.random(20, 40000);
+		Palette expected = new PaletteExtractor().medianCut(pixels, 0, pixels.length, 8);
+		Palette palette = ColorStreams.palette(IntStream.of(pixels).parallel(), 8);
+
+		long total = 0;
+		assertEquals(expected.size(), palette.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getRGB(i), palette.getRGB(i));
+			assertEquals(expected.getCount(i), palette.getCount(i));
+			total += palette.getCount(i);
+		}
+		assertEquals(pixels.length, total);
+	}
+}
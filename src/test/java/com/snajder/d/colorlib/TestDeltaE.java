@@ -0,0 +1,140 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestDeltaE extends TestCase {
+
+	/**
+	 * Pairs from Sharma, Wu, Dalal test data: L1, a1, b1, L2, a2, b2, deltaE.
+	 */
+	private static final double[][] CIEDE2000_DATA = {
+			{ 50.0000, 2.6772, -79.7751, 50.0000, 0.0000, -82.7485, 2.0425 },
+			{ 50.0000, 3.1571, -77.2803, 50.0000, 0.0000, -82.7485, 2.8615 },
+			{ 50.0000, 2.8361, -74.0200, 50.0000, 0.0000, -82.7485, 3.4412 },
+			{ 50.0000, 0.0000, 0.0000, 50.0000, -1.0000, 2.0000, 2.3669 },
+			{ 50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0009, 7.1792 },
+			{ 50.0000, 2.5000, 0.0000, 73.0000, 25.0000, -18.0000, 27.1492 },
+			{ 50.0000, 2.5000, 0.0000, 61.0000, -5.0000, 29.0000, 22.8977 },
+			{ 60.2574, -34.0099, 36.2677, 60.4626, -34.1751, 39.4387, 1.2644 } };
+
+	public void testCIEDE2000ReferenceData() {
+		for (double[] row : CIEDE2000_DATA) {
+			CIELab lab1 = new CIELab((float) row[0], (float) row[1], (float) row[2]);
+			CIELab lab2 = new CIELab((float) row[3], (float) row[4], (float) row[5]);
+
+			assertEquals(row[6], DeltaE.CIEDE2000.distance(lab1, lab2), 1e-4);
+			assertEquals(row[6], DeltaE.CIEDE2000.distance(lab2, lab1), 1e-4);
+		}
+	}
+
+	/**
+	 * Direct implementation of CIEDE2000 formula using hue angles.
+	 */
+	private static double ciede2000(double l1, double a1, double b1, double l2, double a2, double b2) {
+		double cBar = (Math.hypot(a1, b1) + Math.hypot(a2, b2)) / 2;
+		double g = 0.5 * (1 - Math.sqrt(Math.pow(cBar, 7) / (Math.pow(cBar, 7) + Math.pow(25, 7))));
+		double ap1 = (1 + g) * a1;
+		double ap2 = (1 + g) * a2;
+		double cp1 = Math.hypot(ap1, b1);
+		double cp2 = Math.hypot(ap2, b2);
+		double hp1 = (Math.toDegrees(Math.atan2(b1, ap1)) + 360) % 360;
+		double hp2 = (Math.toDegrees(Math.atan2(b2, ap2)) + 360) % 360;
+
+		double dhp = hp2 - hp1;
+		if (dhp > 180) {
+			dhp -= 360;
+		} else if (dhp < -180) {
+			dhp += 360;
+		}
+		double dHp = 2 * Math.sqrt(cp1 * cp2) * Math.sin(Math.toRadians(dhp / 2));
+
+		double hBar = Math.abs(hp1 - hp2) <= 180 ? (hp1 + hp2) / 2
+				: hp1 + hp2 < 360 ? (hp1 + hp2 + 360) / 2 : (hp1 + hp2 - 360) / 2;
+		double lBar = (l1 + l2) / 2;
+		double cBarP = (cp1 + cp2) / 2;
+		double t = 1 - 0.17 * Math.cos(Math.toRadians(hBar - 30)) + 0.24 * Math.cos(Math.toRadians(2 * hBar))
+				+ 0.32 * Math.cos(Math.toRadians(3 * hBar + 6)) - 0.20 * Math.cos(Math.toRadians(4 * hBar - 63));
+		double sl = 1 + 0.015 * (lBar - 50) * (lBar - 50) / Math.sqrt(20 + (lBar - 50) * (lBar - 50));
+		double sc = 1 + 0.045 * cBarP;
+		double sh = 1 + 0.015 * cBarP * t;
+		double rt = -2 * Math.sqrt(Math.pow(cBarP, 7) / (Math.pow(cBarP, 7) + Math.pow(25, 7)))
+				* Math.sin(Math.toRadians(60 * Math.exp(-Math.pow((hBar - 275) / 25, 2))));
+
+		double lt = (l2 - l1) / sl;
+		double ct = (cp2 - cp1) / sc;
+		double ht = dHp / sh;
+		return Math.sqrt(lt * lt + ct * ct + ht * ht + rt * ct * ht);
+	}
+
+	public void testCIEDE2000MatchesHueAngleFormula() {
+		Random random = new Random(14);
+		for (int i = 0; i < 100000; i++) {
+			float l1 = random.nextFloat() * 100;
+			float a1 = random.nextFloat() * 200 - 100;
+			float b1 = random.nextFloat() * 200 - 100;
+			float l2 = random.nextFloat() * 100;
+			float a2 = random.nextFloat() * 200 - 100;
+			float b2 = random.nextFloat() * 200 - 100;
+			if (i % 4 == 0) {
+				a2 = a1 + random.nextFloat() - 0.5f;
+			}
+
+			double expected = ciede2000(l1, a1, b1, l2, a2, b2);
+			float actual = DeltaE.CIEDE2000.distance(PreparedLab.from(l1, a1, b1), PreparedLab.from(l2, a2, b2));
+			assertEquals(expected, actual, 1e-5 + expected * 1e-5);
+		}
+	}
+
+	public void testCIE94() {
+		CIELab gray = new CIELab(50, 0, 0);
+		CIELab color = new CIELab(50, 3, 4);
+
+		assertEquals(5f, DeltaE.CIE94.distance(gray, color), 1e-5f);
+		assertEquals(5f / 1.225f, DeltaE.CIE94.distance(color, gray), 1e-5f);
+		assertEquals(10f, DeltaE.CIE94.distance(new CIELab(60, 3, 4), new CIELab(50, 3, 4)), 1e-5f);
+	}
+
+	public void testCIE76MatchesDistance() {
+		Random random = new Random(12);
+		for (int i = 0; i < 1000; i++) {
+			CIELab lab1 = CIELab.from(RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+			CIELab lab2 = CIELab.from(RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+
+			assertEquals(lab1.distance(lab2), DeltaE.CIE76.distance(lab1, lab2), 0f);
+			assertEquals(lab1.distance(lab2), lab1.distance(lab2, DeltaE.CIE76), 0f);
+		}
+	}
+
+	public void testIdenticalColors() {
+		PreparedLab lab = PreparedLab.from(30, -20, 10);
+		for (DeltaE metric : DeltaE.values()) {
+			assertEquals(0f, metric.distance(lab, lab), 0f);
+		}
+	}
+
+	public void testBatchMatchesPairwise() {
+		Random random = new Random(13);
+		PreparedLab[] samples = new PreparedLab[500];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = PreparedLab.from(random.nextFloat() * 100, random.nextFloat() * 200 - 100,
+					random.nextFloat() * 200 - 100);
+		}
+		PreparedLab query = PreparedLab.from(new CIELab(40, 20, -30));
+
+		for (DeltaE metric : DeltaE.values()) {
+			float[] distances = new float[samples.length + 1];
+			metric.distance(query, samples, 0, samples.length, distances, 1);
+
+			int nearest = 0;
+			for (int i = 0; i < samples.length; i++) {
+				assertEquals(metric.distance(query.toCIELab(), samples[i].toCIELab()), distances[i + 1], 0f);
+				if (distances[i + 1] < distances[nearest + 1]) {
+					nearest = i;
+				}
+			}
+			assertEquals(nearest, metric.nearest(query, samples));
+		}
+	}
+}
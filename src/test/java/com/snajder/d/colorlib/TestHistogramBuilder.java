@@ -0,0 +1,134 @@
+package com.snajder.d.colorlib;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class TestHistogramBuilder extends TestCase {
+	private static final int WIDTH = 173;
+	private static final int HEIGHT = 91;
+
+	private static long[] hueSaturationCounts(int[] pixels) {
+		long[] counts = new long[36 * 10];
+		for (int p : pixels) {
+			HSL hsl = HSL.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+			int h = Math.min(35, (int) (hsl.getH() / 10f));
+			int s = Math.min(9, (int) (hsl.getS() * 10f));
+			counts[h * 10 + s]++;
+		}
+		return counts;
+	}
+
+	public void testParallelMatchesPerPixelBinning() {
+		int[] pixels = TestPixels.random(21, WIDTH * HEIGHT);
+		BinLayout layout = BinLayout.of(Space.HSL, 36, 10, 1);
+		HistogramBuilder builder = new HistogramBuilder(new ForkJoinPool(4), 100);
+
+		SpaceHistogram histogram = builder.build(layout, pixels, 0, pixels.length);
+		assertEquals(360, layout.size());
+		assertEquals(pixels.length, histogram.getTotal());
+		assertTrue(Arrays.equals(hueSaturationCounts(pixels), histogram.toArray()));
+		assertTrue(Arrays.equals(histogram.toArray(), new HistogramBuilder().build(layout, pixels, 0,
+				pixels.length).toArray()));
+	}
+
+	public void testImagesAndRastersMerge() {
+		int[] first = TestPixels.random(1, WIDTH * HEIGHT);
+		int[] second = TestPixels.random(2, WIDTH * HEIGHT);
+		BufferedImage packed = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		packed.setRGB(0, 0, WIDTH, HEIGHT, first, 0, WIDTH);
+		BufferedImage bytes = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+		bytes.setRGB(0, 0, WIDTH, HEIGHT, second, 0, WIDTH);
+
+		BinLayout layout = BinLayout.of(Space.CIELAB, 8, 6, 6);
+		HistogramBuilder builder = new HistogramBuilder(new ForkJoinPool(3), 500);
+
+		int[] both = Arrays.copyOf(first, first.length * 2);
+		System.arraycopy(second, 0, both, first.length, second.length);
+		long[] expected = builder.build(layout, both, 0, both.length).toArray();
+
+		SpaceHistogram images = builder.add(builder.build(layout, packed), bytes);
+		assertTrue(Arrays.equals(expected, images.toArray()));
+
+		SpaceHistogram rasters = builder.build(layout, packed.getRaster());
+		rasters.merge(builder.build(layout, bytes.getRaster()));
+		assertEquals(both.length, rasters.getTotal());
+
+		try {
+			rasters.merge(new SpaceHistogram(BinLayout.of(Space.CIELAB, 8, 6, 5)));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testLayoutRanges() {
+		BinLayout rgb = BinLayout.of(Space.RGB, 4, 4, 4);
+		assertEquals(0, rgb.bin(0f, 0f, 0f));
+		assertEquals(63, rgb.bin(255f, 255f, 255f));
+		assertEquals(63, rgb.bin(1000f, 1000f, 1000f));
+		assertEquals(0, rgb.bin(-1f, -1f, -1f));
+		assertEquals(1 * 16 + 2 * 4 + 3, rgb.bin(64f, 128f, 192f));
+
+		BinLayout lab = BinLayout.of(Space.CIELAB, 2, 2, 2);
+		float[] white = new float[3];
+		Space.CIELAB.fromRGB(new int[] { 0xFFFFFF }, 0, 1, white, 0);
+		assertEquals(white[0], lab.getMax(0), 0f);
+		assertTrue(lab.getMin(1) < 0f && lab.getMax(1) > 0f);
+
+		BinLayout custom = BinLayout.of(Space.HSL, new int[] { 2, 1, 1 }, new float[] { 0f, 0f, 0f },
+				new float[] { 180f, 1f, 1f });
+		assertEquals(1, custom.bin(200f, 0.5f, 0.5f));
+		assertEquals(BinLayout.of(Space.HSL, 2, 1, 1).hashCode(), BinLayout.of(Space.HSL, 2, 1, 1).hashCode());
+		assertFalse(custom.equals(BinLayout.of(Space.HSL, 2, 1, 1)));
+
+		try {
+			BinLayout.of(Space.RGB, 0, 1, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testStripedConcurrentUpdates() throws InterruptedException {
+		final BinLayout layout = BinLayout.of(Space.HSL, 36, 10, 1);
+		final StripedHistogram striped = new StripedHistogram(layout);
+		final int[][] parts = new int[4][];
+		Thread[] threads = new Thread[parts.length];
+
+		for (int t = 0; t < threads.length; t++) {
+			final int[] part = TestPixels.random(t, 20000);
+			parts[t] = part;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					striped.add(part, 0, 10000);
+					for (int i = 10000; i < part.length; i++) {
+						HSL hsl = HSL.from((part[i] >> 16) & 0xFF, (part[i] >> 8) & 0xFF, part[i] & 0xFF);
+						striped.add(hsl.getH(), hsl.getS(), hsl.getL());
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		long[] expected = new long[layout.size()];
+		for (int[] part : parts) {
+			long[] counts = hueSaturationCounts(part);
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] += counts[i];
+			}
+		}
+		SpaceHistogram snapshot = striped.snapshot();
+		assertEquals(80000, snapshot.getTotal());
+		assertTrue(Arrays.equals(expected, snapshot.toArray()));
+
+		striped.reset();
+		assertEquals(0, striped.snapshot().getTotal());
+	}
+}
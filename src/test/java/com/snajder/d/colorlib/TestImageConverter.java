@@ -0,0 +1,117 @@
+package com.snajder.d.colorlib;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class TestImageConverter extends TestCase {
+	private static final int WIDTH = 173;
+	private static final int HEIGHT = 91;
+
+	private static float[] expected(Space space, int p) {
+		RGB rgb = RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+		switch (space) {
+		case RGB:
+			return new float[] { rgb.getR(), rgb.getG(), rgb.getB() };
+		case HSL:
+			HSL hsl = HSL.from(rgb);
+			return new float[] { hsl.getH(), hsl.getS(), hsl.getL() };
+		case HSLRYB:
+			HSLRYB hslryb = HSLRYB.from(RYB.from(rgb));
+			return new float[] { hslryb.getH(), hslryb.getS(), hslryb.getL() };
+		case RYB:
+			RYB ryb = RYB.from(rgb);
+			return new float[] { ryb.getR(), ryb.getY(), ryb.getB() };
+		case XYZ:
+			XYZ xyz = XYZ.from(rgb);
+			return new float[] { xyz.getX(), xyz.getY(), xyz.getZ() };
+		default:
+			CIELab lab = CIELab.from(rgb);
+			return new float[] { lab.getL(), lab.getA(), lab.getB() };
+		}
+	}
+
+	private static void assertConverted(Space space, int[] pixels, float[] dst, int dstOffset) {
+		for (int i = 0; i < pixels.length; i++) {
+			float[] e = expected(space, pixels[i]);
+			for (int c = 0; c < 3; c++) {
+				assertEquals(space + " pixel " + i, e[c], dst[dstOffset + i * 3 + c], 0f);
+			}
+		}
+	}
+
+	public void testArrayMatchesObjectConversions() {
+		int[] pixels = TestPixels.random(8, WIDTH * HEIGHT);
+		ImageConverter converter = new ImageConverter(new ForkJoinPool(4), 100);
+
+		for (Space space : Space.values()) {
+			float[] dst = new float[pixels.length * 3 + 5];
+			converter.convert(pixels, 0, pixels.length, space, dst, 5);
+			assertConverted(space, pixels, dst, 5);
+		}
+	}
+
+	public void testSmallInputOnCallingThread() {
+		int[] pixels = TestPixels.random(8, 10);
+		float[] dst = new float[30];
+
+		new ImageConverter().convert(pixels, 0, pixels.length, Space.CIELAB, dst, 0);
+		assertConverted(Space.CIELAB, pixels, dst, 0);
+	}
+
+	public void testPackedRYB() {
+		int[] pixels = TestPixels.random(8, WIDTH * HEIGHT);
+		int[] ryb = new int[pixels.length];
+
+		new ImageConverter(ForkJoinPool.commonPool(), 64).toRYB(pixels, 0, pixels.length, ryb, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			assertEquals(RYB.fromRGB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF), ryb[i]);
+		}
+	}
+
+	public void testImages() {
+		int[] pixels = TestPixels.random(8, WIDTH * HEIGHT);
+		ImageConverter converter = new ImageConverter(ForkJoinPool.commonPool(), 500);
+
+		int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR };
+		for (int type : types) {
+			BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+			image.setRGB(0, 0, WIDTH, HEIGHT, pixels, 0, WIDTH);
+
+			for (Space space : Space.values()) {
+				float[] dst = new float[pixels.length * 3];
+				converter.convert(image, space, dst, 0);
+				assertConverted(space, pixels, dst, 0);
+
+				dst = new float[pixels.length * 3];
+				converter.convert(image.getRaster(), space, dst, 0);
+				assertConverted(space, pixels, dst, 0);
+			}
+		}
+	}
+
+	public void testSubimage() {
+		int[] pixels = TestPixels.random(8, WIDTH * HEIGHT);
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(0, 0, WIDTH, HEIGHT, pixels, 0, WIDTH);
+
+		BufferedImage sub = image.getSubimage(7, 11, 50, 40);
+		int[] expected = sub.getRGB(0, 0, 50, 40, null, 0, 50);
+		float[] dst = new float[expected.length * 3];
+
+		new ImageConverter(ForkJoinPool.commonPool(), 60).convert(sub, Space.HSL, dst, 0);
+		assertConverted(Space.HSL, expected, dst, 0);
+	}
+
+	public void testRangeChecked() {
+		try {
+			new ImageConverter().convert(new int[10], 0, 10, Space.RGB, new float[29], 0);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestInverseConversions extends TestCase {
+
+	public void testRoundTripWholeCube() {
+		int[] pixels = new int[1 << 16];
+		float[] lab = new float[pixels.length * 3];
+
+		for (int base = 0; base < (1 << 24); base += pixels.length) {
+			for (int i = 0; i < pixels.length; i++) {
+				pixels[i] = base + i;
+			}
+			CIELab.from(pixels, 0, pixels.length, lab, 0);
+
+			for (int i = 0; i < pixels.length; i++) {
+				RGB rgb = RGB.from(new CIELab(lab[i * 3], lab[i * 3 + 1], lab[i * 3 + 2]));
+				assertEquals(Integer.toHexString(pixels[i]), pixels[i],
+						(rgb.getR() << 16) | (rgb.getG() << 8) | rgb.getB());
+			}
+		}
+	}
+
+	public void testXYZRoundTrip() {
+		Random random = new Random(16);
+		for (int i = 0; i < 10000; i++) {
+			RGB rgb = RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+			XYZ xyz = XYZ.from(rgb);
+			XYZ back = XYZ.from(CIELab.from(xyz));
+
+			assertEquals(xyz.getX(), back.getX(), 1e-6f);
+			assertEquals(xyz.getY(), back.getY(), 1e-6f);
+			assertEquals(xyz.getZ(), back.getZ(), 1e-6f);
+			assertEquals(rgb.toString(), RGB.from(xyz).toString());
+		}
+	}
+
+	public void testOutOfGamutClamped() {
+		RGB rgb = RGB.from(new XYZ(2f, -1f, 0.5f));
+
+		assertTrue(rgb.getR() >= 0 && rgb.getR() <= 255);
+		assertEquals(0, rgb.getG());
+		assertTrue(rgb.getB() >= 0 && rgb.getB() <= 255);
+		assertEquals("[r=255, g=255, b=255]", RGB.from(new XYZ(0.9505f, 1f, 1.089f)).toString());
+	}
+}
@@ -0,0 +1,104 @@
+package com.snajder.d.colorlib;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class TestPackedColors extends TestCase {
+
+	public void testValueSemantics() {
+		PackedRGB a = PackedRGB.of(10, 20, 30);
+		PackedRGB b = PackedRGB.of(0xFF0A141E);
+
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertEquals(PackedRGB.hash(0x0A141E), a.hashCode());
+		assertEquals(0x0A141E, a.intValue());
+		assertEquals("[r=10, g=20, b=30]", a.toString());
+		assertEquals(a.toString(), a.toRGB().toString());
+		assertFalse(a.equals(PackedRYB.of(0x0A141E)));
+		assertFalse(a.equals(PackedRGB.of(0x0A141F)));
+
+		assertEquals(10, PackedRGB.red(0x0A141E));
+		assertEquals(20, PackedRYB.yellow(0x0A141E));
+		assertEquals(30, PackedRGB.blue(0x0A141E));
+		assertEquals("[r=10, y=20, b=30]", PackedRYB.of(10, 20, 30).toString());
+
+		try {
+			PackedRGB.pack(256, 0, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testFlyweight() {
+		assertSame(PackedRGB.of(0x123456), PackedRGB.of(0x123456));
+		assertSame(PackedRYB.of(0x123456), PackedRYB.from(RYB.from(0x12, 0x34, 0x56)));
+
+		Set<PackedRGB> set = new HashSet<PackedRGB>();
+		Random random = new Random(19);
+		for (int i = 0; i < 100000; i++) {
+			set.add(PackedRGB.of(random.nextInt(64)));
+		}
+		assertEquals(64, set.size());
+	}
+
+	public void testConversionsMatchObjects() {
+		Random random = new Random(19);
+		for (int i = 0; i < 10000; i++) {
+			RGB rgb = RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+			RYB ryb = RYB.from(rgb);
+
+			PackedRYB packed = PackedRYB.from(PackedRGB.from(rgb));
+			assertEquals(ryb.toString(), packed.toString());
+			assertEquals(RGB.from(ryb).toString(), PackedRGB.from(packed).toString());
+			assertEquals(packed.intValue(), PackedRYB.fromRGB(PackedRGB.from(rgb).intValue()));
+		}
+	}
+
+	public void testColorSetConcurrentDedup() throws InterruptedException {
+		final PackedColorSet set = new PackedColorSet();
+		final AtomicInteger added = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+
+		for (int t = 0; t < threads.length; t++) {
+			final int seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					for (int i = 0; i < 200000; i++) {
+						if (set.add(random.nextInt(50000) * 331)) {
+							added.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		int[] colors = set.toArray();
+		assertEquals(added.get(), set.size());
+		assertEquals(added.get(), colors.length);
+		for (int i = 1; i < colors.length; i++) {
+			assertTrue(colors[i - 1] < colors[i]);
+			assertEquals(0, colors[i] % 331);
+		}
+
+		assertTrue(set.contains(colors[0] | 0xFF000000));
+		assertTrue(set.remove(colors[0]));
+		assertFalse(set.remove(colors[0]));
+		assertFalse(set.contains(colors[0]));
+
+		set.clear();
+		assertEquals(0, set.size());
+		assertEquals(0, set.toArray().length);
+	}
+}
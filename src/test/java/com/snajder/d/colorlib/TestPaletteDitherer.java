@@ -0,0 +1,150 @@
+package com.snajder.d.colorlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class TestPaletteDitherer extends TestCase {
+	private static final int[] BLACK_WHITE = { 0x000000, 0xFFFFFF };
+	private static final int[] PALETTE = { 0x000000, 0xFFFFFF, 0xD02020, 0x20A040, 0x2040C0, 0xF0E0A0, 0x808080 };
+	private static final int WIDTH = 301;
+	private static final int HEIGHT = 157;
+
+	private static int[] flat(int color) {
+		int[] image = new int[WIDTH * HEIGHT];
+		Arrays.fill(image, color);
+		return image;
+	}
+
+	private static int count(int[] indices, int index) {
+		int count = 0;
+		for (int i : indices) {
+			if (i == index) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public void testPaletteColorsAreKept() {
+		PaletteDitherer ditherer = new PaletteDitherer(PALETTE, 0, PALETTE.length);
+		int[] image = new int[WIDTH * HEIGHT];
+		for (int i = 0; i < image.length; i++) {
+			image[i] = PALETTE[(i / 7 + i / WIDTH) % PALETTE.length];
+		}
+
+		int[] diffused = new int[image.length];
+		ditherer.diffuse(image, 0, WIDTH, HEIGHT, diffused, 0);
+		int[] rgb = new int[image.length];
+		ditherer.toRGB(diffused, 0, diffused.length, rgb, 0);
+		assertTrue(Arrays.equals(image, rgb));
+	}
+
+	public void testDiffusionPreservesTone() {
+		PaletteDitherer ditherer = new PaletteDitherer(BLACK_WHITE, 0, BLACK_WHITE.length);
+		int[] indices = new int[WIDTH * HEIGHT];
+
+		ditherer.diffuse(flat(0x808080), 0, WIDTH, HEIGHT, indices, 0);
+		float[] gray = new float[3];
+		CIELab.from(new int[] { 0x808080 }, 0, 1, gray, 0);
+		float[] white = new float[3];
+		CIELab.from(new int[] { 0xFFFFFF }, 0, 1, white, 0);
+
+		double expected = gray[0] / white[0];
+		double actual = count(indices, 1) / (double) indices.length;
+		assertEquals(expected, actual, 0.01);
+	}
+
+	public void testParallelDiffusionMatchesSerial() {
+		int[] image = TestPixels.random(24, WIDTH * HEIGHT);
+		ForkJoinPool serialPool = new ForkJoinPool(1);
+		ForkJoinPool parallelPool = new ForkJoinPool(4);
+		try {
+			PaletteDitherer serial = new PaletteDitherer(PALETTE, 0, PALETTE.length, serialPool, 1);
+			PaletteDitherer parallel = new PaletteDitherer(PALETTE, 0, PALETTE.length, parallelPool, 1);
+
+			int[] expected = new int[image.length + 3];
+			serial.diffuse(image, 0, WIDTH, HEIGHT, expected, 3);
+			for (int i = 0; i < 5; i++) {
+				int[] actual = new int[image.length + 3];
+				parallel.diffuse(image, 0, WIDTH, HEIGHT, actual, 3);
+				assertTrue(Arrays.equals(expected, actual));
+			}
+		} finally {
+			serialPool.shutdown();
+			parallelPool.shutdown();
+		}
+	}
+
+	public void testBayerMatrix() {
+		int[] expected = { //
+				0, 32, 8, 40, 2, 34, 10, 42, //
+				48, 16, 56, 24, 50, 18, 58, 26, //
+				12, 44, 4, 36, 14, 46, 6, 38, //
+				60, 28, 52, 20, 62, 30, 54, 22, //
+				3, 35, 11, 43, 1, 33, 9, 41, //
+				51, 19, 59, 27, 49, 17, 57, 25, //
+				15, 47, 7, 39, 13, 45, 5, 37, //
+				63, 31, 55, 23, 61, 29, 53, 21 };
+		assertTrue(Arrays.equals(expected, PaletteDitherer.bayer(8)));
+	}
+
+	public void testOrderedDithering() {
+		PaletteDitherer ditherer = new PaletteDitherer(BLACK_WHITE, 0, BLACK_WHITE.length);
+		int[] indices = new int[WIDTH * HEIGHT];
+		float[] white = new float[3];
+		CIELab.from(new int[] { 0xFFFFFF }, 0, 1, white, 0);
+
+		for (int v = 0x10; v < 0x100; v += 0x10) {
+			int color = v << 16 | v << 8 | v;
+			ditherer.ordered(flat(color), 0, WIDTH, HEIGHT, indices, 0);
+			float[] gray = new float[3];
+			CIELab.from(new int[] { color }, 0, 1, gray, 0);
+
+			double expected = gray[0] / white[0];
+			double actual = count(indices, 1) / (double) indices.length;
+			assertEquals(Integer.toHexString(v), expected, actual, 0.02);
+		}
+
+		ditherer.ordered(flat(0x000000), 0, WIDTH, HEIGHT, indices, 0);
+		assertEquals(0, count(indices, 1));
+		ditherer.ordered(flat(0xFFFFFF), 0, WIDTH, HEIGHT, indices, 0);
+		assertEquals(indices.length, count(indices, 1));
+	}
+
+	public void testParallelOrderedMatchesSerial() {
+		int[] image = TestPixels.random(25, WIDTH * HEIGHT);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			PaletteDitherer ditherer = new PaletteDitherer(PALETTE, 0, PALETTE.length, pool, 1);
+			int[] actual = new int[image.length];
+			ditherer.ordered(image, 0, WIDTH, HEIGHT, actual, 0);
+
+			PaletteDitherer serial = new PaletteDitherer(PALETTE, 0, PALETTE.length, pool, Integer.MAX_VALUE);
+			int[] expected = new int[image.length];
+			serial.ordered(image, 0, WIDTH, HEIGHT, expected, 0);
+			assertTrue(Arrays.equals(expected, actual));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public void testInvalidArguments() {
+		try {
+			new PaletteDitherer(PALETTE, 0, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		PaletteDitherer ditherer = new PaletteDitherer(PALETTE, 0, PALETTE.length);
+		try {
+			ditherer.diffuse(new int[10], 0, 4, 3, new int[12], 0);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		ditherer.diffuse(new int[0], 0, 0, 5, new int[0], 0);
+	}
+}
@@ -0,0 +1,102 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class TestPaletteExtractor extends TestCase {
+	private static final int[] BASE = { 0xD02020, 0x20A040, 0x2040C0, 0xF0E0A0 };
+
+	private static int[] clusteredPixels(int count) {
+		Random random = new Random(10);
+		int[] pixels = new int[count];
+		for (int i = 0; i < count; i++) {
+			int base = BASE[i % BASE.length];
+			int r = ((base >> 16) & 0xFF) + random.nextInt(7) - 3;
+			int g = ((base >> 8) & 0xFF) + random.nextInt(7) - 3;
+			int b = (base & 0xFF) + random.nextInt(7) - 3;
+			pixels[i] = (r << 16) | (g << 8) | b;
+		}
+		return pixels;
+	}
+
+	private static void assertFindsBaseColors(Palette palette, int pixels) {
+		assertEquals(BASE.length, palette.size());
+
+		int total = 0;
+		for (int i = 0; i < palette.size(); i++) {
+			total += palette.getCount(i);
+			if (i > 0) {
+				assertTrue(palette.getCount(i - 1) >= palette.getCount(i));
+			}
+
+			boolean found = false;
+			for (int base : BASE) {
+				int p = palette.getRGB(i);
+				found |= Math.abs(((p >> 16) & 0xFF) - ((base >> 16) & 0xFF)) <= 1
+						&& Math.abs(((p >> 8) & 0xFF) - ((base >> 8) & 0xFF)) <= 1
+						&& Math.abs((p & 0xFF) - (base & 0xFF)) <= 1;
+			}
+			assertTrue(palette.toString(), found);
+		}
+		assertEquals(pixels, total);
+	}
+
+	public void testMedianCutFindsClusters() {
+		int[] pixels = clusteredPixels(200000);
+		Palette palette = new PaletteExtractor(ForkJoinPool.commonPool(), 10000).medianCut(pixels, 0,
+				pixels.length, 4);
+
+		assertFindsBaseColors(palette, pixels.length);
+	}
+
+	public void testKMeansFindsClusters() {
+		int[] pixels = clusteredPixels(200000);
+		Palette palette = new PaletteExtractor(ForkJoinPool.commonPool(), 10000).kMeans(pixels, 0, pixels.length,
+				4);
+
+		assertFindsBaseColors(palette, pixels.length);
+	}
+
+	public void testExactColors() {
+		int[] pixels = { 0x123456, 0x123456, 0xFEDCBA, 0x000000, 0x123456 };
+		PaletteExtractor extractor = new PaletteExtractor();
+
+		Palette[] palettes = { extractor.medianCut(pixels, 0, pixels.length, 8),
+				extractor.kMeans(pixels, 0, pixels.length, 8),
+				extractor.medianCut(pixels, 0, pixels.length, Integer.MAX_VALUE),
+				extractor.kMeans(pixels, 0, pixels.length, Integer.MAX_VALUE),
+				ColorStreams.palette(IntStream.of(pixels), Integer.MAX_VALUE) };
+		for (Palette palette : palettes) {
+			assertEquals(3, palette.size());
+			assertEquals(0x123456, palette.getRGB(0));
+			assertEquals(3, palette.getCount(0));
+			assertEquals(0x12, palette.getColor(0).getR());
+			assertEquals(1, palette.getCount(1));
+			assertEquals(1, palette.getCount(2));
+		}
+	}
+
+	public void testParallelMatchesSingleThread() {
+		Random random = new Random(11);
+		int[] pixels = new int[300000];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = random.nextInt();
+		}
+
+		PaletteExtractor parallel = new PaletteExtractor(new ForkJoinPool(4), 5000);
+		PaletteExtractor single = new PaletteExtractor(new ForkJoinPool(1), 5000);
+
+		assertEquals(single.kMeans(pixels, 0, pixels.length, 16).toString(),
+				parallel.kMeans(pixels, 0, pixels.length, 16).toString());
+		assertEquals(single.medianCut(pixels, 0, pixels.length, 16).toString(),
+				parallel.medianCut(pixels, 0, pixels.length, 16).toString());
+	}
+
+	public void testEmpty() {
+		assertEquals(0, new PaletteExtractor().kMeans(new int[0], 0, 0, 4).size());
+		assertEquals(0, new PaletteExtractor().medianCut(new int[0], 0, 0, 4).size());
+	}
+}
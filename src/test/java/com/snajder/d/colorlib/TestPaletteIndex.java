@@ -0,0 +1,127 @@
+package com.snajder.d.colorlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestPaletteIndex extends TestCase {
+	private final Random random = new Random(7);
+
+	private List<RGB> randomPalette(int size) {
+		List<RGB> palette = new ArrayList<RGB>();
+		for (int i = 0; i < size; i++) {
+			palette.add(RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+		}
+		return palette;
+	}
+
+	private static int linearNearest(List<CIELab> palette, CIELab lab) {
+		int best = -1;
+		float bestDistance = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < palette.size(); i++) {
+			float d = palette.get(i).distance(lab);
+			if (d < bestDistance) {
+				best = i;
+				bestDistance = d;
+			}
+		}
+		return best;
+	}
+
+	private static List<CIELab> toLab(List<RGB> palette) {
+		List<CIELab> lab = new ArrayList<CIELab>();
+		for (RGB rgb : palette) {
+			lab.add(CIELab.from(rgb));
+		}
+		return lab;
+	}
+
+	public void testNearestMatchesLinearScan() {
+		List<RGB> palette = randomPalette(2000);
+		List<CIELab> lab = toLab(palette);
+		PaletteIndex index = PaletteIndex.fromRGB(palette);
+
+		assertEquals(2000, index.size());
+		for (int i = 0; i < 5000; i++) {
+			CIELab q = CIELab.from(RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+			int expected = linearNearest(lab, q);
+			int actual = index.nearest(q);
+			assertEquals(lab.get(expected).distance(q), lab.get(actual).distance(q), 0f);
+		}
+	}
+
+	public void testKNearestAndRadiusMatchBruteForce() {
+		List<RGB> palette = randomPalette(500);
+		List<CIELab> lab = toLab(palette);
+		PaletteIndex index = PaletteIndex.fromLab(lab);
+
+		for (int i = 0; i < 500; i++) {
+			CIELab q = CIELab.from(RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+
+			int[] knn = index.nearest(q, 10);
+			assertEquals(10, knn.length);
+			int closer = 0;
+			float kth = lab.get(knn[9]).distance(q);
+			for (int j = 0; j < lab.size(); j++) {
+				if (lab.get(j).distance(q) < kth) {
+					closer++;
+				}
+			}
+			assertTrue(closer <= 9);
+			for (int j = 1; j < knn.length; j++) {
+				assertTrue(lab.get(knn[j - 1]).distance(q) <= lab.get(knn[j]).distance(q));
+			}
+
+			float radius = 1.5f;
+			int[] within = index.within(q, radius);
+			int expected = 0;
+			for (int j = 0; j < lab.size(); j++) {
+				float d = lab.get(j).distance(q);
+				if (d < radius * 0.999f) {
+					expected++;
+				}
+			}
+			assertTrue(within.length >= expected);
+			for (int id : within) {
+				assertTrue(lab.get(id).distance(q) <= radius * 1.001f);
+			}
+		}
+	}
+
+	public void testBatchNearest() {
+		List<RGB> palette = randomPalette(300);
+		PaletteIndex index = PaletteIndex.fromRGB(palette);
+
+		int[] pixels = new int[1000];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i % 3 == 0 && i > 0 ? pixels[i - 1] : random.nextInt(1 << 24);
+		}
+		int[] indices = new int[pixels.length];
+		index.nearest(pixels, 0, pixels.length, indices, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			assertEquals(index.nearest(CIELab.from(RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF))),
+					indices[i]);
+		}
+	}
+
+	public void testExactPaletteColorsFound() {
+		List<RGB> palette = randomPalette(1000);
+		PaletteIndex index = PaletteIndex.fromRGB(palette);
+
+		for (int i = 0; i < palette.size(); i++) {
+			int found = index.nearest(CIELab.from(palette.get(i)));
+			assertEquals(0f, CIELab.from(palette.get(found)).distance(CIELab.from(palette.get(i))), 0f);
+		}
+	}
+
+	public void testEmptyPalette() {
+		PaletteIndex index = PaletteIndex.fromRGB(new ArrayList<RGB>());
+		assertEquals(-1, index.nearest(new CIELab(0f, 0f, 0f)));
+		assertEquals(0, index.nearest(new CIELab(0f, 0f, 0f), 3).length);
+		assertEquals(0, index.within(new CIELab(0f, 0f, 0f), 10f).length);
+	}
+}
@@ -0,0 +1,123 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestPaletteTracker extends TestCase {
+	private static final int[] BASE = { 0xD02020, 0x20A040, 0x2040C0, 0xF0E0A0 };
+	private static final int WIDTH = 160;
+	private static final int HEIGHT = 96;
+	private static final int BLOCK = 32;
+
+	private final Random random = new Random(22);
+
+	/**
+	 * Fills block of the frame with noisy pixels of base color.
+	 */
+	private void fill(int[] frame, int block, int base) {
+		int blocksX = WIDTH / BLOCK;
+		int x0 = (block % blocksX) * BLOCK;
+		int y0 = (block / blocksX) * BLOCK;
+		for (int y = y0; y < y0 + BLOCK; y++) {
+			for (int x = x0; x < x0 + BLOCK; x++) {
+				int r = ((base >> 16) & 0xFF) + random.nextInt(7) - 3;
+				int g = ((base >> 8) & 0xFF) + random.nextInt(7) - 3;
+				int b = (base & 0xFF) + random.nextInt(7) - 3;
+				frame[y * WIDTH + x] = (r << 16) | (g << 8) | b;
+			}
+		}
+	}
+
+	private static void assertPalette(Palette palette, int[] blockColors) {
+		int[] expected = new int[BASE.length];
+		for (int c : blockColors) {
+			expected[c] += BLOCK * BLOCK;
+		}
+
+		int total = 0;
+		for (int i = 0; i < palette.size(); i++) {
+			int p = palette.getRGB(i);
+			int match = -1;
+			for (int c = 0; c < BASE.length; c++) {
+				int base = BASE[c];
+				if (Math.abs(((p >> 16) & 0xFF) - ((base >> 16) & 0xFF)) <= 1
+						&& Math.abs(((p >> 8) & 0xFF) - ((base >> 8) & 0xFF)) <= 1
+						&& Math.abs((p & 0xFF) - (base & 0xFF)) <= 1) {
+					match = c;
+				}
+			}
+			assertTrue(palette.toString(), match >= 0);
+			assertEquals(palette.toString(), expected[match], palette.getCount(i));
+			total += palette.getCount(i);
+		}
+		assertEquals(WIDTH * HEIGHT, total);
+	}
+
+	public void testTracksChangedTiles() {
+		int blocks = (WIDTH / BLOCK) * (HEIGHT / BLOCK);
+		int[] blockColors = new int[blocks];
+		int[] frame = new int[WIDTH * HEIGHT];
+		for (int block = 0; block < blocks; block++) {
+			blockColors[block] = block % BASE.length;
+			fill(frame, block, BASE[blockColors[block]]);
+		}
+
+		PaletteTracker tracker = new PaletteTracker(WIDTH, HEIGHT, BASE.length);
+		assertEquals(60, tracker.getTiles());
+		assertPalette(tracker.update(frame), blockColors);
+		assertEquals(60, tracker.getChangedTiles());
+
+		Palette same = tracker.update(frame.clone());
+		assertEquals(0, tracker.getChangedTiles());
+		assertPalette(same, blockColors);
+
+		for (int step = 0; step < 20; step++) {
+			int block = random.nextInt(blocks);
+			blockColors[block] = random.nextInt(BASE.length);
+			fill(frame, block, BASE[blockColors[block]]);
+
+			assertPalette(tracker.update(frame), blockColors);
+			assertEquals(4, tracker.getChangedTiles());
+		}
+	}
+
+	public void testUnboundedColors() {
+		int[] frame = new int[WIDTH * HEIGHT];
+		for (int i = 0; i < frame.length; i++) {
+			frame[i] = BASE[i % BASE.length];
+		}
+
+		PaletteTracker tracker = new PaletteTracker(WIDTH, HEIGHT, Integer.MAX_VALUE);
+		Palette palette = tracker.update(frame);
+		assertEquals(BASE.length, palette.size());
+		assertEquals(WIDTH * HEIGHT / BASE.length, palette.getCount(0));
+	}
+
+	public void testStrideAndReset() {
+		int[] frame = new int[WIDTH * HEIGHT];
+		for (int block = 0; block < 15; block++) {
+			fill(frame, block, BASE[block % 2]);
+		}
+		int[] padded = new int[7 + HEIGHT * (WIDTH + 3)];
+		for (int y = 0; y < HEIGHT; y++) {
+			System.arraycopy(frame, y * WIDTH, padded, 7 + y * (WIDTH + 3), WIDTH);
+		}
+
+		PaletteTracker tracker = new PaletteTracker(WIDTH, HEIGHT, 2, 8, 20, 1e-3f);
+		Palette palette = tracker.update(padded, 7, WIDTH + 3);
+		assertEquals(2, palette.size());
+
+		tracker.reset();
+		Palette again = tracker.update(frame);
+		assertEquals(palette.toString(), again.toString());
+		assertEquals(tracker.getTiles(), tracker.getChangedTiles());
+
+		try {
+			tracker.update(frame, 1, WIDTH);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
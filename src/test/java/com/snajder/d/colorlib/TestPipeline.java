@@ -0,0 +1,148 @@
+package com.snajder.d.colorlib;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import junit.framework.TestCase;
+
+public class TestPipeline extends TestCase {
+
+	private static RGB rgb(int p) {
+		return RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+	}
+
+	private static int packed(RGB rgb) {
+		return (rgb.getR() << 16) | (rgb.getG() << 8) | rgb.getB();
+	}
+
+	public void testRoutesThroughIntermediateSpaces() {
+		Pipeline pipeline = Pipeline.from(Space.RGB).to(Space.HSLRYB).rotateHue(120f).to(Space.CIELAB);
+
+		assertEquals(Space.RGB, pipeline.getSource());
+		assertEquals(Space.CIELAB, pipeline.getTarget());
+		assertEquals("RGB -> RYB -> HSLRYB -> rotateHue(120.0) -> RYB -> RGB -> XYZ -> CIELAB", pipeline.toString());
+		assertEquals("HSL -> RGB -> RYB", Pipeline.from(Space.HSL).to(Space.RYB).toString());
+		assertEquals("CIELAB -> XYZ", Pipeline.from(Space.CIELAB).to(Space.XYZ).to(Space.XYZ).toString());
+	}
+
+	public void testMatchesComplementaryAndTriads() {
+		Pipeline complementary = Pipeline.from(Space.RGB).to(Space.RYB).to(Space.HSLRYB).rotateHue(180f)
+				.to(Space.RGB);
+		Pipeline triad = Pipeline.from(Space.RGB).to(Space.HSLRYB).rotateHue(120f).to(Space.RGB);
+
+		int[] pixels = TestPixels.random(16, 20000);
+		int[] dst = new int[pixels.length];
+		complementary.apply(pixels, 0, pixels.length, dst, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			RGB rgb = rgb(pixels[i]);
+			assertEquals(packed(ColorSchemeRYB.getComplementary(rgb)), dst[i]);
+
+			List<RGB> triads = ColorSchemeRYB.getTriads(rgb);
+			assertEquals(packed(triads.get(0)), triad.applyAsInt(pixels[i]));
+		}
+	}
+
+	public void testFloatConversionsMatchObjects() {
+		int[] pixels = TestPixels.random(16, 20000);
+		float[] lab = new float[pixels.length * 3 + 1];
+		float[] hsl = new float[pixels.length * 3];
+
+		Pipeline.from(Space.RGB).to(Space.CIELAB).apply(pixels, 0, pixels.length, lab, 1);
+		Pipeline.from(Space.RYB).to(Space.HSL).apply(pixels, 0, pixels.length, hsl, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			CIELab expected = CIELab.from(rgb(pixels[i]));
+			assertEquals(expected.getL(), lab[1 + i * 3], 0f);
+			assertEquals(expected.getA(), lab[2 + i * 3], 0f);
+			assertEquals(expected.getB(), lab[3 + i * 3], 0f);
+
+			int p = pixels[i];
+			HSL h = HSL.from(RGB.from(RYB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF)));
+			assertEquals(h.getH(), hsl[i * 3], 0f);
+			assertEquals(h.getS(), hsl[i * 3 + 1], 0f);
+			assertEquals(h.getL(), hsl[i * 3 + 2], 0f);
+		}
+	}
+
+	public void testLabRoundTripInPlace() {
+		int[] pixels = TestPixels.random(16, 1000);
+		float[] v = new float[pixels.length * 3];
+		Pipeline.from(Space.RGB).to(Space.CIELAB).apply(pixels, 0, pixels.length, v, 0);
+
+		Pipeline.from(Space.CIELAB).to(Space.RGB).apply(v, 0, pixels.length, v, 0);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			assertEquals((p >> 16) & 0xFF, (int) v[i * 3]);
+			assertEquals((p >> 8) & 0xFF, (int) v[i * 3 + 1]);
+			assertEquals(p & 0xFF, (int) v[i * 3 + 2]);
+		}
+	}
+
+	public void testStreamAndLookupTable() {
+		Pipeline pipeline = Pipeline.from(Space.RGB).to(Space.HSL).rotateHue(-30f).to(Space.RGB);
+		int[] pixels = TestPixels.random(16, 1000);
+
+		int[] streamed = pipeline.apply(IntStream.of(pixels)).toArray();
+		ColorLookupTable table = ColorLookupTable.bake(pipeline, 18);
+
+		for (int i = 0; i < pixels.length; i++) {
+			assertEquals(pipeline.applyAsInt(pixels[i]), streamed[i]);
+		}
+		assertEquals(pipeline.applyAsInt(0x0F1E2D), table.apply(0x0F1E2D));
+	}
+
+	public void testOutOfRangeHSL() {
+		float[][] hsl = { { 0f, 1f, 1.1f }, { -30f, 1f, 0.5f }, { 0f, 1.2f, 0.5f } };
+		int[][] expected = { { 255, 306, 306 }, { 255, -127, 0 }, { 281, -26, -26 } };
+		int[] clamped = { 0xFFFFFF, 0xFF0000, 0xFF0000 };
+		float[] v = new float[3];
+
+		for (int i = 0; i < hsl.length; i++) {
+			RGB rgb = RGB.from(hsl[i][0], hsl[i][1], hsl[i][2]);
+			assertEquals(expected[i][0], rgb.getR());
+			assertEquals(expected[i][1], rgb.getG());
+			assertEquals(expected[i][2], rgb.getB());
+
+			assertEquals(clamped[i], RGB.fromHSL(hsl[i][0], hsl[i][1], hsl[i][2]));
+			Pipeline.from(Space.HSL).to(Space.RGB).apply(hsl[i], 0, 1, v, 0);
+			assertEquals((clamped[i] >> 16) & 0xFF, (int) v[0]);
+			assertEquals((clamped[i] >> 8) & 0xFF, (int) v[1]);
+			assertEquals(clamped[i] & 0xFF, (int) v[2]);
+		}
+	}
+
+	public void testRemainderMatchesOperator() {
+		Random random = new Random(16);
+		float[] divisors = { 2f, 6f, 360f };
+		float[] special = { 0f, -0f, 360f, -360f, 720f, 359.99997f, -1e-7f, 8388608f, Float.NaN,
+				Float.POSITIVE_INFINITY };
+
+		for (float n : divisors) {
+			for (float a : special) {
+				assertEquals(Float.floatToIntBits(a % n), Float.floatToIntBits(HSL.remainder(a, n)));
+			}
+			for (int i = 0; i < 100000; i++) {
+				float a = (random.nextFloat() - 0.5f) * (i % 2 == 0 ? 2000f : 1e7f);
+				assertEquals(Float.floatToIntBits(a % n), Float.floatToIntBits(HSL.remainder(a, n)));
+			}
+		}
+	}
+
+	public void testInvalidOperations() {
+		try {
+			Pipeline.from(Space.RGB).rotateHue(10f);
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			Pipeline.from(Space.RGB).to(Space.XYZ).applyAsInt(0);
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+/**
+ * Test data shared by tests of bulk operations.
+ */
+final class TestPixels {
+	private TestPixels() {
+	}
+
+	/**
+	 * Creates random packed RGB pixels, the same for the same seed.
+	 */
+	static int[] random(long seed, int count) {
+		Random random = new Random(seed);
+		int[] pixels = new int[count];
+		for (int i = 0; i < count; i++) {
+			pixels[i] = random.nextInt() & 0xFFFFFF;
+		}
+		return pixels;
+	}
+}
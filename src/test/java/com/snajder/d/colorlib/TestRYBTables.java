@@ -0,0 +1,97 @@
+package com.snajder.d.colorlib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+public class TestRYBTables extends TestCase {
+	private Path dir;
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = Files.createTempDirectory("ryb-tables");
+	}
+
+	@Override
+	protected void tearDown() throws IOException {
+		Files.deleteIfExists(dir.resolve("ryb.tables"));
+		Files.deleteIfExists(dir);
+	}
+
+	public void testLookupsMatchConversions() throws IOException {
+		Path file = dir.resolve("ryb.tables");
+		RYBTables tables = RYBTables.loadOrGenerate(file);
+
+		for (int p = 0; p < (1 << 24); p += 7) {
+			int c0 = (p >> 16) & 0xFF;
+			int c1 = (p >> 8) & 0xFF;
+			int c2 = p & 0xFF;
+
+			RYB ryb = RYB.from(RGB.from(c0, c1, c2));
+			assertEquals((ryb.getR() << 16) | (ryb.getY() << 8) | ryb.getB(), tables.toRYB(p));
+
+			RGB rgb = RGB.from(RYB.from(c0, c1, c2));
+			assertEquals((rgb.getR() << 16) | (rgb.getG() << 8) | rgb.getB(), tables.toRGB(p));
+		}
+
+		RYB ryb = tables.toRYB(RGB.from(255, 0, 0));
+		assertEquals(255, ryb.getR());
+		assertEquals(0, ryb.getY());
+		assertEquals(0, ryb.getB());
+	}
+
+	public void testBulkLookups() throws IOException {
+		Path file = dir.resolve("ryb.tables");
+		RYBTables.generate(file);
+		RYBTables tables = RYBTables.load(file);
+
+		int[] src = { 0xFF0000, 0x00FF00, 0x0000FF, 0x808080 };
+		int[] dst = new int[5];
+		tables.toRYB(src, 0, src.length, dst, 1);
+		for (int i = 0; i < src.length; i++) {
+			assertEquals(RYB.fromRGB((src[i] >> 16) & 0xFF, (src[i] >> 8) & 0xFF, src[i] & 0xFF), dst[i + 1]);
+		}
+
+		tables.toRGB(src, 0, src.length, dst, 0);
+		for (int i = 0; i < src.length; i++) {
+			assertEquals(RGB.fromRYB((src[i] >> 16) & 0xFF, (src[i] >> 8) & 0xFF, src[i] & 0xFF), dst[i]);
+		}
+	}
+
+	private static int clamped(int r, int g, int b) {
+		return (RGB.clamp(r) << 16) | (RGB.clamp(g) << 8) | RGB.clamp(b);
+	}
+
+	public void testOutOfRangeComponents() {
+		RGB rgb = RGB.from(RYB.from(-5, 10, 10));
+		assertEquals(245, rgb.getR());
+		assertEquals(260, rgb.getG());
+		assertEquals(245, rgb.getB());
+		assertEquals(clamped(245, 260, 245), RGB.fromRYB(-5, 10, 10));
+
+		rgb = RGB.from(RYB.from(300, 0, 0));
+		assertEquals(255, rgb.getR());
+		assertEquals(-45, rgb.getG());
+		assertEquals(-45, rgb.getB());
+		assertEquals(clamped(255, -45, -45), RGB.fromRYB(300, 0, 0));
+
+		int[][] values = { { -5, 10, 10 }, { 300, 0, 0 }, { 0, 300, 20 }, { 40, -60, 400 } };
+		for (int[] v : values) {
+			RYB ryb = RYB.from(RGB.from(v[0], v[1], v[2]));
+			assertEquals(clamped(ryb.getR(), ryb.getY(), ryb.getB()), RYB.fromRGB(v[0], v[1], v[2]));
+		}
+	}
+
+	public void testInvalidFileRejected() throws IOException {
+		Path file = dir.resolve("ryb.tables");
+		Files.write(file, new byte[16]);
+		try {
+			RYBTables.load(file);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
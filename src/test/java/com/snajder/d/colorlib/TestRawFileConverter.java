@@ -0,0 +1,104 @@
+package com.snajder.d.colorlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestRawFileConverter extends TestCase {
+	private static final int PIXELS = 10007;
+
+	private Path dir;
+	private Path input;
+	private Path output;
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = Files.createTempDirectory("raw-converter");
+		input = dir.resolve("input.raw");
+		output = dir.resolve("output.raw");
+	}
+
+	@Override
+	protected void tearDown() throws IOException {
+		Files.deleteIfExists(input);
+		Files.deleteIfExists(output);
+		Files.deleteIfExists(dir);
+	}
+
+	private int[] writeInput(RawFileConverter.Layout layout) throws IOException {
+		Random random = new Random(9);
+		int[] pixels = new int[PIXELS];
+		byte[] bytes = new byte[PIXELS * layout.getBytes()];
+
+		for (int i = 0, k = 0; i < PIXELS; i++) {
+			pixels[i] = random.nextInt() & 0xFFFFFF;
+			bytes[k++] = (byte) (pixels[i] >> 16);
+			bytes[k++] = (byte) (pixels[i] >> 8);
+			bytes[k++] = (byte) pixels[i];
+			if (layout == RawFileConverter.Layout.RGBA) {
+				bytes[k++] = (byte) random.nextInt();
+			}
+		}
+		Files.write(input, bytes);
+
+		return pixels;
+	}
+
+	private void assertOutput(Space space, int[] pixels) throws IOException {
+		float[] expected = new float[pixels.length * 3];
+		space.fromRGB(pixels, 0, pixels.length, expected, 0);
+
+		ByteBuffer actual = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(expected.length * 4, actual.remaining());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual.getFloat(), 0f);
+		}
+	}
+
+	public void testConvertsAllSpaces() throws IOException {
+		for (RawFileConverter.Layout layout : RawFileConverter.Layout.values()) {
+			int[] pixels = writeInput(layout);
+
+			for (Space space : Space.values()) {
+				final List<Long> chunks = new ArrayList<Long>();
+				RawFileConverter converter = new RawFileConverter(layout, space, 5000);
+
+				long converted = converter.convert(input, output, new RawFileConverter.ChunkListener() {
+					@Override
+					public void chunkConverted(long chunk, long pixels, long nanos) {
+						assertEquals(chunks.size(), chunk);
+						assertTrue(nanos >= 0);
+						chunks.add(pixels);
+					}
+				});
+
+				assertEquals(PIXELS, converted);
+				long total = 0;
+				for (long c : chunks) {
+					total += c;
+				}
+				assertEquals(PIXELS, total);
+				int window = 5000 - 5000 % layout.getBytes();
+				assertEquals((PIXELS * layout.getBytes() + window - 1) / window, chunks.size());
+				assertOutput(space, pixels);
+			}
+		}
+	}
+
+	public void testTruncatedInputRejected() throws IOException {
+		Files.write(input, new byte[7]);
+		try {
+			new RawFileConverter(RawFileConverter.Layout.RGB, Space.CIELAB).convert(input, output, null);
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
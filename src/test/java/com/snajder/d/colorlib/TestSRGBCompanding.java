@@ -0,0 +1,74 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import com.snajder.d.colorlib.util.SRGBCompanding;
+import com.snajder.d.colorlib.util.XYZMatrices;
+
+import junit.framework.TestCase;
+
+public class TestSRGBCompanding extends TestCase {
+
+	/**
+	 * Inverse companding as it was implemented in {@link XYZ} before the
+	 * lookup table was introduced.
+	 */
+	private static float powInverseCompanding(float v) {
+		if (v > 0.04045) {
+			return (float) Math.pow((v + 0.055f) / 1.055f, 2.4f);
+		} else {
+			return v / 12.92f;
+		}
+	}
+
+	public void testLinearizeIsBitIdenticalToPow() {
+		for (int c = 0; c < 256; c++) {
+			assertEquals("component " + c, Float.floatToIntBits(powInverseCompanding(c / 255f)),
+					Float.floatToIntBits(SRGBCompanding.linearize(c)));
+		}
+	}
+
+	public void testLinearizeOutOfRangeFallsBackToFormula() {
+		assertEquals(powInverseCompanding(300 / 255f), SRGBCompanding.linearize(300), 0f);
+		assertEquals(powInverseCompanding(-3 / 255f), SRGBCompanding.linearize(-3), 0f);
+	}
+
+	public void testXYZIsBitIdenticalToPow() {
+		float[] M = XYZMatrices.SRGB;
+		for (int p = 0; p < (1 << 24); p += 17) {
+			RGB rgb = RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+
+			float r = powInverseCompanding(rgb.getR() / 255f);
+			float g = powInverseCompanding(rgb.getG() / 255f);
+			float b = powInverseCompanding(rgb.getB() / 255f);
+
+			XYZ xyz = XYZ.from(rgb);
+			assertEquals(Float.floatToIntBits(M[0] * r + M[1] * g + M[2] * b),
+					Float.floatToIntBits(xyz.getX()));
+			assertEquals(Float.floatToIntBits(M[3] * r + M[4] * g + M[5] * b),
+					Float.floatToIntBits(xyz.getY()));
+			assertEquals(Float.floatToIntBits(M[6] * r + M[7] * g + M[8] * b),
+					Float.floatToIntBits(xyz.getZ()));
+		}
+	}
+
+	public void testEncodeInvertsLinearize() {
+		for (int c = 0; c < 256; c++) {
+			assertEquals(c, SRGBCompanding.encode(SRGBCompanding.linearize(c)));
+		}
+	}
+
+	public void testEncodeMatchesFormula() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000000; i++) {
+			float v = random.nextFloat();
+			assertEquals("value " + v, Math.round(SRGBCompanding.companding(v) * 255f), SRGBCompanding.encode(v));
+		}
+	}
+
+	public void testEncodeClamps() {
+		assertEquals(0, SRGBCompanding.encode(-0.5f));
+		assertEquals(0, SRGBCompanding.encode(Float.NaN));
+		assertEquals(255, SRGBCompanding.encode(1.5f));
+	}
+}
@@ -0,0 +1,102 @@
+package com.snajder.d.colorlib;
+
+import java.util.Random;
+
+import com.snajder.d.colorlib.util.XYZMatrices;
+
+import junit.framework.TestCase;
+
+public class TestWorkingSpaces extends TestCase {
+
+	private static void assertMatrix(float[] expected, float[] actual, float delta) {
+		for (int i = 0; i < 9; i++) {
+			assertEquals("element " + i, expected[i], actual[i], delta);
+		}
+	}
+
+	public void testSRGBUnchanged() {
+		Random random = new Random(17);
+		for (int i = 0; i < 10000; i++) {
+			RGB rgb = RGB.from(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+			XYZ expected = XYZ.from(rgb);
+			XYZ actual = XYZ.from(rgb, RGBWorkingSpace.SRGB, WhitePoint.D65);
+
+			assertEquals(expected.getX(), actual.getX(), 0f);
+			assertEquals(expected.getY(), actual.getY(), 0f);
+			assertEquals(expected.getZ(), actual.getZ(), 0f);
+			assertEquals(CIELab.from(expected).toString(), CIELab.from(actual, WhitePoint.D65).toString());
+		}
+	}
+
+	public void testMatchesPublishedMatrices() {
+		// sRGB computed from primaries and the hard-coded matrix
+		assertMatrix(XYZMatrices.SRGB, XYZMatrices.toFloat(XYZMatrices.fromPrimaries(
+				new double[] { 0.64, 0.33, 0.30, 0.60, 0.15, 0.06 }, WhitePoint.D65.normalized())), 1e-6f);
+
+		assertMatrix(new float[] {
+				0.5767309f, 0.1855540f, 0.1881852f,
+				0.2973769f, 0.6273491f, 0.0752741f,
+				0.0270343f, 0.0706872f, 0.9911085f },
+				RGBWorkingSpace.ADOBE_RGB.getToXYZ(WhitePoint.D65), 1e-5f);
+		assertMatrix(new float[] {
+				0.7976749f, 0.1351917f, 0.0313534f,
+				0.2880402f, 0.7118741f, 0.0000857f,
+				0.0000000f, 0.0000000f, 0.8252100f },
+				RGBWorkingSpace.PROPHOTO_RGB.getToXYZ(WhitePoint.D50), 1e-5f);
+
+		// Bradford adapted sRGB
+		assertMatrix(new float[] {
+				0.4360747f, 0.3850649f, 0.1430804f,
+				0.2225045f, 0.7168786f, 0.0606169f,
+				0.0139322f, 0.0971045f, 0.7141733f },
+				RGBWorkingSpace.SRGB.getToXYZ(WhitePoint.D50), 1e-5f);
+	}
+
+	public void testWhiteMapsToWhitePoint() {
+		for (RGBWorkingSpace space : RGBWorkingSpace.values()) {
+			for (WhitePoint white : WhitePoint.values()) {
+				XYZ xyz = XYZ.from(RGB.from(255, 255, 255), space, white);
+
+				assertEquals(space + " " + white, white.getX() / 100f, xyz.getX(), 1e-5f);
+				assertEquals(space + " " + white, 1f, xyz.getY(), 1e-5f);
+				assertEquals(space + " " + white, white.getZ() / 100f, xyz.getZ(), 1e-5f);
+			}
+		}
+	}
+
+	public void testRoundTrip() {
+		Random random = new Random(17);
+		int[] pixels = new int[10000];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = random.nextInt() & 0xFFFFFF;
+		}
+		float[] xyz = new float[pixels.length * 3];
+
+		for (RGBWorkingSpace space : RGBWorkingSpace.values()) {
+			for (WhitePoint white : WhitePoint.values()) {
+				XYZ.from(pixels, 0, pixels.length, xyz, 0, space, white);
+
+				for (int i = 0; i < pixels.length; i++) {
+					int p = pixels[i];
+					RGB rgb = RGB.from((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+					XYZ expected = XYZ.from(rgb, space, white);
+					assertEquals(expected.getX(), xyz[i * 3], 0f);
+					assertEquals(expected.getY(), xyz[i * 3 + 1], 0f);
+					assertEquals(expected.getZ(), xyz[i * 3 + 2], 0f);
+
+					XYZ back = XYZ.from(CIELab.from(expected, white), white);
+					assertEquals(space + " " + white, rgb.toString(), RGB.from(back, space, white).toString());
+				}
+			}
+		}
+	}
+
+	public void testGamutDiffers() {
+		XYZ red = XYZ.from(RGB.from(255, 0, 0), RGBWorkingSpace.REC_2020, WhitePoint.D65);
+
+		assertEquals("[r=255, g=0, b=0]", RGB.from(red, RGBWorkingSpace.REC_2020, WhitePoint.D65).toString());
+		// Rec.2020 red is outside of sRGB and Display P3 gamut
+		assertEquals(0, RGB.from(red, RGBWorkingSpace.SRGB, WhitePoint.D65).getG());
+		assertEquals(0, RGB.from(red, RGBWorkingSpace.DISPLAY_P3, WhitePoint.D65).getG());
+	}
+}